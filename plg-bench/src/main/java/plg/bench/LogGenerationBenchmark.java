@@ -0,0 +1,229 @@
+package plg.bench;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.deckfour.xes.model.XLog;
+import org.deckfour.xes.model.XTrace;
+import org.deckfour.xes.out.XMxmlGZIPSerializer;
+import org.deckfour.xes.out.XMxmlSerializer;
+import org.deckfour.xes.out.XSerializer;
+import org.deckfour.xes.out.XesXmlGZIPSerializer;
+import org.deckfour.xes.out.XesXmlSerializer;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import plg.generator.ProgressAdapter;
+import plg.generator.log.LogGenerator;
+import plg.generator.log.SimulationConfiguration;
+import plg.generator.log.noise.NoiseConfiguration;
+import plg.generator.process.ProcessGenerator;
+import plg.generator.process.RandomizationConfiguration;
+import plg.generator.scriptexecuter.IntegerScriptExecutor;
+import plg.generator.scriptexecuter.StringScriptExecutor;
+import plg.model.Process;
+import plg.model.activity.Task;
+import plg.model.data.IDataObjectOwner.DATA_OBJECT_DIRECTION;
+import plg.model.data.IntegerDataObject;
+import plg.model.data.StringDataObject;
+import plg.utils.Random;
+
+/**
+ * This class contains the benchmarks of the log generation. Reference models
+ * are randomized with a fixed seed, so the same parameters always produce the
+ * same models. Each benchmark operation generates (and, optionally,
+ * serializes) a log of {@link #noTraces} traces; besides the operations per
+ * second, the <tt>traces</tt> and <tt>events</tt> counters report the traces
+ * and events generated per second.
+ *
+ * <p> When {@link #dataObjects} is set, besides the plain data objects of the
+ * randomization, each task generates an integer and a string data object
+ * whose values are computed by Python scripts.
+ *
+ * <p> Run with <tt>mvn package && java -jar target/benchmarks.jar</tt>.
+ *
+ * @author Andrea Burattin
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class LogGenerationBenchmark {
+
+	/**
+	 * The seed used to randomize the reference models
+	 */
+	public static final long MODEL_SEED = 42;
+	/**
+	 * The script of the integer data objects
+	 */
+	public static final String INTEGER_SCRIPT = "from random import randint\n"
+			+ "def generate(caseId):\n"
+			+ "\treturn randint(0, 1000)";
+	/**
+	 * The script of the string data objects
+	 */
+	public static final String STRING_SCRIPT = "from random import randrange\n"
+			+ "def generate(caseId):\n"
+			+ "\treturn \"value-\" + str(randrange(100))";
+
+	@Param({ "small", "medium", "large" })
+	public String modelSize;
+
+	@Param({ "false", "true" })
+	public boolean noise;
+
+	@Param({ "false", "true" })
+	public boolean dataObjects;
+
+	@Param({ "none", "xes", "xes.gz", "mxml", "mxml.gz" })
+	public String serializer;
+
+	@Param({ "1000" })
+	public int noTraces;
+
+	private Process process;
+	private SimulationConfiguration configuration;
+
+	/**
+	 * This class counts the traces and the events generated by the benchmarks
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	public static class Counters {
+		public long traces;
+		public long events;
+
+		@Setup(Level.Iteration)
+		public void reset() {
+			traces = 0;
+			events = 0;
+		}
+	}
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		Random.RANDOM.setSeed(MODEL_SEED);
+		process = new Process("benchmark-" + modelSize + (dataObjects? "-data" : ""));
+		ProcessGenerator.randomizeProcess(process, getRandomizationConfiguration(modelSize, dataObjects));
+		if (dataObjects) {
+			addScriptDataObjects(process);
+		}
+		process.check();
+		configuration = new SimulationConfiguration(noTraces, noise? NoiseConfiguration.COMPLETE_NOISE : NoiseConfiguration.NO_NOISE);
+	}
+
+	@Benchmark
+	public XLog generateLog(Counters counters) throws Exception {
+		XLog log = new LogGenerator(process, configuration, new ProgressAdapter()).generateLog();
+		XSerializer xSerializer = getSerializer(serializer);
+		if (xSerializer != null) {
+			xSerializer.serialize(log, new NullOutputStream());
+		}
+		counters.traces += log.size();
+		for (XTrace trace : log) {
+			counters.events += trace.size();
+		}
+		return log;
+	}
+
+	/**
+	 * This method attaches an integer and a string script data object, both
+	 * generated, to each task of the provided process
+	 *
+	 * @param process the process to decorate
+	 */
+	public static void addScriptDataObjects(Process process) {
+		int i = 0;
+		for (Task task : process.getTasks()) {
+			String integerName = "integer_" + i;
+			IntegerDataObject integer = new IntegerDataObject(process, new IntegerScriptExecutor(INTEGER_SCRIPT));
+			integer.setName(integerName);
+			integer.setObjectOwner(task, DATA_OBJECT_DIRECTION.GENERATED);
+
+			String stringName = "string_" + i;
+			StringDataObject string = new StringDataObject(process, new StringScriptExecutor(STRING_SCRIPT));
+			string.setName(stringName);
+			string.setObjectOwner(task, DATA_OBJECT_DIRECTION.GENERATED);
+			i++;
+		}
+	}
+
+	/**
+	 * This method returns the randomization configuration of the provided size
+	 *
+	 * @param size the size of the model: <tt>small</tt>, <tt>medium</tt> or
+	 * <tt>large</tt>
+	 * @param dataObjects whether the model should contain data objects
+	 * @return the randomization configuration
+	 */
+	public static RandomizationConfiguration getRandomizationConfiguration(String size, boolean dataObjects) {
+		int branches = 2;
+		int depth = 2;
+		if ("medium".equals(size)) {
+			branches = 3;
+			depth = 3;
+		} else if ("large".equals(size)) {
+			branches = 4;
+			depth = 5;
+		}
+		return new RandomizationConfiguration(
+				branches, // max AND branches
+				branches, // max XOR branches
+				0.1, // loop weight
+				0.2, // single activity weight
+				0.1, // skip weight
+				0.7, // sequence weight
+				0.3, // AND weight
+				0.3, // XOR weight
+				depth, // maximum depth
+				dataObjects? 0.3 : 0 // data object probability
+			);
+	}
+
+	/**
+	 * This method returns the serializer with the provided name
+	 *
+	 * @param name the name of the serializer, or <tt>none</tt>
+	 * @return the serializer, or <tt>null</tt> if no serialization is
+	 * required
+	 */
+	public static XSerializer getSerializer(String name) {
+		if (name.equals("xes")) {
+			return new XesXmlSerializer();
+		} else if (name.equals("xes.gz")) {
+			return new XesXmlGZIPSerializer();
+		} else if (name.equals("mxml")) {
+			return new XMxmlSerializer();
+		} else if (name.equals("mxml.gz")) {
+			return new XMxmlGZIPSerializer();
+		}
+		return null;
+	}
+
+	/**
+	 * This stream discards everything, so the serialization is measured
+	 * without disk I/O
+	 */
+	private static class NullOutputStream extends OutputStream {
+		@Override
+		public void write(int b) throws IOException { }
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException { }
+	}
+}
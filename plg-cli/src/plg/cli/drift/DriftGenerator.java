@@ -0,0 +1,240 @@
+package plg.cli.drift;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.util.List;
+
+import org.kohsuke.args4j.CmdLineException;
+import org.kohsuke.args4j.CmdLineParser;
+import org.kohsuke.args4j.Option;
+
+import plg.cli.log.ParallelTraceGenerator;
+import plg.cli.log.out.LogFormat;
+import plg.cli.log.out.TraceStreamSerializer;
+import plg.common.log.TraceSimulator;
+import plg.common.scripts.PooledScripts;
+import plg.common.utils.RandomSource;
+import plg.generator.log.SimulationConfiguration;
+import plg.generator.process.EvolutionConfiguration;
+import plg.generator.process.RandomizationConfiguration;
+import plg.io.exporter.PLGExporter;
+import plg.io.importer.PLGImporter;
+import plg.model.Process;
+import plg.utils.PlgConstants;
+
+/**
+ * This class contains the main program to generate a drifting log out of a
+ * chain of evolutions of a process
+ * 
+ * @author Andrea Burattin
+ */
+public class DriftGenerator {
+
+	/**
+	 * The randomization parameters used to evolve the processes (the same
+	 * default values of the evolution dialog of the GUI)
+	 */
+	public static final RandomizationConfiguration BASIC_VALUES_EVOLUTION = new RandomizationConfiguration(
+			2, // max AND branches
+			2, // max XOR branches
+			0.01, // loop weight
+			0.5, // single activity weight
+			0.1, // skip weight
+			0.5, // sequence weight
+			0.01, // AND weight
+			0.01, // XOR weight
+			2, // maximum depth
+			0.1 // data object probability
+		);
+	
+	/**
+	 * The suffix of the file, next to the log, listing the drift points
+	 */
+	public static final String DRIFTS_SUFFIX = ".drifts.csv";
+	
+	/**
+	 * This class contains the command line parameters
+	 *
+	 * @author Andrea Burattin
+	 */
+	private class CLIOptions {
+		
+		@Option(
+			name = "--version",
+			aliases = "-v",
+			usage = "check the current version of the application"
+		)
+		public Boolean printVersion = false;
+		
+		@Option(
+			name = "--model",
+			aliases = "-m",
+			usage = "the base process model"
+		)
+		public File modelFile = null;
+		
+		@Option(
+			name = "--log",
+			aliases = "-l",
+			usage = "the destination log file"
+		)
+		public String logDestination = null;
+		
+		@Option(
+			name = "--drifts",
+			aliases = "-k",
+			usage = "the number of evolutions of the base model, i.e., the number of drift points"
+		)
+		public Integer drifts = null;
+		
+		@Option(
+			name = "--traces",
+			aliases = "-c",
+			usage = "the number of traces generated by each version of the model"
+		)
+		public Integer tracesPerVersion = null;
+		
+		@Option(
+			name = "--evolution-probability",
+			aliases = "-p",
+			usage = "the probability of evolving each fragment of the process"
+		)
+		public Double evolutionProbability = 0.1;
+		
+		@Option(
+			name = "--threads",
+			aliases = "-t",
+			usage = "the number of threads used to simulate the traces"
+		)
+		public Integer threads = Runtime.getRuntime().availableProcessors();
+		
+		@Option(
+			name = "--seed",
+			usage = "the seed of the evolutions and of the simulation (random if not provided)"
+		)
+		public Long seed = null;
+		
+		@Option(
+			name = "--models",
+			usage = "the folder where each version of the model is exported"
+		)
+		public File modelsFolder = null;
+	}
+	
+	/**
+	 * 
+	 * @param args
+	 * @throws Exception 
+	 */
+	public static void main(String[] args) throws Exception {
+		
+		// CLI parameters parsing
+		CLIOptions parameters = new DriftGenerator().new CLIOptions();
+		CmdLineParser parser = new CmdLineParser(parameters);
+		try {
+			parser.parseArgument(args);
+		} catch (CmdLineException e) {
+			System.err.println(e.getMessage());
+			System.err.println("");
+			System.err.println("java -jar DriftGenerator.jar -m <model file> -l <destination log> -k <no of drifts> -c <no of traces per version>");
+			parser.printUsage(System.err);
+			System.exit(1);
+		}
+		
+		// check parameters
+		if (!parameters.printVersion &&
+			(parameters.modelFile == null || parameters.logDestination == null || parameters.drifts == null || parameters.drifts < 0 ||
+			parameters.tracesPerVersion == null || parameters.tracesPerVersion < 1 || parameters.threads < 1)) {
+			System.err.println("java -jar DriftGenerator.jar -m <model file> -l <destination log> -k <no of drifts> -c <no of traces per version>");
+			parser.printUsage(System.err);
+			System.exit(1);
+		}
+		
+		// version menu
+		if (parameters.printVersion) {
+			System.out.println("PLG-CLI (" + PlgConstants.libPLG_SIGNATURE + ")");
+			System.exit(0);
+		}
+		
+		long seed = (parameters.seed == null)? new java.util.Random().nextLong() : parameters.seed;
+		
+		// parameters summary
+		System.out.println("PLG-CLI (" + PlgConstants.libPLG_SIGNATURE + ")");
+		System.out.println("");
+		System.out.println("Base model: " + parameters.modelFile);
+		System.out.println("Log destination: " + parameters.logDestination);
+		System.out.println("No. of drifts: " + parameters.drifts);
+		System.out.println("No. of traces per version: " + parameters.tracesPerVersion);
+		System.out.println("Evolution probability: " + parameters.evolutionProbability);
+		System.out.println("Threads: " + parameters.threads);
+		System.out.println("Seed: " + seed);
+		System.out.println("");
+		if (parameters.threads > 1 && !RandomSource.isPerThread()) {
+			System.err.println("Warning: the random source of the library cannot be split by thread, traces are simulated one at a time");
+		}
+		
+		// model import
+		System.out.print("1. Importing model... ");
+		Process p = new PLGImporter().importModel(parameters.modelFile.getAbsolutePath());
+		p.check();
+		PooledScripts.install(p);
+		System.out.println("done!");
+		
+		// evolutions
+		System.out.print("2. Evolving model... ");
+		List<Process> versions = DriftTraceSimulator.buildChain(
+				p,
+				parameters.drifts,
+				new EvolutionConfiguration(parameters.evolutionProbability, BASIC_VALUES_EVOLUTION),
+				seed);
+		for (Process version : versions) {
+			PooledScripts.install(version);
+		}
+		if (parameters.modelsFolder != null) {
+			parameters.modelsFolder.mkdirs();
+			for (int i = 0; i < versions.size(); i++) {
+				new PLGExporter().exportModel(versions.get(i), new File(parameters.modelsFolder, "version-" + i + ".plg").getAbsolutePath());
+			}
+		}
+		System.out.println("done!");
+		
+		// log generation and export
+		System.out.print("3. Generating and exporting log... ");
+		SimulationConfiguration sc = new SimulationConfiguration(versions.size() * parameters.tracesPerVersion);
+		DriftTraceSimulator simulator = new DriftTraceSimulator(versions, sc, parameters.tracesPerVersion, seed);
+		ParallelTraceGenerator generator = new ParallelTraceGenerator(simulator, parameters.threads);
+		try (OutputStream out = new FileOutputStream(parameters.logDestination);
+				TraceStreamSerializer serializer = LogFormat.fromFileName(parameters.logDestination).newSerializer(out)) {
+			serializer.startLog(p.getName() + " (drifting)");
+			generator.generate(0, simulator.getNumberOfTraces(), serializer);
+			serializer.endLog();
+		}
+		writeDriftPoints(simulator, new File(parameters.logDestination + DRIFTS_SUFFIX));
+		System.out.println("done!");
+	}
+	
+	/**
+	 * This method writes the list of process versions, with the first trace
+	 * generated by each of them
+	 * 
+	 * @param simulator the drift simulator
+	 * @param destination the destination file
+	 * @throws Exception
+	 */
+	private static void writeDriftPoints(DriftTraceSimulator simulator, File destination) throws Exception {
+		try (PrintWriter writer = new PrintWriter(destination, "UTF-8")) {
+			writer.println("version,process,first_trace,first_case_id,drift_point");
+			List<Process> versions = simulator.getVersions();
+			for (int i = 0; i < versions.size(); i++) {
+				int firstTrace = i * (simulator.getNumberOfTraces() / versions.size());
+				writer.println(i + "," +
+						versions.get(i).getName().replace(",", " ") + "," +
+						firstTrace + "," +
+						TraceSimulator.getCaseId(firstTrace) + "," +
+						simulator.isDriftPoint(firstTrace));
+			}
+		}
+	}
+}
@@ -0,0 +1,172 @@
+package plg.cli.drift;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import org.deckfour.xes.factory.XFactory;
+import org.deckfour.xes.factory.XFactoryRegistry;
+import org.deckfour.xes.model.XTrace;
+
+import plg.common.log.TraceSimulator;
+import plg.common.utils.RandomSource;
+import plg.generator.log.SimulationConfiguration;
+import plg.generator.process.EvolutionConfiguration;
+import plg.generator.process.EvolutionGenerator;
+import plg.model.Process;
+
+/**
+ * This class simulates a drifting log: a base process is evolved into a chain
+ * of versions and the traces of the log are taken, in blocks of the same size,
+ * from each version in turn. Each trace is annotated with the version which
+ * generated it ({@link #KEY_VERSION}) and the first trace of every version
+ * after the base one is marked as drift point ({@link #KEY_DRIFT_POINT}).
+ *
+ * <p> Simulations are always seeded, so traces are placed on the time line
+ * according to their index and the resulting log is chronologically ordered
+ * across the versions.
+ *
+ * @author Andrea Burattin
+ */
+public class DriftTraceSimulator extends TraceSimulator {
+
+	/**
+	 * The trace attribute with the index of the process version (0 for the
+	 * base process)
+	 */
+	public static final String KEY_VERSION = "drift:version";
+	/**
+	 * The trace attribute with the name of the process version
+	 */
+	public static final String KEY_PROCESS = "drift:process";
+	/**
+	 * The trace attribute set to <tt>true</tt> on the first trace of each
+	 * evolved version
+	 */
+	public static final String KEY_DRIFT_POINT = "drift:point";
+
+	private static final XFactory factory = XFactoryRegistry.instance().currentDefault();
+
+	private List<TraceSimulator> versions = new ArrayList<TraceSimulator>();
+	private int tracesPerVersion;
+
+	/**
+	 * Basic constructor
+	 *
+	 * @param versions the process versions, starting from the base one
+	 * @param configuration the simulation configuration of each version
+	 * @param tracesPerVersion the number of traces generated by each version
+	 * @param seed the seed of the simulation
+	 */
+	public DriftTraceSimulator(List<Process> versions, SimulationConfiguration configuration, int tracesPerVersion, long seed) {
+		super(versions.get(0), configuration, seed);
+		if (tracesPerVersion < 1) {
+			throw new IllegalArgumentException("Each version must generate at least one trace");
+		}
+		for (Process version : versions) {
+			this.versions.add(new TraceSimulator(version, configuration, seed));
+		}
+		this.tracesPerVersion = tracesPerVersion;
+	}
+
+	/**
+	 * This method builds a chain of evolutions of the provided process. Each
+	 * version is the evolution of the previous one and is checked. If a seed
+	 * is provided, the chain depends only on the seed.
+	 *
+	 * @param base the base process
+	 * @param drifts the number of evolutions
+	 * @param configuration the configuration of each evolution
+	 * @param seed the seed of the evolutions, or <tt>null</tt>
+	 * @return the versions, starting from the base process
+	 * @throws Exception if an evolution fails
+	 */
+	public static List<Process> buildChain(Process base, int drifts, final EvolutionConfiguration configuration, Long seed) throws Exception {
+		List<Process> versions = new ArrayList<Process>();
+		versions.add(base);
+		for (int i = 0; i < drifts; i++) {
+			Process evolution;
+			if (seed == null) {
+				evolution = EvolutionGenerator.evolveProcess(versions.get(i), configuration);
+			} else {
+				final Process previous = versions.get(i);
+				evolution = RandomSource.call(getTraceSeed(~seed, i), new Callable<Process>() {
+					@Override
+					public Process call() throws Exception {
+						return EvolutionGenerator.evolveProcess(previous, configuration);
+					}
+				});
+			}
+			evolution.check();
+			versions.add(evolution);
+		}
+		return versions;
+	}
+
+	@Override
+	public XTrace simulate(int traceIndex) throws Exception {
+		int version = getVersion(traceIndex);
+		XTrace trace = versions.get(version).simulate(traceIndex);
+		trace.getAttributes().put(KEY_VERSION, factory.createAttributeDiscrete(KEY_VERSION, version, null));
+		trace.getAttributes().put(KEY_PROCESS, factory.createAttributeLiteral(KEY_PROCESS, versions.get(version).getProcess().getName(), null));
+		trace.getAttributes().put(KEY_DRIFT_POINT, factory.createAttributeBoolean(KEY_DRIFT_POINT, isDriftPoint(traceIndex), null));
+		return trace;
+	}
+
+	/**
+	 * This method returns the version which generates the provided trace
+	 *
+	 * @param traceIndex the index of the trace
+	 * @return the index of the version
+	 */
+	public int getVersion(int traceIndex) {
+		return Math.min(traceIndex / tracesPerVersion, versions.size() - 1);
+	}
+
+	/**
+	 * This method checks whether the provided trace is the first one of an
+	 * evolved version
+	 *
+	 * @param traceIndex the index of the trace
+	 * @return whether the trace is a drift point
+	 */
+	public boolean isDriftPoint(int traceIndex) {
+		return traceIndex > 0 && traceIndex % tracesPerVersion == 0 && traceIndex / tracesPerVersion < versions.size();
+	}
+
+	/**
+	 * This method returns the indexes of the drift points
+	 *
+	 * @return the index of the first trace of each evolved version
+	 */
+	public List<Integer> getDriftPoints() {
+		List<Integer> points = new ArrayList<Integer>();
+		for (int i = 1; i < versions.size(); i++) {
+			points.add(i * tracesPerVersion);
+		}
+		return Collections.unmodifiableList(points);
+	}
+
+	/**
+	 * This method returns the total number of traces of the drifting log
+	 *
+	 * @return the number of traces
+	 */
+	public int getNumberOfTraces() {
+		return versions.size() * tracesPerVersion;
+	}
+
+	/**
+	 * This method returns the process versions
+	 *
+	 * @return the versions, starting from the base process
+	 */
+	public List<Process> getVersions() {
+		List<Process> processes = new ArrayList<Process>();
+		for (TraceSimulator version : versions) {
+			processes.add(version.getProcess());
+		}
+		return processes;
+	}
+}
@@ -0,0 +1,95 @@
+package plg.cli.log;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+
+import plg.cli.log.out.LogFormat;
+import plg.cli.log.out.TraceStreamSerializer;
+import plg.common.io.CountingOutputStream;
+import plg.common.io.NonClosingOutputStream;
+
+/**
+ * This class writes single file logs that can later be extended with more
+ * traces. The footer of the log is written separately from the traces and its
+ * position is recorded in the {@link LogIndex}: for compressed logs, the traces
+ * and the footer are distinct gzip members (the concatenation of gzip members
+ * is still a valid gzip stream). To append traces, the file is truncated at
+ * the footer, new traces are written after the existing ones and a new footer
+ * is added. The existing traces are never read back nor decompressed.
+ *
+ * <p> Columnar logs store the totals in their footer, so they are written as a
+ * whole and can only be extended as shards.
+ *
+ * @author Andrea Burattin
+ */
+public class AppendableLogWriter {
+
+	/**
+	 * This method generates the traces and writes them into the log, updating
+	 * the provided index
+	 *
+	 * @param generator the generator of the traces
+	 * @param logDestination the destination log
+	 * @param index the index of the log; traces are generated starting from
+	 * {@link LogIndex#getTraces()}
+	 * @param noTraces the number of traces to generate
+	 * @param gzipThreads the number of compression threads
+	 * @param append whether the traces are appended to the existing log
+	 * @throws Exception if either the simulation or the serialization fail
+	 */
+	public static void write(ParallelTraceGenerator generator, String logDestination, LogIndex index, int noTraces, int gzipThreads, boolean append) throws Exception {
+		LogFormat format = index.getFormat();
+		File file = new File(logDestination);
+		
+		if (format == LogFormat.COLUMNAR) {
+			if (append) {
+				throw new IOException("Columnar logs can only be extended as shards");
+			}
+			try (OutputStream out = new FileOutputStream(file);
+					TraceStreamSerializer serializer = format.newSerializer(out, gzipThreads)) {
+				serializer.startLog(index.getLogName());
+				generator.generate(0, noTraces, serializer);
+				serializer.endLog();
+			}
+			index.setTraces(noTraces);
+			return;
+		}
+		
+		long start = 0;
+		if (append) {
+			if (index.getFooterOffset() < 0 || file.length() <= index.getFooterOffset()) {
+				throw new IOException("The log " + logDestination + " does not match its index");
+			}
+			try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+				raf.setLength(index.getFooterOffset());
+			}
+			start = index.getFooterOffset();
+		}
+		
+		LogFormat plain = format.getUncompressed();
+		try (CountingOutputStream counter = new CountingOutputStream(new FileOutputStream(file, append), start)) {
+			// the traces
+			TraceStreamSerializer body = plain.newSerializer(format.wrap(new NonClosingOutputStream(counter), gzipThreads));
+			try {
+				if (!append) {
+					body.startLog(index.getLogName());
+				}
+				generator.generate(index.getTraces(), noTraces, body);
+			} finally {
+				body.close();
+			}
+			
+			// the footer
+			long footerOffset = counter.getCount();
+			TraceStreamSerializer footer = plain.newSerializer(format.wrap(new NonClosingOutputStream(counter), 1));
+			footer.endLog();
+			footer.close();
+			
+			index.setFooterOffset(footerOffset);
+			index.setTraces(index.getTraces() + noTraces);
+		}
+	}
+}
@@ -0,0 +1,220 @@
+package plg.cli.log;
+
+import java.io.Closeable;
+import java.io.PrintStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.util.Locale;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.deckfour.xes.model.XTrace;
+
+import plg.generator.IProgressVisualizer;
+
+/**
+ * This progress visualizer is meant for headless runs: at a fixed interval it
+ * prints one JSON object per line with the number of traces (and events)
+ * generated, the current throughput, the estimated remaining time, and the
+ * heap and garbage collection figures of the JVM. A last record, with status
+ * <tt>finished</tt>, is printed when the generation completes.
+ *
+ * <p> Traces are counted with {@link #inc()}. Events are counted only when
+ * traces are reported through {@link #traceDone(IProgressVisualizer, XTrace)},
+ * as done by the streaming generators of the command line; if events are not
+ * reported (see {@link #setCountingEvents(boolean)}) the event figures are
+ * <tt>null</tt>. This class is thread safe.
+ *
+ * @author Andrea Burattin
+ */
+public class JsonProgressVisualizer implements IProgressVisualizer, Closeable {
+
+	/**
+	 * The default interval between two records, in milliseconds
+	 */
+	public static final long DEFAULT_INTERVAL = 1000;
+
+	private PrintStream out;
+	private long interval;
+	private Timer timer;
+
+	private volatile int minimum = 0;
+	private volatile int maximum = 0;
+	private volatile String text = "";
+	private volatile boolean countingEvents = true;
+	private AtomicLong traces = new AtomicLong(0);
+	private AtomicLong events = new AtomicLong(0);
+
+	private long startTime = 0;
+	private long lastTime = 0;
+	private long lastTraces = 0;
+	private long lastEvents = 0;
+
+	/**
+	 * Basic constructor
+	 *
+	 * @param out the stream which receives the records
+	 * @param interval the interval between two records, in milliseconds
+	 */
+	public JsonProgressVisualizer(PrintStream out, long interval) {
+		this.out = out;
+		this.interval = interval;
+	}
+
+	/**
+	 * This method reports a trace as done to the provided visualizer and, if
+	 * it is a {@link JsonProgressVisualizer}, counts its events
+	 *
+	 * @param progress the progress visualizer
+	 * @param trace the trace just generated
+	 */
+	public static void traceDone(IProgressVisualizer progress, XTrace trace) {
+		if (progress instanceof JsonProgressVisualizer) {
+			((JsonProgressVisualizer) progress).events.addAndGet(trace.size());
+		}
+		progress.inc();
+	}
+
+	/**
+	 * This method sets whether the events are reported through
+	 * {@link #traceDone(IProgressVisualizer, XTrace)}. If not, the event
+	 * figures of the records are <tt>null</tt>.
+	 *
+	 * @param countingEvents whether the events are counted
+	 */
+	public void setCountingEvents(boolean countingEvents) {
+		this.countingEvents = countingEvents;
+	}
+
+	@Override
+	public void setMinimum(int minimum) {
+		this.minimum = minimum;
+	}
+
+	@Override
+	public void setMaximum(int maximum) {
+		this.maximum = maximum;
+	}
+
+	@Override
+	public void inc() {
+		traces.incrementAndGet();
+	}
+
+	@Override
+	public void setIndeterminate(boolean indeterminate) { }
+
+	@Override
+	public void setText(String status) {
+		this.text = (status == null)? "" : status;
+	}
+
+	@Override
+	public synchronized void start() {
+		if (timer != null) {
+			return;
+		}
+		startTime = lastTime = System.currentTimeMillis();
+		timer = new Timer("json-progress", true);
+		timer.schedule(new TimerTask() {
+			@Override
+			public void run() {
+				report("running");
+			}
+		}, interval, interval);
+		report("started");
+	}
+
+	@Override
+	public synchronized void finished() {
+		if (timer == null) {
+			return;
+		}
+		timer.cancel();
+		timer = null;
+		report("finished");
+	}
+
+	/**
+	 * This method prints the last record, if the generation is still running,
+	 * and closes the stream, unless it is the standard output or error
+	 */
+	@Override
+	public void close() {
+		finished();
+		if (out != System.out && out != System.err) {
+			out.close();
+		}
+	}
+
+	/**
+	 * This method prints one record
+	 *
+	 * @param status the status of the generation
+	 */
+	private synchronized void report(String status) {
+		long now = System.currentTimeMillis();
+		long tracesDone = traces.get();
+		long eventsDone = events.get();
+		double seconds = Math.max(1, now - lastTime) / 1000d;
+		double tracesPerSec = (tracesDone - lastTraces) / seconds;
+		double eventsPerSec = (eventsDone - lastEvents) / seconds;
+		long elapsed = now - startTime;
+		long total = maximum - minimum;
+		String eta = "null";
+		if (tracesDone > 0 && total > 0) {
+			eta = Long.toString(Math.max(0, elapsed * (total - tracesDone) / tracesDone));
+		}
+
+		MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+		long gcTime = 0;
+		long gcCount = 0;
+		for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+			gcTime += Math.max(0, gc.getCollectionTime());
+			gcCount += Math.max(0, gc.getCollectionCount());
+		}
+
+		out.println(String.format(Locale.ROOT,
+				"{\"time\":%d,\"status\":\"%s\",\"text\":\"%s\",\"elapsed_ms\":%d," +
+				"\"traces_done\":%d,\"traces_total\":%d,\"traces_per_sec\":%.1f," +
+				"\"events_done\":%s,\"events_per_sec\":%s,\"eta_ms\":%s," +
+				"\"heap_used_bytes\":%d,\"heap_max_bytes\":%s,\"gc_time_ms\":%d,\"gc_count\":%d}",
+				now, status, escape(text), elapsed,
+				tracesDone, total, tracesPerSec,
+				countingEvents? Long.toString(eventsDone) : "null",
+				countingEvents? String.format(Locale.ROOT, "%.1f", eventsPerSec) : "null",
+				eta,
+				heap.getUsed(),
+				// the maximum is -1 when it is undefined
+				(heap.getMax() < 0)? "null" : Long.toString(heap.getMax()),
+				gcTime, gcCount));
+		out.flush();
+
+		lastTime = now;
+		lastTraces = tracesDone;
+		lastEvents = eventsDone;
+	}
+
+	/**
+	 * This method escapes the provided string to be used as JSON string
+	 *
+	 * @param value the string to escape
+	 * @return the escaped string
+	 */
+	private static String escape(String value) {
+		StringBuilder sb = new StringBuilder(value.length());
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c == '"' || c == '\\') {
+				sb.append('\\').append(c);
+			} else if (c < 0x20) {
+				sb.append(String.format("\\u%04x", (int) c));
+			} else {
+				sb.append(c);
+			}
+		}
+		return sb.toString();
+	}
+}
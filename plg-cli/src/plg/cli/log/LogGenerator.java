@@ -2,15 +2,27 @@ package plg.cli.log;
 
 import java.io.File;
 import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.List;
 
 import org.deckfour.xes.model.XLog;
-import org.deckfour.xes.out.XMxmlSerializer;
 import org.deckfour.xes.out.XSerializer;
-import org.deckfour.xes.out.XesXmlSerializer;
 import org.kohsuke.args4j.CmdLineException;
 import org.kohsuke.args4j.CmdLineParser;
 import org.kohsuke.args4j.Option;
 
+import plg.cli.log.batch.BatchJob;
+import plg.cli.log.batch.BatchManifest;
+import plg.cli.log.batch.BatchResult;
+import plg.cli.log.batch.BatchRunner;
+import plg.cli.log.out.LogFormat;
+import plg.common.io.ProcessSnapshotCache;
+import plg.common.log.TraceSimulator;
+import plg.common.scripts.PooledScripts;
+import plg.common.utils.RandomSource;
+import plg.generator.IProgressVisualizer;
 import plg.generator.ProgressAdapter;
 import plg.generator.log.SimulationConfiguration;
 import plg.io.importer.BPMNImporter;
@@ -49,7 +61,7 @@ public class LogGenerator {
 		@Option(
 			name = "--log",
 			aliases = "-l",
-			usage = "the destination log file"
+			usage = "the destination log file (.xes, .xes.gz, .mxml, .mxml.gz or the columnar .plgc)"
 		)
 		public String logDestination = null;
 		
@@ -59,6 +71,89 @@ public class LogGenerator {
 			usage = "the number of traces to generate"
 		)
 		public Integer noTraces = null;
+		
+		@Option(
+			name = "--streaming",
+			aliases = "-s",
+			usage = "write each trace as soon as it is simulated, without keeping the whole log in memory"
+		)
+		public Boolean streaming = false;
+		
+		@Option(
+			name = "--threads",
+			aliases = "-t",
+			usage = "the number of threads used to simulate the traces (implies --streaming)"
+		)
+		public Integer threads = 1;
+		
+		@Option(
+			name = "--seed",
+			usage = "the seed of the simulation: trace i depends only on the seed and on i (implies --streaming)"
+		)
+		public Long seed = null;
+		
+		@Option(
+			name = "--shard-size",
+			usage = "split the log into numbered files with at most this number of traces each, written concurrently (implies --streaming)"
+		)
+		public Integer shardSize = null;
+		
+		@Option(
+			name = "--append",
+			aliases = "-a",
+			usage = "add the traces to a log previously generated with the streaming output, continuing its trace numbering and seed (implies --streaming)"
+		)
+		public Boolean append = false;
+		
+		@Option(
+			name = "--gzip-threads",
+			usage = "the number of threads used to compress .xes.gz and .mxml.gz logs"
+		)
+		public Integer gzipThreads = 1;
+		
+		@Option(
+			name = "--progress-json",
+			usage = "print a JSON record with throughput, ETA, heap and GC figures at every interval into this file (- for the standard error)"
+		)
+		public String progressJson = null;
+		
+		@Option(
+			name = "--progress-interval",
+			usage = "the interval between two JSON progress records, in milliseconds"
+		)
+		public Long progressInterval = JsonProgressVisualizer.DEFAULT_INTERVAL;
+		
+		@Option(
+			name = "--snapshot-cache",
+			usage = "the folder of the binary snapshots of the imported models (default: the PLG support folder)"
+		)
+		public File snapshotCache = null;
+		
+		@Option(
+			name = "--no-snapshot-cache",
+			usage = "always parse and check the models, without using or storing snapshots"
+		)
+		public Boolean noSnapshotCache = false;
+		
+		@Option(
+			name = "--batch",
+			aliases = "-b",
+			usage = "a CSV or JSON manifest of generation jobs to run (replaces -m, -l and -c)"
+		)
+		public File batchManifest = null;
+		
+		@Option(
+			name = "--jobs",
+			aliases = "-j",
+			usage = "the number of batch jobs running at the same time"
+		)
+		public Integer jobs = Runtime.getRuntime().availableProcessors();
+		
+		@Option(
+			name = "--summary",
+			usage = "the CSV file with the timings of the batch jobs (default: the manifest name followed by .summary.csv)"
+		)
+		public File summary = null;
 	}
 	
 	/**
@@ -82,8 +177,9 @@ public class LogGenerator {
 		}
 		
 		// check parameters
-		if (!parameters.printVersion &&
-			(parameters.modelFile == null || parameters.logDestination == null || parameters.noTraces == null)) {
+		if (!parameters.printVersion && parameters.batchManifest == null &&
+			(parameters.modelFile == null || parameters.logDestination == null || parameters.noTraces == null || parameters.threads < 1 || parameters.gzipThreads < 1 ||
+			(parameters.shardSize != null && parameters.shardSize < 1))) {
 			System.err.println("java -jar LogGenerator.jar -m <model file> -l <destination log> -c <no of traces>");
 			parser.printUsage(System.err);
 			System.exit(1);
@@ -95,40 +191,230 @@ public class LogGenerator {
 			System.exit(0);
 		}
 		
+		// batch mode
+		if (parameters.batchManifest != null) {
+			runBatch(parameters);
+			return;
+		}
+		
+		// append mode: the index of the log decides seed and sharding
+		LogIndex index = null;
+		if (parameters.append) {
+			index = LogIndex.load(parameters.logDestination);
+			if (index.getFormat() != LogFormat.fromFileName(parameters.logDestination)) {
+				System.err.println("The log has been generated as " + index.getFormat());
+				System.exit(1);
+			}
+			if (parameters.seed != null && !parameters.seed.equals(index.getSeed())) {
+				System.err.println("The log has been generated with seed " + index.getSeed());
+				System.exit(1);
+			}
+			if (parameters.shardSize != null && !parameters.shardSize.equals(index.getShardSize())) {
+				System.err.println("The log has been generated with shard size " + index.getShardSize());
+				System.exit(1);
+			}
+			parameters.seed = index.getSeed();
+			parameters.shardSize = index.getShardSize();
+		}
+		
 		// parameters summary
 		System.out.println("PLG-CLI (" + PlgConstants.libPLG_SIGNATURE + ")");
 		System.out.println("");
 		System.out.println("Model: " + parameters.modelFile);
 		System.out.println("Log destination: " + parameters.logDestination);
 		System.out.println("No. of traces: " + parameters.noTraces);
+		System.out.println("Streaming output: " + isStreaming(parameters));
+		System.out.println("Threads: " + parameters.threads);
+		System.out.println("Format: " + LogFormat.fromFileName(parameters.logDestination));
+		System.out.println("Compression threads: " + parameters.gzipThreads);
+		System.out.println("Seed: " + ((parameters.seed == null)? "none" : parameters.seed));
+		System.out.println("Shard size: " + ((parameters.shardSize == null)? "no sharding" : parameters.shardSize));
+		System.out.println("Append: " + ((index == null)? "no" : "after " + index.getTraces() + " traces"));
 		System.out.println("");
+		if (parameters.seed != null && parameters.threads > 1 && !RandomSource.isPerThread()) {
+			System.err.println("Warning: the random source of the library cannot be split by thread, seeded traces are simulated one at a time");
+		}
 		
 		// model import
 		System.out.print("1. Importing model... ");
 		//BPMNImporter importer = new BPMNImporter();
 		PLGImporter importer = new PLGImporter();
-		Process p = importer.importModel(parameters.modelFile.getAbsolutePath());
-		System.out.println("done!");
+		ProcessSnapshotCache cache = getSnapshotCache(parameters);
+		Process p;
+		if (cache == null) {
+			p = importer.importModel(parameters.modelFile.getAbsolutePath());
+			System.out.println("done!");
+			
+			// model checking
+			System.out.print("2. Model checking... ");
+			p.check();
+			System.out.println("done!");
+		} else {
+			// snapshots contain only checked models
+			p = cache.importCheckedModel(parameters.modelFile, importer);
+			System.out.println("done!");
+			System.out.println("2. Model checking... done!");
+		}
+		PooledScripts.install(p);
 		
-		// model checking
-		System.out.print("2. Model checking... ");
-		p.check();
-		System.out.println("done!");
+		IProgressVisualizer progress = getProgressVisualizer(parameters);
+		try {
+			generate(parameters, p, index, progress);
+		} finally {
+			if (progress instanceof JsonProgressVisualizer) {
+				((JsonProgressVisualizer) progress).close();
+			}
+		}
+	}
+	
+	/**
+	 * This method generates and exports the log of the provided process
+	 * 
+	 * @param parameters the command line parameters
+	 * @param p the checked process
+	 * @param index the index of the log to append to, or <tt>null</tt>
+	 * @param progress the progress visualizer
+	 * @throws Exception
+	 */
+	private static void generate(CLIOptions parameters, Process p, LogIndex index, IProgressVisualizer progress) throws Exception {
+		SimulationConfiguration sc = new SimulationConfiguration(parameters.noTraces);
+		if (parameters.shardSize != null) {
+			// log generation and export, one independent shard per task
+			System.out.print("3. Generating and exporting log shards... ");
+			if (index == null) {
+				index = new LogIndex(LogFormat.fromFileName(parameters.logDestination), p.getName(), parameters.seed, parameters.shardSize);
+			}
+			ShardedLogGenerator generator = new ShardedLogGenerator(new TraceSimulator(p, sc, parameters.seed), parameters.threads);
+			generator.setProgressVisualizer(progress);
+			List<File> shards = generator.generate(index.getTraces(), parameters.noTraces, parameters.shardSize, index.getShards() + 1, parameters.logDestination);
+			index.setShards(index.getShards() + shards.size());
+			index.setTraces(index.getTraces() + parameters.noTraces);
+			index.store(parameters.logDestination);
+			System.out.println("done! " + shards.size() + " shards written");
+			return;
+		}
+		if (isStreaming(parameters)) {
+			// log generation and export, one trace at a time
+			System.out.print("3. Generating and exporting log... ");
+			if (index == null) {
+				index = new LogIndex(LogFormat.fromFileName(parameters.logDestination), p.getName(), parameters.seed, null);
+			}
+			ParallelTraceGenerator generator = new ParallelTraceGenerator(new TraceSimulator(p, sc, parameters.seed), parameters.threads);
+			generator.setProgressVisualizer(progress);
+			AppendableLogWriter.write(generator, parameters.logDestination, index, parameters.noTraces, parameters.gzipThreads, parameters.append);
+			index.store(parameters.logDestination);
+			System.out.println("done!");
+			return;
+		}
 		
 		// log generations
 		System.out.print("3. Generating log... ");
-		SimulationConfiguration sc = new SimulationConfiguration(parameters.noTraces);
-		plg.generator.log.LogGenerator generator = new plg.generator.log.LogGenerator(p, sc, new ProgressAdapter());
+		if (progress instanceof JsonProgressVisualizer) {
+			// the library reports only the number of traces
+			((JsonProgressVisualizer) progress).setCountingEvents(false);
+		}
+		plg.generator.log.LogGenerator generator = new plg.generator.log.LogGenerator(p, sc, progress);
 		XLog log = generator.generateLog();
 		System.out.println("done!");
 		
 		// log export
 		System.out.print("4. Exporting log... ");
-		XSerializer serializer = new XMxmlSerializer();
-		if (parameters.logDestination.substring(parameters.logDestination.length() - 3).equals("xes")) {
-			serializer = new XesXmlSerializer();
+		LogFormat format = LogFormat.fromFileName(parameters.logDestination);
+		XSerializer serializer = format.newXSerializer();
+		try (OutputStream out = format.wrap(new FileOutputStream(parameters.logDestination), parameters.gzipThreads)) {
+			serializer.serialize(log, out);
 		}
-		serializer.serialize(log, new FileOutputStream(parameters.logDestination));
 		System.out.println("done!");
 	}
+	
+	/**
+	 * This method returns the snapshot cache requested by the provided
+	 * parameters
+	 * 
+	 * @param parameters the command line parameters
+	 * @return the snapshot cache, or <tt>null</tt> if snapshots are disabled
+	 */
+	private static ProcessSnapshotCache getSnapshotCache(CLIOptions parameters) {
+		if (parameters.noSnapshotCache) {
+			return null;
+		}
+		return new ProcessSnapshotCache((parameters.snapshotCache == null)? ProcessSnapshotCache.getDefaultFolder() : parameters.snapshotCache);
+	}
+	
+	/**
+	 * This method returns the progress visualizer requested by the provided
+	 * parameters
+	 * 
+	 * @param parameters the command line parameters
+	 * @return the progress visualizer
+	 * @throws IOException if the destination of the records cannot be opened
+	 */
+	private static IProgressVisualizer getProgressVisualizer(CLIOptions parameters) throws IOException {
+		if (parameters.progressJson == null) {
+			return new ProgressAdapter();
+		}
+		PrintStream out = System.err;
+		if (!parameters.progressJson.equals("-")) {
+			out = new PrintStream(new FileOutputStream(parameters.progressJson), true, "UTF-8");
+		}
+		return new JsonProgressVisualizer(out, parameters.progressInterval);
+	}
+	
+	/**
+	 * This method checks whether the provided parameters require the log to be
+	 * generated and written one trace at a time
+	 * 
+	 * @param parameters the command line parameters
+	 * @return whether the streaming output is required
+	 */
+	private static boolean isStreaming(CLIOptions parameters) {
+		return parameters.streaming || parameters.append || parameters.threads > 1 || parameters.seed != null || parameters.shardSize != null ||
+				LogFormat.fromFileName(parameters.logDestination) == LogFormat.COLUMNAR;
+	}
+	
+	/**
+	 * This method runs all the jobs listed in the batch manifest and writes the
+	 * summary of their timings
+	 * 
+	 * @param parameters the command line parameters
+	 * @throws Exception
+	 */
+	private static void runBatch(CLIOptions parameters) throws Exception {
+		if (parameters.jobs < 1) {
+			System.err.println("The number of jobs must be positive");
+			System.exit(1);
+		}
+		File summary = parameters.summary;
+		if (summary == null) {
+			summary = new File(parameters.batchManifest.getPath() + ".summary.csv");
+		}
+		
+		System.out.println("PLG-CLI (" + PlgConstants.libPLG_SIGNATURE + ")");
+		System.out.println("");
+		System.out.println("Batch manifest: " + parameters.batchManifest);
+		System.out.println("Parallel jobs: " + parameters.jobs);
+		System.out.println("Summary: " + summary);
+		System.out.println("");
+		if (parameters.jobs > 1 && !RandomSource.isPerThread()) {
+			System.err.println("Warning: the random source of the library cannot be split by thread, seeded traces are simulated one at a time");
+		}
+		
+		List<BatchJob> jobs = BatchManifest.parse(parameters.batchManifest);
+		System.out.println("Running " + jobs.size() + " jobs...");
+		long start = System.currentTimeMillis();
+		List<BatchResult> results = new BatchRunner(parameters.jobs, getSnapshotCache(parameters)).run(jobs);
+		BatchRunner.writeSummary(results, summary);
+		
+		int failed = 0;
+		for (BatchResult r : results) {
+			if (!r.isSuccessful()) {
+				failed++;
+				System.err.println("Job " + r.getJob().getId() + " failed: " + r.getError());
+			}
+		}
+		System.out.println("done! " + (jobs.size() - failed) + " jobs completed, " + failed + " failed, in " + (System.currentTimeMillis() - start) + " ms");
+		if (failed > 0) {
+			System.exit(2);
+		}
+	}
 }
@@ -0,0 +1,188 @@
+package plg.cli.log;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Properties;
+
+import plg.cli.log.out.LogFormat;
+
+/**
+ * This class contains the index of a log generated with the streaming output,
+ * stored next to the log. The index records what is needed to append new
+ * traces without reading the log back: the number of traces (i.e., the index
+ * of the next trace), the seed, the shards written and, for single file logs,
+ * the position of the footer.
+ *
+ * <p> Given the destination <tt>log.xes.gz</tt>, the index is stored in
+ * <tt>log.xes.gz.plgindex</tt>.
+ *
+ * @author Andrea Burattin
+ */
+public class LogIndex {
+
+	/**
+	 * The suffix of the index file
+	 */
+	public static final String INDEX_SUFFIX = ".plgindex";
+
+	private static final String KEY_FORMAT = "format";
+	private static final String KEY_LOG_NAME = "log.name";
+	private static final String KEY_TRACES = "traces";
+	private static final String KEY_SEED = "seed";
+	private static final String KEY_SHARD_SIZE = "shard.size";
+	private static final String KEY_SHARDS = "shards";
+	private static final String KEY_FOOTER_OFFSET = "footer.offset";
+
+	private LogFormat format;
+	private String logName;
+	private int traces = 0;
+	private Long seed = null;
+	private Integer shardSize = null;
+	private int shards = 0;
+	private long footerOffset = -1;
+
+	/**
+	 * Basic constructor
+	 *
+	 * @param format the format of the log
+	 * @param logName the name of the log
+	 * @param seed the seed of the simulation, or <tt>null</tt>
+	 * @param shardSize the size of the shards, or <tt>null</tt> if the log is
+	 * a single file
+	 */
+	public LogIndex(LogFormat format, String logName, Long seed, Integer shardSize) {
+		this.format = format;
+		this.logName = logName;
+		this.seed = seed;
+		this.shardSize = shardSize;
+	}
+
+	/**
+	 * This method returns the index file of the provided log
+	 *
+	 * @param logDestination the destination log
+	 * @return the index file
+	 */
+	public static File getIndexFile(String logDestination) {
+		return new File(logDestination + INDEX_SUFFIX);
+	}
+
+	/**
+	 * This method loads the index of the provided log
+	 *
+	 * @param logDestination the destination log
+	 * @return the index
+	 * @throws IOException if the index does not exist or cannot be read
+	 */
+	public static LogIndex load(String logDestination) throws IOException {
+		File file = getIndexFile(logDestination);
+		if (!file.isFile()) {
+			throw new IOException("No index found for " + logDestination + ": only logs generated with the streaming output can be appended");
+		}
+		Properties properties = new Properties();
+		try (InputStream in = new FileInputStream(file)) {
+			properties.load(in);
+		}
+		try {
+			String seed = properties.getProperty(KEY_SEED);
+			String shardSize = properties.getProperty(KEY_SHARD_SIZE);
+			LogIndex index = new LogIndex(
+					LogFormat.valueOf(properties.getProperty(KEY_FORMAT)),
+					properties.getProperty(KEY_LOG_NAME),
+					(seed == null)? null : Long.valueOf(seed),
+					(shardSize == null)? null : Integer.valueOf(shardSize));
+			index.traces = Integer.parseInt(properties.getProperty(KEY_TRACES));
+			index.shards = Integer.parseInt(properties.getProperty(KEY_SHARDS, "0"));
+			index.footerOffset = Long.parseLong(properties.getProperty(KEY_FOOTER_OFFSET, "-1"));
+			return index;
+		} catch (RuntimeException e) {
+			throw new IOException("Invalid index " + file + ": " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * This method stores the index of the provided log
+	 *
+	 * @param logDestination the destination log
+	 * @throws IOException
+	 */
+	public void store(String logDestination) throws IOException {
+		Properties properties = new Properties();
+		properties.setProperty(KEY_FORMAT, format.name());
+		properties.setProperty(KEY_LOG_NAME, (logName == null)? "" : logName);
+		properties.setProperty(KEY_TRACES, Integer.toString(traces));
+		if (seed != null) {
+			properties.setProperty(KEY_SEED, seed.toString());
+		}
+		if (shardSize != null) {
+			properties.setProperty(KEY_SHARD_SIZE, shardSize.toString());
+			properties.setProperty(KEY_SHARDS, Integer.toString(shards));
+		} else {
+			properties.setProperty(KEY_FOOTER_OFFSET, Long.toString(footerOffset));
+		}
+		try (OutputStream out = new FileOutputStream(getIndexFile(logDestination))) {
+			properties.store(out, "PLG log index, required to append traces to the log");
+		}
+	}
+
+	public LogFormat getFormat() {
+		return format;
+	}
+
+	public String getLogName() {
+		return logName;
+	}
+
+	/**
+	 * This method returns the number of traces of the log, which is also the
+	 * index of the next trace to generate
+	 *
+	 * @return the number of traces
+	 */
+	public int getTraces() {
+		return traces;
+	}
+
+	public void setTraces(int traces) {
+		this.traces = traces;
+	}
+
+	public Long getSeed() {
+		return seed;
+	}
+
+	public Integer getShardSize() {
+		return shardSize;
+	}
+
+	public boolean isSharded() {
+		return shardSize != null;
+	}
+
+	public int getShards() {
+		return shards;
+	}
+
+	public void setShards(int shards) {
+		this.shards = shards;
+	}
+
+	/**
+	 * This method returns the position, in the file, of the footer of a
+	 * single file log. For compressed logs, the footer is a gzip member on its
+	 * own, starting at this position.
+	 *
+	 * @return the position of the footer, or <tt>-1</tt> if not known
+	 */
+	public long getFooterOffset() {
+		return footerOffset;
+	}
+
+	public void setFooterOffset(long footerOffset) {
+		this.footerOffset = footerOffset;
+	}
+}
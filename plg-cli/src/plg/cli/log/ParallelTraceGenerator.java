@@ -0,0 +1,130 @@
+package plg.cli.log;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.deckfour.xes.model.XTrace;
+
+import plg.cli.log.out.TraceStreamSerializer;
+import plg.common.log.TraceSimulator;
+import plg.generator.IProgressVisualizer;
+import plg.generator.ProgressAdapter;
+
+/**
+ * This class distributes the simulation of traces over a pool of worker
+ * threads. Traces are handed to the serializer strictly in trace order, so the
+ * output does not depend on the number of threads. At most
+ * {@link #TRACES_IN_FLIGHT_PER_THREAD} traces per thread are kept in memory
+ * while waiting to be written.
+ *
+ * @author Andrea Burattin
+ */
+public class ParallelTraceGenerator {
+
+	/**
+	 * The number of traces each worker can simulate ahead of the serializer
+	 */
+	public static final int TRACES_IN_FLIGHT_PER_THREAD = 32;
+
+	private TraceSimulator simulator;
+	private int threads;
+	private IProgressVisualizer progress = new ProgressAdapter();
+
+	/**
+	 * Basic constructor
+	 *
+	 * @param simulator the simulator used to generate each trace
+	 * @param threads the number of worker threads
+	 */
+	public ParallelTraceGenerator(TraceSimulator simulator, int threads) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("At least one thread is required");
+		}
+		this.simulator = simulator;
+		this.threads = threads;
+	}
+
+	/**
+	 * This method sets the progress visualizer, which is increased once per
+	 * trace written
+	 *
+	 * @param progress the progress visualizer
+	 */
+	public void setProgressVisualizer(IProgressVisualizer progress) {
+		this.progress = progress;
+	}
+
+	/**
+	 * This method simulates the traces with index from <tt>firstTrace</tt>
+	 * (included) to <tt>firstTrace + noTraces</tt> (excluded) and writes them,
+	 * in order, into the provided serializer
+	 *
+	 * @param firstTrace the index of the first trace to generate
+	 * @param noTraces the number of traces to generate
+	 * @param serializer the serializer which receives the traces
+	 * @throws Exception if either the simulation or the serialization fail
+	 */
+	public void generate(int firstTrace, int noTraces, TraceStreamSerializer serializer) throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		progress.setMinimum(0);
+		progress.setMaximum(noTraces);
+		progress.setText("Generating traces");
+		progress.start();
+		try {
+			Deque<Future<XTrace>> pending = new ArrayDeque<Future<XTrace>>();
+			int window = threads * TRACES_IN_FLIGHT_PER_THREAD;
+			int next = firstTrace;
+			int end = firstTrace + noTraces;
+			while (next < end || !pending.isEmpty()) {
+				while (next < end && pending.size() < window) {
+					pending.add(executor.submit(newSimulation(next++)));
+				}
+				XTrace trace = waitFor(pending.poll());
+				serializer.serialize(trace);
+				JsonProgressVisualizer.traceDone(progress, trace);
+			}
+		} finally {
+			executor.shutdownNow();
+			progress.finished();
+		}
+	}
+
+	/**
+	 * This method creates the task to simulate one trace
+	 *
+	 * @param traceIndex the index of the trace
+	 * @return the task
+	 */
+	private Callable<XTrace> newSimulation(final int traceIndex) {
+		return new Callable<XTrace>() {
+			@Override
+			public XTrace call() throws Exception {
+				return simulator.simulate(traceIndex);
+			}
+		};
+	}
+
+	/**
+	 * This method waits for the provided simulation and unwraps its failure,
+	 * if any
+	 *
+	 * @param future the simulation
+	 * @return the simulated trace
+	 * @throws Exception the exception raised by the simulation
+	 */
+	private static XTrace waitFor(Future<XTrace> future) throws Exception {
+		try {
+			return future.get();
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof Exception) {
+				throw (Exception) e.getCause();
+			}
+			throw e;
+		}
+	}
+}
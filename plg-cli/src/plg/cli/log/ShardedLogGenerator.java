@@ -0,0 +1,169 @@
+package plg.cli.log;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.deckfour.xes.model.XTrace;
+
+import plg.cli.log.out.LogFormat;
+import plg.cli.log.out.TraceStreamSerializer;
+import plg.common.log.TraceSimulator;
+import plg.generator.IProgressVisualizer;
+import plg.generator.ProgressAdapter;
+
+/**
+ * This class writes a log as a set of numbered shards, each containing at most
+ * a given number of traces. Each shard is a complete log on its own, with its
+ * own file and, for compressed formats, its own compression stream. Shards are
+ * independent tasks, so simulation, compression and I/O of different shards
+ * proceed concurrently on the worker threads.
+ *
+ * <p> Given the destination <tt>log.xes.gz</tt>, shards are named
+ * <tt>log-00001.xes.gz</tt>, <tt>log-00002.xes.gz</tt>, and so on. Trace
+ * indexes (and hence case ids) are global across the shards.
+ *
+ * @author Andrea Burattin
+ */
+public class ShardedLogGenerator {
+
+	/**
+	 * The pattern used to append the shard number to the log name
+	 */
+	public static final String SHARD_SUFFIX_FORMAT = "-%05d";
+
+	private TraceSimulator simulator;
+	private int threads;
+	private IProgressVisualizer progress = new ProgressAdapter();
+
+	/**
+	 * Basic constructor
+	 *
+	 * @param simulator the simulator used to generate each trace
+	 * @param threads the number of shards written at the same time
+	 */
+	public ShardedLogGenerator(TraceSimulator simulator, int threads) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("At least one thread is required");
+		}
+		this.simulator = simulator;
+		this.threads = threads;
+	}
+
+	/**
+	 * This method sets the progress visualizer, which is increased once per
+	 * trace written
+	 *
+	 * @param progress the progress visualizer
+	 */
+	public void setProgressVisualizer(IProgressVisualizer progress) {
+		this.progress = progress;
+	}
+
+	/**
+	 * This method generates the traces and writes them into the shards
+	 *
+	 * @param noTraces the total number of traces to generate
+	 * @param shardSize the maximum number of traces of each shard
+	 * @param logDestination the destination log, used to derive the shard
+	 * names
+	 * @return the shard files, in order
+	 * @throws Exception if either the simulation or the serialization fail
+	 */
+	public List<File> generate(int noTraces, int shardSize, String logDestination) throws Exception {
+		return generate(0, noTraces, shardSize, 1, logDestination);
+	}
+
+	/**
+	 * This method generates the traces, starting from the provided index, and
+	 * writes them into new shards, starting from the provided shard number.
+	 * This is used to append traces to an existing set of shards.
+	 *
+	 * @param firstTrace the index of the first trace to generate
+	 * @param noTraces the number of traces to generate
+	 * @param shardSize the maximum number of traces of each shard
+	 * @param firstShard the number of the first shard to write
+	 * @param logDestination the destination log, used to derive the shard
+	 * names
+	 * @return the shard files, in order
+	 * @throws Exception if either the simulation or the serialization fail
+	 */
+	public List<File> generate(int firstTrace, int noTraces, int shardSize, int firstShard, String logDestination) throws Exception {
+		if (shardSize < 1) {
+			throw new IllegalArgumentException("Shards must contain at least one trace");
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		progress.setMinimum(0);
+		progress.setMaximum(noTraces);
+		progress.setText("Generating shards");
+		progress.start();
+		try {
+			List<File> shards = new ArrayList<File>();
+			List<Future<File>> pending = new ArrayList<Future<File>>();
+			for (int first = 0, shard = firstShard; first < noTraces; first += shardSize, shard++) {
+				File file = getShardFile(logDestination, shard);
+				pending.add(executor.submit(newShard(file, firstTrace + first, Math.min(shardSize, noTraces - first))));
+			}
+			for (Future<File> future : pending) {
+				try {
+					shards.add(future.get());
+				} catch (ExecutionException e) {
+					if (e.getCause() instanceof Exception) {
+						throw (Exception) e.getCause();
+					}
+					throw e;
+				}
+			}
+			return shards;
+		} finally {
+			executor.shutdownNow();
+			progress.finished();
+		}
+	}
+
+	/**
+	 * This method returns the file of the shard with the provided number
+	 *
+	 * @param logDestination the destination log
+	 * @param shard the number of the shard, starting from 1
+	 * @return the file of the shard
+	 */
+	public static File getShardFile(String logDestination, int shard) {
+		LogFormat format = LogFormat.fromFileName(logDestination);
+		return new File(format.stripExtension(logDestination) + String.format(SHARD_SUFFIX_FORMAT, shard) + format.getExtension());
+	}
+
+	/**
+	 * This method creates the task which writes one shard
+	 *
+	 * @param file the destination of the shard
+	 * @param firstTrace the index of the first trace of the shard
+	 * @param noTraces the number of traces of the shard
+	 * @return the task
+	 */
+	private Callable<File> newShard(final File file, final int firstTrace, final int noTraces) {
+		return new Callable<File>() {
+			@Override
+			public File call() throws Exception {
+				try (OutputStream out = new FileOutputStream(file);
+						TraceStreamSerializer serializer = TraceStreamSerializer.newInstance(file.getName(), out)) {
+					serializer.startLog(simulator.getProcess().getName());
+					for (int i = firstTrace; i < firstTrace + noTraces; i++) {
+						XTrace trace = simulator.simulate(i);
+						serializer.serialize(trace);
+						JsonProgressVisualizer.traceDone(progress, trace);
+					}
+					serializer.endLog();
+				}
+				return file;
+			}
+		};
+	}
+}
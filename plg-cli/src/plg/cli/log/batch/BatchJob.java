@@ -0,0 +1,91 @@
+package plg.cli.log.batch;
+
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import plg.generator.log.SimulationConfiguration;
+import plg.generator.log.noise.NoiseConfiguration;
+
+/**
+ * This class describes one job of a batch: the simulation of a model into a
+ * log, with a given number of traces and noise preset.
+ *
+ * @author Andrea Burattin
+ */
+public class BatchJob {
+
+	/**
+	 * The noise presets that can be referenced by a batch manifest
+	 */
+	public static final Map<String, NoiseConfiguration> NOISE_PRESETS = new LinkedHashMap<String, NoiseConfiguration>();
+	static {
+		NOISE_PRESETS.put("none", NoiseConfiguration.NO_NOISE);
+		NOISE_PRESETS.put("complete", NoiseConfiguration.COMPLETE_NOISE);
+		NOISE_PRESETS.put("names", NoiseConfiguration.ONLY_NAMES_NOISE);
+		NOISE_PRESETS.put("data", NoiseConfiguration.ONLY_DO_NOISE);
+		NOISE_PRESETS.put("control-flow", NoiseConfiguration.ONLY_CONTROL_FLOW_NOISE);
+	}
+
+	private int id;
+	private File model;
+	private int noTraces;
+	private String noise;
+	private String logDestination;
+	private Long seed;
+
+	/**
+	 * Basic constructor
+	 *
+	 * @param id the identifier of the job (its position in the manifest)
+	 * @param model the process model to simulate
+	 * @param noTraces the number of traces to generate
+	 * @param noise the name of the noise preset
+	 * @param logDestination the destination log file
+	 * @param seed the seed of the simulation, or <tt>null</tt>
+	 */
+	public BatchJob(int id, File model, int noTraces, String noise, String logDestination, Long seed) {
+		if (!NOISE_PRESETS.containsKey(noise)) {
+			throw new IllegalArgumentException("Unknown noise preset `" + noise + "', available presets are " + NOISE_PRESETS.keySet());
+		}
+		this.id = id;
+		this.model = model;
+		this.noTraces = noTraces;
+		this.noise = noise;
+		this.logDestination = logDestination;
+		this.seed = seed;
+	}
+
+	/**
+	 * This method builds the simulation configuration of the job
+	 *
+	 * @return the simulation configuration
+	 */
+	public SimulationConfiguration getSimulationConfiguration() {
+		return new SimulationConfiguration(noTraces, NOISE_PRESETS.get(noise));
+	}
+
+	public int getId() {
+		return id;
+	}
+
+	public File getModel() {
+		return model;
+	}
+
+	public int getNoTraces() {
+		return noTraces;
+	}
+
+	public String getNoise() {
+		return noise;
+	}
+
+	public String getLogDestination() {
+		return logDestination;
+	}
+
+	public Long getSeed() {
+		return seed;
+	}
+}
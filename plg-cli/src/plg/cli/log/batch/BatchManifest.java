@@ -0,0 +1,156 @@
+package plg.cli.log.batch;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+
+/**
+ * This class parses the manifest of a batch. A manifest lists the jobs to run,
+ * each with the fields <tt>model</tt>, <tt>traces</tt>, <tt>noise</tt>,
+ * <tt>output</tt> and, optionally, <tt>seed</tt>. Relative paths are resolved
+ * against the folder containing the manifest.
+ *
+ * <p> Manifests ending with <tt>.json</tt> must contain an array of objects
+ * with the fields above. Any other manifest is parsed as CSV: the first line is
+ * the header with the field names, empty lines and lines starting with
+ * <tt>#</tt> are ignored, and values cannot contain commas.
+ *
+ * @author Andrea Burattin
+ */
+public class BatchManifest {
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	/**
+	 * This method parses the provided manifest
+	 *
+	 * @param manifest the manifest file
+	 * @return the list of jobs, in manifest order
+	 * @throws IOException if the manifest cannot be read or is malformed
+	 */
+	public static List<BatchJob> parse(File manifest) throws IOException {
+		File base = manifest.getAbsoluteFile().getParentFile();
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(manifest), UTF8))) {
+			if (manifest.getName().toLowerCase().endsWith(".json")) {
+				return parseJSON(reader, base);
+			}
+			return parseCSV(reader, base);
+		}
+	}
+
+	/**
+	 * This method parses a JSON manifest
+	 */
+	private static List<BatchJob> parseJSON(Reader reader, File base) throws IOException {
+		Object root;
+		try {
+			root = new JSONParser().parse(reader);
+		} catch (ParseException e) {
+			throw new IOException("Malformed JSON manifest: " + e.toString());
+		}
+		if (!(root instanceof JSONArray)) {
+			throw new IOException("The JSON manifest must contain an array of jobs");
+		}
+		List<BatchJob> jobs = new ArrayList<BatchJob>();
+		for (Object o : (JSONArray) root) {
+			JSONObject job = (JSONObject) o;
+			try {
+				jobs.add(newJob(jobs.size() + 1, base,
+						valueOf(job.get("model")),
+						valueOf(job.get("traces")),
+						valueOf(job.get("noise")),
+						valueOf(job.get("output")),
+						valueOf(job.get("seed"))));
+			} catch (IllegalArgumentException e) {
+				throw new IOException("Job " + (jobs.size() + 1) + " of the manifest: " + e.getMessage());
+			}
+		}
+		return jobs;
+	}
+
+	/**
+	 * This method parses a CSV manifest
+	 */
+	private static List<BatchJob> parseCSV(BufferedReader reader, File base) throws IOException {
+		List<BatchJob> jobs = new ArrayList<BatchJob>();
+		List<String> header = null;
+		String line;
+		int lineNumber = 0;
+		while ((line = reader.readLine()) != null) {
+			lineNumber++;
+			line = line.trim();
+			if (line.isEmpty() || line.startsWith("#")) {
+				continue;
+			}
+			String[] values = line.split(",", -1);
+			for (int i = 0; i < values.length; i++) {
+				values[i] = values[i].trim();
+			}
+			if (header == null) {
+				header = new ArrayList<String>();
+				for (String value : values) {
+					header.add(value.toLowerCase());
+				}
+				continue;
+			}
+			if (values.length != header.size()) {
+				throw new IOException("Line " + lineNumber + " of the manifest has " + values.length + " fields, " + header.size() + " expected");
+			}
+			try {
+				jobs.add(newJob(jobs.size() + 1, base,
+						field(header, values, "model"),
+						field(header, values, "traces"),
+						field(header, values, "noise"),
+						field(header, values, "output"),
+						field(header, values, "seed")));
+			} catch (IllegalArgumentException e) {
+				throw new IOException("Line " + lineNumber + " of the manifest: " + e.getMessage());
+			}
+		}
+		return jobs;
+	}
+
+	/**
+	 * This method builds a job out of the raw values of the manifest
+	 */
+	private static BatchJob newJob(int id, File base, String model, String traces, String noise, String output, String seed) {
+		if (model == null || traces == null || output == null) {
+			throw new IllegalArgumentException("fields `model', `traces' and `output' are mandatory");
+		}
+		return new BatchJob(
+				id,
+				resolve(base, model),
+				Integer.parseInt(traces),
+				(noise == null)? "none" : noise,
+				resolve(base, output).getPath(),
+				(seed == null)? null : Long.parseLong(seed));
+	}
+
+	private static String field(List<String> header, String[] values, String name) {
+		int index = header.indexOf(name);
+		if (index < 0 || values[index].isEmpty()) {
+			return null;
+		}
+		return values[index];
+	}
+
+	private static String valueOf(Object value) {
+		return (value == null)? null : value.toString();
+	}
+
+	private static File resolve(File base, String path) {
+		File f = new File(path);
+		return f.isAbsolute()? f : new File(base, path);
+	}
+}
@@ -0,0 +1,76 @@
+package plg.cli.log.batch;
+
+/**
+ * This class contains the outcome and the timings of a {@link BatchJob}
+ *
+ * @author Andrea Burattin
+ */
+public class BatchResult {
+
+	private BatchJob job;
+	private long importTime = 0;
+	private long generationTime = 0;
+	private Exception error = null;
+
+	/**
+	 * Basic constructor
+	 *
+	 * @param job the job this result refers to
+	 */
+	public BatchResult(BatchJob job) {
+		this.job = job;
+	}
+
+	public BatchJob getJob() {
+		return job;
+	}
+
+	/**
+	 * This method returns the time spent waiting for the model import, in
+	 * milliseconds. Jobs sharing a model already imported report almost zero.
+	 *
+	 * @return the import time
+	 */
+	public long getImportTime() {
+		return importTime;
+	}
+
+	public void setImportTime(long importTime) {
+		this.importTime = importTime;
+	}
+
+	/**
+	 * This method returns the time spent simulating and writing the log, in
+	 * milliseconds
+	 *
+	 * @return the generation time
+	 */
+	public long getGenerationTime() {
+		return generationTime;
+	}
+
+	public void setGenerationTime(long generationTime) {
+		this.generationTime = generationTime;
+	}
+
+	public Exception getError() {
+		return error;
+	}
+
+	public void setError(Exception error) {
+		this.error = error;
+	}
+
+	public boolean isSuccessful() {
+		return error == null;
+	}
+
+	/**
+	 * This method returns the generation throughput of the job
+	 *
+	 * @return the number of traces generated per second
+	 */
+	public double getTracesPerSecond() {
+		return job.getNoTraces() * 1000d / Math.max(1, generationTime);
+	}
+}
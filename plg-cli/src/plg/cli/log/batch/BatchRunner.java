@@ -0,0 +1,205 @@
+package plg.cli.log.batch;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import plg.cli.log.out.TraceStreamSerializer;
+import plg.common.io.ProcessSnapshotCache;
+import plg.common.log.TraceSimulator;
+import plg.common.scripts.PooledScripts;
+import plg.io.importer.PLGImporter;
+import plg.model.Process;
+
+/**
+ * This class runs all the jobs of a batch in the same JVM, on a bounded
+ * work-stealing pool. Each model is imported and checked only once, even if
+ * it is referenced by many jobs, and every job writes its log one trace at a
+ * time.
+ *
+ * @author Andrea Burattin
+ */
+public class BatchRunner {
+
+	private ForkJoinPool pool;
+	private ProcessSnapshotCache cache;
+	private ConcurrentMap<String, FutureTask<Process>> models = new ConcurrentHashMap<String, FutureTask<Process>>();
+	private AtomicInteger completedJobs = new AtomicInteger(0);
+
+	/**
+	 * Basic constructor
+	 *
+	 * @param parallelJobs the maximum number of jobs running at the same time
+	 */
+	public BatchRunner(int parallelJobs) {
+		this(parallelJobs, null);
+	}
+
+	/**
+	 * Constructor of a runner which loads the models from snapshots, when
+	 * available
+	 *
+	 * @param parallelJobs the maximum number of jobs running at the same time
+	 * @param cache the snapshot cache, or <tt>null</tt>
+	 */
+	public BatchRunner(int parallelJobs, ProcessSnapshotCache cache) {
+		this.pool = new ForkJoinPool(parallelJobs);
+		this.cache = cache;
+	}
+
+	/**
+	 * This method runs all the provided jobs and waits for their completion.
+	 * The failure of a job does not stop the others.
+	 *
+	 * @param jobs the jobs to run
+	 * @return the results of the jobs, in the same order of the jobs
+	 * @throws InterruptedException
+	 */
+	public List<BatchResult> run(final List<BatchJob> jobs) throws InterruptedException {
+		List<Future<BatchResult>> futures = new ArrayList<Future<BatchResult>>();
+		for (final BatchJob job : jobs) {
+			futures.add(pool.submit(new Callable<BatchResult>() {
+				@Override
+				public BatchResult call() {
+					BatchResult result = runJob(job);
+					System.out.println(String.format("[%d/%d] %s %s (%d ms)",
+							completedJobs.incrementAndGet(), jobs.size(),
+							result.getJob().getLogDestination(),
+							result.isSuccessful()? "done" : "FAILED",
+							result.getImportTime() + result.getGenerationTime()));
+					return result;
+				}
+			}));
+		}
+		List<BatchResult> results = new ArrayList<BatchResult>();
+		try {
+			for (Future<BatchResult> future : futures) {
+				results.add(future.get());
+			}
+		} catch (ExecutionException e) {
+			// runJob never throws
+			throw new IllegalStateException(e.getCause());
+		} finally {
+			pool.shutdown();
+		}
+		return results;
+	}
+
+	/**
+	 * This method runs a single job
+	 *
+	 * @param job the job to run
+	 * @return the result of the job
+	 */
+	protected BatchResult runJob(BatchJob job) {
+		BatchResult result = new BatchResult(job);
+		long start = System.currentTimeMillis();
+		try {
+			Process process = getModel(job.getModel());
+			result.setImportTime(System.currentTimeMillis() - start);
+
+			start = System.currentTimeMillis();
+			File destination = new File(job.getLogDestination());
+			if (destination.getParentFile() != null) {
+				destination.getParentFile().mkdirs();
+			}
+			TraceSimulator simulator = new TraceSimulator(process, job.getSimulationConfiguration(), job.getSeed());
+			try (OutputStream out = new FileOutputStream(destination);
+					TraceStreamSerializer serializer = TraceStreamSerializer.newInstance(job.getLogDestination(), out)) {
+				serializer.startLog(process.getName());
+				for (int i = 0; i < job.getNoTraces(); i++) {
+					serializer.serialize(simulator.simulate(i));
+				}
+				serializer.endLog();
+			}
+			result.setGenerationTime(System.currentTimeMillis() - start);
+		} catch (Exception e) {
+			result.setError(e);
+			result.setGenerationTime(System.currentTimeMillis() - start);
+		}
+		return result;
+	}
+
+	/**
+	 * This method returns the imported and checked model stored in the
+	 * provided file. Each file is imported only once: concurrent requests for
+	 * the same file wait for the first import to complete. If a snapshot cache
+	 * is available, the first import uses it too.
+	 *
+	 * @param modelFile the model file
+	 * @return the process
+	 * @throws Exception if the model cannot be imported
+	 */
+	protected Process getModel(final File modelFile) throws Exception {
+		String key = modelFile.getCanonicalPath();
+		FutureTask<Process> task = new FutureTask<Process>(new Callable<Process>() {
+			@Override
+			public Process call() throws Exception {
+				Process p;
+				if (cache != null) {
+					p = cache.importCheckedModel(modelFile, new PLGImporter());
+				} else {
+					p = new PLGImporter().importModel(modelFile.getAbsolutePath());
+					if (p == null) {
+						throw new IOException("Unable to import model " + modelFile);
+					}
+					p.check();
+				}
+				PooledScripts.install(p);
+				return p;
+			}
+		});
+		FutureTask<Process> existing = models.putIfAbsent(key, task);
+		if (existing == null) {
+			task.run();
+		} else {
+			task = existing;
+		}
+		try {
+			return task.get();
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof Exception) {
+				throw (Exception) e.getCause();
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * This method writes the summary of the batch as a CSV file
+	 *
+	 * @param results the results of the jobs
+	 * @param summary the destination file
+	 * @throws IOException
+	 */
+	public static void writeSummary(List<BatchResult> results, File summary) throws IOException {
+		try (PrintWriter writer = new PrintWriter(summary, "UTF-8")) {
+			writer.println("job,model,traces,noise,output,status,import_ms,generation_ms,traces_per_sec,error");
+			for (BatchResult r : results) {
+				BatchJob j = r.getJob();
+				writer.println(j.getId() + "," +
+						j.getModel().getPath() + "," +
+						j.getNoTraces() + "," +
+						j.getNoise() + "," +
+						j.getLogDestination() + "," +
+						(r.isSuccessful()? "ok" : "failed") + "," +
+						r.getImportTime() + "," +
+						r.getGenerationTime() + "," +
+						(r.isSuccessful()? String.format("%.1f", r.getTracesPerSecond()) : "") + "," +
+						(r.isSuccessful()? "" : "\"" + r.getError().toString().replace("\"", "\"\"") + "\""));
+			}
+		}
+	}
+}
@@ -0,0 +1,48 @@
+package plg.cli.log.out;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.deckfour.xes.model.XTrace;
+
+import plg.common.log.ColumnarLogEncoder;
+
+/**
+ * This class writes a log in the columnar binary layout described in
+ * {@link ColumnarLogEncoder}
+ *
+ * @author Andrea Burattin
+ */
+public class ColumnarTraceStreamSerializer extends TraceStreamSerializer {
+
+	private ColumnarLogEncoder encoder;
+
+	/**
+	 * Basic constructor
+	 *
+	 * @param out the stream which will receive the serialized log
+	 */
+	public ColumnarTraceStreamSerializer(OutputStream out) {
+		this.encoder = new ColumnarLogEncoder(out);
+	}
+
+	@Override
+	public void startLog(String logName) throws IOException {
+		encoder.startLog(logName);
+	}
+
+	@Override
+	public void serialize(XTrace trace) throws IOException {
+		encoder.write(trace);
+	}
+
+	@Override
+	public void endLog() throws IOException {
+		encoder.endLog();
+	}
+
+	@Override
+	public void close() throws IOException {
+		encoder.close();
+	}
+}
@@ -0,0 +1,174 @@
+package plg.cli.log.out;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.deckfour.xes.out.XMxmlSerializer;
+import org.deckfour.xes.out.XSerializer;
+import org.deckfour.xes.out.XesXmlSerializer;
+
+/**
+ * This enum lists the log formats the command line tools can write, and
+ * detects the format from the extension of the destination file.
+ *
+ * @author Andrea Burattin
+ */
+public enum LogFormat {
+
+	XES(".xes", true, false),
+	XES_GZ(".xes.gz", true, true),
+	MXML(".mxml", false, false),
+	MXML_GZ(".mxml.gz", false, true),
+	COLUMNAR(".plgc", false, false);
+
+	private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+
+	private String extension;
+	private boolean xes;
+	private boolean compressed;
+
+	private LogFormat(String extension, boolean xes, boolean compressed) {
+		this.extension = extension;
+		this.xes = xes;
+		this.compressed = compressed;
+	}
+
+	/**
+	 * This method detects the format of the provided file name. Names ending
+	 * with <tt>xes</tt> are XES, names ending with <tt>xes.gz</tt> are
+	 * compressed XES, any other name ending with <tt>.gz</tt> is compressed
+	 * MXML, names ending with <tt>.plgc</tt> are columnar and everything else
+	 * is MXML.
+	 *
+	 * @param fileName the name of the file
+	 * @return the format of the file
+	 */
+	public static LogFormat fromFileName(String fileName) {
+		String name = fileName.toLowerCase();
+		if (name.endsWith(COLUMNAR.extension)) {
+			return COLUMNAR;
+		} else if (name.endsWith("xes.gz")) {
+			return XES_GZ;
+		} else if (name.endsWith(".gz")) {
+			return MXML_GZ;
+		} else if (name.endsWith("xes")) {
+			return XES;
+		}
+		return MXML;
+	}
+
+	/**
+	 * This method returns the canonical extension of the format, including the
+	 * leading dot
+	 *
+	 * @return the extension
+	 */
+	public String getExtension() {
+		return extension;
+	}
+
+	public boolean isXes() {
+		return xes;
+	}
+
+	public boolean isCompressed() {
+		return compressed;
+	}
+
+	/**
+	 * This method returns the uncompressed version of this format
+	 *
+	 * @return the format without compression
+	 */
+	public LogFormat getUncompressed() {
+		if (this == XES_GZ) {
+			return XES;
+		} else if (this == MXML_GZ) {
+			return MXML;
+		}
+		return this;
+	}
+
+	/**
+	 * This method removes the extension of the format from the provided file
+	 * name, if present
+	 *
+	 * @param fileName the file name
+	 * @return the file name without extension
+	 */
+	public String stripExtension(String fileName) {
+		if (fileName.toLowerCase().endsWith(extension)) {
+			return fileName.substring(0, fileName.length() - extension.length());
+		}
+		return fileName;
+	}
+
+	/**
+	 * This method wraps the provided stream into a compression stream, if the
+	 * format is compressed. With more than one compression thread, a
+	 * {@link ParallelGZIPOutputStream} is used.
+	 *
+	 * @param out the stream which will receive the log
+	 * @param gzipThreads the number of compression threads
+	 * @return the stream the uncompressed log has to be written into
+	 * @throws IOException
+	 */
+	public OutputStream wrap(OutputStream out, int gzipThreads) throws IOException {
+		if (!compressed) {
+			return out;
+		} else if (gzipThreads > 1) {
+			return new ParallelGZIPOutputStream(out, gzipThreads);
+		}
+		return new GZIPOutputStream(out, GZIP_BUFFER_SIZE);
+	}
+
+	/**
+	 * This method creates the OpenXES serializer of the uncompressed version of
+	 * this format. The stream passed to the serializer has to be obtained with
+	 * {@link #wrap(OutputStream, int)}. The columnar format has no OpenXES
+	 * serializer and can only be written with {@link #newSerializer(OutputStream)}.
+	 *
+	 * @return the serializer
+	 */
+	public XSerializer newXSerializer() {
+		if (this == COLUMNAR) {
+			throw new UnsupportedOperationException("The columnar format can only be written trace by trace");
+		} else if (xes) {
+			return new XesXmlSerializer();
+		}
+		return new XMxmlSerializer();
+	}
+
+	/**
+	 * This method creates a streaming serializer for this format. If the
+	 * format is compressed, the provided stream is wrapped into a gzip stream,
+	 * which is finished when the serializer is closed.
+	 *
+	 * @param out the stream which will receive the log
+	 * @return the serializer
+	 * @throws IOException
+	 */
+	public TraceStreamSerializer newSerializer(OutputStream out) throws IOException {
+		return newSerializer(out, 1);
+	}
+
+	/**
+	 * This method creates a streaming serializer for this format, compressing
+	 * the log with the provided number of threads
+	 *
+	 * @param out the stream which will receive the log
+	 * @param gzipThreads the number of compression threads
+	 * @return the serializer
+	 * @throws IOException
+	 */
+	public TraceStreamSerializer newSerializer(OutputStream out, int gzipThreads) throws IOException {
+		out = wrap(out, gzipThreads);
+		if (this == COLUMNAR) {
+			return new ColumnarTraceStreamSerializer(out);
+		} else if (xes) {
+			return new XesTraceStreamSerializer(out);
+		}
+		return new MxmlTraceStreamSerializer(out);
+	}
+}
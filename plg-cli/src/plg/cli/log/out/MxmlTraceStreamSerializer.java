@@ -0,0 +1,102 @@
+package plg.cli.log.out;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Date;
+
+import org.deckfour.xes.extension.std.XConceptExtension;
+import org.deckfour.xes.extension.std.XLifecycleExtension;
+import org.deckfour.xes.extension.std.XOrganizationalExtension;
+import org.deckfour.xes.extension.std.XTimeExtension;
+import org.deckfour.xes.model.XAttributable;
+import org.deckfour.xes.model.XAttribute;
+import org.deckfour.xes.model.XEvent;
+import org.deckfour.xes.model.XTrace;
+
+/**
+ * This class serializes a log, one trace at a time, as a MXML file. The output
+ * is equivalent to the one produced by the OpenXES <tt>XMxmlSerializer</tt>.
+ *
+ * @author Andrea Burattin
+ */
+public class MxmlTraceStreamSerializer extends TraceStreamSerializer {
+
+	/**
+	 * Basic constructor
+	 *
+	 * @param out the stream which will receive the serialized log
+	 */
+	public MxmlTraceStreamSerializer(OutputStream out) {
+		super(out);
+	}
+
+	@Override
+	public void startLog(String logName) throws IOException {
+		writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\" ?>\n");
+		writer.write("<WorkflowLog xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\" "
+				+ "xsi:noNamespaceSchemaLocation=\"http://is.tm.tue.nl/research/processmining/WorkflowLog.xsd\" "
+				+ "description=\"" + escape(logName) + "\">\n");
+		writer.write("\t<Source program=\"PLG\"/>\n");
+		writer.write("\t<Process id=\"" + escape(logName) + "\" description=\"\">\n");
+	}
+
+	@Override
+	public void serialize(XTrace trace) throws IOException {
+		writer.write("\t\t<ProcessInstance id=\"" + escape(XConceptExtension.instance().extractName(trace)) + "\" description=\"\">\n");
+		writeData(trace, "\t\t\t");
+		for (XEvent event : trace) {
+			String transition = XLifecycleExtension.instance().extractTransition(event);
+			String originator = XOrganizationalExtension.instance().extractResource(event);
+			Date timestamp = XTimeExtension.instance().extractTimestamp(event);
+
+			writer.write("\t\t\t<AuditTrailEntry>\n");
+			writeData(event, "\t\t\t\t");
+			writer.write("\t\t\t\t<WorkflowModelElement>" + escape(XConceptExtension.instance().extractName(event)) + "</WorkflowModelElement>\n");
+			writer.write("\t\t\t\t<EventType>" + escape((transition == null)? "complete" : transition) + "</EventType>\n");
+			if (timestamp != null) {
+				writer.write("\t\t\t\t<Timestamp>" + dateFormat.format(timestamp) + "</Timestamp>\n");
+			}
+			if (originator != null) {
+				writer.write("\t\t\t\t<Originator>" + escape(originator) + "</Originator>\n");
+			}
+			writer.write("\t\t\t</AuditTrailEntry>\n");
+		}
+		writer.write("\t\t</ProcessInstance>\n");
+	}
+
+	@Override
+	public void endLog() throws IOException {
+		writer.write("\t</Process>\n");
+		writer.write("</WorkflowLog>\n");
+		writer.flush();
+	}
+
+	/**
+	 * This method writes the attributes of the provided element which do not
+	 * have a dedicated MXML tag
+	 *
+	 * @param element the element whose attributes should be written
+	 * @param indentation the indentation prefix
+	 * @throws IOException
+	 */
+	protected void writeData(XAttributable element, String indentation) throws IOException {
+		boolean opened = false;
+		for (XAttribute attribute : element.getAttributes().values()) {
+			String key = attribute.getKey();
+			if (key.equals(XConceptExtension.KEY_NAME) ||
+				key.equals(XLifecycleExtension.KEY_TRANSITION) ||
+				key.equals(XOrganizationalExtension.KEY_RESOURCE) ||
+				key.equals(XTimeExtension.KEY_TIMESTAMP)) {
+				continue;
+			}
+			if (!opened) {
+				writer.write(indentation + "<Data>\n");
+				opened = true;
+			}
+			writer.write(indentation + "\t<Attribute name=\"" + escape(key) + "\">" + escape(attribute.toString()) + "</Attribute>\n");
+		}
+		if (opened) {
+			writer.write(indentation + "</Data>\n");
+		}
+	}
+}
@@ -0,0 +1,240 @@
+package plg.cli.log.out;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * This class is an output stream which writes gzip data compressing blocks of
+ * the input on several threads. The input is split into blocks of fixed size,
+ * each block is deflated independently (using the last 32KB of the previous
+ * block as dictionary, so the compression ratio is close to the one of a
+ * single stream) and the compressed blocks are written in order. The result
+ * is a single, standard gzip member, readable by any gzip decoder.
+ *
+ * <p> Only the checksum is computed on the calling thread. Instances of this
+ * class are not thread safe.
+ *
+ * @author Andrea Burattin
+ */
+public class ParallelGZIPOutputStream extends FilterOutputStream {
+
+	/**
+	 * The default size of the blocks compressed by each thread
+	 */
+	public static final int DEFAULT_BLOCK_SIZE = 1024 * 1024;
+	/**
+	 * The number of blocks each thread can compress ahead of the writer
+	 */
+	public static final int BLOCKS_IN_FLIGHT_PER_THREAD = 2;
+
+	private static final int DICTIONARY_SIZE = 32 * 1024;
+	private static final byte[] GZIP_HEADER = new byte[] {
+		0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0
+	};
+
+	private ExecutorService executor;
+	private int maxPendingBlocks;
+	private Deque<Future<byte[]>> pending = new ArrayDeque<Future<byte[]>>();
+	private byte[] block;
+	private int blockLength = 0;
+	private byte[] dictionary = null;
+	private CRC32 crc = new CRC32();
+	private long totalLength = 0;
+	private boolean finished = false;
+
+	/**
+	 * Basic constructor
+	 *
+	 * @param out the stream which will receive the compressed data
+	 * @param threads the number of compression threads
+	 * @throws IOException
+	 */
+	public ParallelGZIPOutputStream(OutputStream out, int threads) throws IOException {
+		this(out, threads, DEFAULT_BLOCK_SIZE);
+	}
+
+	/**
+	 * Constructor with custom block size
+	 *
+	 * @param out the stream which will receive the compressed data
+	 * @param threads the number of compression threads
+	 * @param blockSize the size of the blocks compressed by each thread
+	 * @throws IOException
+	 */
+	public ParallelGZIPOutputStream(OutputStream out, int threads, int blockSize) throws IOException {
+		super(out);
+		if (threads < 1) {
+			throw new IllegalArgumentException("At least one thread is required");
+		}
+		if (blockSize < DICTIONARY_SIZE) {
+			throw new IllegalArgumentException("Blocks must be at least " + DICTIONARY_SIZE + " bytes");
+		}
+		this.block = new byte[blockSize];
+		this.maxPendingBlocks = threads * BLOCKS_IN_FLIGHT_PER_THREAD;
+		this.executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "gzip-compressor");
+				t.setDaemon(true);
+				return t;
+			}
+		});
+		out.write(GZIP_HEADER);
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		block[blockLength++] = (byte) b;
+		if (blockLength == block.length) {
+			submitBlock(false);
+		}
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		while (len > 0) {
+			int n = Math.min(len, block.length - blockLength);
+			System.arraycopy(b, off, block, blockLength, n);
+			blockLength += n;
+			off += n;
+			len -= n;
+			if (blockLength == block.length) {
+				submitBlock(false);
+			}
+		}
+	}
+
+	/**
+	 * This method does not force the compression of a partial block, it only
+	 * writes the blocks already compressed
+	 */
+	@Override
+	public void flush() throws IOException {
+		while (!pending.isEmpty() && pending.peek().isDone()) {
+			out.write(waitFor(pending.poll()));
+		}
+		out.flush();
+	}
+
+	/**
+	 * This method compresses the remaining data and writes the gzip trailer,
+	 * without closing the underlying stream
+	 *
+	 * @throws IOException
+	 */
+	public void finish() throws IOException {
+		if (finished) {
+			return;
+		}
+		submitBlock(true);
+		while (!pending.isEmpty()) {
+			out.write(waitFor(pending.poll()));
+		}
+		writeInt((int) crc.getValue());
+		writeInt((int) totalLength);
+		finished = true;
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			finish();
+		} finally {
+			executor.shutdownNow();
+			out.close();
+		}
+	}
+
+	/**
+	 * This method hands the current block to the compression threads and, if
+	 * too many blocks are waiting, writes the oldest one
+	 *
+	 * @param last whether this is the last block of the stream
+	 * @throws IOException
+	 */
+	private void submitBlock(boolean last) throws IOException {
+		final byte[] data = Arrays.copyOf(block, blockLength);
+		crc.update(data);
+		totalLength += data.length;
+		pending.add(executor.submit(newCompression(data, dictionary, last)));
+		if (data.length >= DICTIONARY_SIZE) {
+			dictionary = Arrays.copyOfRange(data, data.length - DICTIONARY_SIZE, data.length);
+		}
+		blockLength = 0;
+		while (pending.size() > maxPendingBlocks) {
+			out.write(waitFor(pending.poll()));
+		}
+	}
+
+	/**
+	 * This method creates the task to compress one block. Blocks other than
+	 * the last are terminated with a sync flush, so they can be concatenated.
+	 *
+	 * @param data the block to compress
+	 * @param dictionary the preset dictionary, or <tt>null</tt>
+	 * @param last whether this is the last block of the stream
+	 * @return the task
+	 */
+	private static Callable<byte[]> newCompression(final byte[] data, final byte[] dictionary, final boolean last) {
+		return new Callable<byte[]>() {
+			@Override
+			public byte[] call() {
+				Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+				try {
+					if (dictionary != null) {
+						deflater.setDictionary(dictionary);
+					}
+					deflater.setInput(data);
+					ByteArrayOutputStream compressed = new ByteArrayOutputStream(data.length / 4 + 64);
+					byte[] buffer = new byte[64 * 1024];
+					if (last) {
+						deflater.finish();
+						while (!deflater.finished()) {
+							compressed.write(buffer, 0, deflater.deflate(buffer));
+						}
+					} else {
+						int n;
+						do {
+							n = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+							compressed.write(buffer, 0, n);
+						} while (n == buffer.length);
+					}
+					return compressed.toByteArray();
+				} finally {
+					deflater.end();
+				}
+			}
+		};
+	}
+
+	private static byte[] waitFor(Future<byte[]> future) throws IOException {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while compressing", e);
+		} catch (ExecutionException e) {
+			throw new IOException("Error while compressing", e.getCause());
+		}
+	}
+
+	private void writeInt(int value) throws IOException {
+		out.write(value & 0xff);
+		out.write((value >> 8) & 0xff);
+		out.write((value >> 16) & 0xff);
+		out.write((value >> 24) & 0xff);
+	}
+}
@@ -0,0 +1,104 @@
+package plg.cli.log.out;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+
+import org.deckfour.xes.model.XTrace;
+
+import plg.common.log.XesTraceWriter;
+
+/**
+ * This abstract class describes a serializer which writes a log one trace at a
+ * time. Differently from the OpenXES serializers, the log is never required to
+ * be entirely in memory: the header is written by {@link #startLog(String)},
+ * then each trace is written by {@link #serialize(XTrace)} and, finally, the
+ * log is closed by {@link #endLog()}.
+ *
+ * <p> Instances of this class are not thread safe.
+ *
+ * @author Andrea Burattin
+ */
+public abstract class TraceStreamSerializer implements Closeable {
+
+	protected static final Charset UTF8 = Charset.forName("UTF-8");
+	protected static final int BUFFER_SIZE = 64 * 1024;
+
+	protected Writer writer;
+	protected DateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSXXX");
+
+	/**
+	 * Basic constructor
+	 *
+	 * @param out the stream which will receive the serialized log
+	 */
+	public TraceStreamSerializer(OutputStream out) {
+		this.writer = new BufferedWriter(new OutputStreamWriter(out, UTF8), BUFFER_SIZE);
+	}
+
+	/**
+	 * Constructor for binary serializers, which do not use {@link #writer} and
+	 * must override {@link #close()}
+	 */
+	protected TraceStreamSerializer() {
+		this.writer = null;
+	}
+
+	/**
+	 * This method returns the serializer to use for the provided destination,
+	 * according to its {@link LogFormat}
+	 *
+	 * @param logDestination the destination log file
+	 * @param out the stream which will receive the log
+	 * @return the serializer
+	 * @throws IOException
+	 */
+	public static TraceStreamSerializer newInstance(String logDestination, OutputStream out) throws IOException {
+		return LogFormat.fromFileName(logDestination).newSerializer(out);
+	}
+
+	/**
+	 * This method writes the header of the log
+	 *
+	 * @param logName the name of the log
+	 * @throws IOException
+	 */
+	public abstract void startLog(String logName) throws IOException;
+
+	/**
+	 * This method writes one trace of the log
+	 *
+	 * @param trace the trace to write
+	 * @throws IOException
+	 */
+	public abstract void serialize(XTrace trace) throws IOException;
+
+	/**
+	 * This method writes the footer of the log and flushes the output
+	 *
+	 * @throws IOException
+	 */
+	public abstract void endLog() throws IOException;
+
+	@Override
+	public void close() throws IOException {
+		writer.close();
+	}
+
+	/**
+	 * This method escapes the provided string so that it can be used as XML
+	 * text or attribute value
+	 *
+	 * @param value the string to escape
+	 * @return the escaped string
+	 */
+	protected static String escape(String value) {
+		return XesTraceWriter.escape(value);
+	}
+}
@@ -0,0 +1,44 @@
+package plg.cli.log.out;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.deckfour.xes.model.XTrace;
+
+import plg.common.log.XesTraceWriter;
+
+/**
+ * This class serializes a log, one trace at a time, as a XES file. The XES
+ * markup is produced by the {@link XesTraceWriter} shared with the GUI.
+ *
+ * @author Andrea Burattin
+ */
+public class XesTraceStreamSerializer extends TraceStreamSerializer {
+
+	private XesTraceWriter xes;
+
+	/**
+	 * Basic constructor
+	 *
+	 * @param out the stream which will receive the serialized log
+	 */
+	public XesTraceStreamSerializer(OutputStream out) {
+		super(out);
+		this.xes = new XesTraceWriter(writer);
+	}
+
+	@Override
+	public void startLog(String logName) throws IOException {
+		xes.startLog(logName);
+	}
+
+	@Override
+	public void serialize(XTrace trace) throws IOException {
+		xes.write(trace);
+	}
+
+	@Override
+	public void endLog() throws IOException {
+		xes.endLog();
+	}
+}
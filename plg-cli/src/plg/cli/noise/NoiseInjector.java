@@ -0,0 +1,290 @@
+package plg.cli.noise;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.deckfour.xes.model.XTrace;
+import org.kohsuke.args4j.CmdLineException;
+import org.kohsuke.args4j.CmdLineParser;
+import org.kohsuke.args4j.Option;
+
+import plg.cli.log.ShardedLogGenerator;
+import plg.cli.log.batch.BatchJob;
+import plg.cli.log.out.LogFormat;
+import plg.cli.log.out.TraceStreamSerializer;
+import plg.common.log.TraceNoiseProcessor;
+import plg.common.log.TraceSimulator;
+import plg.common.log.XesTraceReader;
+import plg.generator.log.noise.NoiseConfiguration;
+import plg.utils.PlgConstants;
+
+/**
+ * This class contains the main program to add noise to an existing XES log,
+ * without simulating the process again. The log is read once, one trace at a
+ * time, and each trace is written, with its own noise, to all the requested
+ * variants, so memory usage does not depend on the size of the log.
+ * 
+ * @author Andrea Burattin
+ */
+public class NoiseInjector {
+
+	/**
+	 * This class contains the command line parameters
+	 *
+	 * @author Andrea Burattin
+	 */
+	private class CLIOptions {
+		
+		@Option(
+			name = "--version",
+			aliases = "-v",
+			usage = "check the current version of the application"
+		)
+		public Boolean printVersion = false;
+		
+		@Option(
+			name = "--input",
+			aliases = "-i",
+			usage = "the clean log, in XES or XES.GZ format"
+		)
+		public File input = null;
+		
+		@Option(
+			name = "--log",
+			aliases = "-l",
+			usage = "the destination log file: XES, XES.GZ, MXML, MXML.GZ or PLGC (with more variants, a suffix is added before the extension)"
+		)
+		public String logDestination = null;
+		
+		@Option(
+			name = "--variants",
+			aliases = "-n",
+			usage = "the number of noisy variants to generate"
+		)
+		public Integer variants = 1;
+		
+		@Option(
+			name = "--noise",
+			usage = "the noise preset: none, complete, names, data or control-flow"
+		)
+		public String noise = "complete";
+		
+		@Option(
+			name = "--seed",
+			usage = "the seed of the noise (random if not provided)"
+		)
+		public Long seed = null;
+		
+		@Option(name = "--activity-name", usage = "the probability of changing an activity name")
+		public Double activityName = null;
+		
+		@Option(name = "--missing-head", usage = "the probability of removing the head of a trace")
+		public Double missingHead = null;
+		
+		@Option(name = "--head-size", usage = "the maximum size of a removed head")
+		public Integer headSize = null;
+		
+		@Option(name = "--missing-tail", usage = "the probability of removing the tail of a trace")
+		public Double missingTail = null;
+		
+		@Option(name = "--tail-size", usage = "the maximum size of a removed tail")
+		public Integer tailSize = null;
+		
+		@Option(name = "--missing-episode", usage = "the probability of removing an episode of a trace")
+		public Double missingEpisode = null;
+		
+		@Option(name = "--episode-size", usage = "the maximum size of a removed episode")
+		public Integer episodeSize = null;
+		
+		@Option(name = "--perturbed-order", usage = "the probability of swapping two events of a trace")
+		public Double perturbedOrder = null;
+		
+		@Option(name = "--doubled-event", usage = "the probability of doubling an event of a trace")
+		public Double doubledEvent = null;
+		
+		@Option(name = "--alien-event", usage = "the probability of adding an alien event to a trace")
+		public Double alienEvent = null;
+		
+		@Option(name = "--integer-data", usage = "the probability of changing an integer data object")
+		public Double integerData = null;
+		
+		@Option(name = "--integer-delta", usage = "the maximum change of an integer data object")
+		public Integer integerDelta = null;
+		
+		@Option(name = "--string-data", usage = "the probability of changing a string data object")
+		public Double stringData = null;
+	}
+	
+	/**
+	 * 
+	 * @param args
+	 * @throws Exception 
+	 */
+	public static void main(String[] args) throws Exception {
+		
+		// CLI parameters parsing
+		CLIOptions parameters = new NoiseInjector().new CLIOptions();
+		CmdLineParser parser = new CmdLineParser(parameters);
+		try {
+			parser.parseArgument(args);
+		} catch (CmdLineException e) {
+			System.err.println(e.getMessage());
+			System.err.println("");
+			System.err.println("java -jar NoiseInjector.jar -i <clean log> -l <destination log> [-n <no of variants>]");
+			parser.printUsage(System.err);
+			System.exit(1);
+		}
+		
+		// check parameters
+		if (!parameters.printVersion &&
+			(parameters.input == null || parameters.logDestination == null || parameters.variants < 1 ||
+			!BatchJob.NOISE_PRESETS.containsKey(parameters.noise))) {
+			System.err.println("java -jar NoiseInjector.jar -i <clean log> -l <destination log> [-n <no of variants>]");
+			parser.printUsage(System.err);
+			System.exit(1);
+		}
+		
+		// version menu
+		if (parameters.printVersion) {
+			System.out.println("PLG-CLI (" + PlgConstants.libPLG_SIGNATURE + ")");
+			System.exit(0);
+		}
+		
+		long seed = (parameters.seed == null)? new Random().nextLong() : parameters.seed;
+		NoiseConfiguration noise = getNoiseConfiguration(parameters);
+		List<String> destinations = new ArrayList<String>();
+		for (int i = 0; i < parameters.variants; i++) {
+			destinations.add((parameters.variants == 1)?
+					parameters.logDestination :
+					ShardedLogGenerator.getShardFile(parameters.logDestination, i + 1).getPath());
+		}
+		
+		// parameters summary
+		System.out.println("PLG-CLI (" + PlgConstants.libPLG_SIGNATURE + ")");
+		System.out.println("");
+		System.out.println("Clean log: " + parameters.input);
+		System.out.println("Log destination: " + parameters.logDestination);
+		System.out.println("No. of variants: " + parameters.variants);
+		System.out.println("Noise preset: " + parameters.noise);
+		System.out.println("Seed: " + seed);
+		System.out.println("");
+		
+		System.out.print("1. Adding noise... ");
+		long traces = inject(parameters.input, destinations, noise, seed);
+		System.out.println("done! (" + traces + " traces)");
+	}
+	
+	/**
+	 * This method reads the provided log and writes one noisy copy of it to
+	 * each of the destinations. The noise of the trace <tt>i</tt> of the
+	 * variant <tt>v</tt> depends only on the seed, on <tt>v</tt> and on
+	 * <tt>i</tt>.
+	 * 
+	 * @param input the clean log
+	 * @param destinations the destinations of the variants
+	 * @param noise the noise to apply
+	 * @param seed the seed of the noise
+	 * @return the number of traces processed
+	 * @throws Exception
+	 */
+	public static long inject(File input, List<String> destinations, NoiseConfiguration noise, long seed) throws Exception {
+		TraceNoiseProcessor processor = new TraceNoiseProcessor(noise);
+		List<OutputStream> outs = new ArrayList<OutputStream>();
+		List<TraceStreamSerializer> serializers = new ArrayList<TraceStreamSerializer>();
+		int traces = 0;
+		Exception failure = null;
+		try (XesTraceReader reader = XesTraceReader.open(input)) {
+			String logName = reader.getLogName();
+			for (String destination : destinations) {
+				OutputStream out = new FileOutputStream(destination);
+				outs.add(out);
+				TraceStreamSerializer serializer = LogFormat.fromFileName(destination).newSerializer(out);
+				serializers.add(serializer);
+				serializer.startLog(((logName == null)? input.getName() : logName) + " (noise)");
+			}
+			
+			long[] variantSeeds = new long[destinations.size()];
+			for (int v = 0; v < variantSeeds.length; v++) {
+				variantSeeds[v] = TraceSimulator.getTraceSeed(seed, v);
+			}
+			Random random = new Random();
+			XTrace trace;
+			while ((trace = reader.next()) != null) {
+				for (int v = 0; v < serializers.size(); v++) {
+					random.setSeed(TraceSimulator.getTraceSeed(variantSeeds[v], traces));
+					serializers.get(v).serialize(processor.apply(trace, random));
+				}
+				traces++;
+			}
+			for (TraceStreamSerializer serializer : serializers) {
+				serializer.endLog();
+			}
+		} catch (Exception e) {
+			failure = e;
+		}
+		// closing flushes the variants, so its failures are not ignored
+		for (TraceStreamSerializer serializer : serializers) {
+			failure = close(serializer, failure);
+		}
+		for (OutputStream out : outs) {
+			failure = close(out, failure);
+		}
+		if (failure != null) {
+			throw failure;
+		}
+		return traces;
+	}
+	
+	/**
+	 * This method builds the noise configuration out of the selected preset
+	 * and of the probabilities set explicitly
+	 * 
+	 * @param parameters the command line parameters
+	 * @return the noise configuration
+	 */
+	private static NoiseConfiguration getNoiseConfiguration(CLIOptions parameters) {
+		NoiseConfiguration preset = BatchJob.NOISE_PRESETS.get(parameters.noise);
+		return new NoiseConfiguration(
+				value(parameters.integerData, preset.getIntegerDataNoiseProbability()),
+				(int) value(parameters.integerDelta, preset.getIntegerDataNoiseDelta()),
+				value(parameters.stringData, preset.getStringDataNoiseProbability()),
+				value(parameters.activityName, preset.getActivityNameNoiseProbability()),
+				value(parameters.missingHead, preset.getTraceMissingHeadNoiseProbability()),
+				(int) value(parameters.headSize, preset.getTraceMissingHeadSize()),
+				value(parameters.missingTail, preset.getTraceMissingTailNoiseProbability()),
+				(int) value(parameters.tailSize, preset.getTraceMissingTailSize()),
+				value(parameters.missingEpisode, preset.getTraceMissingEpisodeNoiseProbability()),
+				(int) value(parameters.episodeSize, preset.getTraceMissingEpisodeSize()),
+				value(parameters.perturbedOrder, preset.getPerturbedOrderNoiseProbability()),
+				value(parameters.doubledEvent, preset.getDoubleEventNoiseProbability()),
+				value(parameters.alienEvent, preset.getAlienEventNoiseProbability()));
+	}
+	
+	private static double value(Number value, double defaultValue) {
+		return (value == null)? defaultValue : value.doubleValue();
+	}
+	
+	/**
+	 * This method closes the provided resource, keeping the first failure
+	 * 
+	 * @param closeable the resource to close
+	 * @param failure the failure occurred so far, or <tt>null</tt>
+	 * @return the first failure occurred, or <tt>null</tt>
+	 */
+	private static Exception close(Closeable closeable, Exception failure) {
+		try {
+			closeable.close();
+		} catch (Exception e) {
+			if (failure == null) {
+				return e;
+			}
+			failure.addSuppressed(e);
+		}
+		return failure;
+	}
+}
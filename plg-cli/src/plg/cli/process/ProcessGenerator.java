@@ -0,0 +1,221 @@
+package plg.cli.process;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.kohsuke.args4j.CmdLineException;
+import org.kohsuke.args4j.CmdLineParser;
+import org.kohsuke.args4j.Option;
+
+import plg.common.process.BulkProcessGenerator;
+import plg.common.utils.RandomSource;
+import plg.generator.ProgressAdapter;
+import plg.generator.process.RandomizationConfiguration;
+import plg.utils.PlgConstants;
+import plg.utils.RegisteredIO;
+
+/**
+ * This class contains the main program to generate many random processes
+ * 
+ * @author Andrea Burattin
+ */
+public class ProcessGenerator {
+
+	/**
+	 * This class contains the command line parameters
+	 *
+	 * @author Andrea Burattin
+	 */
+	private class CLIOptions {
+		
+		private final RandomizationConfiguration DEFAULTS = RandomizationConfiguration.BASIC_VALUES;
+		
+		@Option(
+			name = "--version",
+			aliases = "-v",
+			usage = "check the current version of the application"
+		)
+		public Boolean printVersion = false;
+		
+		@Option(
+			name = "--count",
+			aliases = "-n",
+			usage = "the number of processes to generate"
+		)
+		public Integer count = null;
+		
+		@Option(
+			name = "--output",
+			aliases = "-o",
+			usage = "the destination folder of the processes and of the manifest"
+		)
+		public File destination = null;
+		
+		@Option(
+			name = "--formats",
+			aliases = "-f",
+			usage = "the comma separated extensions of the exporters to use"
+		)
+		public String formats = "plg";
+		
+		@Option(
+			name = "--prefix",
+			usage = "the prefix of the process names"
+		)
+		public String prefix = "process";
+		
+		@Option(
+			name = "--threads",
+			aliases = "-t",
+			usage = "the number of threads used to generate and export the processes"
+		)
+		public Integer threads = Runtime.getRuntime().availableProcessors();
+		
+		@Option(
+			name = "--seed",
+			usage = "the seed of the generation: process i depends only on the seed and on i"
+		)
+		public Long seed = null;
+		
+		@Option(name = "--max-depth", usage = "the maximum depth of the processes")
+		public Integer maximumDepth = DEFAULTS.getMaximumDepth();
+		
+		@Option(name = "--and-branches", usage = "the maximum number of AND branches")
+		public Integer andBranches = DEFAULTS.getAndBranches();
+		
+		@Option(name = "--xor-branches", usage = "the maximum number of XOR branches")
+		public Integer xorBranches = DEFAULTS.getXorBranches();
+		
+		@Option(name = "--loop-weight", usage = "the weight of loops")
+		public Double loopWeight = DEFAULTS.getLoopWeight();
+		
+		@Option(name = "--single-weight", usage = "the weight of single activities")
+		public Double singleActivityWeight = DEFAULTS.getSingleActivityWeight();
+		
+		@Option(name = "--skip-weight", usage = "the weight of skips")
+		public Double skipWeight = DEFAULTS.getSkipWeight();
+		
+		@Option(name = "--sequence-weight", usage = "the weight of sequences")
+		public Double sequenceWeight = DEFAULTS.getSequenceWeight();
+		
+		@Option(name = "--and-weight", usage = "the weight of AND splits")
+		public Double andWeight = DEFAULTS.getANDWeight();
+		
+		@Option(name = "--xor-weight", usage = "the weight of XOR splits")
+		public Double xorWeight = DEFAULTS.getXORWeight();
+		
+		@Option(name = "--data-objects", usage = "the probability of data objects")
+		public Double dataObjectProbability = DEFAULTS.getDataObjectProbability();
+		
+		public RandomizationConfiguration getRandomizationConfiguration() {
+			return new RandomizationConfiguration(
+					andBranches,
+					xorBranches,
+					loopWeight,
+					singleActivityWeight,
+					skipWeight,
+					sequenceWeight,
+					andWeight,
+					xorWeight,
+					maximumDepth,
+					dataObjectProbability);
+		}
+	}
+	
+	/**
+	 * 
+	 * @param args
+	 * @throws Exception 
+	 */
+	public static void main(String[] args) throws Exception {
+		
+		// CLI parameters parsing
+		CLIOptions parameters = new ProcessGenerator().new CLIOptions();
+		CmdLineParser parser = new CmdLineParser(parameters);
+		try {
+			parser.parseArgument(args);
+		} catch (CmdLineException e) {
+			System.err.println(e.getMessage());
+			System.err.println("");
+			printUsage(parser);
+			System.exit(1);
+		}
+		
+		// check parameters
+		List<Class<?>> exporters = getExporters(parameters.formats);
+		if (!parameters.printVersion &&
+			(parameters.count == null || parameters.destination == null || parameters.threads < 1 || exporters == null)) {
+			printUsage(parser);
+			System.exit(1);
+		}
+		
+		// version menu
+		if (parameters.printVersion) {
+			System.out.println("PLG-CLI (" + PlgConstants.libPLG_SIGNATURE + ")");
+			System.exit(0);
+		}
+		
+		// parameters summary
+		System.out.println("PLG-CLI (" + PlgConstants.libPLG_SIGNATURE + ")");
+		System.out.println("");
+		System.out.println("No. of processes: " + parameters.count);
+		System.out.println("Destination: " + parameters.destination);
+		System.out.println("Formats: " + parameters.formats);
+		System.out.println("Threads: " + parameters.threads);
+		System.out.println("Seed: " + ((parameters.seed == null)? "none" : parameters.seed));
+		System.out.println("");
+		if (parameters.seed != null && parameters.threads > 1 && !RandomSource.isPerThread()) {
+			System.err.println("Warning: the random source of the library cannot be split by thread, seeded processes are generated one at a time");
+		}
+		
+		// generation and export
+		System.out.print("1. Generating and exporting processes... ");
+		BulkProcessGenerator generator = new BulkProcessGenerator(
+				parameters.getRandomizationConfiguration(), exporters, parameters.threads, parameters.seed);
+		File manifest = generator.generate(parameters.count, parameters.prefix, parameters.destination, new ProgressAdapter());
+		System.out.println("done!");
+		System.out.println("Manifest: " + manifest);
+	}
+	
+	/**
+	 * This method returns the exporters registered for the provided
+	 * extensions
+	 * 
+	 * @param formats the comma separated list of extensions
+	 * @return the exporter classes, or <tt>null</tt> if an extension has no
+	 * exporter
+	 */
+	private static List<Class<?>> getExporters(String formats) {
+		List<Class<?>> exporters = new ArrayList<Class<?>>();
+		for (String format : formats.split(",")) {
+			Class<?> found = null;
+			for (Class<?> exporter : RegisteredIO.getAllExporters()) {
+				if (BulkProcessGenerator.getExtension(exporter).equalsIgnoreCase(format.trim())) {
+					found = exporter;
+				}
+			}
+			if (found == null) {
+				System.err.println("No exporter available for format `" + format.trim() + "'");
+				return null;
+			}
+			exporters.add(found);
+		}
+		return exporters;
+	}
+	
+	/**
+	 * This method prints the usage of the program, with the available formats
+	 * 
+	 * @param parser the command line parser
+	 */
+	private static void printUsage(CmdLineParser parser) {
+		System.err.println("java -jar ProcessGenerator.jar -n <no of processes> -o <destination folder> [-f <formats>]");
+		parser.printUsage(System.err);
+		System.err.print("\nAvailable formats:");
+		for (Class<?> exporter : RegisteredIO.getAllExporters()) {
+			System.err.print(" " + BulkProcessGenerator.getExtension(exporter));
+		}
+		System.err.println();
+	}
+}
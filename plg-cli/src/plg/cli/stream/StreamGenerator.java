@@ -0,0 +1,270 @@
+package plg.cli.stream;
+
+import java.io.File;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ConcurrentLinkedDeque;
+
+import org.kohsuke.args4j.CmdLineException;
+import org.kohsuke.args4j.CmdLineParser;
+import org.kohsuke.args4j.Option;
+
+import plg.common.io.ProcessSnapshotCache;
+import plg.common.scripts.PooledScripts;
+import plg.generator.log.SimulationConfiguration;
+import plg.io.importer.PLGImporter;
+import plg.model.Process;
+import plg.stream.configuration.StreamConfiguration;
+import plg.stream.model.StreamBuffer;
+import plg.stream.model.StreamEvent;
+import plg.stream.model.Streamer;
+import plg.utils.PlgConstants;
+
+/**
+ * This class contains the main program to stream the events of a process
+ * without any graphical interface. The stream runs until the process is
+ * terminated (e.g., with <tt>SIGTERM</tt> or <tt>Ctrl+C</tt>), when the stream
+ * is closed cleanly.
+ * 
+ * @author Andrea Burattin
+ */
+public class StreamGenerator {
+
+	/**
+	 * This class contains the command line parameters
+	 *
+	 * @author Andrea Burattin
+	 */
+	private class CLIOptions {
+		
+		@Option(
+			name = "--version",
+			aliases = "-v",
+			usage = "check the current version of the application"
+		)
+		public Boolean printVersion = false;
+		
+		@Option(
+			name = "--model",
+			aliases = "-m",
+			usage = "the process model to stream"
+		)
+		public File modelFile = null;
+		
+		@Option(
+			name = "--instances",
+			aliases = "-i",
+			usage = "the maximum number of parallel process instances"
+		)
+		public Integer instances = 10;
+		
+		@Option(
+			name = "--rate",
+			aliases = "-r",
+			usage = "the target number of events per second (e.g., 2000/s), if not provided the time multiplier is used"
+		)
+		public String rate = null;
+		
+		@Option(
+			name = "--time-multiplier",
+			usage = "the factor between the time of the simulated process and the wall clock time"
+		)
+		public Double timeMultiplier = null;
+		
+		@Option(
+			name = "--broker",
+			usage = "the host of the MQTT broker"
+		)
+		public String brokerHost = "broker.hivemq.com";
+		
+		@Option(
+			name = "--topic",
+			usage = "the base of the MQTT topic"
+		)
+		public String topicBase = "mqttxes";
+		
+		@Option(
+			name = "--time-fraction",
+			usage = "the fraction of the trace duration to wait before starting a new trace"
+		)
+		public Double timeFractionBeforeNewTrace = 0.5;
+		
+		@Option(
+			name = "--mark-traces",
+			usage = "mark the beginning and the end of each trace"
+		)
+		public Boolean markTraceBeginningEnd = false;
+		
+		@Option(
+			name = "--no-snapshot-cache",
+			usage = "do not use the binary snapshots of the imported models"
+		)
+		public Boolean noSnapshotCache = false;
+	}
+	
+	/**
+	 * 
+	 * @param args
+	 * @throws Exception 
+	 */
+	public static void main(String[] args) throws Exception {
+		
+		// CLI parameters parsing
+		CLIOptions parameters = new StreamGenerator().new CLIOptions();
+		CmdLineParser parser = new CmdLineParser(parameters);
+		try {
+			parser.parseArgument(args);
+		} catch (CmdLineException e) {
+			System.err.println(e.getMessage());
+			System.err.println("");
+			System.err.println("java -jar StreamGenerator.jar -m <model file> -i <no of instances> -r <events per second>/s");
+			parser.printUsage(System.err);
+			System.exit(1);
+		}
+		
+		// check parameters
+		Double rate = null;
+		try {
+			rate = parseRate(parameters.rate);
+		} catch (NumberFormatException e) {
+			System.err.println("Invalid rate: " + parameters.rate);
+			System.exit(1);
+		}
+		if (!parameters.printVersion &&
+			(parameters.modelFile == null || parameters.instances < 1 ||
+			(rate != null && rate <= 0) || (parameters.timeMultiplier != null && parameters.timeMultiplier <= 0))) {
+			System.err.println("java -jar StreamGenerator.jar -m <model file> -i <no of instances> -r <events per second>/s");
+			parser.printUsage(System.err);
+			System.exit(1);
+		}
+		
+		// version menu
+		if (parameters.printVersion) {
+			System.out.println("PLG-CLI (" + PlgConstants.libPLG_SIGNATURE + ")");
+			System.exit(0);
+		}
+		
+		// parameters summary
+		System.out.println("PLG-CLI (" + PlgConstants.libPLG_SIGNATURE + ")");
+		System.out.println("");
+		System.out.println("Model: " + parameters.modelFile);
+		System.out.println("Parallel instances: " + parameters.instances);
+		System.out.println("Broker: " + parameters.brokerHost);
+		System.out.println("Topic base: " + parameters.topicBase);
+		System.out.println("");
+		
+		// model import
+		System.out.print("1. Importing model... ");
+		Process p;
+		if (parameters.noSnapshotCache) {
+			p = new PLGImporter().importModel(parameters.modelFile.getAbsolutePath());
+			p.check();
+		} else {
+			p = new ProcessSnapshotCache(ProcessSnapshotCache.getDefaultFolder()).importCheckedModel(parameters.modelFile, new PLGImporter());
+		}
+		PooledScripts.install(p);
+		System.out.println("done!");
+		
+		// stream configuration
+		System.out.print("2. Configuring stream... ");
+		StreamConfiguration configuration = new StreamConfiguration();
+		configuration.brokerHost = parameters.brokerHost;
+		configuration.topicBase = parameters.topicBase;
+		configuration.maximumParallelInstances = parameters.instances;
+		configuration.timeFractionBeforeNewTrace = parameters.timeFractionBeforeNewTrace;
+		configuration.markTraceBeginningEnd = parameters.markTraceBeginningEnd;
+		if (parameters.timeMultiplier != null) {
+			configuration.timeMultiplier = parameters.timeMultiplier;
+		}
+		SimulationConfiguration sc = new SimulationConfiguration(0);
+		if (rate != null) {
+			configuration.timeMultiplier = getTimeMultiplier(configuration, sc, p, rate);
+		}
+		System.out.println("done!");
+		System.out.println(String.format(Locale.ROOT, "   Time multiplier: %.8f", configuration.timeMultiplier));
+		
+		// streaming
+		System.out.println("3. Streaming (terminate the process to stop)... ");
+		final Streamer streamer = new Streamer(configuration, p.getName(), p, sc);
+		final CountDownLatch stopped = new CountDownLatch(1);
+		Runtime.getRuntime().addShutdownHook(new Thread("stream-shutdown") {
+			@Override
+			public void run() {
+				System.out.print("4. Stopping stream... ");
+				streamer.endStream();
+				System.out.println("done!");
+				stopped.countDown();
+			}
+		});
+		streamer.startStream();
+		stopped.await();
+	}
+	
+	/**
+	 * This method parses a rate expressed as <tt>N</tt>, <tt>N/s</tt>,
+	 * <tt>N/m</tt> or <tt>N/h</tt> and returns it in events per second
+	 * 
+	 * @param rate the rate to parse
+	 * @return the number of events per second, or <tt>null</tt> if no rate is
+	 * provided
+	 * @throws NumberFormatException if the rate is not valid
+	 */
+	public static Double parseRate(String rate) {
+		if (rate == null) {
+			return null;
+		}
+		String value = rate.trim().toLowerCase(Locale.ROOT);
+		double unit = 1;
+		int slash = value.indexOf('/');
+		if (slash >= 0) {
+			String suffix = value.substring(slash + 1).trim();
+			if (suffix.equals("m") || suffix.equals("min")) {
+				unit = 60;
+			} else if (suffix.equals("h")) {
+				unit = 3600;
+			} else if (!suffix.equals("s") && !suffix.equals("sec")) {
+				throw new NumberFormatException(rate);
+			}
+			value = value.substring(0, slash).trim();
+		}
+		return Double.parseDouble(value) / unit;
+	}
+	
+	/**
+	 * This method estimates the time multiplier required to emit the provided
+	 * number of events per second. The estimation is based on the density of
+	 * the events in a preview buffer, populated as the actual stream does.
+	 * 
+	 * @param configuration the stream configuration
+	 * @param sc the simulation configuration
+	 * @param p the process to stream
+	 * @param rate the target number of events per second
+	 * @return the time multiplier
+	 */
+	public static double getTimeMultiplier(StreamConfiguration configuration, SimulationConfiguration sc, Process p, double rate) {
+		Streamer preview = new Streamer(configuration, p.getName(), p, sc);
+		preview.clearBuffer();
+		preview.initialBufferPopulation();
+		StreamBuffer buffer = preview.getBuffer();
+		
+		long events = 0;
+		long first = Long.MAX_VALUE;
+		long last = Long.MIN_VALUE;
+		for (int i = 0; i < configuration.maximumParallelInstances; i++) {
+			ConcurrentLinkedDeque<StreamEvent> queue = buffer.get(i);
+			for (StreamEvent e : queue) {
+				long time = e.getDate().getTime();
+				first = Math.min(first, time);
+				last = Math.max(last, time);
+				events++;
+			}
+		}
+		if (events < 2 || last <= first) {
+			return configuration.timeMultiplier;
+		}
+		
+		// an event every (last - first) / events ms of process time must
+		// become an event every 1000 / rate ms of wall clock time
+		return (events * 1000d) / ((last - first) * rate);
+	}
+}
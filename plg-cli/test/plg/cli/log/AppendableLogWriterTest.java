@@ -0,0 +1,149 @@
+package plg.cli.log;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.util.zip.GZIPInputStream;
+
+import org.deckfour.xes.extension.std.XConceptExtension;
+import org.deckfour.xes.model.XTrace;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import plg.cli.log.out.LogFormat;
+import plg.common.log.TraceSimulator;
+import plg.common.log.XesTraceReader;
+import plg.generator.log.SimulationConfiguration;
+import plg.generator.process.ProcessGenerator;
+import plg.generator.process.RandomizationConfiguration;
+import plg.model.Process;
+
+public class AppendableLogWriterTest {
+
+	private static final long SEED = 42l;
+	private static Process process;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@BeforeClass
+	public static void randomizeProcess() throws Exception {
+		process = new Process("test");
+		ProcessGenerator.randomizeProcess(process, new RandomizationConfiguration(3, 3, 0.1, 0.2, 0.1, 0.7, 0.3, 0.3, 3, 0));
+		process.check();
+	}
+
+	@Test
+	public void appendedPlainLogEqualsSingleRun() throws Exception {
+		assertAppendEqualsSingleRun(".xes", 1);
+	}
+
+	@Test
+	public void appendedCompressedLogEqualsSingleRun() throws Exception {
+		assertAppendEqualsSingleRun(".xes.gz", 1);
+	}
+
+	@Test
+	public void appendedParallelCompressedLogEqualsSingleRun() throws Exception {
+		assertAppendEqualsSingleRun(".xes.gz", 4);
+	}
+
+	@Test
+	public void appendedTracesContinueTheNumbering() throws Exception {
+		String log = new File(folder.getRoot(), "numbering.xes.gz").getPath();
+		write(log, 3, false, 1);
+		write(log, 4, false, 1);
+		try (XesTraceReader reader = XesTraceReader.open(new File(log))) {
+			assertEquals("test", reader.getLogName());
+			XTrace trace;
+			int traces = 0;
+			while ((trace = reader.next()) != null) {
+				assertEquals(TraceSimulator.getCaseId(traces++), XConceptExtension.instance().extractName(trace));
+			}
+			assertEquals(7, traces);
+		}
+	}
+
+	@Test
+	public void columnarLogsCannotBeAppended() throws Exception {
+		String log = new File(folder.getRoot(), "log.plgc").getPath();
+		write(log, 5, true, 1);
+		try {
+			write(log, 5, false, 1);
+			fail("Columnar logs should not be appended");
+		} catch (IOException e) {
+			// expected
+		}
+		assertEquals(5, LogIndex.load(log).getTraces());
+	}
+
+	@Test
+	public void truncatedLogIsNotAppended() throws Exception {
+		String log = new File(folder.getRoot(), "truncated.xes").getPath();
+		write(log, 5, true, 1);
+		try (RandomAccessFile raf = new RandomAccessFile(log, "rw")) {
+			raf.setLength(LogIndex.load(log).getFooterOffset());
+		}
+		try {
+			write(log, 5, false, 1);
+			fail("Logs which do not match their index should not be appended");
+		} catch (IOException e) {
+			assertTrue(e.getMessage().contains("does not match its index"));
+		}
+	}
+
+	private void assertAppendEqualsSingleRun(String extension, int gzipThreads) throws Exception {
+		String single = new File(folder.getRoot(), "single" + extension).getPath();
+		write(single, 22, true, gzipThreads);
+
+		String appended = new File(folder.getRoot(), "appended" + extension).getPath();
+		write(appended, 10, true, gzipThreads);
+		write(appended, 5, false, gzipThreads);
+		write(appended, 7, false, gzipThreads);
+
+		LogIndex index = LogIndex.load(appended);
+		assertEquals(22, index.getTraces());
+		assertTrue(new File(appended).length() > index.getFooterOffset());
+		assertArrayEquals(read(single), read(appended));
+	}
+
+	// writes the traces as LogGenerator does, storing the index and loading it
+	// back for the following appends
+	private static void write(String log, int noTraces, boolean create, int gzipThreads) throws Exception {
+		LogIndex index = create?
+				new LogIndex(LogFormat.fromFileName(log), process.getName(), SEED, null) :
+				LogIndex.load(log);
+		TraceSimulator simulator = new TraceSimulator(process, new SimulationConfiguration(noTraces), index.getSeed());
+		AppendableLogWriter.write(new ParallelTraceGenerator(simulator, 2), log, index, noTraces, gzipThreads, !create);
+		index.store(log);
+	}
+
+	private static byte[] read(String log) throws IOException {
+		InputStream in = new FileInputStream(log);
+		if (LogFormat.fromFileName(log).isCompressed()) {
+			// reads all the gzip members
+			in = new GZIPInputStream(in);
+		}
+		try {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] buffer = new byte[8192];
+			int read;
+			while ((read = in.read(buffer)) > 0) {
+				out.write(buffer, 0, read);
+			}
+			return out.toByteArray();
+		} finally {
+			in.close();
+		}
+	}
+}
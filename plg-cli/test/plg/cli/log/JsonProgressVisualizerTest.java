@@ -0,0 +1,58 @@
+package plg.cli.log;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+import org.junit.Test;
+
+public class JsonProgressVisualizerTest {
+
+	@Test
+	public void recordsAreClosedWithTheGeneration() throws Exception {
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		JsonProgressVisualizer progress = new JsonProgressVisualizer(new PrintStream(buffer, true, "UTF-8"), 60000);
+		progress.setMaximum(2);
+		progress.start();
+		progress.inc();
+		progress.inc();
+		progress.close();
+		String[] records = buffer.toString("UTF-8").trim().split("\n");
+		assertEquals(2, records.length);
+		assertTrue(records[0].contains("\"status\":\"started\""));
+		assertTrue(records[1].contains("\"status\":\"finished\""));
+		assertTrue(records[1].contains("\"traces_done\":2,\"traces_total\":2"));
+		assertTrue(records[1].contains("\"events_done\":0,"));
+		assertFalse(records[1].contains("\"heap_max_bytes\":-1"));
+	}
+
+	@Test
+	public void uncountedEventsAreNull() throws Exception {
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		JsonProgressVisualizer progress = new JsonProgressVisualizer(new PrintStream(buffer, true, "UTF-8"), 60000);
+		progress.setCountingEvents(false);
+		progress.start();
+		progress.inc();
+		progress.close();
+		assertTrue(buffer.toString("UTF-8").contains("\"events_done\":null,\"events_per_sec\":null,"));
+	}
+
+	@Test
+	public void closeClosesTheStream() throws Exception {
+		final boolean[] closed = new boolean[] { false };
+		PrintStream out = new PrintStream(new ByteArrayOutputStream()) {
+			@Override
+			public void close() {
+				closed[0] = true;
+				super.close();
+			}
+		};
+		JsonProgressVisualizer progress = new JsonProgressVisualizer(out, 60000);
+		progress.start();
+		progress.close();
+		assertTrue(closed[0]);
+	}
+}
@@ -0,0 +1,94 @@
+package plg.cli.log.out;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.Test;
+
+public class ParallelGZIPOutputStreamTest {
+
+	private static final int BLOCK_SIZE = 32 * 1024;
+
+	@Test
+	public void emptyInput() throws IOException {
+		assertRoundTrip(new byte[0], 1);
+	}
+
+	@Test
+	public void singleThreadSeveralBlocks() throws IOException {
+		assertRoundTrip(text(5 * BLOCK_SIZE + 123), 1);
+	}
+
+	@Test
+	public void severalThreadsSeveralBlocks() throws IOException {
+		assertRoundTrip(text(20 * BLOCK_SIZE + 7), 4);
+	}
+
+	@Test
+	public void incompressibleData() throws IOException {
+		byte[] data = new byte[3 * BLOCK_SIZE + 1];
+		new Random(1).nextBytes(data);
+		assertRoundTrip(data, 3);
+	}
+
+	@Test
+	public void exactMultipleOfBlockSize() throws IOException {
+		assertRoundTrip(text(4 * BLOCK_SIZE), 2);
+	}
+
+	@Test
+	public void singleByteWrites() throws IOException {
+		byte[] data = text(2 * BLOCK_SIZE + 99);
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+		ParallelGZIPOutputStream out = new ParallelGZIPOutputStream(compressed, 2, BLOCK_SIZE);
+		for (byte b : data) {
+			out.write(b);
+		}
+		out.close();
+		assertArrayEquals(data, gunzip(compressed.toByteArray()));
+	}
+
+	private static void assertRoundTrip(byte[] data, int threads) throws IOException {
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+		ParallelGZIPOutputStream out = new ParallelGZIPOutputStream(compressed, threads, BLOCK_SIZE);
+		// uneven writes, crossing the block boundaries
+		int off = 0;
+		while (off < data.length) {
+			int len = Math.min(data.length - off, 1000 + off % 7777);
+			out.write(data, off, len);
+			off += len;
+		}
+		out.close();
+		assertArrayEquals(data, gunzip(compressed.toByteArray()));
+	}
+
+	private static byte[] text(int length) {
+		Random random = new Random(length);
+		byte[] data = new byte[length];
+		for (int i = 0; i < length; i++) {
+			data[i] = (byte) ('a' + random.nextInt(4));
+		}
+		return data;
+	}
+
+	private static byte[] gunzip(byte[] compressed) throws IOException {
+		InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed));
+		try {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] buffer = new byte[8192];
+			int n;
+			while ((n = in.read(buffer)) > 0) {
+				out.write(buffer, 0, n);
+			}
+			return out.toByteArray();
+		} finally {
+			in.close();
+		}
+	}
+}
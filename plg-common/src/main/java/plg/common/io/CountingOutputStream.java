@@ -0,0 +1,49 @@
+package plg.common.io;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * This stream counts the bytes written through it. The count can start from
+ * a given value, such as the length of a file the stream appends to, so it
+ * always reports the position in the file.
+ *
+ * @author Andrea Burattin
+ */
+public class CountingOutputStream extends FilterOutputStream {
+
+	private long count;
+
+	/**
+	 * Basic constructor
+	 *
+	 * @param out the underlying stream
+	 * @param start the initial value of the count
+	 */
+	public CountingOutputStream(OutputStream out, long start) {
+		super(out);
+		this.count = start;
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		out.write(b);
+		count++;
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		out.write(b, off, len);
+		count += len;
+	}
+
+	/**
+	 * This method returns the number of bytes written, plus the initial value
+	 *
+	 * @return the current count
+	 */
+	public long getCount() {
+		return count;
+	}
+}
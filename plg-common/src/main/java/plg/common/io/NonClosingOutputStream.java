@@ -0,0 +1,34 @@
+package plg.common.io;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * This stream does not close the underlying stream: closing it only flushes
+ * the data. It allows to finish a wrapping stream, such as a gzip member,
+ * and then keep writing into the same file.
+ *
+ * @author Andrea Burattin
+ */
+public class NonClosingOutputStream extends FilterOutputStream {
+
+	/**
+	 * Basic constructor
+	 *
+	 * @param out the underlying stream, which is never closed
+	 */
+	public NonClosingOutputStream(OutputStream out) {
+		super(out);
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		out.write(b, off, len);
+	}
+
+	@Override
+	public void close() throws IOException {
+		flush();
+	}
+}
@@ -0,0 +1,239 @@
+package plg.common.io;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import plg.generator.IProgressVisualizer;
+import plg.generator.ProgressAdapter;
+import plg.io.importer.IFileImporter;
+import plg.model.Process;
+import plg.utils.Logger;
+import plg.utils.PlgConstants;
+
+/**
+ * This class is a cache of imported and checked processes. Each process is
+ * stored as a binary snapshot, named after the SHA-256 hash of the content of
+ * the model file, of the importer and of the library version. Loading a
+ * snapshot skips both the parsing of the model and its validation.
+ *
+ * <p> A snapshot file contains the magic bytes <tt>PLGS</tt>, the version of
+ * the snapshot layout, the signature of the library which wrote it and the
+ * gzip-compressed serialized process. Snapshots written by a different
+ * library version, or which cannot be read, are discarded. Snapshots are
+ * written to a temporary file and then renamed, so concurrent writers never
+ * expose partial snapshots. If a process cannot be serialized, it is not
+ * cached and a warning is logged.
+ *
+ * @author Andrea Burattin
+ */
+public class ProcessSnapshotCache {
+
+	/**
+	 * The extension of the snapshot files
+	 */
+	public static final String SNAPSHOT_EXTENSION = ".plgsnap";
+	/**
+	 * The version of the snapshot layout
+	 */
+	public static final int VERSION = 1;
+
+	private static final byte[] MAGIC = new byte[] { 'P', 'L', 'G', 'S' };
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+	private File folder;
+
+	/**
+	 * Basic constructor
+	 *
+	 * @param folder the folder containing the snapshots
+	 */
+	public ProcessSnapshotCache(File folder) {
+		this.folder = folder;
+		folder.mkdirs();
+	}
+
+	/**
+	 * This method returns the default snapshot folder: <tt>snapshots</tt> in
+	 * the support folder of the graphical interface
+	 *
+	 * @return the default snapshot folder
+	 */
+	public static File getDefaultFolder() {
+		String home = System.getProperty("user.home");
+		String os = System.getProperty("os.name").toLowerCase();
+		String dirName = "ProcessesLogsGenerator";
+		if (os.startsWith("windows")) {
+			return new File(home + File.separator + dirName + File.separator + "snapshots");
+		} else if (os.startsWith("mac")) {
+			return new File(home + "/Library/Application Support/" + dirName + "/snapshots");
+		}
+		return new File(home + "/." + dirName + "/snapshots");
+	}
+
+	/**
+	 * This method imports the provided model, using its snapshot if available.
+	 * Otherwise, the model is imported and, if it passes the check, stored as
+	 * snapshot. Models which do not pass the check are returned anyway, but
+	 * are not stored.
+	 *
+	 * @param model the model file
+	 * @param importer the importer to use if no snapshot is available
+	 * @param progress the progress visualizer of the import
+	 * @return the process
+	 * @throws Exception if the model cannot be imported
+	 */
+	public Process importModel(File model, IFileImporter importer, IProgressVisualizer progress) throws Exception {
+		return importModel(model, importer, progress, false);
+	}
+
+	/**
+	 * This method imports the provided model, using its snapshot if available.
+	 * Otherwise, the model is imported, checked and stored as snapshot.
+	 *
+	 * @param model the model file
+	 * @param importer the importer to use if no snapshot is available
+	 * @return the checked process
+	 * @throws Exception if the model cannot be imported or checked
+	 */
+	public Process importCheckedModel(File model, IFileImporter importer) throws Exception {
+		return importModel(model, importer, new ProgressAdapter(), true);
+	}
+
+	private Process importModel(File model, IFileImporter importer, IProgressVisualizer progress, boolean checked) throws Exception {
+		String key = getKey(model, importer.getClass());
+		Process p = load(key);
+		if (p != null) {
+			Logger.instance().debug("Process loaded from snapshot " + key);
+			return p;
+		}
+		p = importer.importModel(model.getAbsolutePath(), progress);
+		if (p == null) {
+			throw new IOException("Unable to import model " + model);
+		}
+		try {
+			p.check();
+		} catch (Exception e) {
+			if (checked) {
+				throw e;
+			}
+			Logger.instance().debug("Process not stored as snapshot: " + e.getMessage());
+			return p;
+		}
+		store(key, p);
+		return p;
+	}
+
+	/**
+	 * This method computes the key of the snapshot of the provided model
+	 *
+	 * @param model the model file
+	 * @param importer the class of the importer of the model
+	 * @return the key of the snapshot
+	 * @throws IOException if the model cannot be read
+	 */
+	public String getKey(File model, Class<?> importer) throws IOException {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IOException(e);
+		}
+		digest.update(importer.getName().getBytes("UTF-8"));
+		digest.update((byte) 0);
+		digest.update(PlgConstants.libPLG_SIGNATURE.getBytes("UTF-8"));
+		digest.update((byte) 0);
+		try (InputStream in = new FileInputStream(model)) {
+			byte[] buffer = new byte[64 * 1024];
+			int n;
+			while ((n = in.read(buffer)) > 0) {
+				digest.update(buffer, 0, n);
+			}
+		}
+		byte[] hash = digest.digest();
+		char[] key = new char[hash.length * 2];
+		for (int i = 0; i < hash.length; i++) {
+			key[i * 2] = HEX[(hash[i] >> 4) & 0xf];
+			key[i * 2 + 1] = HEX[hash[i] & 0xf];
+		}
+		return new String(key);
+	}
+
+	/**
+	 * This method loads the snapshot with the provided key
+	 *
+	 * @param key the key of the snapshot
+	 * @return the process, or <tt>null</tt> if no valid snapshot is available
+	 */
+	public Process load(String key) {
+		File snapshot = getSnapshotFile(key);
+		if (!snapshot.isFile()) {
+			return null;
+		}
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(snapshot)))) {
+			byte[] magic = new byte[MAGIC.length];
+			in.readFully(magic);
+			if (!Arrays.equals(magic, MAGIC) || in.readInt() != VERSION || !PlgConstants.libPLG_SIGNATURE.equals(in.readUTF())) {
+				throw new IOException("Incompatible snapshot");
+			}
+			ObjectInputStream objects = new ObjectInputStream(new GZIPInputStream(in));
+			return (Process) objects.readObject();
+		} catch (IOException | ClassNotFoundException | ClassCastException e) {
+			Logger.instance().debug("Discarding snapshot " + key + ": " + e.getMessage());
+			snapshot.delete();
+			return null;
+		}
+	}
+
+	/**
+	 * This method stores the snapshot of the provided process
+	 *
+	 * @param key the key of the snapshot
+	 * @param process the process
+	 * @return whether the snapshot has been stored
+	 */
+	public boolean store(String key, Process process) {
+		File temp = new File(folder, key + "." + UUID.randomUUID() + ".tmp");
+		try {
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+				out.write(MAGIC);
+				out.writeInt(VERSION);
+				out.writeUTF(PlgConstants.libPLG_SIGNATURE);
+				GZIPOutputStream gzip = new GZIPOutputStream(out);
+				ObjectOutputStream objects = new ObjectOutputStream(gzip);
+				objects.writeObject(process);
+				objects.flush();
+				gzip.finish();
+			}
+			if (temp.renameTo(getSnapshotFile(key))) {
+				return true;
+			}
+			// another thread stored the same snapshot in the meanwhile
+			return getSnapshotFile(key).isFile();
+		} catch (IOException e) {
+			// NotSerializableException names the offending class
+			Logger.instance().warning("Unable to store snapshot " + key + ": " + e);
+			return false;
+		} finally {
+			temp.delete();
+		}
+	}
+
+	private File getSnapshotFile(String key) {
+		return new File(folder, key + SNAPSHOT_EXTENSION);
+	}
+}
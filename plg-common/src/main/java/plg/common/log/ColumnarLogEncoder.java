@@ -0,0 +1,348 @@
+package plg.common.log;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.deckfour.xes.model.XAttributable;
+import org.deckfour.xes.model.XAttribute;
+import org.deckfour.xes.model.XAttributeBoolean;
+import org.deckfour.xes.model.XAttributeContinuous;
+import org.deckfour.xes.model.XAttributeDiscrete;
+import org.deckfour.xes.model.XAttributeTimestamp;
+import org.deckfour.xes.model.XEvent;
+import org.deckfour.xes.model.XTrace;
+
+/**
+ * This class encodes a log, one trace at a time, into a compact columnar
+ * binary layout. Traces are buffered until about {@link #ROW_GROUP_EVENTS}
+ * events are collected, then they are written as a row group containing two
+ * tables: the trace table (one row per trace) and the event table (one row per
+ * event). Each table stores one column per attribute key, so each data object
+ * gets its own column, and columns can be skipped without decoding them.
+ *
+ * <p> The layout of a file is the following (<i>varint</i> is an unsigned
+ * LEB128 number, <i>zigzag</i> a signed varint, strings are a varint length
+ * followed by the UTF-8 bytes):
+ * <pre>
+ * file      := "PLGC" version:byte logName:string rowGroup* 0x00 traces:varint events:varint "PLGC"
+ * rowGroup  := 0x01 traces:varint events:varint eventsPerTrace:varint[traces] table(traces) table(events)
+ * table     := columns:varint column*
+ * column    := key:string type:byte length:varint presence values
+ * presence  := 0x00 (all rows present) | 0x01 bitmap:byte[(rows + 7) / 8]
+ * values    := string:  dictionarySize:varint string[dictionarySize] index:varint[present]
+ *            | int:     zigzag[present]
+ *            | float:   double[present]
+ *            | boolean: bitmap:byte[(present + 7) / 8]
+ *            | date:    delta from the previous present value, in ms:zigzag[present]
+ * </pre>
+ * Dictionaries are local to each column of each row group, so row groups can
+ * be decoded independently. Attributes with nested attributes are written
+ * without their children.
+ *
+ * @author Andrea Burattin
+ */
+public class ColumnarLogEncoder implements Closeable {
+
+	/**
+	 * The magic bytes at the beginning and at the end of each file
+	 */
+	public static final byte[] MAGIC = new byte[] { 'P', 'L', 'G', 'C' };
+	/**
+	 * The version of the layout
+	 */
+	public static final int VERSION = 1;
+	/**
+	 * The number of events after which a row group is written
+	 */
+	public static final int ROW_GROUP_EVENTS = 64 * 1024;
+
+	public static final byte TYPE_STRING = 0;
+	public static final byte TYPE_INT = 1;
+	public static final byte TYPE_FLOAT = 2;
+	public static final byte TYPE_BOOLEAN = 3;
+	public static final byte TYPE_DATE = 4;
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+	private static final int BLOCK_END = 0;
+	private static final int BLOCK_ROW_GROUP = 1;
+
+	private DataOutputStream out;
+	private List<XTrace> traces = new ArrayList<XTrace>();
+	private int bufferedEvents = 0;
+	private long totalTraces = 0;
+	private long totalEvents = 0;
+
+	/**
+	 * Basic constructor
+	 *
+	 * @param out the stream which will receive the encoded log
+	 */
+	public ColumnarLogEncoder(OutputStream out) {
+		this.out = new DataOutputStream(new BufferedOutputStream(out, 64 * 1024));
+	}
+
+	/**
+	 * This method writes the header of the log
+	 *
+	 * @param logName the name of the log
+	 * @throws IOException
+	 */
+	public void startLog(String logName) throws IOException {
+		out.write(MAGIC);
+		out.writeByte(VERSION);
+		writeString(out, (logName == null)? "" : logName);
+	}
+
+	/**
+	 * This method adds one trace to the log. The trace is kept in memory until
+	 * its row group is written.
+	 *
+	 * @param trace the trace to write
+	 * @throws IOException
+	 */
+	public void write(XTrace trace) throws IOException {
+		traces.add(trace);
+		bufferedEvents += trace.size();
+		if (bufferedEvents >= ROW_GROUP_EVENTS) {
+			writeRowGroup();
+		}
+	}
+
+	/**
+	 * This method writes the buffered traces and the footer of the log, and
+	 * flushes the output
+	 *
+	 * @throws IOException
+	 */
+	public void endLog() throws IOException {
+		if (!traces.isEmpty()) {
+			writeRowGroup();
+		}
+		out.writeByte(BLOCK_END);
+		writeVarLong(out, totalTraces);
+		writeVarLong(out, totalEvents);
+		out.write(MAGIC);
+		out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		out.close();
+	}
+
+	/**
+	 * This method writes the buffered traces as a row group
+	 *
+	 * @throws IOException
+	 */
+	private void writeRowGroup() throws IOException {
+		Table traceTable = new Table(traces.size());
+		Table eventTable = new Table(bufferedEvents);
+		int eventRow = 0;
+		for (int i = 0; i < traces.size(); i++) {
+			XTrace trace = traces.get(i);
+			traceTable.add(i, trace);
+			for (XEvent event : trace) {
+				eventTable.add(eventRow++, event);
+			}
+		}
+
+		out.writeByte(BLOCK_ROW_GROUP);
+		writeVarLong(out, traces.size());
+		writeVarLong(out, bufferedEvents);
+		for (XTrace trace : traces) {
+			writeVarLong(out, trace.size());
+		}
+		traceTable.write(out);
+		eventTable.write(out);
+
+		totalTraces += traces.size();
+		totalEvents += bufferedEvents;
+		traces.clear();
+		bufferedEvents = 0;
+	}
+
+	/**
+	 * This class collects the attributes of a set of rows, one column per
+	 * attribute key and type
+	 */
+	private static class Table {
+
+		private int rows;
+		private Map<String, Column> columns = new LinkedHashMap<String, Column>();
+
+		public Table(int rows) {
+			this.rows = rows;
+		}
+
+		public void add(int row, XAttributable element) {
+			for (XAttribute attribute : element.getAttributes().values()) {
+				byte type = getType(attribute);
+				String id = type + attribute.getKey();
+				Column column = columns.get(id);
+				if (column == null) {
+					column = new Column(attribute.getKey(), type, rows);
+					columns.put(id, column);
+				}
+				column.set(row, attribute);
+			}
+		}
+
+		public void write(DataOutputStream out) throws IOException {
+			writeVarLong(out, columns.size());
+			for (Column column : columns.values()) {
+				column.write(out);
+			}
+		}
+	}
+
+	/**
+	 * This class contains the values of one attribute over the rows of a table
+	 */
+	private static class Column {
+
+		private String key;
+		private byte type;
+		private int rows;
+		private BitSet present;
+		private long[] numbers;
+		private String[] strings;
+
+		public Column(String key, byte type, int rows) {
+			this.key = key;
+			this.type = type;
+			this.rows = rows;
+			this.present = new BitSet(rows);
+			if (type == TYPE_STRING) {
+				strings = new String[rows];
+			} else {
+				numbers = new long[rows];
+			}
+		}
+
+		public void set(int row, XAttribute attribute) {
+			present.set(row);
+			switch (type) {
+				case TYPE_INT: numbers[row] = ((XAttributeDiscrete) attribute).getValue(); break;
+				case TYPE_FLOAT: numbers[row] = Double.doubleToLongBits(((XAttributeContinuous) attribute).getValue()); break;
+				case TYPE_BOOLEAN: numbers[row] = ((XAttributeBoolean) attribute).getValue()? 1 : 0; break;
+				case TYPE_DATE: numbers[row] = ((XAttributeTimestamp) attribute).getValueMillis(); break;
+				default: strings[row] = attribute.toString();
+			}
+		}
+
+		public void write(DataOutputStream out) throws IOException {
+			ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+			DataOutputStream payload = new DataOutputStream(buffer);
+
+			int presentRows = present.cardinality();
+			if (presentRows == rows) {
+				payload.writeByte(0);
+			} else {
+				payload.writeByte(1);
+				writeBitmap(payload, present, rows);
+			}
+
+			if (type == TYPE_STRING) {
+				Map<String, Integer> dictionary = new LinkedHashMap<String, Integer>();
+				int[] indexes = new int[presentRows];
+				int j = 0;
+				for (int i = present.nextSetBit(0); i >= 0; i = present.nextSetBit(i + 1)) {
+					Integer index = dictionary.get(strings[i]);
+					if (index == null) {
+						index = dictionary.size();
+						dictionary.put(strings[i], index);
+					}
+					indexes[j++] = index;
+				}
+				writeVarLong(payload, dictionary.size());
+				for (String value : dictionary.keySet()) {
+					writeString(payload, value);
+				}
+				for (int index : indexes) {
+					writeVarLong(payload, index);
+				}
+			} else if (type == TYPE_BOOLEAN) {
+				BitSet values = new BitSet(presentRows);
+				int j = 0;
+				for (int i = present.nextSetBit(0); i >= 0; i = present.nextSetBit(i + 1)) {
+					values.set(j++, numbers[i] != 0);
+				}
+				writeBitmap(payload, values, presentRows);
+			} else {
+				long previous = 0;
+				for (int i = present.nextSetBit(0); i >= 0; i = present.nextSetBit(i + 1)) {
+					if (type == TYPE_FLOAT) {
+						payload.writeLong(numbers[i]);
+					} else if (type == TYPE_DATE) {
+						writeVarLong(payload, zigzag(numbers[i] - previous));
+						previous = numbers[i];
+					} else {
+						writeVarLong(payload, zigzag(numbers[i]));
+					}
+				}
+			}
+			payload.flush();
+
+			writeString(out, key);
+			out.writeByte(type);
+			writeVarLong(out, buffer.size());
+			buffer.writeTo(out);
+		}
+	}
+
+	/**
+	 * This method returns the column type used to store the provided attribute
+	 *
+	 * @param attribute the attribute
+	 * @return the column type
+	 */
+	private static byte getType(XAttribute attribute) {
+		if (attribute instanceof XAttributeTimestamp) {
+			return TYPE_DATE;
+		} else if (attribute instanceof XAttributeDiscrete) {
+			return TYPE_INT;
+		} else if (attribute instanceof XAttributeContinuous) {
+			return TYPE_FLOAT;
+		} else if (attribute instanceof XAttributeBoolean) {
+			return TYPE_BOOLEAN;
+		}
+		return TYPE_STRING;
+	}
+
+	private static void writeBitmap(DataOutputStream out, BitSet bits, int size) throws IOException {
+		byte[] bytes = new byte[(size + 7) / 8];
+		for (int i = bits.nextSetBit(0); i >= 0 && i < size; i = bits.nextSetBit(i + 1)) {
+			bytes[i / 8] |= 1 << (i % 8);
+		}
+		out.write(bytes);
+	}
+
+	private static void writeString(DataOutputStream out, String value) throws IOException {
+		byte[] bytes = value.getBytes(UTF8);
+		writeVarLong(out, bytes.length);
+		out.write(bytes);
+	}
+
+	private static long zigzag(long value) {
+		return (value << 1) ^ (value >> 63);
+	}
+
+	private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+		while ((value & ~0x7FL) != 0) {
+			out.writeByte((int) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		out.writeByte((int) value);
+	}
+}
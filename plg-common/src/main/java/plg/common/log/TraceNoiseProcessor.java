@@ -0,0 +1,167 @@
+package plg.common.log;
+
+import java.util.Date;
+import java.util.Random;
+
+import org.deckfour.xes.extension.std.XConceptExtension;
+import org.deckfour.xes.extension.std.XLifecycleExtension;
+import org.deckfour.xes.extension.std.XTimeExtension;
+import org.deckfour.xes.factory.XFactory;
+import org.deckfour.xes.factory.XFactoryRegistry;
+import org.deckfour.xes.model.XAttribute;
+import org.deckfour.xes.model.XAttributeDiscrete;
+import org.deckfour.xes.model.XAttributeLiteral;
+import org.deckfour.xes.model.XEvent;
+import org.deckfour.xes.model.XTrace;
+
+import plg.generator.log.noise.NoiseConfiguration;
+
+/**
+ * This class applies the noise described by a {@link NoiseConfiguration} to
+ * traces that have already been generated. The noise types are applied in the
+ * following order, each one with its own probability:
+ *
+ * <ol>
+ * 	<li>control-flow noise, once per trace: missing head, missing tail, missing
+ * 	episode, perturbed order (two adjacent events swap their activities),
+ * 	doubled event and alien event;</li>
+ * 	<li>activity name noise, once per event;</li>
+ * 	<li>data noise, once per integer or string attribute of each event. Only
+ * 	attributes whose key does not belong to an extension (i.e., without a
+ * 	<tt>:</tt>) are considered data objects.</li>
+ * </ol>
+ *
+ * The provided traces are never modified: noise is applied to a copy. All
+ * random choices are taken from the random generator passed to
+ * {@link #apply(XTrace, Random)}, so the same seed always produces the same
+ * noisy trace. This class is thread safe.
+ *
+ * @author Andrea Burattin
+ */
+public class TraceNoiseProcessor {
+
+	private static final String NOISE_CHARACTERS = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789";
+
+	private NoiseConfiguration noise;
+	private XFactory factory = XFactoryRegistry.instance().currentDefault();
+
+	/**
+	 * Basic constructor
+	 *
+	 * @param noise the noise to apply
+	 */
+	public TraceNoiseProcessor(NoiseConfiguration noise) {
+		this.noise = noise;
+	}
+
+	/**
+	 * This method returns a noisy copy of the provided trace
+	 *
+	 * @param trace the original trace
+	 * @param random the random generator to use
+	 * @return the noisy trace
+	 */
+	public XTrace apply(XTrace trace, Random random) {
+		XTrace noisy = (XTrace) trace.clone();
+
+		// control-flow noise
+		if (happens(random, noise.getTraceMissingHeadNoiseProbability()) && noisy.size() > 1) {
+			int size = 1 + random.nextInt(Math.max(1, Math.min((int) noise.getTraceMissingHeadSize(), noisy.size() - 1)));
+			noisy.subList(0, size).clear();
+		}
+		if (happens(random, noise.getTraceMissingTailNoiseProbability()) && noisy.size() > 1) {
+			int size = 1 + random.nextInt(Math.max(1, Math.min((int) noise.getTraceMissingTailSize(), noisy.size() - 1)));
+			noisy.subList(noisy.size() - size, noisy.size()).clear();
+		}
+		if (happens(random, noise.getTraceMissingEpisodeNoiseProbability()) && noisy.size() > 2) {
+			int size = 1 + random.nextInt(Math.max(1, Math.min((int) noise.getTraceMissingEpisodeSize(), noisy.size() - 2)));
+			int start = 1 + random.nextInt(noisy.size() - size - 1);
+			noisy.subList(start, start + size).clear();
+		}
+		if (happens(random, noise.getPerturbedOrderNoiseProbability()) && noisy.size() > 1) {
+			int position = random.nextInt(noisy.size() - 1);
+			swap(noisy.get(position), noisy.get(position + 1));
+			XEvent first = noisy.get(position);
+			noisy.set(position, noisy.get(position + 1));
+			noisy.set(position + 1, first);
+		}
+		if (happens(random, noise.getDoubleEventNoiseProbability()) && !noisy.isEmpty()) {
+			int position = random.nextInt(noisy.size());
+			noisy.add(position + 1, (XEvent) noisy.get(position).clone());
+		}
+		if (happens(random, noise.getAlienEventNoiseProbability())) {
+			int position = random.nextInt(noisy.size() + 1);
+			XEvent alien = factory.createEvent();
+			XConceptExtension.instance().assignName(alien, randomString(random, 8));
+			XLifecycleExtension.instance().assignStandardTransition(alien, XLifecycleExtension.StandardModel.COMPLETE);
+			XEvent neighbour = noisy.isEmpty()? null : noisy.get(Math.min(position, noisy.size() - 1));
+			Date timestamp = (neighbour == null)? null : XTimeExtension.instance().extractTimestamp(neighbour);
+			if (timestamp != null) {
+				XTimeExtension.instance().assignTimestamp(alien, timestamp);
+			}
+			noisy.add(position, alien);
+		}
+
+		// activity name noise
+		for (XEvent event : noisy) {
+			if (happens(random, noise.getActivityNameNoiseProbability())) {
+				String name = XConceptExtension.instance().extractName(event);
+				XConceptExtension.instance().assignName(event, randomString(random, (name == null)? 8 : Math.max(1, name.length())));
+			}
+		}
+
+		// data noise
+		for (XEvent event : noisy) {
+			for (XAttribute attribute : event.getAttributes().values()) {
+				if (attribute.getKey().indexOf(':') >= 0) {
+					continue;
+				}
+				if (attribute instanceof XAttributeDiscrete) {
+					if (happens(random, noise.getIntegerDataNoiseProbability())) {
+						XAttributeDiscrete discrete = (XAttributeDiscrete) attribute;
+						discrete.setValue(discrete.getValue() + randomDelta(random, (int) noise.getIntegerDataNoiseDelta()));
+					}
+				} else if (attribute instanceof XAttributeLiteral) {
+					if (happens(random, noise.getStringDataNoiseProbability())) {
+						XAttributeLiteral literal = (XAttributeLiteral) attribute;
+						literal.setValue(randomString(random, Math.max(1, literal.getValue().length())));
+					}
+				}
+			}
+		}
+		return noisy;
+	}
+
+	/**
+	 * This method swaps the timestamps of two events, so that swapping the
+	 * events keeps the trace sorted by time
+	 *
+	 * @param first the first event
+	 * @param second the second event
+	 */
+	private static void swap(XEvent first, XEvent second) {
+		Date firstTime = XTimeExtension.instance().extractTimestamp(first);
+		Date secondTime = XTimeExtension.instance().extractTimestamp(second);
+		if (firstTime != null && secondTime != null) {
+			XTimeExtension.instance().assignTimestamp(first, secondTime);
+			XTimeExtension.instance().assignTimestamp(second, firstTime);
+		}
+	}
+
+	private static boolean happens(Random random, double probability) {
+		return probability > 0 && random.nextDouble() < probability;
+	}
+
+	private static long randomDelta(Random random, int delta) {
+		int value = 1 + random.nextInt(Math.max(1, delta));
+		return random.nextBoolean()? value : -value;
+	}
+
+	private static String randomString(Random random, int length) {
+		StringBuilder sb = new StringBuilder(length);
+		for (int i = 0; i < length; i++) {
+			sb.append(NOISE_CHARACTERS.charAt(random.nextInt(NOISE_CHARACTERS.length())));
+		}
+		return sb.toString();
+	}
+}
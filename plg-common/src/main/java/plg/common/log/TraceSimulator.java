@@ -0,0 +1,242 @@
+package plg.common.log;
+
+import java.util.Date;
+import java.util.concurrent.Callable;
+
+import org.deckfour.xes.classification.XEventNameClassifier;
+import org.deckfour.xes.extension.std.XConceptExtension;
+import org.deckfour.xes.extension.std.XLifecycleExtension;
+import org.deckfour.xes.extension.std.XTimeExtension;
+import org.deckfour.xes.factory.XFactoryRegistry;
+import org.deckfour.xes.model.XEvent;
+import org.deckfour.xes.model.XLog;
+import org.deckfour.xes.model.XTrace;
+
+import plg.common.utils.RandomSource;
+import plg.generator.IProgressVisualizer;
+import plg.generator.log.SimulationConfiguration;
+import plg.generator.log.TraceGenerator;
+import plg.model.Process;
+
+/**
+ * This class simulates the traces of a process one at a time. Differently from
+ * the {@link plg.generator.log.LogGenerator}, no log is built: each trace is
+ * returned to the caller as soon as it is available, so it can be written and
+ * then released.
+ *
+ * <p> If a seed is provided, the trace with index <tt>i</tt> depends only on
+ * the seed and on <tt>i</tt>: the random source of the current thread is
+ * reseeded before each trace (see {@link RandomSource}) and the timestamps of
+ * the trace are moved to start at {@link #SEEDED_START_TIME} plus <tt>i</tt>
+ * times {@link #SEEDED_TRACE_INTERVAL}. Therefore, any subset of the traces
+ * can be regenerated, on its own or in parallel, with identical results. If
+ * the random source of the library cannot be split by thread, seeded traces
+ * are simulated one at a time.
+ *
+ * @author Andrea Burattin
+ */
+public class TraceSimulator {
+
+	/**
+	 * The pattern used to build the case id of each trace
+	 */
+	public static final String CASE_ID_FORMAT = "instance_%d";
+	/**
+	 * The start time of the first trace of a seeded simulation (2015-01-01
+	 * 00:00:00 UTC)
+	 */
+	public static final long SEEDED_START_TIME = 1420070400000l;
+	/**
+	 * The distance between the start times of two consecutive traces of a
+	 * seeded simulation, in milliseconds
+	 */
+	public static final long SEEDED_TRACE_INTERVAL = 60 * 1000;
+
+	private Process process;
+	private SimulationConfiguration configuration;
+	private Long seed;
+	private volatile boolean cancelled = false;
+
+	/**
+	 * Basic constructor
+	 *
+	 * @param process the process to simulate
+	 * @param configuration the simulation configuration
+	 */
+	public TraceSimulator(Process process, SimulationConfiguration configuration) {
+		this(process, configuration, null);
+	}
+
+	/**
+	 * Constructor of a seeded simulator
+	 *
+	 * @param process the process to simulate
+	 * @param configuration the simulation configuration
+	 * @param seed the seed of the simulation, or <tt>null</tt> for a non
+	 * reproducible simulation
+	 */
+	public TraceSimulator(Process process, SimulationConfiguration configuration, Long seed) {
+		this.process = process;
+		this.configuration = configuration;
+		this.seed = seed;
+	}
+
+	/**
+	 * This method simulates the trace with the provided index
+	 *
+	 * @param traceIndex the index of the trace, used to build its case id
+	 * @return the simulated trace
+	 * @throws Exception if the simulation fails
+	 */
+	public XTrace simulate(final int traceIndex) throws Exception {
+		if (seed == null) {
+			return new TraceGenerator(process, getCaseId(traceIndex), configuration).call();
+		}
+		XTrace trace = RandomSource.call(getTraceSeed(seed, traceIndex), new Callable<XTrace>() {
+			@Override
+			public XTrace call() throws Exception {
+				return new TraceGenerator(process, getCaseId(traceIndex), configuration).call();
+			}
+		});
+		moveTrace(trace, SEEDED_START_TIME + traceIndex * SEEDED_TRACE_INTERVAL);
+		return trace;
+	}
+
+	/**
+	 * This method simulates the traces with index from 0 (included) to
+	 * <tt>noTraces</tt> (excluded) and collects them into a new log
+	 *
+	 * @param logName the name of the new log
+	 * @param noTraces the number of traces to simulate
+	 * @param progress the progress visualizer
+	 * @return the simulated log
+	 * @throws Exception if the simulation fails
+	 */
+	public XLog simulateLog(String logName, int noTraces, IProgressVisualizer progress) throws Exception {
+		return simulateLog(XFactoryRegistry.instance().currentDefault().createLog(), logName, noTraces, progress);
+	}
+
+	/**
+	 * This method simulates the traces with index from 0 (included) to
+	 * <tt>noTraces</tt> (excluded) and adds them to the provided empty log.
+	 * The log can be, for example, an implementation keeping only a bounded
+	 * number of traces in memory. If the simulation is cancelled (see
+	 * {@link #cancel()}), the log contains only the traces simulated so far.
+	 *
+	 * @param log the log receiving the traces
+	 * @param logName the name of the new log
+	 * @param noTraces the number of traces to simulate
+	 * @param progress the progress visualizer
+	 * @return the provided log
+	 * @throws Exception if the simulation fails
+	 */
+	public XLog simulateLog(XLog log, String logName, int noTraces, IProgressVisualizer progress) throws Exception {
+		log.getExtensions().add(XConceptExtension.instance());
+		log.getExtensions().add(XTimeExtension.instance());
+		log.getExtensions().add(XLifecycleExtension.instance());
+		log.getClassifiers().add(new XEventNameClassifier());
+		XConceptExtension.instance().assignName(log, logName);
+		
+		progress.setMinimum(0);
+		progress.setMaximum(noTraces);
+		progress.setText("Simulating log");
+		progress.start();
+		try {
+			for (int i = 0; i < noTraces && !cancelled; i++) {
+				log.add(simulate(i));
+				progress.inc();
+			}
+		} finally {
+			progress.finished();
+		}
+		return log;
+	}
+
+	/**
+	 * This method asks the running {@link #simulateLog(XLog, String, int, IProgressVisualizer)}
+	 * to stop after the current trace. It can be called from any thread.
+	 */
+	public void cancel() {
+		cancelled = true;
+	}
+
+	/**
+	 * This method returns whether the simulation has been cancelled
+	 *
+	 * @return <tt>true</tt> if {@link #cancel()} has been called
+	 */
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	/**
+	 * This method returns the case id associated to the provided trace index
+	 *
+	 * @param traceIndex the index of the trace
+	 * @return the case id
+	 */
+	public static String getCaseId(int traceIndex) {
+		return String.format(CASE_ID_FORMAT, traceIndex);
+	}
+
+	/**
+	 * This method derives the seed of a single trace from the seed of the
+	 * simulation. The derivation is the SplitMix64 finalizer, so seeds of
+	 * consecutive traces are not correlated.
+	 *
+	 * @param seed the seed of the simulation
+	 * @param traceIndex the index of the trace
+	 * @return the seed of the trace
+	 */
+	public static long getTraceSeed(long seed, int traceIndex) {
+		long z = seed + (traceIndex + 1) * 0x9E3779B97F4A7C15l;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9l;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBl;
+		return z ^ (z >>> 31);
+	}
+
+	/**
+	 * This method returns the simulated process
+	 *
+	 * @return the process
+	 */
+	public Process getProcess() {
+		return process;
+	}
+
+	/**
+	 * This method returns the seed of the simulation
+	 *
+	 * @return the seed, or <tt>null</tt> if the simulation is not seeded
+	 */
+	public Long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * This method shifts all the timestamps of the provided trace so that the
+	 * earliest one becomes the provided start time
+	 *
+	 * @param trace the trace to move
+	 * @param startTime the new start time of the trace
+	 */
+	private static void moveTrace(XTrace trace, long startTime) {
+		long earliest = Long.MAX_VALUE;
+		for (XEvent event : trace) {
+			Date timestamp = XTimeExtension.instance().extractTimestamp(event);
+			if (timestamp != null) {
+				earliest = Math.min(earliest, timestamp.getTime());
+			}
+		}
+		if (earliest == Long.MAX_VALUE) {
+			return;
+		}
+		long shift = startTime - earliest;
+		for (XEvent event : trace) {
+			Date timestamp = XTimeExtension.instance().extractTimestamp(event);
+			if (timestamp != null) {
+				XTimeExtension.instance().assignTimestamp(event, new Date(timestamp.getTime() + shift));
+			}
+		}
+	}
+}
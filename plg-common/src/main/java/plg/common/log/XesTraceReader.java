@@ -0,0 +1,310 @@
+package plg.common.log;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.zip.GZIPInputStream;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.deckfour.xes.extension.std.XConceptExtension;
+import org.deckfour.xes.factory.XFactory;
+import org.deckfour.xes.factory.XFactoryRegistry;
+import org.deckfour.xes.id.XID;
+import org.deckfour.xes.model.XAttribute;
+import org.deckfour.xes.model.XAttributeMap;
+import org.deckfour.xes.model.XEvent;
+import org.deckfour.xes.model.XLog;
+import org.deckfour.xes.model.XTrace;
+
+/**
+ * This class reads a XES log (plain or gzip compressed) one trace at a time,
+ * using a StAX parser. Differently from the OpenXES parsers, only the current
+ * trace is kept in memory, so logs of any size can be processed.
+ *
+ * <p> The attributes of the log are read when the reader is created; global
+ * attributes, extensions and classifiers are skipped. Instances of this class
+ * are not thread safe.
+ *
+ * @author Andrea Burattin
+ */
+public class XesTraceReader implements Closeable {
+
+	private static final String[] DATE_FORMATS = new String[] {
+		"yyyy-MM-dd'T'HH:mm:ss.SSSXXX",
+		"yyyy-MM-dd'T'HH:mm:ssXXX",
+		"yyyy-MM-dd'T'HH:mm:ss.SSS",
+		"yyyy-MM-dd'T'HH:mm:ss"
+	};
+
+	private InputStream in;
+	private XMLStreamReader reader;
+	private XFactory factory = XFactoryRegistry.instance().currentDefault();
+	private XLog log;
+	private boolean traceAvailable = false;
+
+	/**
+	 * Basic constructor. Compressed streams are detected automatically.
+	 *
+	 * @param in the stream containing the log
+	 * @throws IOException
+	 * @throws XMLStreamException
+	 */
+	public XesTraceReader(InputStream in) throws IOException, XMLStreamException {
+		InputStream buffered = new BufferedInputStream(in, 64 * 1024);
+		buffered.mark(2);
+		int b1 = buffered.read();
+		int b2 = buffered.read();
+		buffered.reset();
+		if (b1 == 0x1f && b2 == 0x8b) {
+			buffered = new BufferedInputStream(new GZIPInputStream(buffered, 64 * 1024), 64 * 1024);
+		}
+		this.in = buffered;
+
+		XMLInputFactory xmlFactory = XMLInputFactory.newInstance();
+		xmlFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		xmlFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+		this.reader = xmlFactory.createXMLStreamReader(this.in);
+		try {
+			readLogHeader();
+		} catch (XMLStreamException e) {
+			this.in.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * This method opens the provided log file
+	 *
+	 * @param file the log file
+	 * @return the reader
+	 * @throws IOException
+	 * @throws XMLStreamException
+	 */
+	public static XesTraceReader open(File file) throws IOException, XMLStreamException {
+		return new XesTraceReader(new FileInputStream(file));
+	}
+
+	/**
+	 * This method returns the log with its attributes, but without traces
+	 *
+	 * @return the empty log
+	 */
+	public XLog getLog() {
+		return log;
+	}
+
+	/**
+	 * This method returns the name of the log
+	 *
+	 * @return the name of the log, or <tt>null</tt> if the log has no name
+	 */
+	public String getLogName() {
+		return XConceptExtension.instance().extractName(log);
+	}
+
+	/**
+	 * This method reads the next trace of the log
+	 *
+	 * @return the next trace, or <tt>null</tt> if there are no more traces
+	 * @throws XMLStreamException
+	 */
+	public XTrace next() throws XMLStreamException {
+		while (!traceAvailable) {
+			if (!reader.hasNext()) {
+				return null;
+			}
+			int event = reader.next();
+			if (event == XMLStreamConstants.START_ELEMENT && reader.getLocalName().equals("trace")) {
+				traceAvailable = true;
+			} else if (event == XMLStreamConstants.END_DOCUMENT) {
+				return null;
+			}
+		}
+		traceAvailable = false;
+		return readTrace();
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			reader.close();
+		} catch (XMLStreamException e) {
+			throw new IOException(e);
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * This method reads the log element up to the first trace
+	 *
+	 * @throws XMLStreamException if the document is not a XES log
+	 */
+	private void readLogHeader() throws XMLStreamException {
+		while (!reader.isStartElement() && reader.hasNext()) {
+			reader.next();
+		}
+		if (!reader.isStartElement() || !reader.getLocalName().equals("log")) {
+			throw new XMLStreamException("The document is not a XES log", reader.getLocation());
+		}
+		XAttributeMap attributes = factory.createAttributeMap();
+		while (reader.hasNext()) {
+			int event = reader.next();
+			if (event != XMLStreamConstants.START_ELEMENT) {
+				continue;
+			}
+			String name = reader.getLocalName();
+			if (name.equals("trace")) {
+				traceAvailable = true;
+				break;
+			} else if (isAttribute(name)) {
+				XAttribute attribute = readAttribute();
+				attributes.put(attribute.getKey(), attribute);
+			} else {
+				skipElement();
+			}
+		}
+		log = factory.createLog(attributes);
+	}
+
+	/**
+	 * This method reads a trace, when the parser is on its start element
+	 *
+	 * @return the trace
+	 * @throws XMLStreamException
+	 */
+	private XTrace readTrace() throws XMLStreamException {
+		XTrace trace = factory.createTrace();
+		while (reader.hasNext()) {
+			int event = reader.next();
+			if (event == XMLStreamConstants.START_ELEMENT) {
+				String name = reader.getLocalName();
+				if (name.equals("event")) {
+					trace.add(readEvent());
+				} else if (isAttribute(name)) {
+					XAttribute attribute = readAttribute();
+					trace.getAttributes().put(attribute.getKey(), attribute);
+				} else {
+					skipElement();
+				}
+			} else if (event == XMLStreamConstants.END_ELEMENT) {
+				break;
+			}
+		}
+		return trace;
+	}
+
+	/**
+	 * This method reads an event, when the parser is on its start element
+	 *
+	 * @return the event
+	 * @throws XMLStreamException
+	 */
+	private XEvent readEvent() throws XMLStreamException {
+		XEvent e = factory.createEvent();
+		while (reader.hasNext()) {
+			int event = reader.next();
+			if (event == XMLStreamConstants.START_ELEMENT) {
+				if (isAttribute(reader.getLocalName())) {
+					XAttribute attribute = readAttribute();
+					e.getAttributes().put(attribute.getKey(), attribute);
+				} else {
+					skipElement();
+				}
+			} else if (event == XMLStreamConstants.END_ELEMENT) {
+				break;
+			}
+		}
+		return e;
+	}
+
+	/**
+	 * This method reads an attribute, with its nested attributes, when the
+	 * parser is on its start element
+	 *
+	 * @return the attribute
+	 * @throws XMLStreamException
+	 */
+	private XAttribute readAttribute() throws XMLStreamException {
+		String type = reader.getLocalName();
+		String key = reader.getAttributeValue(null, "key");
+		String value = reader.getAttributeValue(null, "value");
+		XAttribute attribute;
+		try {
+			if (type.equals("date")) {
+				attribute = factory.createAttributeTimestamp(key, parseDate(value), null);
+			} else if (type.equals("int")) {
+				attribute = factory.createAttributeDiscrete(key, Long.parseLong(value.trim()), null);
+			} else if (type.equals("float")) {
+				attribute = factory.createAttributeContinuous(key, Double.parseDouble(value.trim()), null);
+			} else if (type.equals("boolean")) {
+				attribute = factory.createAttributeBoolean(key, Boolean.parseBoolean(value.trim()), null);
+			} else if (type.equals("id")) {
+				attribute = factory.createAttributeID(key, XID.parse(value.trim()), null);
+			} else {
+				attribute = factory.createAttributeLiteral(key, value, null);
+			}
+		} catch (NumberFormatException | ParseException e) {
+			throw new XMLStreamException("Invalid value `" + value + "' for attribute `" + key + "'", reader.getLocation(), e);
+		}
+
+		while (reader.hasNext()) {
+			int event = reader.next();
+			if (event == XMLStreamConstants.START_ELEMENT) {
+				if (isAttribute(reader.getLocalName())) {
+					XAttribute child = readAttribute();
+					attribute.getAttributes().put(child.getKey(), child);
+				} else {
+					skipElement();
+				}
+			} else if (event == XMLStreamConstants.END_ELEMENT) {
+				break;
+			}
+		}
+		return attribute;
+	}
+
+	/**
+	 * This method skips the current element, with all its children
+	 *
+	 * @throws XMLStreamException
+	 */
+	private void skipElement() throws XMLStreamException {
+		int depth = 1;
+		while (depth > 0 && reader.hasNext()) {
+			int event = reader.next();
+			if (event == XMLStreamConstants.START_ELEMENT) {
+				depth++;
+			} else if (event == XMLStreamConstants.END_ELEMENT) {
+				depth--;
+			}
+		}
+	}
+
+	private static boolean isAttribute(String name) {
+		return name.equals("string") || name.equals("date") || name.equals("int") ||
+				name.equals("float") || name.equals("boolean") || name.equals("id");
+	}
+
+	private static Date parseDate(String value) throws ParseException {
+		String date = value.trim();
+		for (String format : DATE_FORMATS) {
+			try {
+				return new SimpleDateFormat(format).parse(date);
+			} catch (ParseException e) {
+				// try the next format
+			}
+		}
+		throw new ParseException("Unparseable date: " + value, 0);
+	}
+}
@@ -0,0 +1,203 @@
+package plg.common.log;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.zip.GZIPOutputStream;
+
+import org.deckfour.xes.extension.XExtension;
+import org.deckfour.xes.extension.std.XConceptExtension;
+import org.deckfour.xes.extension.std.XLifecycleExtension;
+import org.deckfour.xes.extension.std.XOrganizationalExtension;
+import org.deckfour.xes.extension.std.XTimeExtension;
+import org.deckfour.xes.model.XAttributable;
+import org.deckfour.xes.model.XAttribute;
+import org.deckfour.xes.model.XAttributeBoolean;
+import org.deckfour.xes.model.XAttributeContinuous;
+import org.deckfour.xes.model.XAttributeDiscrete;
+import org.deckfour.xes.model.XAttributeID;
+import org.deckfour.xes.model.XAttributeTimestamp;
+import org.deckfour.xes.model.XEvent;
+import org.deckfour.xes.model.XTrace;
+
+/**
+ * This class writes a XES log one trace at a time, so the log is never required
+ * to be entirely in memory. The output is equivalent to the one produced by the
+ * OpenXES <tt>XesXmlSerializer</tt>, and can be read back one trace at a time
+ * with a {@link XesTraceReader}.
+ *
+ * <p> Instances of this class are not thread safe.
+ *
+ * @author Andrea Burattin
+ */
+public class XesTraceWriter implements Closeable {
+
+	private static final XExtension[] EXTENSIONS = new XExtension[] {
+		XConceptExtension.instance(),
+		XTimeExtension.instance(),
+		XLifecycleExtension.instance(),
+		XOrganizationalExtension.instance()
+	};
+
+	private Writer writer;
+	private DateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSXXX");
+
+	/**
+	 * Basic constructor
+	 *
+	 * @param out the stream which will receive the log
+	 * @param compressed whether the log should be compressed with gzip
+	 * @throws IOException
+	 */
+	public XesTraceWriter(OutputStream out, boolean compressed) throws IOException {
+		if (compressed) {
+			out = new GZIPOutputStream(out, 64 * 1024);
+		}
+		this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+	}
+
+	/**
+	 * Constructor of a writer on an existing character stream, which should
+	 * be encoded as UTF-8
+	 *
+	 * @param writer the writer which will receive the log
+	 */
+	public XesTraceWriter(Writer writer) {
+		this.writer = writer;
+	}
+
+	/**
+	 * This method writes the header of the log
+	 *
+	 * @param logName the name of the log
+	 * @throws IOException
+	 */
+	public void startLog(String logName) throws IOException {
+		writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\" ?>\n");
+		writer.write("<log xes.version=\"1.0\" xes.features=\"nested-attributes\" xmlns=\"http://www.xes-standard.org/\">\n");
+		for (XExtension extension : EXTENSIONS) {
+			writer.write("\t<extension name=\"" + escape(extension.getName())
+					+ "\" prefix=\"" + escape(extension.getPrefix())
+					+ "\" uri=\"" + escape(extension.getUri().toString()) + "\"/>\n");
+		}
+		writer.write("\t<classifier name=\"Activity\" keys=\"concept:name\"/>\n");
+		writer.write("\t<string key=\"concept:name\" value=\"" + escape(logName) + "\"/>\n");
+	}
+
+	/**
+	 * This method writes one trace of the log
+	 *
+	 * @param trace the trace to write
+	 * @throws IOException
+	 */
+	public void write(XTrace trace) throws IOException {
+		writer.write("\t<trace>\n");
+		writeAttributes(trace, "\t\t");
+		for (XEvent event : trace) {
+			writer.write("\t\t<event>\n");
+			writeAttributes(event, "\t\t\t");
+			writer.write("\t\t</event>\n");
+		}
+		writer.write("\t</trace>\n");
+	}
+
+	/**
+	 * This method writes the footer of the log and flushes the output
+	 *
+	 * @throws IOException
+	 */
+	public void endLog() throws IOException {
+		writer.write("</log>\n");
+		writer.flush();
+	}
+
+	/**
+	 * This method flushes the traces written so far, without terminating the
+	 * log
+	 *
+	 * @throws IOException
+	 */
+	public void flush() throws IOException {
+		writer.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		writer.close();
+	}
+
+	private void writeAttributes(XAttributable element, String indentation) throws IOException {
+		if (!element.hasAttributes()) {
+			return;
+		}
+		for (XAttribute attribute : element.getAttributes().values()) {
+			String tag = "string";
+			String value = attribute.toString();
+			if (attribute instanceof XAttributeTimestamp) {
+				tag = "date";
+				value = dateFormat.format(((XAttributeTimestamp) attribute).getValue());
+			} else if (attribute instanceof XAttributeDiscrete) {
+				tag = "int";
+			} else if (attribute instanceof XAttributeContinuous) {
+				tag = "float";
+			} else if (attribute instanceof XAttributeBoolean) {
+				tag = "boolean";
+			} else if (attribute instanceof XAttributeID) {
+				tag = "id";
+			}
+			writer.write(indentation + "<" + tag + " key=\"" + escape(attribute.getKey()) + "\" value=\"" + escape(value) + "\"");
+			if (attribute.hasAttributes()) {
+				writer.write(">\n");
+				writeAttributes(attribute, indentation + "\t");
+				writer.write(indentation + "</" + tag + ">\n");
+			} else {
+				writer.write("/>\n");
+			}
+		}
+	}
+
+	/**
+	 * This method escapes the provided string so that it can be used as XML
+	 * text or attribute value
+	 *
+	 * @param value the string to escape
+	 * @return the escaped string
+	 */
+	public static String escape(String value) {
+		if (value == null) {
+			return "";
+		}
+		StringBuilder sb = null;
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			String replacement = null;
+			switch (c) {
+				case '&': replacement = "&amp;"; break;
+				case '<': replacement = "&lt;"; break;
+				case '>': replacement = "&gt;"; break;
+				case '"': replacement = "&quot;"; break;
+				case '\'': replacement = "&apos;"; break;
+				default:
+					if (c < 0x20 && c != '\t' && c != '\n' && c != '\r') {
+						replacement = "";
+					}
+			}
+			if (replacement != null) {
+				if (sb == null) {
+					sb = new StringBuilder(value.length() + 16);
+					sb.append(value, 0, i);
+				}
+				sb.append(replacement);
+			} else if (sb != null) {
+				sb.append(c);
+			}
+		}
+		return (sb == null)? value : sb.toString();
+	}
+}
@@ -0,0 +1,164 @@
+package plg.common.process;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import plg.annotations.Exporter;
+import plg.common.log.TraceSimulator;
+import plg.common.utils.RandomSource;
+import plg.generator.IProgressVisualizer;
+import plg.generator.process.ProcessGenerator;
+import plg.generator.process.RandomizationConfiguration;
+import plg.io.exporter.IFileExporter;
+import plg.model.Process;
+
+/**
+ * This class generates many random processes at once, on a pool of worker
+ * threads, and exports each of them with all the requested exporters. Process
+ * names are stable (the prefix followed by the zero-padded number of the
+ * process), and a manifest listing all the generated processes is written
+ * into the destination folder.
+ *
+ * <p> If a seed is provided, process <tt>i</tt> depends only on the seed and
+ * on <tt>i</tt>, regardless of the number of threads (see
+ * {@link RandomSource}).
+ *
+ * @author Andrea Burattin
+ */
+public class BulkProcessGenerator {
+
+	/**
+	 * The name of the manifest file written in the destination folder
+	 */
+	public static final String MANIFEST_FILE = "manifest.csv";
+
+	private RandomizationConfiguration configuration;
+	private List<Class<?>> exporters;
+	private int threads;
+	private Long seed;
+
+	/**
+	 * Basic constructor
+	 *
+	 * @param configuration the randomization configuration of all processes
+	 * @param exporters the exporter classes (annotated with {@link Exporter})
+	 * to use on each process
+	 * @param threads the number of worker threads
+	 * @param seed the seed of the generation, or <tt>null</tt>
+	 */
+	public BulkProcessGenerator(RandomizationConfiguration configuration, List<Class<?>> exporters, int threads, Long seed) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("At least one thread is required");
+		}
+		this.configuration = configuration;
+		this.exporters = exporters;
+		this.threads = threads;
+		this.seed = seed;
+	}
+
+	/**
+	 * This method generates and exports the processes, and writes the manifest
+	 *
+	 * @param count the number of processes to generate
+	 * @param prefix the prefix of the process names
+	 * @param destination the destination folder
+	 * @param progress the progress visualizer, increased once per process
+	 * @return the manifest file
+	 * @throws Exception if the generation or the export of a process fails
+	 */
+	public File generate(int count, String prefix, File destination, IProgressVisualizer progress) throws Exception {
+		destination.mkdirs();
+		String nameFormat = prefix + "-%0" + Math.max(5, Integer.toString(count).length()) + "d";
+
+		progress.setMinimum(0);
+		progress.setMaximum(count);
+		progress.setText("Generating " + count + " processes");
+		progress.start();
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		File manifest = new File(destination, MANIFEST_FILE);
+		try (PrintWriter writer = new PrintWriter(manifest, "UTF-8")) {
+			List<Future<String>> pending = new ArrayList<Future<String>>();
+			for (int i = 0; i < count; i++) {
+				pending.add(executor.submit(newProcess(i, String.format(nameFormat, i + 1), destination)));
+			}
+			writer.println("id,name,tasks,gateways,data_objects,files");
+			for (Future<String> future : pending) {
+				writer.println(waitFor(future));
+				progress.inc();
+			}
+		} finally {
+			executor.shutdownNow();
+			progress.finished();
+		}
+		return manifest;
+	}
+
+	/**
+	 * This method returns the extension of the provided exporter class
+	 *
+	 * @param exporter the exporter class
+	 * @return the file extension
+	 */
+	public static String getExtension(Class<?> exporter) {
+		return exporter.getAnnotation(Exporter.class).fileExtension();
+	}
+
+	/**
+	 * This method creates the task which randomizes and exports one process.
+	 * The task returns the manifest line of the process.
+	 *
+	 * @param index the index of the process
+	 * @param name the name of the process
+	 * @param destination the destination folder
+	 * @return the task
+	 */
+	private Callable<String> newProcess(final int index, final String name, final File destination) {
+		return new Callable<String>() {
+			@Override
+			public String call() throws Exception {
+				final Process p = new Process(name);
+				if (seed == null) {
+					ProcessGenerator.randomizeProcess(p, configuration);
+				} else {
+					RandomSource.call(TraceSimulator.getTraceSeed(seed, index), new Callable<Void>() {
+						@Override
+						public Void call() throws Exception {
+							ProcessGenerator.randomizeProcess(p, configuration);
+							return null;
+						}
+					});
+				}
+
+				StringBuilder files = new StringBuilder();
+				for (Class<?> exporter : exporters) {
+					String fileName = name + "." + getExtension(exporter);
+					((IFileExporter) exporter.getDeclaredConstructor().newInstance()).exportModel(p, new File(destination, fileName).getAbsolutePath());
+					if (files.length() > 0) {
+						files.append(";");
+					}
+					files.append(fileName);
+				}
+				return (index + 1) + "," + name + "," + p.getTasks().size() + "," + p.getGateways().size() + "," +
+						p.getDataObjects().size() + "," + files;
+			}
+		};
+	}
+
+	private static String waitFor(Future<String> future) throws Exception {
+		try {
+			return future.get();
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof Exception) {
+				throw (Exception) e.getCause();
+			}
+			throw e;
+		}
+	}
+}
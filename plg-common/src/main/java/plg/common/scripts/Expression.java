@@ -0,0 +1,381 @@
+package plg.common.scripts;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import plg.utils.Random;
+
+/**
+ * This class represents an expression of the small language that PLG can
+ * evaluate without a Python interpreter. An expression is either a number, a
+ * string, or a function applied to other expressions:
+ *
+ * <ul>
+ * 	<li><tt>uniform(a, b)</tt>: a real number uniformly distributed in [a, b)</li>
+ * 	<li><tt>int(a, b)</tt>: an integer number uniformly distributed in [a, b]</li>
+ * 	<li><tt>normal(mean, sd)</tt>: a normally distributed real number</li>
+ * 	<li><tt>exponential(mean)</tt>: an exponentially distributed real number</li>
+ * 	<li><tt>choice(x1, x2, ...)</tt>: one of the provided values, with the same
+ * 	probability</li>
+ * 	<li><tt>min(x, y)</tt> and <tt>max(x, y)</tt>: the minimum and the maximum
+ * 	of two numbers</li>
+ * </ul>
+ *
+ * Expressions are parsed once into a tree, whose evaluation works on primitive
+ * values only and does not allocate objects. Random values are taken from
+ * {@link Random#RANDOM}, so seeded simulations are reproducible.
+ *
+ * @author Andrea Burattin
+ */
+public abstract class Expression {
+
+	private String text;
+
+	/**
+	 * This method evaluates the expression as a number
+	 *
+	 * @return the numeric value of the expression
+	 */
+	public abstract double evaluate();
+
+	/**
+	 * This method evaluates the expression as a string
+	 *
+	 * @return the string value of the expression
+	 */
+	public String evaluateString() {
+		double value = evaluate();
+		if (value == Math.rint(value) && !Double.isInfinite(value)) {
+			return Long.toString((long) value);
+		}
+		return Double.toString(value);
+	}
+
+	/**
+	 * This method evaluates the expression as an integer, rounding it
+	 *
+	 * @return the integer value of the expression
+	 */
+	public int evaluateInteger() {
+		return (int) Math.round(evaluate());
+	}
+
+	/**
+	 * This method returns the Python code equivalent to the expression
+	 *
+	 * @return the Python code
+	 */
+	public abstract String toPython();
+
+	/**
+	 * This method returns whether the expression produces strings
+	 *
+	 * @return <tt>true</tt> if the expression produces strings
+	 */
+	public boolean isString() {
+		return false;
+	}
+
+	@Override
+	public String toString() {
+		return text;
+	}
+
+	/**
+	 * This method parses the provided expression
+	 *
+	 * @param text the expression
+	 * @return the parsed expression
+	 * @throws IllegalArgumentException if the expression is not valid
+	 */
+	public static Expression parse(String text) {
+		Parser parser = new Parser(text);
+		Expression e = parser.parseExpression();
+		parser.skipSpaces();
+		if (parser.position < text.length()) {
+			throw parser.error("unexpected `" + text.charAt(parser.position) + "'");
+		}
+		e.text = text.trim();
+		return e;
+	}
+
+	/**
+	 * Recursive descent parser of the expressions
+	 */
+	private static class Parser {
+
+		private String text;
+		private int position = 0;
+
+		public Parser(String text) {
+			this.text = text;
+		}
+
+		public Expression parseExpression() {
+			skipSpaces();
+			if (position >= text.length()) {
+				throw error("expression expected");
+			}
+			char c = text.charAt(position);
+			if (c == '"' || c == '\'') {
+				return new Constant(parseString(c));
+			}
+			if (Character.isDigit(c) || c == '-' || c == '+' || c == '.') {
+				return new Constant(parseNumber());
+			}
+			if (Character.isLetter(c)) {
+				String name = parseName();
+				List<Expression> arguments = parseArguments();
+				return Function.create(name, arguments, this);
+			}
+			throw error("unexpected `" + c + "'");
+		}
+
+		private List<Expression> parseArguments() {
+			List<Expression> arguments = new ArrayList<Expression>();
+			expect('(');
+			skipSpaces();
+			if (position < text.length() && text.charAt(position) == ')') {
+				position++;
+				return arguments;
+			}
+			while (true) {
+				arguments.add(parseExpression());
+				skipSpaces();
+				if (position < text.length() && text.charAt(position) == ',') {
+					position++;
+				} else {
+					expect(')');
+					return arguments;
+				}
+			}
+		}
+
+		private String parseName() {
+			int start = position;
+			while (position < text.length() && Character.isLetterOrDigit(text.charAt(position))) {
+				position++;
+			}
+			return text.substring(start, position).toLowerCase(Locale.ROOT);
+		}
+
+		private double parseNumber() {
+			int start = position;
+			if (text.charAt(position) == '-' || text.charAt(position) == '+') {
+				position++;
+			}
+			while (position < text.length() &&
+					(Character.isDigit(text.charAt(position)) || text.charAt(position) == '.' ||
+					text.charAt(position) == 'e' || text.charAt(position) == 'E')) {
+				position++;
+			}
+			try {
+				return Double.parseDouble(text.substring(start, position));
+			} catch (NumberFormatException e) {
+				throw error("invalid number `" + text.substring(start, position) + "'");
+			}
+		}
+
+		private String parseString(char quote) {
+			StringBuilder sb = new StringBuilder();
+			position++;
+			while (position < text.length()) {
+				char c = text.charAt(position++);
+				if (c == quote) {
+					return sb.toString();
+				} else if (c == '\\' && position < text.length()) {
+					sb.append(text.charAt(position++));
+				} else {
+					sb.append(c);
+				}
+			}
+			throw error("unterminated string");
+		}
+
+		private void expect(char c) {
+			skipSpaces();
+			if (position >= text.length() || text.charAt(position) != c) {
+				throw error("`" + c + "' expected");
+			}
+			position++;
+		}
+
+		public void skipSpaces() {
+			while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+				position++;
+			}
+		}
+
+		public IllegalArgumentException error(String message) {
+			return new IllegalArgumentException("Invalid expression, " + message + " at position " + (position + 1));
+		}
+	}
+
+	/**
+	 * A number or a string
+	 */
+	private static class Constant extends Expression {
+
+		private double number;
+		private String string;
+
+		public Constant(double number) {
+			this.number = number;
+			this.string = super.evaluateString();
+		}
+
+		public Constant(String string) {
+			this.number = Double.NaN;
+			this.string = string;
+		}
+
+		@Override
+		public double evaluate() {
+			return number;
+		}
+
+		@Override
+		public String evaluateString() {
+			return string;
+		}
+
+		@Override
+		public boolean isString() {
+			return Double.isNaN(number);
+		}
+
+		@Override
+		public String toPython() {
+			if (isString()) {
+				return "\"" + string.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+			}
+			return Double.toString(number);
+		}
+	}
+
+	/**
+	 * A function applied to its arguments
+	 */
+	private static class Function extends Expression {
+
+		private static final int UNIFORM = 0;
+		private static final int INT = 1;
+		private static final int NORMAL = 2;
+		private static final int EXPONENTIAL = 3;
+		private static final int CHOICE = 4;
+		private static final int MIN = 5;
+		private static final int MAX = 6;
+
+		private int function;
+		private Expression[] arguments;
+
+		private Function(int function, List<Expression> arguments) {
+			this.function = function;
+			this.arguments = arguments.toArray(new Expression[arguments.size()]);
+		}
+
+		public static Function create(String name, List<Expression> arguments, Parser parser) {
+			int function;
+			int expected;
+			if (name.equals("uniform")) {
+				function = UNIFORM; expected = 2;
+			} else if (name.equals("int")) {
+				function = INT; expected = 2;
+			} else if (name.equals("normal")) {
+				function = NORMAL; expected = 2;
+			} else if (name.equals("exponential")) {
+				function = EXPONENTIAL; expected = 1;
+			} else if (name.equals("choice")) {
+				function = CHOICE; expected = -1;
+			} else if (name.equals("min")) {
+				function = MIN; expected = 2;
+			} else if (name.equals("max")) {
+				function = MAX; expected = 2;
+			} else {
+				throw parser.error("unknown function `" + name + "'");
+			}
+			if (expected < 0 && arguments.isEmpty()) {
+				throw parser.error("`" + name + "' requires at least one argument");
+			}
+			if (expected >= 0 && arguments.size() != expected) {
+				throw parser.error("`" + name + "' requires " + expected + " argument(s)");
+			}
+			if (function != CHOICE) {
+				for (Expression e : arguments) {
+					if (e.isString()) {
+						throw parser.error("`" + name + "' requires numeric arguments");
+					}
+				}
+			}
+			return new Function(function, arguments);
+		}
+
+		@Override
+		public double evaluate() {
+			switch (function) {
+				case UNIFORM:
+					double low = arguments[0].evaluate();
+					return low + Random.RANDOM.nextDouble() * (arguments[1].evaluate() - low);
+				case INT:
+					long from = Math.round(arguments[0].evaluate());
+					long to = Math.round(arguments[1].evaluate());
+					return from + (long) Math.floor(Random.RANDOM.nextDouble() * (to - from + 1));
+				case NORMAL:
+					return arguments[0].evaluate() + Random.RANDOM.nextGaussian() * arguments[1].evaluate();
+				case EXPONENTIAL:
+					return -arguments[0].evaluate() * Math.log(1 - Random.RANDOM.nextDouble());
+				case CHOICE:
+					return arguments[Random.RANDOM.nextInt(arguments.length)].evaluate();
+				case MIN:
+					return Math.min(arguments[0].evaluate(), arguments[1].evaluate());
+				default:
+					return Math.max(arguments[0].evaluate(), arguments[1].evaluate());
+			}
+		}
+
+		@Override
+		public String evaluateString() {
+			if (function == CHOICE) {
+				return arguments[Random.RANDOM.nextInt(arguments.length)].evaluateString();
+			}
+			return super.evaluateString();
+		}
+
+		@Override
+		public boolean isString() {
+			if (function == CHOICE) {
+				for (Expression e : arguments) {
+					if (e.isString()) {
+						return true;
+					}
+				}
+			}
+			return false;
+		}
+
+		@Override
+		public String toPython() {
+			switch (function) {
+				case UNIFORM:
+					return "random.uniform(" + arguments[0].toPython() + ", " + arguments[1].toPython() + ")";
+				case INT:
+					return "random.randint(int(round(" + arguments[0].toPython() + ")), int(round(" + arguments[1].toPython() + ")))";
+				case NORMAL:
+					return "random.gauss(" + arguments[0].toPython() + ", " + arguments[1].toPython() + ")";
+				case EXPONENTIAL:
+					return "random.expovariate(1.0 / " + arguments[0].toPython() + ")";
+				case CHOICE:
+					StringBuilder sb = new StringBuilder("random.choice([");
+					for (int i = 0; i < arguments.length; i++) {
+						sb.append((i > 0)? ", " : "").append(arguments[i].toPython());
+					}
+					return sb.append("])").toString();
+				case MIN:
+					return "min(" + arguments[0].toPython() + ", " + arguments[1].toPython() + ")";
+				default:
+					return "max(" + arguments[0].toPython() + ", " + arguments[1].toPython() + ")";
+			}
+		}
+	}
+}
@@ -0,0 +1,98 @@
+package plg.common.scripts;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * This class converts between {@link Expression}s and the Python scripts stored
+ * in the models. An expression script starts with one header line per
+ * function, in the form
+ * <tt># plg-expression: function = expression</tt>, followed by the equivalent
+ * Python code. This way the models remain valid for every Python executor,
+ * while the executors aware of expressions can skip the interpreter.
+ *
+ * @author Andrea Burattin
+ */
+public class ExpressionScript {
+
+	/**
+	 * The prefix of the header lines of expression scripts
+	 */
+	public static final String HEADER = "# plg-expression: ";
+
+	private static final String TO_STRING = "plg_to_string";
+
+	/**
+	 * This method builds the script for the provided expressions
+	 *
+	 * @param expressions the map from the names of the functions to their
+	 * expressions
+	 * @param integer whether the functions must return integer numbers
+	 * (otherwise, strings)
+	 * @return the script
+	 */
+	public static String toScript(Map<String, Expression> expressions, boolean integer) {
+		StringBuilder sb = new StringBuilder();
+		for (Map.Entry<String, Expression> entry : expressions.entrySet()) {
+			sb.append(HEADER).append(entry.getKey()).append(" = ").append(entry.getValue()).append("\n");
+		}
+		sb.append("# The Python code below is generated from the expressions above.\n");
+		sb.append("import random\n");
+		if (!integer) {
+			// formats numbers as Expression.evaluateString() does
+			sb.append("\ndef ").append(TO_STRING).append("(value):\n");
+			sb.append("\tif isinstance(value, float) and value == value and abs(value) != float(\"inf\"):\n");
+			sb.append("\t\tif value == int(value):\n");
+			sb.append("\t\t\treturn str(int(value))\n");
+			sb.append("\t\treturn repr(value)\n");
+			sb.append("\treturn str(value)\n");
+		}
+		for (Map.Entry<String, Expression> entry : expressions.entrySet()) {
+			String code = entry.getValue().toPython();
+			sb.append("\ndef ").append(entry.getKey()).append("(caseId):\n");
+			if (integer) {
+				sb.append("\treturn int(round(").append(code).append("))\n");
+			} else {
+				sb.append("\treturn ").append(TO_STRING).append("(").append(code).append(")\n");
+			}
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * This method extracts the expressions from the provided script
+	 *
+	 * @param script the script
+	 * @return the map from the names of the functions to their expressions,
+	 * or <tt>null</tt> if the script is not an expression script
+	 * @throws IllegalArgumentException if an expression is not valid
+	 */
+	public static Map<String, Expression> getExpressions(String script) {
+		if (!isExpressionScript(script)) {
+			return null;
+		}
+		Map<String, Expression> expressions = new LinkedHashMap<String, Expression>();
+		for (String line : script.split("\n")) {
+			if (!line.startsWith(HEADER)) {
+				break;
+			}
+			String definition = line.substring(HEADER.length());
+			int equal = definition.indexOf('=');
+			if (equal < 0) {
+				throw new IllegalArgumentException("Invalid expression header `" + line + "'");
+			}
+			expressions.put(definition.substring(0, equal).trim(), Expression.parse(definition.substring(equal + 1)));
+		}
+		return expressions;
+	}
+
+	/**
+	 * This method checks whether the provided script is an expression script
+	 *
+	 * @param script the script
+	 * @return <tt>true</tt> if the script starts with an expression header
+	 */
+	public static boolean isExpressionScript(String script) {
+		return script != null && script.startsWith(HEADER);
+	}
+}
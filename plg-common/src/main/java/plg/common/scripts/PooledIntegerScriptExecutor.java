@@ -0,0 +1,64 @@
+package plg.common.scripts;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+
+import org.python.core.PyObject;
+
+import plg.exceptions.InvalidScript;
+import plg.generator.scriptexecuter.IntegerScriptExecutor;
+
+/**
+ * This integer script executor runs its script through the {@link ScriptCache},
+ * so the script is compiled only once and each thread uses its own
+ * interpreter. Expression scripts are evaluated without any interpreter.
+ * The last value generated is kept per thread, and it is not serialized.
+ * 
+ * @author Andrea Burattin
+ */
+public class PooledIntegerScriptExecutor extends IntegerScriptExecutor {
+
+	/**
+	 * The function called to generate the value
+	 */
+	public static final String FUNCTION = "generate";
+	
+	private String name;
+	private transient ThreadLocal<Integer> value = new ThreadLocal<Integer>();
+	
+	/**
+	 * Executor constructor
+	 * 
+	 * @param name the name used to report the statistics of the script
+	 * @param script the script to execute
+	 */
+	public PooledIntegerScriptExecutor(String name, String script) {
+		super(script);
+		this.name = name;
+	}
+	
+	@Override
+	public void execute(String caseId) throws InvalidScript {
+		Expression expression = ScriptCache.instance().getExpression(getScript(), FUNCTION);
+		if (expression != null) {
+			value.set(ScriptCache.instance().evaluateInteger(name, expression));
+			return;
+		}
+		PyObject result = ScriptCache.instance().invoke(name, getScript(), FUNCTION, caseId);
+		try {
+			value.set(result.asInt());
+		} catch (RuntimeException e) {
+			throw new InvalidScript("The script returned `" + result + "', which is not an integer", getScript());
+		}
+	}
+	
+	@Override
+	public Integer getValue() {
+		return value.get();
+	}
+	
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		value = new ThreadLocal<Integer>();
+	}
+}
@@ -0,0 +1,80 @@
+package plg.common.scripts;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+
+import plg.model.Process;
+import plg.model.activity.Task;
+import plg.model.data.DataObject;
+import plg.model.data.IntegerDataObject;
+import plg.model.data.StringDataObject;
+import plg.utils.Logger;
+
+/**
+ * This class moves the scripts of a process to the pooled executors, so they
+ * are run through the {@link ScriptCache}. It is meant to be applied to every
+ * process entering the application: imported, loaded from a snapshot,
+ * randomized or evolved.
+ * 
+ * @author Andrea Burattin
+ */
+public class PooledScripts {
+
+	/**
+	 * This method replaces the time scripts of the tasks and the scripts of
+	 * the data objects of the provided process with pooled executors running
+	 * the same scripts. Executors already pooled are left untouched.
+	 * 
+	 * @param process the process
+	 */
+	public static void install(Process process) {
+		for (Task task : process.getTasks()) {
+			if (task.getActivityScript() != null && !(task.getActivityScript() instanceof PooledTimeScriptExecutor)) {
+				task.setActivityScript(new PooledTimeScriptExecutor(task.getName(), task.getActivityScript().getScript()));
+			}
+		}
+		for (DataObject dataObject : process.getDataObjects()) {
+			if (dataObject instanceof IntegerDataObject) {
+				IntegerDataObject integer = (IntegerDataObject) dataObject;
+				if (integer.getScriptExecutor() != null && !(integer.getScriptExecutor() instanceof PooledIntegerScriptExecutor)) {
+					replace(integer, integer.getScriptExecutor(), new PooledIntegerScriptExecutor(integer.getName(), integer.getScriptExecutor().getScript()));
+				}
+			} else if (dataObject instanceof StringDataObject) {
+				StringDataObject string = (StringDataObject) dataObject;
+				if (string.getScriptExecutor() != null && !(string.getScriptExecutor() instanceof PooledStringScriptExecutor)) {
+					replace(string, string.getScriptExecutor(), new PooledStringScriptExecutor(string.getName(), string.getScriptExecutor().getScript()));
+				}
+			}
+		}
+	}
+	
+	/**
+	 * This method replaces the executor of a data object, in the field which
+	 * holds the current one, since data objects receive their executor when
+	 * they are created
+	 * 
+	 * @param dataObject the data object
+	 * @param current the current executor
+	 * @param executor the new executor
+	 */
+	private static void replace(DataObject dataObject, Object current, Object executor) {
+		for (Class<?> c = dataObject.getClass(); c != null; c = c.getSuperclass()) {
+			for (Field field : c.getDeclaredFields()) {
+				if (Modifier.isStatic(field.getModifiers()) || !field.getType().isInstance(executor)) {
+					continue;
+				}
+				try {
+					field.setAccessible(true);
+					if (field.get(dataObject) == current) {
+						field.set(dataObject, executor);
+						return;
+					}
+				} catch (Exception e) {
+					Logger.instance().warning("The script of `" + dataObject.getName() + "' cannot be pooled, it will run without the script cache: " + e.getMessage());
+					return;
+				}
+			}
+		}
+		Logger.instance().warning("The script of `" + dataObject.getName() + "' cannot be pooled, it will run without the script cache");
+	}
+}
@@ -0,0 +1,60 @@
+package plg.common.scripts;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+
+import org.python.core.PyObject;
+
+import plg.exceptions.InvalidScript;
+import plg.generator.scriptexecuter.StringScriptExecutor;
+
+/**
+ * This string script executor runs its script through the {@link ScriptCache},
+ * so the script is compiled only once and each thread uses its own
+ * interpreter. Expression scripts are evaluated without any interpreter.
+ * The last value generated is kept per thread, and it is not serialized.
+ * 
+ * @author Andrea Burattin
+ */
+public class PooledStringScriptExecutor extends StringScriptExecutor {
+
+	/**
+	 * The function called to generate the value
+	 */
+	public static final String FUNCTION = "generate";
+	
+	private String name;
+	private transient ThreadLocal<String> value = new ThreadLocal<String>();
+	
+	/**
+	 * Executor constructor
+	 * 
+	 * @param name the name used to report the statistics of the script
+	 * @param script the script to execute
+	 */
+	public PooledStringScriptExecutor(String name, String script) {
+		super(script);
+		this.name = name;
+	}
+	
+	@Override
+	public void execute(String caseId) throws InvalidScript {
+		Expression expression = ScriptCache.instance().getExpression(getScript(), FUNCTION);
+		if (expression != null) {
+			value.set(ScriptCache.instance().evaluateString(name, expression));
+			return;
+		}
+		PyObject result = ScriptCache.instance().invoke(name, getScript(), FUNCTION, caseId);
+		value.set(result.toString());
+	}
+	
+	@Override
+	public String getValue() {
+		return value.get();
+	}
+	
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		value = new ThreadLocal<String>();
+	}
+}
@@ -0,0 +1,89 @@
+package plg.common.scripts;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+
+import plg.generator.scriptexecuter.IntegerScriptExecutor;
+
+/**
+ * This executor runs the time script of a task through the
+ * {@link ScriptCache}. The library calls the time functions of the script
+ * itself, therefore the executor hands to the library a stub script, whose
+ * functions forward each call to the cache, where the original script is
+ * compiled only once and each thread uses its own interpreter. Times described
+ * by {@link Expression}s are evaluated without any interpreter.
+ * 
+ * <p> {@link #getScript()} always returns the original script, so models are
+ * edited and exported unchanged.
+ * 
+ * @author Andrea Burattin
+ */
+public class PooledTimeScriptExecutor extends IntegerScriptExecutor {
+
+	/**
+	 * The functions of a time script
+	 */
+	public static final String[] FUNCTIONS = new String[] { "time_lasted", "time_after" };
+	
+	private String name;
+	private String script;
+	
+	/**
+	 * Executor constructor
+	 * 
+	 * @param name the name used to report the statistics of the script
+	 * @param script the time script
+	 */
+	public PooledTimeScriptExecutor(String name, String script) {
+		super(script);
+		this.name = name;
+		setScript(script);
+	}
+	
+	@Override
+	public String getScript() {
+		return script;
+	}
+	
+	@Override
+	public void setScript(String script) {
+		this.script = script;
+		super.setScript(getStub(name, script));
+	}
+	
+	/**
+	 * This method returns the script which forwards the time functions defined
+	 * by the provided script to the {@link ScriptCache}
+	 * 
+	 * @param name the name used to report the statistics of the script
+	 * @param script the time script
+	 * @return the stub script
+	 */
+	public static String getStub(String name, String script) {
+		if (script == null || name == null) {
+			return script;
+		}
+		String key = ScriptCache.instance().register(script);
+		StringBuilder stub = new StringBuilder("from plg.common.scripts import ScriptCache\n");
+		for (String function : FUNCTIONS) {
+			if (script.contains("def " + function)) {
+				stub.append("def ").append(function).append("(caseid):\n");
+				stub.append("\treturn ScriptCache.instance().invokeInteger(")
+					.append(quote(name)).append(", ")
+					.append(quote(key)).append(", ")
+					.append(quote(function)).append(", caseid)\n");
+			}
+		}
+		return stub.toString();
+	}
+	
+	private static String quote(String value) {
+		return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n").replace("\r", "\\r") + "\"";
+	}
+	
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		// the registrations of the cache are not persisted
+		setScript(script);
+	}
+}
@@ -0,0 +1,357 @@
+package plg.common.scripts;
+
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.python.core.CompileMode;
+import org.python.core.CompilerFlags;
+import org.python.core.Py;
+import org.python.core.PyCode;
+import org.python.core.PyException;
+import org.python.core.PyObject;
+import org.python.core.PyString;
+import org.python.util.PythonInterpreter;
+
+import plg.exceptions.InvalidScript;
+import plg.utils.Logger;
+
+/**
+ * This class compiles each Python script only once per application and keeps,
+ * for each worker thread, one interpreter per script, where the compiled script
+ * has already been executed. Invoking a function of a script is therefore
+ * reduced to a lookup and a call. Each thread keeps at most
+ * {@link #MAX_INTERPRETERS} interpreters, evicting the least recently used
+ * one. The class also collects, for each script, the number of invocations
+ * and their overall latency.
+ * 
+ * <p> Scripts generated from {@link Expression}s (see {@link ExpressionScript})
+ * are evaluated natively, without any interpreter.
+ * 
+ * @author Andrea Burattin
+ */
+public class ScriptCache {
+
+	/**
+	 * The maximum number of interpreters kept by each thread
+	 */
+	public static final int MAX_INTERPRETERS = 32;
+	
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+	private static ScriptCache instance = null;
+	
+	private ConcurrentMap<String, PyCode> compiled = new ConcurrentHashMap<String, PyCode>();
+	private ConcurrentMap<String, String> registered = new ConcurrentHashMap<String, String>();
+	private ConcurrentMap<String, Map<String, Expression>> expressions = new ConcurrentHashMap<String, Map<String, Expression>>();
+	private ConcurrentMap<String, Statistics> statistics = new ConcurrentHashMap<String, Statistics>();
+	private ThreadLocal<Map<String, PythonInterpreter>> interpreters = new ThreadLocal<Map<String, PythonInterpreter>>() {
+		@Override
+		protected Map<String, PythonInterpreter> initialValue() {
+			return new LinkedHashMap<String, PythonInterpreter>(16, 0.75f, true) {
+				private static final long serialVersionUID = 4163398925707471856L;
+				
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<String, PythonInterpreter> eldest) {
+					if (size() > MAX_INTERPRETERS) {
+						eldest.getValue().cleanup();
+						return true;
+					}
+					return false;
+				}
+			};
+		}
+	};
+	
+	private ScriptCache() { }
+	
+	/**
+	 * Singleton access
+	 * 
+	 * @return the singleton instance of the cache
+	 */
+	public static synchronized ScriptCache instance() {
+		if (instance == null) {
+			instance = new ScriptCache();
+		}
+		return instance;
+	}
+	
+	/**
+	 * This method returns the compiled version of the provided script,
+	 * compiling it if this is the first time the script is seen
+	 * 
+	 * @param script the script
+	 * @return the compiled script
+	 * @throws InvalidScript if the script cannot be compiled
+	 */
+	public PyCode getCode(String script) throws InvalidScript {
+		PyCode code = compiled.get(script);
+		if (code == null) {
+			try {
+				code = Py.compile_flags(script, "<script>", CompileMode.exec, new CompilerFlags());
+			} catch (PyException e) {
+				throw new InvalidScript(e.toString(), script);
+			}
+			PyCode previous = compiled.putIfAbsent(script, code);
+			if (previous != null) {
+				code = previous;
+			}
+		}
+		return code;
+	}
+	
+	/**
+	 * This method returns the expression of a function of the provided script
+	 * 
+	 * @param script the script
+	 * @param function the name of the function
+	 * @return the expression of the function, or <tt>null</tt> if the script
+	 * is not an expression script or does not define the function
+	 * @throws InvalidScript if the expressions of the script are not valid
+	 */
+	public Expression getExpression(String script, String function) throws InvalidScript {
+		Map<String, Expression> parsed = expressions.get(script);
+		if (parsed == null) {
+			try {
+				parsed = ExpressionScript.getExpressions(script);
+			} catch (IllegalArgumentException e) {
+				throw new InvalidScript(e.getMessage(), script);
+			}
+			if (parsed == null) {
+				parsed = Collections.emptyMap();
+			}
+			expressions.putIfAbsent(script, parsed);
+		}
+		return parsed.get(function);
+	}
+	
+	/**
+	 * This method evaluates an expression as an integer, collecting the
+	 * statistics of the invocation
+	 * 
+	 * @param name the name used to report the statistics of the invocation
+	 * @param expression the expression to evaluate
+	 * @return the value of the expression
+	 */
+	public int evaluateInteger(String name, Expression expression) {
+		long start = System.nanoTime();
+		int value = expression.evaluateInteger();
+		getStatistics(name).record(System.nanoTime() - start);
+		return value;
+	}
+	
+	/**
+	 * This method evaluates an expression as a string, collecting the
+	 * statistics of the invocation
+	 * 
+	 * @param name the name used to report the statistics of the invocation
+	 * @param expression the expression to evaluate
+	 * @return the value of the expression
+	 */
+	public String evaluateString(String name, Expression expression) {
+		long start = System.nanoTime();
+		String value = expression.evaluateString();
+		getStatistics(name).record(System.nanoTime() - start);
+		return value;
+	}
+	
+	/**
+	 * This method calls a function of a script, using the interpreter of the
+	 * current thread
+	 * 
+	 * @param name the name used to report the statistics of the invocation
+	 * @param script the script defining the function
+	 * @param function the name of the function to call
+	 * @param caseId the case id passed to the function
+	 * @return the value returned by the function
+	 * @throws InvalidScript if the script is not valid or the function fails
+	 */
+	public PyObject invoke(String name, String script, String function, String caseId) throws InvalidScript {
+		long start = System.nanoTime();
+		try {
+			PyObject callable = getInterpreter(script).get(function);
+			if (callable == null || !callable.isCallable()) {
+				throw new InvalidScript("The script does not define the function `" + function + "'", script);
+			}
+			return callable.__call__(new PyString(caseId));
+		} catch (PyException e) {
+			throw new InvalidScript(e.toString(), script);
+		} finally {
+			getStatistics(name).record(System.nanoTime() - start);
+		}
+	}
+	
+	/**
+	 * This method registers the provided script, so it can be invoked through
+	 * {@link #invokeInteger(String, String, String, String)} from other
+	 * scripts, which can only pass short strings around
+	 * 
+	 * @param script the script to register
+	 * @return the key of the script, which depends only on its content
+	 */
+	public String register(String script) {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+			digest.update(script.getBytes("UTF-8"));
+		} catch (NoSuchAlgorithmException | UnsupportedEncodingException e) {
+			// both are mandatory for every Java platform
+			throw new IllegalStateException(e);
+		}
+		byte[] hash = digest.digest();
+		char[] key = new char[hash.length * 2];
+		for (int i = 0; i < hash.length; i++) {
+			key[i * 2] = HEX[(hash[i] >> 4) & 0xf];
+			key[i * 2 + 1] = HEX[hash[i] & 0xf];
+		}
+		String k = new String(key);
+		registered.putIfAbsent(k, script);
+		return k;
+	}
+	
+	/**
+	 * This method calls a function of a registered script and returns its
+	 * value as integer. Functions described by an {@link Expression} are
+	 * evaluated natively, the others with the interpreter of the current
+	 * thread.
+	 * 
+	 * @param name the name used to report the statistics of the invocation
+	 * @param key the key of the script (see {@link #register(String)})
+	 * @param function the name of the function to call
+	 * @param caseId the case id passed to the function
+	 * @return the value returned by the function
+	 * @throws InvalidScript if the script is not valid, the function fails or
+	 * does not return an integer
+	 */
+	public int invokeInteger(String name, String key, String function, String caseId) throws InvalidScript {
+		String script = registered.get(key);
+		if (script == null) {
+			throw new InvalidScript("No script registered as " + key, "");
+		}
+		Expression expression = getExpression(script, function);
+		if (expression != null) {
+			return evaluateInteger(name, expression);
+		}
+		PyObject result = invoke(name, script, function, caseId);
+		try {
+			return result.asInt();
+		} catch (RuntimeException e) {
+			throw new InvalidScript("The script returned `" + result + "', which is not an integer", script);
+		}
+	}
+	
+	/**
+	 * This method returns the statistics of all the scripts invoked since the
+	 * last reset
+	 * 
+	 * @return the list of statistics
+	 */
+	public List<Statistics> getStatistics() {
+		return new ArrayList<Statistics>(statistics.values());
+	}
+	
+	/**
+	 * This method resets the statistics of all the scripts
+	 */
+	public void resetStatistics() {
+		statistics.clear();
+	}
+	
+	/**
+	 * This method writes the statistics of all the scripts invoked since the
+	 * last reset into the application log
+	 */
+	public void logStatistics() {
+		for (Statistics s : getStatistics()) {
+			Logger.instance().info(s.toString());
+		}
+	}
+	
+	/**
+	 * This method returns the interpreter of the current thread for the
+	 * provided script, creating it if necessary
+	 * 
+	 * @param script the script
+	 * @return the interpreter where the script has been executed
+	 * @throws InvalidScript if the script is not valid
+	 */
+	private PythonInterpreter getInterpreter(String script) throws InvalidScript {
+		Map<String, PythonInterpreter> pool = interpreters.get();
+		PythonInterpreter interpreter = pool.get(script);
+		if (interpreter == null) {
+			PyCode code = getCode(script);
+			interpreter = new PythonInterpreter();
+			try {
+				interpreter.exec(code);
+			} catch (PyException e) {
+				throw new InvalidScript(e.toString(), script);
+			}
+			pool.put(script, interpreter);
+		}
+		return interpreter;
+	}
+	
+	private Statistics getStatistics(String name) {
+		Statistics s = statistics.get(name);
+		if (s == null) {
+			s = new Statistics(name);
+			Statistics previous = statistics.putIfAbsent(name, s);
+			if (previous != null) {
+				s = previous;
+			}
+		}
+		return s;
+	}
+	
+	/**
+	 * This class contains the invocation statistics of a script
+	 */
+	public static class Statistics {
+		
+		private String name;
+		private AtomicLong invocations = new AtomicLong(0);
+		private AtomicLong totalNanos = new AtomicLong(0);
+		
+		private Statistics(String name) {
+			this.name = name;
+		}
+		
+		private void record(long nanos) {
+			invocations.incrementAndGet();
+			totalNanos.addAndGet(nanos);
+		}
+		
+		public String getName() {
+			return name;
+		}
+		
+		public long getInvocations() {
+			return invocations.get();
+		}
+		
+		/**
+		 * This method returns the mean latency of the invocations
+		 * 
+		 * @return the mean latency, in microseconds
+		 */
+		public double getMeanLatency() {
+			long count = invocations.get();
+			return (count == 0)? 0 : totalNanos.get() / (count * 1000d);
+		}
+		
+		@Override
+		public String toString() {
+			return String.format(Locale.ROOT, "Script `%s': %d invocations, %.1f us on average",
+					name, getInvocations(), getMeanLatency());
+		}
+	}
+}
@@ -0,0 +1,146 @@
+package plg.common.utils;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.concurrent.Callable;
+
+import plg.utils.Logger;
+import plg.utils.Random;
+
+/**
+ * This class manages the random source of the library
+ * ({@link Random#RANDOM}), which is shared by the whole application. When
+ * this class is loaded, the shared source is replaced by one which delegates
+ * to a separate {@link java.util.Random} for each thread. Therefore, a task
+ * can reseed the source of its own thread without affecting, and without
+ * being affected by, the tasks running on the other threads.
+ *
+ * <p> If the source of the library cannot be replaced, all the seeded tasks
+ * run one at a time, holding a lock shared by the whole application (see
+ * {@link #isPerThread()}). In this case, unseeded tasks running at the same
+ * time can still consume numbers from the shared source, so seeded results are
+ * reproducible only if no other generation is running.
+ *
+ * @author Andrea Burattin
+ */
+public class RandomSource {
+
+	private static final Object LOCK = new Object();
+	private static final boolean PER_THREAD = install();
+
+	/**
+	 * This method returns whether each thread has its own random source. If
+	 * not, seeded tasks are executed one at a time.
+	 *
+	 * @return whether each thread has its own random source
+	 */
+	public static boolean isPerThread() {
+		return PER_THREAD;
+	}
+
+	/**
+	 * This method runs the provided task after seeding the random source of
+	 * the library with the provided seed. The result of the task depends only
+	 * on the seed, regardless of the other tasks running at the same time.
+	 *
+	 * @param seed the seed of the task
+	 * @param task the task to run
+	 * @param <T> the type of the result
+	 * @return the result of the task
+	 * @throws Exception if the task fails
+	 */
+	public static <T> T call(long seed, Callable<T> task) throws Exception {
+		if (PER_THREAD) {
+			Random.RANDOM.setSeed(seed);
+			return task.call();
+		}
+		synchronized (LOCK) {
+			Random.RANDOM.setSeed(seed);
+			return task.call();
+		}
+	}
+
+	private static boolean install() {
+		try {
+			Field field = Random.class.getField("RANDOM");
+			if (Modifier.isFinal(field.getModifiers())) {
+				Logger.instance().warning("The random source of the library is final, seeded simulations will run one at a time");
+				return false;
+			}
+			field.set(null, new PerThreadRandom());
+			return true;
+		} catch (Exception e) {
+			Logger.instance().warning("The random source of the library cannot be replaced, seeded simulations will run one at a time: " + e.getMessage());
+			return false;
+		}
+	}
+
+	/**
+	 * This random source delegates each call to the source of the current
+	 * thread
+	 */
+	private static class PerThreadRandom extends java.util.Random {
+
+		private static final long serialVersionUID = -2165838262451009375L;
+
+		private ThreadLocal<java.util.Random> sources = new ThreadLocal<java.util.Random>() {
+			@Override
+			protected java.util.Random initialValue() {
+				return new java.util.Random();
+			}
+		};
+
+		@Override
+		public void setSeed(long seed) {
+			// called by the constructor of the super class, before the field is set
+			if (sources != null) {
+				sources.get().setSeed(seed);
+			}
+		}
+
+		@Override
+		protected int next(int bits) {
+			return sources.get().nextInt() >>> (32 - bits);
+		}
+
+		@Override
+		public void nextBytes(byte[] bytes) {
+			sources.get().nextBytes(bytes);
+		}
+
+		@Override
+		public int nextInt() {
+			return sources.get().nextInt();
+		}
+
+		@Override
+		public int nextInt(int bound) {
+			return sources.get().nextInt(bound);
+		}
+
+		@Override
+		public long nextLong() {
+			return sources.get().nextLong();
+		}
+
+		@Override
+		public boolean nextBoolean() {
+			return sources.get().nextBoolean();
+		}
+
+		@Override
+		public float nextFloat() {
+			return sources.get().nextFloat();
+		}
+
+		@Override
+		public double nextDouble() {
+			return sources.get().nextDouble();
+		}
+
+		@Override
+		public double nextGaussian() {
+			return sources.get().nextGaussian();
+		}
+	}
+}
@@ -0,0 +1,142 @@
+package plg.common.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.deckfour.xes.model.XAttribute;
+import org.deckfour.xes.model.XEvent;
+import org.deckfour.xes.model.XTrace;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import plg.common.log.TraceSimulator;
+import plg.generator.log.SimulationConfiguration;
+import plg.generator.process.ProcessGenerator;
+import plg.generator.process.RandomizationConfiguration;
+import plg.generator.scriptexecuter.IntegerScriptExecutor;
+import plg.generator.scriptexecuter.StringScriptExecutor;
+import plg.model.Process;
+import plg.model.activity.Task;
+import plg.model.data.IDataObjectOwner.DATA_OBJECT_DIRECTION;
+import plg.model.data.IntegerDataObject;
+import plg.model.data.StringDataObject;
+
+public class ProcessSnapshotCacheTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private ProcessSnapshotCache cache;
+
+	@Before
+	public void createCache() throws IOException {
+		cache = new ProcessSnapshotCache(folder.newFolder("snapshots"));
+	}
+
+	@Test
+	public void randomizedProcessWithScriptsRoundTrip() throws Exception {
+		Process process = newProcess();
+		assertTrue(cache.store("key", process));
+
+		Process loaded = cache.load("key");
+		assertNotNull(loaded);
+		assertEquals(process.getName(), loaded.getName());
+		assertEquals(process.getTasks().size(), loaded.getTasks().size());
+		assertEquals(process.getGateways().size(), loaded.getGateways().size());
+		assertEquals(process.getDataObjects().size(), loaded.getDataObjects().size());
+
+		// the snapshot simulates exactly as the original process
+		SimulationConfiguration configuration = new SimulationConfiguration(10);
+		TraceSimulator original = new TraceSimulator(process, configuration, 7l);
+		TraceSimulator restored = new TraceSimulator(loaded, configuration, 7l);
+		for (int i = 0; i < 10; i++) {
+			assertEquals(describe(original.simulate(i)), describe(restored.simulate(i)));
+		}
+	}
+
+	@Test
+	public void incompatibleSnapshotIsDiscarded() throws Exception {
+		File snapshot = new File(folder.getRoot(), "snapshots/broken" + ProcessSnapshotCache.SNAPSHOT_EXTENSION);
+		FileOutputStream out = new FileOutputStream(snapshot);
+		try {
+			out.write("not a snapshot".getBytes("UTF-8"));
+		} finally {
+			out.close();
+		}
+		assertNull(cache.load("broken"));
+		assertFalse(snapshot.exists());
+	}
+
+	@Test
+	public void missingSnapshotIsNull() {
+		assertNull(cache.load("missing"));
+	}
+
+	@Test
+	public void keyDependsOnContentAndImporter() throws Exception {
+		File a = write("a.plg", "first model");
+		File b = write("b.plg", "first model");
+		File c = write("c.plg", "second model");
+		assertEquals(cache.getKey(a, String.class), cache.getKey(b, String.class));
+		assertNotEquals(cache.getKey(a, String.class), cache.getKey(c, String.class));
+		assertNotEquals(cache.getKey(a, String.class), cache.getKey(a, Integer.class));
+	}
+
+	/**
+	 * Randomized process where each task generates one integer and one string
+	 * script data object, computed from the case id only
+	 */
+	static Process newProcess() throws Exception {
+		Process process = new Process("snapshot");
+		ProcessGenerator.randomizeProcess(process, new RandomizationConfiguration(3, 3, 0.1, 0.2, 0.1, 0.7, 0.3, 0.3, 3, 0.3));
+		int i = 0;
+		for (Task task : process.getTasks()) {
+			IntegerDataObject integer = new IntegerDataObject(process, new IntegerScriptExecutor(
+					"def generate(caseId):\n\treturn len(caseId) + " + i));
+			integer.setName("integer_" + i);
+			integer.setObjectOwner(task, DATA_OBJECT_DIRECTION.GENERATED);
+			StringDataObject string = new StringDataObject(process, new StringScriptExecutor(
+					"def generate(caseId):\n\treturn \"value-\" + caseId"));
+			string.setName("string_" + i);
+			string.setObjectOwner(task, DATA_OBJECT_DIRECTION.GENERATED);
+			i++;
+		}
+		process.check();
+		return process;
+	}
+
+	static String describe(XTrace trace) {
+		StringBuilder sb = new StringBuilder();
+		for (XEvent event : trace) {
+			Map<String, String> attributes = new TreeMap<String, String>();
+			for (XAttribute attribute : event.getAttributes().values()) {
+				attributes.put(attribute.getKey(), attribute.toString());
+			}
+			sb.append(attributes).append(";");
+		}
+		return sb.toString();
+	}
+
+	private File write(String name, String content) throws IOException {
+		File file = folder.newFile(name);
+		FileOutputStream out = new FileOutputStream(file);
+		try {
+			out.write(content.getBytes("UTF-8"));
+		} finally {
+			out.close();
+		}
+		return file;
+	}
+}
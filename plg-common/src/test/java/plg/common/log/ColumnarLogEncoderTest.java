@@ -0,0 +1,316 @@
+package plg.common.log;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.deckfour.xes.factory.XFactory;
+import org.deckfour.xes.factory.XFactoryNaiveImpl;
+import org.deckfour.xes.model.XAttributable;
+import org.deckfour.xes.model.XAttribute;
+import org.deckfour.xes.model.XAttributeBoolean;
+import org.deckfour.xes.model.XAttributeContinuous;
+import org.deckfour.xes.model.XAttributeDiscrete;
+import org.deckfour.xes.model.XAttributeTimestamp;
+import org.deckfour.xes.model.XEvent;
+import org.deckfour.xes.model.XTrace;
+import org.junit.Test;
+
+public class ColumnarLogEncoderTest {
+
+	private static final XFactory FACTORY = new XFactoryNaiveImpl();
+
+	@Test
+	public void roundTripOfAllTypes() throws IOException {
+		List<XTrace> traces = new ArrayList<XTrace>();
+		long time = 1500000000000L;
+		for (int i = 0; i < 5; i++) {
+			XTrace trace = FACTORY.createTrace();
+			put(trace, FACTORY.createAttributeLiteral("concept:name", "case_" + i, null));
+			for (int j = 0; j <= i; j++) {
+				XEvent event = FACTORY.createEvent();
+				put(event, FACTORY.createAttributeLiteral("concept:name", "activity " + (j % 3), null));
+				put(event, FACTORY.createAttributeTimestamp("time:timestamp", time, null));
+				time += (j % 2 == 0)? 60000 : -1000;
+				if (j % 2 == 0) {
+					put(event, FACTORY.createAttributeDiscrete("amount", j - 2, null));
+				} else {
+					put(event, FACTORY.createAttributeContinuous("cost", j * 1.5, null));
+					put(event, FACTORY.createAttributeBoolean("approved", j % 3 == 0, null));
+				}
+				trace.add(event);
+			}
+			traces.add(trace);
+		}
+
+		Decoded decoded = decode(encode("test log", traces));
+		assertEquals("test log", decoded.logName);
+		assertEquals(5, decoded.traces);
+		assertEquals(15, decoded.events);
+		assertEquals(1, decoded.rowGroups);
+		assertEquals(Arrays.asList(1L, 2L, 3L, 4L, 5L), decoded.eventsPerTrace);
+
+		int eventRow = 0;
+		for (int i = 0; i < traces.size(); i++) {
+			assertRow(traces.get(i), decoded.traceColumns, i);
+			for (XEvent event : traces.get(i)) {
+				assertRow(event, decoded.eventColumns, eventRow++);
+			}
+		}
+		assertEquals(5, decoded.eventColumns.size());
+	}
+
+	@Test
+	public void severalRowGroups() throws IOException {
+		List<XTrace> traces = new ArrayList<XTrace>();
+		int tracesCount = ColumnarLogEncoder.ROW_GROUP_EVENTS / 1000 + 2;
+		for (int i = 0; i < tracesCount; i++) {
+			XTrace trace = FACTORY.createTrace();
+			for (int j = 0; j < 1000; j++) {
+				XEvent event = FACTORY.createEvent();
+				put(event, FACTORY.createAttributeDiscrete("n", j, null));
+				trace.add(event);
+			}
+			traces.add(trace);
+		}
+
+		Decoded decoded = decode(encode(null, traces));
+		assertEquals("", decoded.logName);
+		assertEquals(2, decoded.rowGroups);
+		assertEquals(tracesCount, decoded.traces);
+		assertEquals(tracesCount * 1000L, decoded.events);
+		assertEquals(tracesCount, decoded.eventsPerTrace.size());
+		List<Object> values = decoded.eventColumns.get(ColumnarLogEncoder.TYPE_INT + "n");
+		assertEquals(tracesCount * 1000, values.size());
+		assertEquals(999L, values.get(values.size() - 1));
+	}
+
+	@Test
+	public void emptyLog() throws IOException {
+		Decoded decoded = decode(encode("empty", new ArrayList<XTrace>()));
+		assertEquals("empty", decoded.logName);
+		assertEquals(0, decoded.rowGroups);
+		assertEquals(0, decoded.traces);
+		assertEquals(0, decoded.events);
+	}
+
+	private static void put(XAttributable element, XAttribute attribute) {
+		element.getAttributes().put(attribute.getKey(), attribute);
+	}
+
+	private static byte[] encode(String logName, List<XTrace> traces) throws IOException {
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		ColumnarLogEncoder encoder = new ColumnarLogEncoder(buffer);
+		try {
+			encoder.startLog(logName);
+			for (XTrace trace : traces) {
+				encoder.write(trace);
+			}
+			encoder.endLog();
+		} finally {
+			encoder.close();
+		}
+		return buffer.toByteArray();
+	}
+
+	/**
+	 * Checks that each attribute of the element appears, with the same value,
+	 * in the decoded column of its key and type
+	 */
+	private static void assertRow(XAttributable element, Map<String, List<Object>> columns, int row) {
+		int found = 0;
+		for (XAttribute attribute : element.getAttributes().values()) {
+			Object expected;
+			byte type;
+			if (attribute instanceof XAttributeTimestamp) {
+				type = ColumnarLogEncoder.TYPE_DATE;
+				expected = ((XAttributeTimestamp) attribute).getValueMillis();
+			} else if (attribute instanceof XAttributeDiscrete) {
+				type = ColumnarLogEncoder.TYPE_INT;
+				expected = ((XAttributeDiscrete) attribute).getValue();
+			} else if (attribute instanceof XAttributeContinuous) {
+				type = ColumnarLogEncoder.TYPE_FLOAT;
+				expected = ((XAttributeContinuous) attribute).getValue();
+			} else if (attribute instanceof XAttributeBoolean) {
+				type = ColumnarLogEncoder.TYPE_BOOLEAN;
+				expected = ((XAttributeBoolean) attribute).getValue();
+			} else {
+				type = ColumnarLogEncoder.TYPE_STRING;
+				expected = attribute.toString();
+			}
+			assertEquals(attribute.getKey() + " at row " + row, expected, columns.get(type + attribute.getKey()).get(row));
+			found++;
+		}
+		int present = 0;
+		for (List<Object> column : columns.values()) {
+			if (row < column.size() && column.get(row) != null) {
+				present++;
+			}
+		}
+		assertEquals(found, present);
+	}
+
+	/**
+	 * Minimal decoder of the layout documented in {@link ColumnarLogEncoder},
+	 * concatenating the columns of all the row groups
+	 */
+	private static Decoded decode(byte[] bytes) throws IOException {
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+		Decoded decoded = new Decoded();
+		byte[] magic = new byte[4];
+		in.readFully(magic);
+		assertArrayEquals(ColumnarLogEncoder.MAGIC, magic);
+		assertEquals(ColumnarLogEncoder.VERSION, in.readByte());
+		decoded.logName = readString(in);
+		int traceRows = 0;
+		int eventRows = 0;
+		while (in.readByte() == 1) {
+			decoded.rowGroups++;
+			int traces = (int) readVarLong(in);
+			int events = (int) readVarLong(in);
+			for (int i = 0; i < traces; i++) {
+				decoded.eventsPerTrace.add(readVarLong(in));
+			}
+			readTable(in, traces, traceRows, decoded.traceColumns);
+			readTable(in, events, eventRows, decoded.eventColumns);
+			traceRows += traces;
+			eventRows += events;
+			pad(decoded.traceColumns, traceRows);
+			pad(decoded.eventColumns, eventRows);
+		}
+		decoded.traces = readVarLong(in);
+		decoded.events = readVarLong(in);
+		in.readFully(magic);
+		assertArrayEquals(ColumnarLogEncoder.MAGIC, magic);
+		assertEquals(-1, in.read());
+		assertEquals(traceRows, decoded.traces);
+		assertEquals(eventRows, decoded.events);
+		return decoded;
+	}
+
+	private static void readTable(DataInputStream in, int rows, int firstRow, Map<String, List<Object>> columns) throws IOException {
+		long count = readVarLong(in);
+		for (long c = 0; c < count; c++) {
+			String key = readString(in);
+			byte type = in.readByte();
+			byte[] payload = new byte[(int) readVarLong(in)];
+			in.readFully(payload);
+			DataInputStream values = new DataInputStream(new ByteArrayInputStream(payload));
+
+			boolean[] present = new boolean[rows];
+			if (values.readByte() == 0) {
+				Arrays.fill(present, true);
+			} else {
+				present = readBitmap(values, rows);
+			}
+			int presentRows = 0;
+			for (boolean p : present) {
+				if (p) {
+					presentRows++;
+				}
+			}
+
+			Object[] decoded = new Object[presentRows];
+			if (type == ColumnarLogEncoder.TYPE_STRING) {
+				String[] dictionary = new String[(int) readVarLong(values)];
+				for (int i = 0; i < dictionary.length; i++) {
+					dictionary[i] = readString(values);
+				}
+				for (int i = 0; i < presentRows; i++) {
+					decoded[i] = dictionary[(int) readVarLong(values)];
+				}
+			} else if (type == ColumnarLogEncoder.TYPE_BOOLEAN) {
+				boolean[] bits = readBitmap(values, presentRows);
+				for (int i = 0; i < presentRows; i++) {
+					decoded[i] = bits[i];
+				}
+			} else {
+				long previous = 0;
+				for (int i = 0; i < presentRows; i++) {
+					if (type == ColumnarLogEncoder.TYPE_FLOAT) {
+						decoded[i] = Double.longBitsToDouble(values.readLong());
+					} else if (type == ColumnarLogEncoder.TYPE_DATE) {
+						previous += unzigzag(readVarLong(values));
+						decoded[i] = previous;
+					} else {
+						decoded[i] = unzigzag(readVarLong(values));
+					}
+				}
+			}
+			assertEquals(-1, values.read());
+
+			List<Object> column = columns.get(type + key);
+			if (column == null) {
+				column = new ArrayList<Object>();
+				columns.put(type + key, column);
+			}
+			pad(column, firstRow);
+			for (int i = 0, j = 0; i < rows; i++) {
+				column.add(present[i]? decoded[j++] : null);
+			}
+		}
+	}
+
+	private static void pad(Map<String, List<Object>> columns, int rows) {
+		for (List<Object> column : columns.values()) {
+			pad(column, rows);
+		}
+	}
+
+	private static void pad(List<Object> column, int rows) {
+		while (column.size() < rows) {
+			column.add(null);
+		}
+	}
+
+	private static boolean[] readBitmap(DataInputStream in, int size) throws IOException {
+		byte[] bytes = new byte[(size + 7) / 8];
+		in.readFully(bytes);
+		boolean[] bits = new boolean[size];
+		for (int i = 0; i < size; i++) {
+			bits[i] = (bytes[i / 8] & (1 << (i % 8))) != 0;
+		}
+		return bits;
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		byte[] bytes = new byte[(int) readVarLong(in)];
+		in.readFully(bytes);
+		return new String(bytes, "UTF-8");
+	}
+
+	private static long unzigzag(long value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	private static long readVarLong(DataInputStream in) throws IOException {
+		long value = 0;
+		int shift = 0;
+		int b;
+		do {
+			b = in.readUnsignedByte();
+			value |= (long) (b & 0x7F) << shift;
+			shift += 7;
+		} while ((b & 0x80) != 0);
+		return value;
+	}
+
+	private static class Decoded {
+		String logName;
+		int rowGroups = 0;
+		long traces;
+		long events;
+		List<Long> eventsPerTrace = new ArrayList<Long>();
+		Map<String, List<Object>> traceColumns = new HashMap<String, List<Object>>();
+		Map<String, List<Object>> eventColumns = new HashMap<String, List<Object>>();
+	}
+}
@@ -0,0 +1,237 @@
+package plg.common.log;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+import org.deckfour.xes.extension.std.XConceptExtension;
+import org.deckfour.xes.extension.std.XTimeExtension;
+import org.deckfour.xes.factory.XFactory;
+import org.deckfour.xes.factory.XFactoryRegistry;
+import org.deckfour.xes.model.XAttributeDiscrete;
+import org.deckfour.xes.model.XEvent;
+import org.deckfour.xes.model.XTrace;
+import org.junit.Test;
+
+import plg.generator.log.noise.NoiseConfiguration;
+
+public class TraceNoiseProcessorTest {
+
+	private static final XFactory FACTORY = XFactoryRegistry.instance().currentDefault();
+	private static final int EVENTS = 6;
+	private static final int SIZE = 2;
+	private static final int DELTA = 5;
+
+	@Test
+	public void sameSeedSameNoise() {
+		TraceNoiseProcessor processor = new TraceNoiseProcessor(noise(0.5, 0.5, 0.5, 0.5, 0.5, 0.5, 0.5, 0.5, 0.5));
+		XTrace trace = newTrace();
+		boolean different = false;
+		for (long seed = 0; seed < 20; seed++) {
+			String noisy = describe(processor.apply(trace, new Random(seed)));
+			assertEquals(noisy, describe(processor.apply(trace, new Random(seed))));
+			different |= !noisy.equals(describe(processor.apply(trace, new Random(seed + 100))));
+		}
+		assertTrue(different);
+	}
+
+	@Test
+	public void originalTraceIsNotModified() {
+		TraceNoiseProcessor processor = new TraceNoiseProcessor(noise(1, 1, 1, 1, 1, 1, 1, 1, 1));
+		XTrace trace = newTrace();
+		String original = describe(trace);
+		processor.apply(trace, new Random(1));
+		assertEquals(original, describe(trace));
+	}
+
+	@Test
+	public void noNoise() {
+		TraceNoiseProcessor processor = new TraceNoiseProcessor(noise(0, 0, 0, 0, 0, 0, 0, 0, 0));
+		XTrace trace = newTrace();
+		assertEquals(describe(trace), describe(processor.apply(trace, new Random(1))));
+	}
+
+	@Test
+	public void missingHead() {
+		TraceNoiseProcessor processor = new TraceNoiseProcessor(noise(0, 0, 0, 1, 0, 0, 0, 0, 0));
+		for (long seed = 0; seed < 20; seed++) {
+			List<String> noisy = names(processor.apply(newTrace(), new Random(seed)));
+			assertTrue(noisy.size() >= EVENTS - SIZE && noisy.size() < EVENTS);
+			assertEquals(names(newTrace()).subList(EVENTS - noisy.size(), EVENTS), noisy);
+		}
+	}
+
+	@Test
+	public void missingTail() {
+		TraceNoiseProcessor processor = new TraceNoiseProcessor(noise(0, 0, 0, 0, 1, 0, 0, 0, 0));
+		for (long seed = 0; seed < 20; seed++) {
+			List<String> noisy = names(processor.apply(newTrace(), new Random(seed)));
+			assertTrue(noisy.size() >= EVENTS - SIZE && noisy.size() < EVENTS);
+			assertEquals(names(newTrace()).subList(0, noisy.size()), noisy);
+		}
+	}
+
+	@Test
+	public void missingEpisode() {
+		TraceNoiseProcessor processor = new TraceNoiseProcessor(noise(0, 0, 0, 0, 0, 1, 0, 0, 0));
+		List<String> original = names(newTrace());
+		for (long seed = 0; seed < 20; seed++) {
+			List<String> noisy = names(processor.apply(newTrace(), new Random(seed)));
+			assertTrue(noisy.size() >= EVENTS - SIZE && noisy.size() < EVENTS);
+			assertEquals(original.get(0), noisy.get(0));
+			assertEquals(original.get(EVENTS - 1), noisy.get(noisy.size() - 1));
+			assertTrue(original.containsAll(noisy));
+		}
+	}
+
+	@Test
+	public void perturbedOrder() {
+		TraceNoiseProcessor processor = new TraceNoiseProcessor(noise(0, 0, 0, 0, 0, 0, 1, 0, 0));
+		List<String> original = names(newTrace());
+		for (long seed = 0; seed < 20; seed++) {
+			XTrace noisy = processor.apply(newTrace(), new Random(seed));
+			List<String> names = names(noisy);
+			assertNotEquals(original, names);
+			Collections.sort(names);
+			assertEquals(original, names);
+			// the swapped events keep the trace sorted by time
+			for (int i = 1; i < noisy.size(); i++) {
+				assertFalse(timestamp(noisy.get(i)).before(timestamp(noisy.get(i - 1))));
+			}
+		}
+	}
+
+	@Test
+	public void doubleEvent() {
+		TraceNoiseProcessor processor = new TraceNoiseProcessor(noise(0, 0, 0, 0, 0, 0, 0, 1, 0));
+		for (long seed = 0; seed < 20; seed++) {
+			List<String> noisy = names(processor.apply(newTrace(), new Random(seed)));
+			assertEquals(EVENTS + 1, noisy.size());
+			List<String> unique = new ArrayList<String>();
+			for (String name : noisy) {
+				if (unique.isEmpty() || !unique.get(unique.size() - 1).equals(name)) {
+					unique.add(name);
+				}
+			}
+			assertEquals(names(newTrace()), unique);
+		}
+	}
+
+	@Test
+	public void alienEvent() {
+		TraceNoiseProcessor processor = new TraceNoiseProcessor(noise(0, 0, 0, 0, 0, 0, 0, 0, 1));
+		List<String> original = names(newTrace());
+		for (long seed = 0; seed < 20; seed++) {
+			List<String> noisy = names(processor.apply(newTrace(), new Random(seed)));
+			assertEquals(EVENTS + 1, noisy.size());
+			noisy.removeAll(original);
+			assertEquals(1, noisy.size());
+		}
+	}
+
+	@Test
+	public void activityNameNoise() {
+		TraceNoiseProcessor processor = new TraceNoiseProcessor(noise(0, 0, 1, 0, 0, 0, 0, 0, 0));
+		List<String> original = names(newTrace());
+		List<String> noisy = names(processor.apply(newTrace(), new Random(1)));
+		assertEquals(EVENTS, noisy.size());
+		for (int i = 0; i < EVENTS; i++) {
+			assertNotEquals(original.get(i), noisy.get(i));
+			assertEquals(original.get(i).length(), noisy.get(i).length());
+		}
+	}
+
+	@Test
+	public void integerDataNoise() {
+		TraceNoiseProcessor processor = new TraceNoiseProcessor(noise(1, 0, 0, 0, 0, 0, 0, 0, 0));
+		XTrace original = newTrace();
+		XTrace noisy = processor.apply(original, new Random(1));
+		assertEquals(names(original), names(noisy));
+		for (int i = 0; i < EVENTS; i++) {
+			long delta = amount(noisy.get(i)) - amount(original.get(i));
+			assertTrue(delta != 0 && Math.abs(delta) <= DELTA);
+			assertEquals(note(original.get(i)), note(noisy.get(i)));
+		}
+	}
+
+	@Test
+	public void stringDataNoise() {
+		TraceNoiseProcessor processor = new TraceNoiseProcessor(noise(0, 1, 0, 0, 0, 0, 0, 0, 0));
+		XTrace original = newTrace();
+		XTrace noisy = processor.apply(original, new Random(1));
+		// attributes of the extensions, such as the activity name, are not data
+		assertEquals(names(original), names(noisy));
+		for (int i = 0; i < EVENTS; i++) {
+			assertNotEquals(note(original.get(i)), note(noisy.get(i)));
+			assertEquals(amount(original.get(i)), amount(noisy.get(i)));
+		}
+	}
+
+	private static NoiseConfiguration noise(double integerData, double stringData, double activityName,
+			double missingHead, double missingTail, double missingEpisode, double perturbedOrder,
+			double doubleEvent, double alienEvent) {
+		return new NoiseConfiguration(
+				integerData, DELTA,
+				stringData,
+				activityName,
+				missingHead, SIZE,
+				missingTail, SIZE,
+				missingEpisode, SIZE,
+				perturbedOrder,
+				doubleEvent,
+				alienEvent);
+	}
+
+	private static XTrace newTrace() {
+		XTrace trace = FACTORY.createTrace();
+		XConceptExtension.instance().assignName(trace, "case_1");
+		for (int i = 0; i < EVENTS; i++) {
+			XEvent event = FACTORY.createEvent();
+			XConceptExtension.instance().assignName(event, "activity_" + i);
+			XTimeExtension.instance().assignTimestamp(event, new Date(1474185600000L + i * 60000));
+			event.getAttributes().put("amount", FACTORY.createAttributeDiscrete("amount", 10 * i, null));
+			event.getAttributes().put("note", FACTORY.createAttributeLiteral("note", "note " + i, null));
+			trace.add(event);
+		}
+		return trace;
+	}
+
+	private static List<String> names(XTrace trace) {
+		List<String> names = new ArrayList<String>();
+		for (XEvent event : trace) {
+			names.add(XConceptExtension.instance().extractName(event));
+		}
+		return names;
+	}
+
+	private static Date timestamp(XEvent event) {
+		return XTimeExtension.instance().extractTimestamp(event);
+	}
+
+	private static long amount(XEvent event) {
+		return ((XAttributeDiscrete) event.getAttributes().get("amount")).getValue();
+	}
+
+	private static String note(XEvent event) {
+		return event.getAttributes().get("note").toString();
+	}
+
+	private static String describe(XTrace trace) {
+		StringBuilder sb = new StringBuilder(XConceptExtension.instance().extractName(trace));
+		for (XEvent event : trace) {
+			sb.append(";").append(XConceptExtension.instance().extractName(event));
+			sb.append("@").append(timestamp(event).getTime());
+			// alien events have no data
+			sb.append(",").append(event.getAttributes().get("amount"));
+			sb.append(",").append(event.getAttributes().get("note"));
+		}
+		return sb.toString();
+	}
+}
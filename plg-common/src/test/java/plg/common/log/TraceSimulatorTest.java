@@ -0,0 +1,128 @@
+package plg.common.log;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.deckfour.xes.extension.std.XConceptExtension;
+import org.deckfour.xes.extension.std.XTimeExtension;
+import org.deckfour.xes.model.XEvent;
+import org.deckfour.xes.model.XLog;
+import org.deckfour.xes.model.XTrace;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import plg.generator.IProgressVisualizer;
+import plg.generator.log.SimulationConfiguration;
+import plg.generator.process.ProcessGenerator;
+import plg.generator.process.RandomizationConfiguration;
+import plg.model.Process;
+
+public class TraceSimulatorTest {
+
+	private static final int TRACES = 50;
+	private static Process process;
+
+	@BeforeClass
+	public static void randomizeProcess() throws Exception {
+		process = new Process("test");
+		ProcessGenerator.randomizeProcess(process, new RandomizationConfiguration(3, 3, 0.1, 0.2, 0.1, 0.7, 0.3, 0.3, 3, 0));
+		process.check();
+	}
+
+	@Test
+	public void traceSeedsAreDistinct() {
+		assertNotEquals(TraceSimulator.getTraceSeed(1, 0), TraceSimulator.getTraceSeed(1, 1));
+		assertNotEquals(TraceSimulator.getTraceSeed(1, 0), TraceSimulator.getTraceSeed(2, 0));
+		assertEquals(TraceSimulator.getTraceSeed(1, 5), TraceSimulator.getTraceSeed(1, 5));
+	}
+
+	@Test
+	public void seededTracesDoNotDependOnOrder() throws Exception {
+		TraceSimulator simulator = new TraceSimulator(process, new SimulationConfiguration(TRACES), 42l);
+		List<String> forward = new ArrayList<String>();
+		for (int i = 0; i < TRACES; i++) {
+			forward.add(describe(simulator.simulate(i)));
+		}
+		for (int i = TRACES - 1; i >= 0; i--) {
+			assertEquals(forward.get(i), describe(simulator.simulate(i)));
+		}
+	}
+
+	@Test
+	public void seededTracesDoNotDependOnThreads() throws Exception {
+		final TraceSimulator simulator = new TraceSimulator(process, new SimulationConfiguration(TRACES), 42l);
+		List<String> serial = new ArrayList<String>();
+		for (int i = 0; i < TRACES; i++) {
+			serial.add(describe(simulator.simulate(i)));
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<String>> parallel = new ArrayList<Future<String>>();
+			for (int i = 0; i < TRACES; i++) {
+				final int index = i;
+				parallel.add(executor.submit(new Callable<String>() {
+					@Override
+					public String call() throws Exception {
+						return describe(simulator.simulate(index));
+					}
+				}));
+			}
+			for (int i = 0; i < TRACES; i++) {
+				assertEquals(serial.get(i), parallel.get(i).get());
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void seededTracesStartAtTheirSlot() throws Exception {
+		TraceSimulator simulator = new TraceSimulator(process, new SimulationConfiguration(TRACES), 42l);
+		XTrace trace = simulator.simulate(3);
+		long first = Long.MAX_VALUE;
+		for (XEvent event : trace) {
+			first = Math.min(first, XTimeExtension.instance().extractTimestamp(event).getTime());
+		}
+		assertEquals(TraceSimulator.SEEDED_START_TIME + 3 * TraceSimulator.SEEDED_TRACE_INTERVAL, first);
+		assertEquals(TraceSimulator.getCaseId(3), XConceptExtension.instance().extractName(trace));
+	}
+
+	@Test
+	public void cancelledSimulationStops() throws Exception {
+		final TraceSimulator simulator = new TraceSimulator(process, new SimulationConfiguration(TRACES), 42l);
+		XLog log = simulator.simulateLog("cancelled", TRACES, new IProgressVisualizer() {
+			private int traces = 0;
+			@Override public void setMinimum(int minimum) { }
+			@Override public void setMaximum(int maximum) { }
+			@Override public void setIndeterminate(boolean indeterminate) { }
+			@Override public void setText(String status) { }
+			@Override public void start() { }
+			@Override public void finished() { }
+			@Override
+			public void inc() {
+				if (++traces == 5) {
+					simulator.cancel();
+				}
+			}
+		});
+		assertTrue(simulator.isCancelled());
+		assertEquals(5, log.size());
+	}
+
+	private static String describe(XTrace trace) {
+		StringBuilder sb = new StringBuilder(XConceptExtension.instance().extractName(trace));
+		for (XEvent event : trace) {
+			sb.append(";").append(XConceptExtension.instance().extractName(event));
+			sb.append("@").append(XTimeExtension.instance().extractTimestamp(event).getTime());
+		}
+		return sb.toString();
+	}
+}
@@ -0,0 +1,185 @@
+package plg.common.log;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.GZIPOutputStream;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.deckfour.xes.extension.std.XConceptExtension;
+import org.deckfour.xes.extension.std.XLifecycleExtension;
+import org.deckfour.xes.extension.std.XTimeExtension;
+import org.deckfour.xes.factory.XFactory;
+import org.deckfour.xes.factory.XFactoryRegistry;
+import org.deckfour.xes.model.XAttribute;
+import org.deckfour.xes.model.XAttributeLiteral;
+import org.deckfour.xes.model.XAttributeMap;
+import org.deckfour.xes.model.XEvent;
+import org.deckfour.xes.model.XLog;
+import org.deckfour.xes.model.XTrace;
+import org.deckfour.xes.out.XesXmlGZIPSerializer;
+import org.deckfour.xes.out.XesXmlSerializer;
+import org.junit.Test;
+
+public class XesTraceReaderTest {
+
+	private static final XFactory FACTORY = XFactoryRegistry.instance().currentDefault();
+
+	@Test
+	public void plainRoundTrip() throws Exception {
+		XLog log = newLog(20);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new XesXmlSerializer().serialize(log, out);
+		assertSameTraces(log, out.toByteArray());
+	}
+
+	@Test
+	public void compressedRoundTrip() throws Exception {
+		XLog log = newLog(20);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new XesXmlGZIPSerializer().serialize(log, out);
+		assertSameTraces(log, out.toByteArray());
+	}
+
+	@Test
+	public void streamedRoundTrip() throws Exception {
+		XLog log = newLog(20);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (XesTraceWriter writer = new XesTraceWriter(out, true)) {
+			writer.startLog(XConceptExtension.instance().extractName(log));
+			for (XTrace trace : log) {
+				writer.write(trace);
+			}
+			writer.endLog();
+		}
+		assertSameTraces(log, out.toByteArray());
+	}
+
+	@Test
+	public void emptyLog() throws Exception {
+		XLog log = newLog(0);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		GZIPOutputStream gzip = new GZIPOutputStream(out);
+		new XesXmlSerializer().serialize(log, gzip);
+		gzip.finish();
+		assertSameTraces(log, out.toByteArray());
+	}
+
+	@Test
+	public void handWrittenLog() throws Exception {
+		String xes = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+				"<log xes.version=\"1.0\">\n" +
+				"  <extension name=\"Concept\" prefix=\"concept\" uri=\"http://www.xes-standard.org/concept.xesext\"/>\n" +
+				"  <global scope=\"event\"><string key=\"concept:name\" value=\"__INVALID__\"/></global>\n" +
+				"  <classifier name=\"Activity\" keys=\"concept:name\"/>\n" +
+				"  <string key=\"concept:name\" value=\"hand written\"/>\n" +
+				"  <trace>\n" +
+				"    <string key=\"concept:name\" value=\"case 1\"/>\n" +
+				"    <event>\n" +
+				"      <string key=\"concept:name\" value=\"A &amp; B\"/>\n" +
+				"      <date key=\"time:timestamp\" value=\"2016-09-18T10:00:00.000+02:00\"/>\n" +
+				"      <int key=\"amount\" value=\"3\"><string key=\"unit\" value=\"items\"/></int>\n" +
+				"      <float key=\"price\" value=\"1.5\"/>\n" +
+				"      <boolean key=\"paid\" value=\"true\"/>\n" +
+				"    </event>\n" +
+				"  </trace>\n" +
+				"  <trace/>\n" +
+				"</log>\n";
+		try (XesTraceReader reader = new XesTraceReader(new ByteArrayInputStream(xes.getBytes("UTF-8")))) {
+			assertEquals("hand written", reader.getLogName());
+
+			XTrace trace = reader.next();
+			assertEquals("case 1", XConceptExtension.instance().extractName(trace));
+			assertEquals(1, trace.size());
+			XEvent event = trace.get(0);
+			assertEquals("A & B", XConceptExtension.instance().extractName(event));
+			assertEquals(1474185600000L, XTimeExtension.instance().extractTimestamp(event).getTime());
+			assertEquals("3", event.getAttributes().get("amount").toString());
+			assertEquals("items", event.getAttributes().get("amount").getAttributes().get("unit").toString());
+			assertEquals("1.5", event.getAttributes().get("price").toString());
+			assertEquals("true", event.getAttributes().get("paid").toString());
+
+			assertEquals(0, reader.next().size());
+			assertNull(reader.next());
+			assertNull(reader.next());
+		}
+	}
+
+	@Test(expected = XMLStreamException.class)
+	public void otherDocumentsAreRejected() throws Exception {
+		String mxml = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+				"<WorkflowLog>\n" +
+				"  <Process id=\"p\">\n" +
+				"    <ProcessInstance id=\"case 1\"/>\n" +
+				"  </Process>\n" +
+				"</WorkflowLog>\n";
+		new XesTraceReader(new ByteArrayInputStream(mxml.getBytes("UTF-8"))).close();
+	}
+
+	private static void assertSameTraces(XLog log, byte[] xes) throws Exception {
+		List<String> read = new ArrayList<String>();
+		try (XesTraceReader reader = new XesTraceReader(new ByteArrayInputStream(xes))) {
+			assertEquals(XConceptExtension.instance().extractName(log), reader.getLogName());
+			XTrace trace;
+			while ((trace = reader.next()) != null) {
+				read.add(describe(trace));
+			}
+		}
+		List<String> expected = new ArrayList<String>();
+		for (XTrace trace : log) {
+			expected.add(describe(trace));
+		}
+		assertEquals(expected, read);
+	}
+
+	private static XLog newLog(int traces) {
+		XLog log = FACTORY.createLog();
+		XConceptExtension.instance().assignName(log, "round trip");
+		long time = 1474185600000L;
+		for (int i = 0; i < traces; i++) {
+			XTrace trace = FACTORY.createTrace();
+			XConceptExtension.instance().assignName(trace, "case_" + i);
+			for (int j = 0; j < i % 5; j++) {
+				XEvent event = FACTORY.createEvent();
+				XConceptExtension.instance().assignName(event, "activity <" + j + "> & \"more\"");
+				XLifecycleExtension.instance().assignStandardTransition(event, XLifecycleExtension.StandardModel.COMPLETE);
+				XTimeExtension.instance().assignTimestamp(event, new Date(time += 1500));
+				XAttributeMap attributes = event.getAttributes();
+				attributes.put("amount", FACTORY.createAttributeDiscrete("amount", i * j - 7, null));
+				attributes.put("ratio", FACTORY.createAttributeContinuous("ratio", i / 3d, null));
+				attributes.put("flag", FACTORY.createAttributeBoolean("flag", j % 2 == 0, null));
+				XAttributeLiteral note = FACTORY.createAttributeLiteral("note", "note " + i, null);
+				note.getAttributes().put("author", FACTORY.createAttributeLiteral("author", "plg", null));
+				attributes.put("note", note);
+				trace.add(event);
+			}
+			log.add(trace);
+		}
+		return log;
+	}
+
+	private static String describe(XTrace trace) {
+		StringBuilder sb = new StringBuilder(describe(trace.getAttributes()));
+		for (XEvent event : trace) {
+			sb.append(";").append(describe(event.getAttributes()));
+		}
+		return sb.toString();
+	}
+
+	private static String describe(XAttributeMap attributes) {
+		Map<String, String> values = new TreeMap<String, String>();
+		for (XAttribute attribute : attributes.values()) {
+			values.put(attribute.getKey(), attribute.getClass().getSimpleName() + ":" + attribute.toString() +
+					(attribute.getAttributes().isEmpty()? "" : describe(attribute.getAttributes())));
+		}
+		return values.toString();
+	}
+}
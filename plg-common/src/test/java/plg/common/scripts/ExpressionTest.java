@@ -0,0 +1,111 @@
+package plg.common.scripts;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+
+import plg.utils.Random;
+
+public class ExpressionTest {
+
+	@Test
+	public void constants() {
+		assertEquals(42, Expression.parse("42").evaluateInteger());
+		assertEquals(-1.5, Expression.parse(" -1.5 ").evaluate(), 0);
+		assertEquals("1", Expression.parse("1.0").evaluateString());
+		assertEquals("0.5", Expression.parse("0.5").evaluateString());
+		assertEquals("a \"b\"", Expression.parse("'a \"b\"'").evaluateString());
+		assertTrue(Expression.parse("\"x\"").isString());
+		assertFalse(Expression.parse("3").isString());
+	}
+
+	@Test
+	public void functions() {
+		assertEquals(2, Expression.parse("min(2, max(1, 3))").evaluateInteger());
+		assertEquals(3, Expression.parse("MAX(2, 3)").evaluateInteger());
+		for (int i = 0; i < 1000; i++) {
+			double uniform = Expression.parse("uniform(10, 20)").evaluate();
+			assertTrue(uniform >= 10 && uniform < 20);
+			int integer = Expression.parse("int(1, 3)").evaluateInteger();
+			assertTrue(integer >= 1 && integer <= 3);
+			assertTrue(Expression.parse("exponential(5)").evaluate() >= 0);
+		}
+	}
+
+	@Test
+	public void choiceFormatsIntegralNumbersAsIntegers() {
+		Expression choice = Expression.parse("choice(1, 2.0, \"a\")");
+		assertTrue(choice.isString());
+		Set<String> values = new HashSet<String>();
+		for (int i = 0; i < 1000; i++) {
+			values.add(choice.evaluateString());
+		}
+		assertEquals(new HashSet<String>(Arrays.asList("1", "2", "a")), values);
+	}
+
+	@Test
+	public void seededEvaluationsAreReproducible() {
+		Expression e = Expression.parse("normal(uniform(0, 100), exponential(2))");
+		assertEquals(draw(e, 3), draw(e, 3));
+	}
+
+	@Test
+	public void invalidExpressions() {
+		String[] invalid = new String[] { "", "uniform(1)", "foo(1)", "uniform(1, \"a\")", "choice()", "min(1, 2", "'abc", "1 2" };
+		for (String text : invalid) {
+			try {
+				Expression.parse(text);
+				fail("`" + text + "' should not be valid");
+			} catch (IllegalArgumentException e) {
+				assertTrue(e.getMessage().startsWith("Invalid expression"));
+			}
+		}
+	}
+
+	@Test
+	public void scriptRoundTrip() {
+		Map<String, Expression> expressions = new LinkedHashMap<String, Expression>();
+		expressions.put("time_lasted", Expression.parse("uniform(300, 900)"));
+		expressions.put("time_after", Expression.parse("choice(60, 120)"));
+		String script = ExpressionScript.toScript(expressions, true);
+		assertTrue(ExpressionScript.isExpressionScript(script));
+		assertTrue(script.contains("def time_lasted(caseId):\n\treturn int(round(random.uniform(300.0, 900.0)))"));
+
+		Map<String, Expression> parsed = ExpressionScript.getExpressions(script);
+		assertEquals(expressions.keySet(), parsed.keySet());
+		for (String function : expressions.keySet()) {
+			assertEquals(expressions.get(function).toString(), parsed.get(function).toString());
+		}
+		assertNull(ExpressionScript.getExpressions("def generate(caseId):\n\treturn 1\n"));
+	}
+
+	@Test
+	public void stringScriptsFormatNumbersAsExpressions() {
+		Map<String, Expression> expressions = new LinkedHashMap<String, Expression>();
+		expressions.put("generate", Expression.parse("choice(1, 'a')"));
+		String script = ExpressionScript.toScript(expressions, false);
+		assertTrue(script.contains("def generate(caseId):\n\treturn plg_to_string(random.choice([1.0, \"a\"]))"));
+		assertTrue(script.contains("return str(int(value))"));
+	}
+
+	private static List<Double> draw(Expression e, long seed) {
+		Random.RANDOM.setSeed(seed);
+		List<Double> values = new ArrayList<Double>();
+		for (int i = 0; i < 100; i++) {
+			values.add(e.evaluate());
+		}
+		return values;
+	}
+}
@@ -0,0 +1,110 @@
+package plg.common.scripts;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import plg.common.log.TraceSimulator;
+import plg.generator.log.SimulationConfiguration;
+import plg.generator.process.ProcessGenerator;
+import plg.generator.process.RandomizationConfiguration;
+import plg.generator.scriptexecuter.IntegerScriptExecutor;
+import plg.generator.scriptexecuter.StringScriptExecutor;
+import plg.model.Process;
+import plg.model.activity.Task;
+import plg.model.data.IDataObjectOwner.DATA_OBJECT_DIRECTION;
+import plg.model.data.IntegerDataObject;
+import plg.model.data.StringDataObject;
+
+public class PooledScriptsTest {
+
+	private static final String INTEGER_SCRIPT = "def generate(caseId):\n\treturn len(caseId)\n";
+	private static final String STRING_SCRIPT = "def generate(caseId):\n\treturn \"value-\" + caseId\n";
+	private static final String TIME_SCRIPT = "def time_lasted(caseId):\n\treturn 10\n"
+			+ "def time_after(caseId):\n\treturn 5\n";
+
+	@Test
+	public void dataObjectsRunThroughTheCache() throws Exception {
+		Process process = new Process("pooled");
+		ProcessGenerator.randomizeProcess(process, new RandomizationConfiguration(2, 2, 0.1, 0.2, 0.1, 0.7, 0.3, 0.3, 2, 0));
+		Task task = process.getTasks().iterator().next();
+		IntegerDataObject integer = new IntegerDataObject(process, new IntegerScriptExecutor(INTEGER_SCRIPT));
+		integer.setName("pooled_integer");
+		integer.setObjectOwner(task, DATA_OBJECT_DIRECTION.GENERATED);
+		StringDataObject string = new StringDataObject(process, new StringScriptExecutor(STRING_SCRIPT));
+		string.setName("pooled_string");
+		string.setObjectOwner(task, DATA_OBJECT_DIRECTION.GENERATED);
+
+		PooledScripts.install(process);
+		assertTrue(integer.getScriptExecutor() instanceof PooledIntegerScriptExecutor);
+		assertTrue(string.getScriptExecutor() instanceof PooledStringScriptExecutor);
+
+		ScriptCache.instance().resetStatistics();
+		for (int i = 0; i < 10; i++) {
+			String caseId = TraceSimulator.getCaseId(i);
+			integer.getScriptExecutor().execute(caseId);
+			assertEquals(caseId.length(), (int) integer.getScriptExecutor().getValue());
+			string.getScriptExecutor().execute(caseId);
+			assertEquals("value-" + caseId, string.getScriptExecutor().getValue());
+		}
+		assertEquals(10, getInvocations("pooled_integer"));
+		assertEquals(10, getInvocations("pooled_string"));
+	}
+
+	@Test
+	public void taskTimesRunThroughTheCache() throws Exception {
+		Process process = new Process("pooled");
+		ProcessGenerator.randomizeProcess(process, new RandomizationConfiguration(2, 2, 0.1, 0.2, 0.1, 0.7, 0.3, 0.3, 2, 0));
+		for (Task task : process.getTasks()) {
+			task.setActivityScript(new IntegerScriptExecutor(TIME_SCRIPT));
+		}
+		process.check();
+
+		PooledScripts.install(process);
+		for (Task task : process.getTasks()) {
+			assertTrue(task.getActivityScript() instanceof PooledTimeScriptExecutor);
+			// the model keeps the original script
+			assertEquals(TIME_SCRIPT, task.getActivityScript().getScript());
+		}
+
+		ScriptCache.instance().resetStatistics();
+		TraceSimulator simulator = new TraceSimulator(process, new SimulationConfiguration(10), 42l);
+		for (int trace = 0; trace < 10; trace++) {
+			simulator.simulate(trace);
+		}
+		long invocations = 0;
+		for (Task task : process.getTasks()) {
+			invocations += getInvocations(task.getName());
+		}
+		assertTrue(invocations > 0);
+	}
+
+	@Test
+	public void pooledExecutorsAreKept() throws Exception {
+		Process process = new Process("pooled");
+		ProcessGenerator.randomizeProcess(process, new RandomizationConfiguration(2, 2, 0.1, 0.2, 0.1, 0.7, 0.3, 0.3, 2, 0));
+		Task task = process.getTasks().iterator().next();
+		task.setActivityScript(new IntegerScriptExecutor(TIME_SCRIPT));
+		IntegerDataObject integer = new IntegerDataObject(process, new IntegerScriptExecutor(INTEGER_SCRIPT));
+		integer.setName("pooled_integer");
+		integer.setObjectOwner(task, DATA_OBJECT_DIRECTION.GENERATED);
+
+		PooledScripts.install(process);
+		Object time = task.getActivityScript();
+		Object data = integer.getScriptExecutor();
+		PooledScripts.install(process);
+		assertSame(time, task.getActivityScript());
+		assertSame(data, integer.getScriptExecutor());
+	}
+
+	private static long getInvocations(String name) {
+		for (ScriptCache.Statistics statistics : ScriptCache.instance().getStatistics()) {
+			if (statistics.getName().equals(name)) {
+				return statistics.getInvocations();
+			}
+		}
+		return 0;
+	}
+}
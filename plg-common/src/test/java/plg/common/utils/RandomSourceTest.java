@@ -0,0 +1,60 @@
+package plg.common.utils;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import plg.utils.Random;
+
+public class RandomSourceTest {
+
+	@Test
+	public void sameSeedGivesSameNumbers() throws Exception {
+		assertEquals(draw(42), draw(42));
+	}
+
+	@Test
+	public void concurrentTasksDoNotInterfere() throws Exception {
+		List<Integer> expected = draw(7);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<List<Integer>>> results = new ArrayList<Future<List<Integer>>>();
+			for (int i = 0; i < 16; i++) {
+				results.add(executor.submit(new Callable<List<Integer>>() {
+					@Override
+					public List<Integer> call() throws Exception {
+						return draw(7);
+					}
+				}));
+			}
+			for (Future<List<Integer>> result : results) {
+				assertEquals(expected, result.get());
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	private static List<Integer> draw(long seed) throws Exception {
+		return RandomSource.call(seed, new Callable<List<Integer>>() {
+			@Override
+			public List<Integer> call() {
+				List<Integer> numbers = new ArrayList<Integer>();
+				for (int i = 0; i < 1000; i++) {
+					numbers.add(Random.RANDOM.nextInt(100));
+					if (i % 100 == 0) {
+						Thread.yield();
+					}
+				}
+				return numbers;
+			}
+		});
+	}
+}
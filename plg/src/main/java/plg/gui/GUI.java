@@ -6,6 +6,7 @@ import java.util.List;
 import javax.swing.UIManager;
 import javax.swing.UnsupportedLookAndFeelException;
 
+import plg.common.utils.RandomSource;
 import plg.gui.controller.ApplicationController;
 import plg.gui.remote.RemoteLogger;
 import plg.utils.CPUUtils;
@@ -30,5 +31,6 @@ public class GUI {
 		// initialization logging
 		Logger.instance().debug("Application started!");
 		Logger.instance().debug("You have " + CPUUtils.CPUAvailable() + " CPU(s) available");
+		Logger.instance().debug("Random source per thread: " + RandomSource.isPerThread());
 	}
 }
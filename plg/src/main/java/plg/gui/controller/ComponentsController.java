@@ -2,9 +2,10 @@ package plg.gui.controller;
 
 import javax.swing.JOptionPane;
 
+import plg.common.scripts.PooledIntegerScriptExecutor;
+import plg.common.scripts.PooledStringScriptExecutor;
+import plg.common.scripts.PooledTimeScriptExecutor;
 import plg.generator.process.ProcessGenerator;
-import plg.generator.scriptexecuter.IntegerScriptExecutor;
-import plg.generator.scriptexecuter.StringScriptExecutor;
 import plg.gui.dialog.GeneralDialog.RETURNED_VALUES;
 import plg.gui.dialog.PlainDataObjectDialog;
 import plg.gui.dialog.ScriptDataObjectDialog;
@@ -51,7 +52,7 @@ public class ComponentsController {
 		}
 		ad.setVisible(true);
 		if (ad.returnedValue() == RETURNED_VALUES.SUCCESS) {
-			task.setActivityScript(new IntegerScriptExecutor(ad.getScript()));
+			task.setActivityScript(new PooledTimeScriptExecutor(task.getName(), ad.getScript()));
 		}
 	}
 	
@@ -77,7 +78,7 @@ public class ComponentsController {
 					type);
 			sdod.setVisible(true);
 			if (sdod.returnedValue() == RETURNED_VALUES.SUCCESS) {
-				newDataObject = new StringDataObject(owner, new StringScriptExecutor(sdod.getScript()));
+				newDataObject = new StringDataObject(owner, new PooledStringScriptExecutor(sdod.getDataObjectName(), sdod.getScript()));
 				newDataObject.setName(sdod.getDataObjectName());
 			}
 		} else if (type.equals(IntegerDataObject.class)) {
@@ -87,7 +88,7 @@ public class ComponentsController {
 					type);
 			sdod.setVisible(true);
 			if (sdod.returnedValue() == RETURNED_VALUES.SUCCESS) {
-				newDataObject = new IntegerDataObject(owner, new IntegerScriptExecutor(sdod.getScript()));
+				newDataObject = new IntegerDataObject(owner, new PooledIntegerScriptExecutor(sdod.getDataObjectName(), sdod.getScript()));
 				newDataObject.setName(sdod.getDataObjectName());
 			}
 		} else if (type.equals(DataObject.class)) {
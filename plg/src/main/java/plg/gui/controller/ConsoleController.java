@@ -1,8 +1,14 @@
 package plg.gui.controller;
 
 import java.awt.Color;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
 import java.io.PrintStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
 
+import javax.swing.Timer;
 import javax.swing.text.BadLocationException;
 import javax.swing.text.SimpleAttributeSet;
 import javax.swing.text.StyleConstants;
@@ -12,6 +18,7 @@ import plg.gui.config.ConfigurationSet;
 import plg.gui.panels.Console;
 import plg.gui.remote.REMOTE_MESSAGES;
 import plg.gui.remote.RemoteLogger;
+import plg.gui.util.RingBuffer;
 import plg.utils.Logger;
 
 /**
@@ -24,6 +31,8 @@ public class ConsoleController {
 
 	protected static final String KEY_CONSOLE_VISIBLE = "CONSOLE_VISIBLE";
 	protected static final boolean DEFAULT_VISIBILITY = false;
+	protected static final String KEY_CONSOLE_MAX_LINES = "CONSOLE_MAX_LINES";
+	protected static final int DEFAULT_MAX_LINES = 5000;
 	
 	private ApplicationController applicationController;
 	private ConfigurationSet configuration;
@@ -39,7 +48,9 @@ public class ConsoleController {
 		this.applicationController = applicationController;
 		this.configuration = applicationController.getConfiguration(ConsoleController.class.getCanonicalName());
 		this.console = applicationController.getMainWindow().getConsole();
-		this.consolePrintStream = new ConsolePrintStream(console.getStyledDocument());
+		this.consolePrintStream = new ConsolePrintStream(
+				console.getStyledDocument(),
+				configuration.getInteger(KEY_CONSOLE_MAX_LINES, DEFAULT_MAX_LINES));
 		
 		// redirect the logger to the application console
 		Logger.LOG_PRINT_STREAM = consolePrintStream;
@@ -75,22 +86,42 @@ public class ConsoleController {
 	 * This class describes a {@link PrintStream} which prints the data into the
 	 * graphical console. At this point, only the {@link #println(String)} is
 	 * provided.
+	 * 
+	 * <p> Messages are not written into the document by the thread which logs
+	 * them: they are queued into a {@link RingBuffer} and the event dispatch
+	 * thread drains them in batches every {@link #DRAIN_INTERVAL}
+	 * milliseconds. If the producers outrun the console, the exceeding
+	 * messages are dropped and their number is reported. The console keeps at
+	 * most the configured number of lines, removing the oldest ones.
 	 *
 	 * @author Andrea Burattin
 	 */
 	class ConsolePrintStream extends PrintStream {
 		
+		private static final int DRAIN_INTERVAL = 200;
+		private static final int BUFFER_CAPACITY = 4096;
+		
 		private StyledDocument log;
 		private SimpleAttributeSet infoStyle = new SimpleAttributeSet();
 		private SimpleAttributeSet debugStyle = new SimpleAttributeSet();
 		private SimpleAttributeSet fileStyle = new SimpleAttributeSet();
 		
+		private RingBuffer<String> buffer = new RingBuffer<String>(BUFFER_CAPACITY);
+		private List<String> batch = new ArrayList<String>(BUFFER_CAPACITY);
+		private ArrayDeque<Integer> lineLengths = new ArrayDeque<Integer>();
+		private long droppedReported = 0;
+		private int maxLines;
+		
 		/**
 		 * Basic class constructor
+		 * 
+		 * @param log the document of the console
+		 * @param maxLines the maximum number of lines kept in the console
 		 */
-		public ConsolePrintStream(StyledDocument log) {
+		public ConsolePrintStream(StyledDocument log, int maxLines) {
 			super(System.out);
 			this.log = log;
+			this.maxLines = maxLines;
 			
 			infoStyle.addAttribute(StyleConstants.CharacterConstants.Foreground, Color.green);
 			debugStyle.addAttribute(StyleConstants.CharacterConstants.Foreground, Color.green.darker().darker().darker());
@@ -99,53 +130,63 @@ public class ConsoleController {
 			infoStyle.addAttribute(StyleConstants.CharacterConstants.FontFamily, "Monospaced");
 			debugStyle.addAttribute(StyleConstants.CharacterConstants.FontFamily, "Monospaced");
 			fileStyle.addAttribute(StyleConstants.CharacterConstants.FontFamily, "Monospaced");
+			
+			new Timer(DRAIN_INTERVAL, new ActionListener() {
+				@Override
+				public void actionPerformed(ActionEvent e) {
+					drain();
+				}
+			}).start();
 		}
 		
-		/**
-		 * This method prints the provided string as an information
-		 * 
-		 * @param message
-		 */
-		private void printInfo(String message) {
-			try {
-				log.insertString(console.getStyledDocument().getLength(), message, infoStyle);
-			} catch (BadLocationException e) { }
-		}
-		
-		/**
-		 * This method prints the provided string as a debug
-		 * 
-		 * @param message
-		 */
-		private void printDebug(String message) {
-			try {
-				log.insertString(console.getStyledDocument().getLength(), message, debugStyle);
-			} catch (BadLocationException e) { }
+		@Override
+		public void println(String message) {
+			if (message != null) {
+				buffer.offer(message);
+			}
 		}
 		
 		/**
-		 * This method prints the provided string as a file name and adds a new line
-		 * 
-		 * @param file
+		 * This method writes the queued messages into the document. It runs
+		 * on the event dispatch thread.
 		 */
-		private void printFile(String file) {
+		private void drain() {
+			batch.clear();
+			buffer.drainTo(batch, BUFFER_CAPACITY);
+			long dropped = buffer.getDropped();
+			if (batch.isEmpty() && dropped == droppedReported) {
+				return;
+			}
 			try {
-				log.insertString(console.getStyledDocument().getLength(), file + "\n", fileStyle);
+				if (dropped > droppedReported) {
+					lineLengths.addLast(insert((dropped - droppedReported) + " console messages dropped\n", fileStyle));
+					droppedReported = dropped;
+				}
+				for (String message : batch) {
+					int fileStartingAt = Math.max(0, message.lastIndexOf("("));
+					String file = message.substring(fileStartingAt, message.length());
+					String text = message.substring(0, fileStartingAt);
+					int length = insert(text, (text.contains(" - DEBUG - "))? debugStyle : infoStyle);
+					length += insert(file + "\n", fileStyle);
+					lineLengths.addLast(length);
+				}
+				
+				// eviction of the oldest lines
+				int toRemove = 0;
+				while (lineLengths.size() > maxLines) {
+					toRemove += lineLengths.removeFirst();
+				}
+				if (toRemove > 0) {
+					log.remove(0, Math.min(toRemove, log.getLength()));
+				}
 			} catch (BadLocationException e) { }
+			batch.clear();
+			console.resetCaret();
 		}
 		
-		@Override
-		public void println(String message) {
-			int fileStartingAt = message.lastIndexOf("(");
-			String file = message.substring(fileStartingAt, message.length());
-			message = message.substring(0, fileStartingAt);
-			if (message.contains(" - DEBUG - ")) {
-				printDebug(message);
-			} else {
-				printInfo(message);
-			}
-			printFile(file);
-			console.resetCaret();
+		private int insert(String text, SimpleAttributeSet style) throws BadLocationException {
+			log.insertString(log.getLength(), text, style);
+			return text.length();
 		}
 	}
 }
@@ -1,25 +1,42 @@
 package plg.gui.controller;
 
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Random;
 import java.util.concurrent.ExecutionException;
 
 import javax.swing.JFileChooser;
+import javax.swing.JOptionPane;
 import javax.swing.SwingWorker;
+import javax.swing.filechooser.FileFilter;
 import javax.swing.filechooser.FileNameExtensionFilter;
 
 import org.deckfour.xes.model.XLog;
+import org.deckfour.xes.model.XTrace;
 import org.deckfour.xes.out.XMxmlGZIPSerializer;
 import org.deckfour.xes.out.XMxmlSerializer;
 import org.deckfour.xes.out.XSerializer;
 import org.deckfour.xes.out.XesXmlGZIPSerializer;
 import org.deckfour.xes.out.XesXmlSerializer;
 
+import plg.common.log.TraceNoiseProcessor;
+import plg.common.log.TraceSimulator;
+import plg.common.log.XesTraceReader;
+import plg.common.log.XesTraceWriter;
+import plg.common.scripts.ScriptCache;
 import plg.generator.log.LogGenerator;
 import plg.generator.log.SimulationConfiguration;
+import plg.generator.log.noise.NoiseConfiguration;
 import plg.gui.config.ConfigurationSet;
 import plg.gui.dialog.ErrorDialog;
 import plg.gui.dialog.GeneralDialog.RETURNED_VALUES;
 import plg.gui.dialog.NewLogDialog;
+import plg.gui.dialog.NoiseLogDialog;
 import plg.gui.dialog.StreamConfigurationDialog;
 import plg.gui.dialog.StreamDialog;
 import plg.gui.dialog.StreamNoiseDialog;
@@ -27,9 +44,14 @@ import plg.gui.panels.Progress;
 import plg.gui.panels.SingleProcessVisualizer;
 import plg.gui.remote.REMOTE_MESSAGES;
 import plg.gui.remote.RemoteLogger;
+import plg.gui.util.CheckpointedLogGenerator;
+import plg.gui.util.ColumnarLogSerializer;
 import plg.gui.util.FileFilterHelper;
+import plg.gui.util.LogCheckpoint;
 import plg.gui.util.RuntimeUtils;
+import plg.gui.util.SpillingLog;
 import plg.model.Process;
+import plg.utils.Logger;
 
 /**
  * This class represents the log controller, and is in charge of managing the
@@ -70,6 +92,7 @@ public class LogController {
 			fc.addChoosableFileFilter(new FileNameExtensionFilter("XES file (*.xes)", "xes"));
 			fc.addChoosableFileFilter(new FileNameExtensionFilter("Compressed MXML file (*.mxml.gz)", "mxml.gz"));
 			fc.addChoosableFileFilter(new FileNameExtensionFilter("MXML file (*.mxml)", "mxml"));
+			fc.addChoosableFileFilter(new FileNameExtensionFilter("Columnar log file (*.plgc)", "plgc"));
 			
 			int returnVal = fc.showSaveDialog(ApplicationController.instance().getMainFrame());
 			
@@ -80,17 +103,27 @@ public class LogController {
 				final String file = FileFilterHelper.fixFileName(fileName, (FileNameExtensionFilter) selectedFilter);
 				configuration.set(KEY_LOG_LOCATION, fileName.substring(0, fileName.lastIndexOf(File.separator)));
 				
-				SimulationConfiguration sc = nld.getConfiguredValues();
-				Process process = singleProcessVisualizer.getCurrentlyVisualizedProcess();
-				final LogGenerator lg = new LogGenerator(
-						process,
-						sc,
-						ApplicationController.instance().getMainWindow().getProgressStack().askForNewProgress());
+				final SimulationConfiguration sc = nld.getConfiguredValues();
+				final Long seed = nld.getSeed();
+				final int tracesInMemory = nld.getTracesInMemory();
+				final String logName = nld.getNewLogName();
+				final Process process = singleProcessVisualizer.getCurrentlyVisualizedProcess();
+				final Progress progress = ApplicationController.instance().getMainWindow().getProgressStack().askForNewProgress();
+				final LogGenerator lg = new LogGenerator(process, sc, progress);
 				
 				// remote logging, if available
 				RemoteLogger.instance().log(REMOTE_MESSAGES.LOG_GENERATED).add(sc).send();
 				
-				SwingWorker<XLog, Void> worker = new SwingWorker<XLog, Void>() {
+				if (nld.isCheckpointed() && (extension.equals("xes") || extension.equals("xes.gz"))) {
+					// resumable xes logs are generated one trace at a time, with checkpoints
+					LogCheckpoint checkpoint = new LogCheckpoint(new File(file), extension.equals("xes.gz"), logName, seed, sc);
+					runCheckpointedGeneration(new CheckpointedLogGenerator(process, checkpoint), progress);
+					return;
+				}
+				
+				// seeded and bounded logs are simulated one trace at a time
+				final TraceSimulator simulator = new TraceSimulator(process, sc, seed);
+				final SwingWorker<XLog, Void> worker = new SwingWorker<XLog, Void>() {
 					@Override
 					protected XLog doInBackground() {
 						XSerializer serializer = null;
@@ -102,20 +135,140 @@ public class LogController {
 							serializer = new XMxmlSerializer();
 						} else if (extension.equals("mxml.gz")) {
 							serializer = new XMxmlGZIPSerializer();
+						} else if (extension.equals("plgc")) {
+							serializer = new ColumnarLogSerializer();
 						}
+						ScriptCache.instance().resetStatistics();
+						SpillingLog spillingLog = null;
+						XLog log = null;
 						try {
-							return lg.generateAndSerializeLog(serializer, new File(file));
+							if (seed == null && tracesInMemory == 0) {
+								log = lg.generateAndSerializeLog(serializer, new File(file));
+							} else {
+								if (tracesInMemory > 0) {
+									spillingLog = new SpillingLog(tracesInMemory);
+									log = simulator.simulateLog(spillingLog, logName, sc.getNumberOfTraces(), progress);
+								} else {
+									log = simulator.simulateLog(logName, sc.getNumberOfTraces(), progress);
+								}
+								if (!isCancelled()) {
+									// the simulation has finished its progress, which is
+									// shown again until the log is written
+									progress.start();
+									progress.setIndeterminate(true);
+									progress.setText("Serializing log");
+									try (OutputStream out = new FileOutputStream(file)) {
+										serializer.serialize(log, out);
+									}
+								}
+								// the traces of a spilling log are not available anymore
+								if (spillingLog != null) {
+									log = null;
+								}
+							}
 						} catch (Exception e) {
-							new ErrorDialog(ApplicationController.instance().getMainFrame(), e).setVisible(true);
+							log = null;
+							if (!isCancelled()) {
+								new ErrorDialog(ApplicationController.instance().getMainFrame(), e).setVisible(true);
+							}
+						} finally {
+							if (spillingLog != null) {
+								spillingLog.dispose();
+							}
+							ScriptCache.instance().logStatistics();
+						}
+						if (isCancelled()) {
+							// a cancelled generation leaves no partial log behind
+							new File(file).delete();
+							Logger.instance().info("Generation of " + new File(file).getName() + " cancelled");
+							return null;
 						}
-						return null;
+						return log;
 					}
 				};
-				worker.execute();
+				progress.setCancelListener(new ActionListener() {
+					@Override
+					public void actionPerformed(ActionEvent e) {
+						simulator.cancel();
+						worker.cancel(true);
+					}
+				});
+				ApplicationController.instance().getMainWindow().getProgressStack().submit(progress, worker);
 			}
 		}
 	}
 	
+	/**
+	 * This method is responsible of resuming a log generation, interrupted
+	 * either by the user or by a crash, from its last checkpoint
+	 */
+	public void resumeLog() {
+		List<LogCheckpoint> checkpoints = LogCheckpoint.list();
+		if (checkpoints.isEmpty()) {
+			JOptionPane.showMessageDialog(
+					ApplicationController.instance().getMainFrame(),
+					"There are no interrupted log generations to resume.",
+					"Resume log",
+					JOptionPane.INFORMATION_MESSAGE);
+			return;
+		}
+		LogCheckpoint checkpoint = (LogCheckpoint) JOptionPane.showInputDialog(
+				ApplicationController.instance().getMainFrame(),
+				"Select the log generation to resume:",
+				"Resume log",
+				JOptionPane.QUESTION_MESSAGE,
+				null,
+				checkpoints.toArray(),
+				checkpoints.get(0));
+		if (checkpoint == null) {
+			return;
+		}
+		try {
+			CheckpointedLogGenerator generator = new CheckpointedLogGenerator(checkpoint);
+			Progress progress = ApplicationController.instance().getMainWindow().getProgressStack().askForNewProgress();
+			runCheckpointedGeneration(generator, progress);
+		} catch (IOException e) {
+			checkpoint.delete();
+			new ErrorDialog(ApplicationController.instance().getMainFrame(), e).setVisible(true);
+		}
+	}
+	
+	/**
+	 * This method runs the provided generation in background, allowing the
+	 * user to cancel it from the progress
+	 * 
+	 * @param generator the generation to run
+	 * @param progress the progress of the generation
+	 */
+	private void runCheckpointedGeneration(final CheckpointedLogGenerator generator, final Progress progress) {
+		progress.setCancelListener(new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				generator.cancel();
+			}
+		});
+		SwingWorker<Void, Void> worker = new SwingWorker<Void, Void>() {
+			@Override
+			protected Void doInBackground() {
+				ScriptCache.instance().resetStatistics();
+				try {
+					if (generator.generate(progress)) {
+						Logger.instance().info("Log " + generator.getCheckpoint().getDestination().getName() + " generated");
+					} else {
+						Logger.instance().info("Generation of " + generator.getCheckpoint().getDestination().getName()
+								+ " cancelled after " + generator.getCheckpoint().getTracesWritten() + " traces, it can be resumed later");
+					}
+				} catch (Exception e) {
+					new ErrorDialog(ApplicationController.instance().getMainFrame(), e).setVisible(true);
+				} finally {
+					ScriptCache.instance().logStatistics();
+				}
+				return null;
+			}
+		};
+		ApplicationController.instance().getMainWindow().getProgressStack().submit(progress, worker);
+	}
+	
 	/**
 	 * This method is responsible of generating streams
 	 */
@@ -129,12 +282,11 @@ public class LogController {
 			final StreamConfigurationDialog scd = new StreamConfigurationDialog(ApplicationController.instance().getMainFrame());
 			scd.setVisible(true);
 			
-			final Progress progress = ApplicationController.instance().getMainWindow().getProgressStack().askForNewProgress();
-			
 			// remote logging, if available
 			RemoteLogger.instance().log(REMOTE_MESSAGES.STREAM_CONFIGURED).add(scd.getConfiguredValues()).add(nld.getConfiguredValues()).send();
 			
 			if (RETURNED_VALUES.SUCCESS.equals(scd.returnedValue())) {
+				final Progress progress = ApplicationController.instance().getMainWindow().getProgressStack().askForNewProgress();
 				SwingWorker<StreamDialog, Void> worker = new SwingWorker<StreamDialog, Void>() {
 					@Override
 					protected StreamDialog doInBackground() throws Exception {
@@ -159,8 +311,84 @@ public class LogController {
 						}
 					}
 				};
-				worker.execute();
+				ApplicationController.instance().getMainWindow().getProgressStack().submit(progress, worker);
+			}
+		}
+	}
+	
+	/**
+	 * This method is responsible of adding noise to an existing log. The log
+	 * is read and written one trace at a time, so it is never entirely in
+	 * memory.
+	 */
+	public void injectNoise() {
+		final JFileChooser fcInput = new JFileChooser(new File(configuration.get(KEY_LOG_LOCATION, RuntimeUtils.getHomeFolder())));
+		fcInput.setAcceptAllFileFilterUsed(false);
+		fcInput.addChoosableFileFilter(new FileFilter() {
+			@Override
+			public boolean accept(File f) {
+				String name = f.getName().toLowerCase();
+				return f.isDirectory() || name.endsWith(".xes") || name.endsWith(".xes.gz");
+			}
+			
+			@Override
+			public String getDescription() {
+				return "XES file (*.xes, *.xes.gz)";
 			}
+		});
+		if (fcInput.showOpenDialog(ApplicationController.instance().getMainFrame()) != JFileChooser.APPROVE_OPTION) {
+			return;
 		}
+		final File input = fcInput.getSelectedFile();
+		
+		NoiseLogDialog nld = new NoiseLogDialog(ApplicationController.instance().getMainFrame());
+		nld.setVisible(true);
+		if (!RETURNED_VALUES.SUCCESS.equals(nld.returnedValue())) {
+			return;
+		}
+		final NoiseConfiguration noise = nld.getConfiguredValues().getNoiseConfiguration();
+		
+		final JFileChooser fc = new JFileChooser(input.getParentFile());
+		fc.setAcceptAllFileFilterUsed(false);
+		fc.addChoosableFileFilter(new FileNameExtensionFilter("Compressed XES file (*.xes.gz)", "xes.gz"));
+		fc.addChoosableFileFilter(new FileNameExtensionFilter("XES file (*.xes)", "xes"));
+		if (fc.showSaveDialog(ApplicationController.instance().getMainFrame()) != JFileChooser.APPROVE_OPTION) {
+			return;
+		}
+		FileNameExtensionFilter selectedFilter = (FileNameExtensionFilter) fc.getFileFilter();
+		final boolean compressed = selectedFilter.getExtensions()[0].equals("xes.gz");
+		final String file = FileFilterHelper.fixFileName(fc.getSelectedFile().getAbsolutePath(), selectedFilter);
+		configuration.set(KEY_LOG_LOCATION, input.getParent());
+		
+		final Progress progress = ApplicationController.instance().getMainWindow().getProgressStack().askForNewProgress();
+		SwingWorker<Void, Void> worker = new SwingWorker<Void, Void>() {
+			@Override
+			protected Void doInBackground() {
+				progress.start();
+				progress.setIndeterminate(true);
+				progress.setText("Adding noise to " + input.getName());
+				TraceNoiseProcessor processor = new TraceNoiseProcessor(noise);
+				Random random = new Random();
+				int traces = 0;
+				try (XesTraceReader reader = XesTraceReader.open(input);
+						XesTraceWriter writer = new XesTraceWriter(new FileOutputStream(file), compressed)) {
+					String logName = reader.getLogName();
+					writer.startLog(((logName == null)? input.getName() : logName) + " (noise)");
+					XTrace trace;
+					while ((trace = reader.next()) != null) {
+						writer.write(processor.apply(trace, random));
+						traces++;
+					}
+					writer.endLog();
+					Logger.instance().info("Noise added to " + traces + " traces of " + input.getName());
+				} catch (Exception e) {
+					new ErrorDialog(ApplicationController.instance().getMainFrame(), e).setVisible(true);
+				} finally {
+					progress.finished();
+				}
+				return null;
+			}
+		};
+		ApplicationController.instance().getMainWindow().getProgressStack().submit(progress, worker);
 	}
 }
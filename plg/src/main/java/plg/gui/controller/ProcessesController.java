@@ -11,13 +11,19 @@ import javax.swing.JOptionPane;
 import javax.swing.SwingWorker;
 import javax.swing.filechooser.FileNameExtensionFilter;
 
+import plg.common.io.ProcessSnapshotCache;
+import plg.common.process.BulkProcessGenerator;
+import plg.common.scripts.PooledScripts;
 import plg.generator.process.EvolutionGenerator;
 import plg.generator.process.ProcessGenerator;
 import plg.gui.config.ConfigurationSet;
+import plg.gui.dialog.BulkProcessDialog;
+import plg.gui.dialog.ErrorDialog;
 import plg.gui.dialog.EvolutionDialog;
 import plg.gui.dialog.GeneralDialog.RETURNED_VALUES;
 import plg.gui.dialog.NewProcessDialog;
 import plg.gui.panels.ProcessesList;
+import plg.gui.panels.Progress;
 import plg.gui.panels.SingleProcessVisualizer;
 import plg.gui.remote.REMOTE_MESSAGES;
 import plg.gui.remote.RemoteLogger;
@@ -45,6 +51,7 @@ public class ProcessesController {
 	private ProcessesList processesList;
 	private SingleProcessVisualizer singleProcessVisualizer;
 	private ConfigurationSet configuration;
+	private ProcessSnapshotCache snapshots;
 	
 	/**
 	 * Controller constructor
@@ -57,6 +64,7 @@ public class ProcessesController {
 		this.processesList = applicationController.getMainWindow().getProcessesList();
 		this.singleProcessVisualizer = applicationController.getMainWindow().getSingleProcessVisualizer();
 		this.configuration = applicationController.getConfiguration(ProcessesController.class.getCanonicalName());
+		this.snapshots = new ProcessSnapshotCache(ProcessSnapshotCache.getDefaultFolder());
 		
 		visualizeProcess(null);
 	}
@@ -74,8 +82,7 @@ public class ProcessesController {
 			Process p = new Process(npd.getNewProcessName());
 			ProcessGenerator.randomizeProcess(p, npd.getConfiguredValues());
 			
-			GENERATED_PROCESSES++;
-			processesList.storeNewProcess(GENERATED_PROCESSES, p.getName(), generateProcessSubtitle(p), p);
+			storeNewProcess(p);
 			notifyChangeProcessesList();
 			
 			// remote logging, if available
@@ -83,6 +90,73 @@ public class ProcessesController {
 		}
 	}
 	
+	/**
+	 * This method causes the startup of the procedure for the generation and
+	 * export of many random processes at once. Generated processes are not
+	 * added to the list of processes.
+	 */
+	public void bulkRandomProcesses() {
+		BulkProcessDialog bpd = new BulkProcessDialog(ApplicationController.instance().getMainFrame(), "process");
+		bpd.setVisible(true);
+		if (!RETURNED_VALUES.SUCCESS.equals(bpd.returnedValue())) {
+			return;
+		}
+		
+		final Long seed;
+		try {
+			seed = bpd.getSeed();
+		} catch (NumberFormatException e) {
+			JOptionPane.showMessageDialog(
+					ApplicationController.instance().getMainFrame(),
+					"The seed must be an integer number.",
+					"Invalid seed",
+					JOptionPane.ERROR_MESSAGE);
+			return;
+		}
+		if (bpd.getExporters().isEmpty()) {
+			JOptionPane.showMessageDialog(
+					ApplicationController.instance().getMainFrame(),
+					"At least one export format must be selected.",
+					"No export format",
+					JOptionPane.ERROR_MESSAGE);
+			return;
+		}
+		
+		final JFileChooser fc = new JFileChooser(new File(configuration.get(KEY_PROCESS_LOCATION, RuntimeUtils.getHomeFolder())));
+		fc.setFileSelectionMode(JFileChooser.DIRECTORIES_ONLY);
+		fc.setDialogTitle("Destination folder");
+		if (fc.showSaveDialog(ApplicationController.instance().getMainFrame()) != JFileChooser.APPROVE_OPTION) {
+			return;
+		}
+		final File destination = fc.getSelectedFile();
+		configuration.set(KEY_PROCESS_LOCATION, destination.getAbsolutePath());
+		
+		final BulkProcessGenerator generator = new BulkProcessGenerator(bpd.getConfiguredValues(), bpd.getExporters(), bpd.getThreads(), seed);
+		final int count = bpd.getCount();
+		final String prefix = bpd.getPrefix();
+		final Progress progress = ApplicationController.instance().getMainWindow().getProgressStack().askForNewProgress();
+		
+		// remote logging, if available
+		RemoteLogger.instance().log(REMOTE_MESSAGES.PROCESS_RANDOMIZED).add(bpd.getConfiguredValues()).send();
+		
+		SwingWorker<File, Void> worker = new SwingWorker<File, Void>() {
+			@Override
+			protected File doInBackground() throws Exception {
+				return generator.generate(count, prefix, destination, progress);
+			}
+			
+			@Override
+			protected void done() {
+				try {
+					Logger.instance().info(count + " processes generated, manifest in " + get());
+				} catch (ExecutionException | InterruptedException e) {
+					new ErrorDialog(ApplicationController.instance().getMainFrame(), e).setVisible(true);
+				}
+			}
+		};
+		ApplicationController.instance().getMainWindow().getProgressStack().submit(progress, worker);
+	}
+	
 	/**
 	 * This method causes the system to open a new file and show the process
 	 * contained
@@ -97,18 +171,18 @@ public class ProcessesController {
 			final IFileImporter importer = FileFilterHelper.getImporterFromFileName((FileNameExtensionFilter) fc.getFileFilter());
 			configuration.set(KEY_PROCESS_LOCATION, fileName.substring(0, fileName.lastIndexOf(File.separator)));
 			
+			final Progress progress = ApplicationController.instance().getMainWindow().getProgressStack().askForNewProgress();
 			SwingWorker<Process, Void> worker = new SwingWorker<Process, Void>() {
 				@Override
 				protected Process doInBackground() throws Exception {
-					GENERATED_PROCESSES++;
-					return importer.importModel(fileName, ApplicationController.instance().getMainWindow().getProgressStack().askForNewProgress());
+					return snapshots.importModel(new File(fileName), importer, progress);
 				}
 				
 				@Override
 				protected void done() {
 					try {
 						Process p = get();
-						processesList.storeNewProcess(GENERATED_PROCESSES, p.getName(), generateProcessSubtitle(p), p);
+						storeNewProcess(p);
 						notifyChangeProcessesList();
 						
 						// remote logging, if available
@@ -118,7 +192,7 @@ public class ProcessesController {
 					}
 				}
 			};
-			worker.execute();
+			ApplicationController.instance().getMainWindow().getProgressStack().submit(progress, worker);
 		}
 	}
 	
@@ -135,6 +209,7 @@ public class ProcessesController {
 			final String file = FileFilterHelper.fixFileName(fileName, (FileNameExtensionFilter) fc.getFileFilter());
 			configuration.set(KEY_PROCESS_LOCATION, fileName.substring(0, fileName.lastIndexOf(File.separator)));
 			
+			final Progress progress = ApplicationController.instance().getMainWindow().getProgressStack().askForNewProgress();
 			SwingWorker<Void, Void> worker = new SwingWorker<Void, Void>() {
 				@Override
 				protected Void doInBackground() throws Exception {
@@ -142,24 +217,26 @@ public class ProcessesController {
 					exporter.exportModel(
 							singleProcessVisualizer.getCurrentlyVisualizedProcess(),
 							file,
-							ApplicationController.instance().getMainWindow().getProgressStack().askForNewProgress());
+							progress);
 					
 					// remote logging, if available
 					RemoteLogger.instance().log(REMOTE_MESSAGES.PROCESS_SAVED).add("filter", fc.getFileFilter().getDescription()).send();
 					return null;
 				}
 			};
-			worker.execute();
+			ApplicationController.instance().getMainWindow().getProgressStack().submit(progress, worker);
 		}
 	}
 	
 	/**
-	 * This method deletes a process from the process list
+	 * This method deletes a process from the process list. The process is
+	 * identified by its id, since new processes can be added to the list
+	 * while the user confirms the deletion.
 	 * 
-	 * @param index the process index
+	 * @param id the process id
 	 */
-	public void deleteProcess(int index) {
-		if (index >= 0) {
+	public void deleteProcess(int id) {
+		if (id >= 0) {
 			int confirmation = JOptionPane.showConfirmDialog(
 					ApplicationController.instance().getMainFrame(),
 					"Are you sure to delete the selected process?",
@@ -169,7 +246,12 @@ public class ProcessesController {
 				return;
 			}
 			
-			processesList.deleteProcess(index);
+			Process process = processesList.getProcess(id);
+			if (process == null) {
+				return;
+			}
+			singleProcessVisualizer.forget(process);
+			processesList.deleteProcess(id);
 			notifyChangeProcessesList();
 			
 			// remote logging, if available
@@ -186,9 +268,8 @@ public class ProcessesController {
 		ed.setVisible(true);
 		
 		if (RETURNED_VALUES.SUCCESS.equals(ed.returnedValue())) {
-			GENERATED_PROCESSES++;
 			Process evolution = EvolutionGenerator.evolveProcess(p, ed.getConfiguredValues());
-			processesList.storeNewProcess(GENERATED_PROCESSES, evolution.getName(), generateProcessSubtitle(evolution), evolution);
+			storeNewProcess(evolution);
 			notifyChangeProcessesList();
 			
 			// remote logging, if available
@@ -196,6 +277,20 @@ public class ProcessesController {
 		}
 	}
 	
+	/**
+	 * This method adds a new process to the list of processes, moving its
+	 * scripts to the pooled executors first. The id of the process is
+	 * allocated here, on the event dispatch thread, so concurrent imports
+	 * never share an id.
+	 * 
+	 * @param p the new process
+	 */
+	private void storeNewProcess(Process p) {
+		PooledScripts.install(p);
+		int id = ++GENERATED_PROCESSES;
+		processesList.storeNewProcess(id, p.getName(), generateProcessSubtitle(p), p);
+	}
+	
 	/**
 	 * This method is used to display a specific process model
 	 * 
@@ -217,7 +312,7 @@ public class ProcessesController {
 	}
 	
 	/**
-	 * This method returns the list of processes
+	 * This method returns the list of processes, as a read-only view
 	 * 
 	 * @return the list of processes
 	 */
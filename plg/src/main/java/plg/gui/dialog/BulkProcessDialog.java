@@ -0,0 +1,143 @@
+package plg.gui.dialog;
+
+import java.awt.FlowLayout;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.swing.JCheckBox;
+import javax.swing.JFrame;
+import javax.swing.JPanel;
+import javax.swing.JSpinner;
+import javax.swing.JTextField;
+import javax.swing.SpinnerNumberModel;
+
+import plg.annotations.Exporter;
+import plg.gui.controller.ApplicationController;
+import plg.utils.RegisteredIO;
+
+/**
+ * This class contains the dialog for the configuration of the bulk generation
+ * of random processes. Besides the randomization parameters, it asks for the
+ * number of processes, the exporters to use and the number of threads.
+ *
+ * @author Andrea Burattin
+ */
+public class BulkProcessDialog extends NewProcessDialog {
+
+	private static final long serialVersionUID = 4519683210981532270L;
+	protected static final String KEY_COUNT = "COUNT";
+	protected static final String KEY_THREADS = "THREADS";
+
+	protected JSpinner countSpinner = null;
+	protected JSpinner threadsSpinner = null;
+	protected JTextField seedField = null;
+	protected Map<Class<?>, JCheckBox> exporterCheckBoxes = new LinkedHashMap<Class<?>, JCheckBox>();
+
+	/**
+	 * Dialog constructor
+	 *
+	 * @param owner the frame owning the dialog
+	 * @param candidatePrefix the candidate prefix of the process names
+	 */
+	public BulkProcessDialog(JFrame owner, String candidatePrefix) {
+		super(candidatePrefix, owner,
+			"Bulk Random Processes Configuration",
+			"Use this dialog to generate and export many random processes at once.",
+			ApplicationController.instance().getConfiguration(BulkProcessDialog.class.getCanonicalName()));
+
+		// creates widgets
+		countSpinner = new JSpinner(new SpinnerNumberModel(
+				configuration.getInteger(KEY_COUNT, 100), 1, 1000000, 1));
+		threadsSpinner = new JSpinner(new SpinnerNumberModel(
+				configuration.getInteger(KEY_THREADS, Runtime.getRuntime().availableProcessors()), 1, 256, 1));
+		seedField = new JTextField();
+		JPanel exportersPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 0, 0));
+		for (Class<?> exporter : RegisteredIO.getAllExporters()) {
+			Exporter annotation = exporter.getAnnotation(Exporter.class);
+			JCheckBox checkBox = new JCheckBox(annotation.name() + " (*." + annotation.fileExtension() + ")");
+			checkBox.setSelected("plg".equals(annotation.fileExtension()));
+			exporterCheckBoxes.put(exporter, checkBox);
+			exportersPanel.add(checkBox);
+		}
+
+		// add stuff
+		insertBodySeparator(10);
+		bodyPanel.add(prepareFieldLabel("Number of processes"));
+		bodyPanel.add(countSpinner);
+		bodyPanel.add(prepareFieldLabel("Export formats"));
+		bodyPanel.add(exportersPanel);
+		bodyPanel.add(prepareFieldLabel("Threads"));
+		bodyPanel.add(threadsSpinner);
+		bodyPanel.add(prepareFieldLabel("Random seed (empty for none)"));
+		bodyPanel.add(seedField);
+
+		// layout everything
+		layoutBody();
+
+		// the values are stored when the dialog is closed with "OK"
+		okButton.addActionListener(new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				configuration.setInteger(KEY_COUNT, getCount());
+				configuration.setInteger(KEY_THREADS, getThreads());
+			}
+		});
+	}
+
+	/**
+	 * This method returns the prefix of the names of the processes
+	 *
+	 * @return the prefix
+	 */
+	public String getPrefix() {
+		return getNewProcessName();
+	}
+
+	/**
+	 * This method returns the number of processes to generate
+	 *
+	 * @return the number of processes
+	 */
+	public int getCount() {
+		return Integer.parseInt(countSpinner.getValue().toString());
+	}
+
+	/**
+	 * This method returns the number of threads to use
+	 *
+	 * @return the number of threads
+	 */
+	public int getThreads() {
+		return Integer.parseInt(threadsSpinner.getValue().toString());
+	}
+
+	/**
+	 * This method returns the exporters selected by the user
+	 *
+	 * @return the exporter classes
+	 */
+	public List<Class<?>> getExporters() {
+		List<Class<?>> exporters = new ArrayList<Class<?>>();
+		for (Map.Entry<Class<?>, JCheckBox> entry : exporterCheckBoxes.entrySet()) {
+			if (entry.getValue().isSelected()) {
+				exporters.add(entry.getKey());
+			}
+		}
+		return exporters;
+	}
+
+	/**
+	 * This method returns the seed set by the user
+	 *
+	 * @return the seed, or <tt>null</tt> if no seed has been set
+	 * @throws NumberFormatException if the seed is not a valid number
+	 */
+	public Long getSeed() {
+		String seed = seedField.getText().trim();
+		return seed.isEmpty()? null : Long.parseLong(seed);
+	}
+}
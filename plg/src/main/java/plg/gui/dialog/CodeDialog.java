@@ -1,28 +1,48 @@
 package plg.gui.dialog;
 
 import java.awt.BorderLayout;
+import java.awt.CardLayout;
+import java.awt.FlowLayout;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import javax.swing.JButton;
+import javax.swing.JComboBox;
 import javax.swing.JFrame;
+import javax.swing.JOptionPane;
 import javax.swing.JPanel;
+import javax.swing.JTextField;
+import javax.swing.SpringLayout;
 
 import org.fife.ui.rsyntaxtextarea.RSyntaxTextArea;
 import org.fife.ui.rsyntaxtextarea.SyntaxConstants;
 import org.fife.ui.rtextarea.RTextScrollPane;
 
+import plg.common.scripts.Expression;
+import plg.common.scripts.ExpressionScript;
 import plg.gui.config.ConfigurationSet;
+import plg.gui.util.SpringUtilities;
 
 /**
- * This dialog is used to configure Python scripts within the project
+ * This dialog is used to configure Python scripts within the project. Dialogs
+ * declaring their functions with {@link #expressionFunctions()} offer also an
+ * expression mode, where each function is described by an {@link Expression}.
  * 
  * @author Andrea Burattin
  */
 public abstract class CodeDialog extends GeneralDialog {
 
 	private static final long serialVersionUID = 9095798964694156164L;
+	protected static final String MODE_PYTHON = "Python script";
+	protected static final String MODE_EXPRESSION = "Expression";
+	
 	protected RSyntaxTextArea codingArea;
+	protected JComboBox<String> modeCombo;
+	protected JPanel modePanel;
+	protected Map<String, JTextField> expressionFields = new LinkedHashMap<String, JTextField>();
+	protected boolean integerValues = true;
 	protected JButton okButton = null;
 
 	public CodeDialog(JFrame owner, String title, String help, ConfigurationSet configurationSet) {
@@ -43,13 +63,72 @@ public abstract class CodeDialog extends GeneralDialog {
 		if (northPanel != null) {
 			bodyPanel.add(northPanel, BorderLayout.NORTH);
 		}
-		bodyPanel.add(new RTextScrollPane(codingArea), BorderLayout.CENTER);
+		
+		Map<String, String> functions = expressionFunctions();
+		if (functions.isEmpty()) {
+			bodyPanel.add(new RTextScrollPane(codingArea), BorderLayout.CENTER);
+		} else {
+			// expression fields
+			JPanel expressionPanel = new JPanel(new SpringLayout());
+			for (Map.Entry<String, String> function : functions.entrySet()) {
+				JTextField field = new JTextField();
+				expressionFields.put(function.getKey(), field);
+				expressionPanel.add(prepareFieldLabel(function.getValue()));
+				expressionPanel.add(field);
+			}
+			expressionPanel.add(prepareFieldLabel(""));
+			expressionPanel.add(prepareFieldLabel("<html>Available functions: <tt>uniform(a, b)</tt>, "
+					+ "<tt>int(a, b)</tt>, <tt>normal(mean, sd)</tt>, <tt>exponential(mean)</tt>, "
+					+ "<tt>choice(x1, x2, ...)</tt>, <tt>min(x, y)</tt>, <tt>max(x, y)</tt>. "
+					+ "Strings are quoted.</html>"));
+			SpringUtilities.makeCompactGrid(expressionPanel,
+					(expressionPanel.getComponentCount() / 2), 2, // rows, cols
+					0, 0, // initX, initY
+					5, 10); //xPad, yPad
+			JPanel expressionContainer = new JPanel(new BorderLayout());
+			expressionContainer.add(expressionPanel, BorderLayout.NORTH);
+			
+			// cards for the two modes
+			modePanel = new JPanel(new CardLayout());
+			modePanel.add(new RTextScrollPane(codingArea), MODE_PYTHON);
+			modePanel.add(expressionContainer, MODE_EXPRESSION);
+			
+			modeCombo = new JComboBox<String>(new String[] { MODE_EXPRESSION, MODE_PYTHON });
+			modeCombo.addActionListener(new ActionListener() {
+				@Override
+				public void actionPerformed(ActionEvent e) {
+					((CardLayout) modePanel.getLayout()).show(modePanel, (String) modeCombo.getSelectedItem());
+				}
+			});
+			modeCombo.setSelectedItem(MODE_PYTHON);
+			
+			JPanel modeSelector = new JPanel(new FlowLayout(FlowLayout.LEFT, 0, 5));
+			modeSelector.add(prepareFieldLabel("Mode "));
+			modeSelector.add(modeCombo);
+			
+			JPanel centerPanel = new JPanel(new BorderLayout());
+			centerPanel.add(modeSelector, BorderLayout.NORTH);
+			centerPanel.add(modePanel, BorderLayout.CENTER);
+			bodyPanel.add(centerPanel, BorderLayout.CENTER);
+		}
 		
 		// insert footer button
 		okButton = new JButton("OK");
 		okButton.addActionListener(new ActionListener() {
 			@Override
 			public void actionPerformed(ActionEvent e) {
+				if (isExpressionMode()) {
+					try {
+						getExpressions();
+					} catch (IllegalArgumentException ex) {
+						JOptionPane.showMessageDialog(
+								CodeDialog.this,
+								ex.getMessage(),
+								"Invalid expression",
+								JOptionPane.ERROR_MESSAGE);
+						return;
+					}
+				}
 				returnedValue = RETURNED_VALUES.SUCCESS;
 				CodeDialog.this.dispose();
 			}
@@ -57,17 +136,99 @@ public abstract class CodeDialog extends GeneralDialog {
 		addFooterButton(okButton, true);
 	}
 	
+	/**
+	 * This method sets the script of the dialog. Expression scripts are
+	 * presented in the expression mode, if the dialog supports it.
+	 *
+	 * @param script the script
+	 */
 	public void setScript(String script) {
 		codingArea.setText(script);
+		if (modeCombo == null) {
+			return;
+		}
+		Map<String, Expression> expressions = null;
+		try {
+			expressions = ExpressionScript.getExpressions(script);
+		} catch (IllegalArgumentException e) {
+			// the script is presented as plain Python
+		}
+		if (expressions != null && expressions.keySet().equals(expressionFields.keySet())) {
+			for (Map.Entry<String, Expression> expression : expressions.entrySet()) {
+				expressionFields.get(expression.getKey()).setText(expression.getValue().toString());
+			}
+			modeCombo.setSelectedItem(MODE_EXPRESSION);
+		} else {
+			modeCombo.setSelectedItem(MODE_PYTHON);
+		}
 	}
 	
+	/**
+	 * This method returns the script of the dialog. In expression mode, the
+	 * script is generated out of the expressions.
+	 *
+	 * @return the script
+	 */
 	public String getScript() {
+		if (isExpressionMode()) {
+			return ExpressionScript.toScript(getExpressions(), integerValues);
+		}
 		return codingArea.getText();
 	}
 	
+	/**
+	 * This method sets the expression of a function, for the expression mode
+	 *
+	 * @param function the name of the function
+	 * @param expression the expression
+	 */
+	public void setExpression(String function, String expression) {
+		if (expressionFields.containsKey(function)) {
+			expressionFields.get(function).setText(expression);
+		}
+	}
+	
+	/**
+	 * This method returns whether the dialog is in expression mode
+	 *
+	 * @return <tt>true</tt> if the expression mode is selected
+	 */
+	public boolean isExpressionMode() {
+		return modeCombo != null && MODE_EXPRESSION.equals(modeCombo.getSelectedItem());
+	}
+	
+	/**
+	 * This method parses the expressions of the dialog
+	 *
+	 * @return the map from the names of the functions to their expressions
+	 * @throws IllegalArgumentException if an expression is not valid
+	 */
+	protected Map<String, Expression> getExpressions() {
+		Map<String, Expression> expressions = new LinkedHashMap<String, Expression>();
+		for (Map.Entry<String, JTextField> field : expressionFields.entrySet()) {
+			Expression e = Expression.parse(field.getValue().getText());
+			if (integerValues && e.isString()) {
+				throw new IllegalArgumentException("The expression of `" + field.getKey() + "' must return numbers");
+			}
+			expressions.put(field.getKey(), e);
+		}
+		return expressions;
+	}
+	
 	protected JPanel addToNorth() {
 		return null;
 	}
 	
+	/**
+	 * This method returns the functions that can be described with
+	 * expressions. If no function is returned, the expression mode is not
+	 * available.
+	 *
+	 * @return the map from the names of the functions to their labels
+	 */
+	protected Map<String, String> expressionFunctions() {
+		return new LinkedHashMap<String, String>();
+	}
+	
 	protected abstract String standardScript();
 }
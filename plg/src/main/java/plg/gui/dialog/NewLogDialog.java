@@ -6,8 +6,10 @@ import java.util.HashMap;
 import java.util.Map;
 
 import javax.swing.JButton;
+import javax.swing.JCheckBox;
 import javax.swing.JComboBox;
 import javax.swing.JFrame;
+import javax.swing.JOptionPane;
 import javax.swing.JSpinner;
 import javax.swing.JTextField;
 import javax.swing.SpinnerNumberModel;
@@ -28,6 +30,8 @@ public class NewLogDialog extends GeneralDialog {
 	private static final long serialVersionUID = -4781877672157619819L;
 	
 	protected static final String KEY_SELECTED_PRESET = "SELECTED_PRESET";
+	protected static final String KEY_TRACES_IN_MEMORY = "TRACES_IN_MEMORY";
+	protected static final String KEY_CHECKPOINTS = "CHECKPOINTS";
 	protected static final String NAME_COMPLETE_NOISE = "Complete noise";
 	protected static final String NAME_NO_NOISE = "No noise";
 	protected static final String NAME_ONLY_NAMES_NOISE = "Noise only activity names";
@@ -37,11 +41,17 @@ public class NewLogDialog extends GeneralDialog {
 	
 	protected Map<String, SimulationConfiguration> CONFIGURATIONS = new HashMap<String, SimulationConfiguration>();
 	protected SimulationConfiguration currentConfiguration = null;
+	protected Long currentSeed = null;
+	protected int currentTracesInMemory = 0;
+	protected boolean currentCheckpoints = false;
 	
 	protected boolean showLogNameAndTraces = true;
 	protected JComboBox<PresetConfiguration> presetConfigurations = null;
 	protected JTextField nameField = null;
 	protected JSpinner noOfTrace = null;
+	protected JTextField seedField = null;
+	protected JSpinner tracesInMemory = null;
+	protected JCheckBox checkpoints = null;
 	protected JSpinner noiseIntegerData = null;
 	protected JSpinner noiseIntegerDelta = null;
 	protected JSpinner noiseStringData = null;
@@ -93,8 +103,12 @@ public class NewLogDialog extends GeneralDialog {
 		}
 		
 		nameField = new JTextField();
+		seedField = new JTextField();
 		noOfTrace = new JSpinner(new SpinnerNumberModel(
-				DEFAULTS.getNumberOfTraces(), 1, 1000000, 1));
+				DEFAULTS.getNumberOfTraces(), 1, 100000000, 1));
+		tracesInMemory = new JSpinner(new SpinnerNumberModel(
+				configuration.getInteger(KEY_TRACES_IN_MEMORY, 0), 0, 10000000, 1000));
+		checkpoints = new JCheckBox("Save checkpoints", configuration.getBoolean(KEY_CHECKPOINTS, false));
 		noiseIntegerData = new JSpinner(new SpinnerNumberModel(
 				(double) (DEFAULTS.getNoiseConfiguration().getIntegerDataNoiseProbability() * 1000), 0, 1000, 1));
 		noiseIntegerDelta = new JSpinner(new SpinnerNumberModel(
@@ -128,6 +142,18 @@ public class NewLogDialog extends GeneralDialog {
 		okButton.addActionListener(new ActionListener() {
 			@Override
 			public void actionPerformed(ActionEvent e) {
+				String seed = seedField.getText().trim();
+				try {
+					currentSeed = seed.isEmpty()? null : Long.parseLong(seed);
+				} catch (NumberFormatException ex) {
+					JOptionPane.showMessageDialog(
+							NewLogDialog.this,
+							"The random seed must be an integer number (or empty, for a non reproducible log).",
+							"Invalid random seed",
+							JOptionPane.ERROR_MESSAGE);
+					return;
+				}
+				
 				NoiseConfiguration noise = new NoiseConfiguration (
 						(double) noiseIntegerData.getValue() / 1000d,
 						(int) noiseIntegerDelta.getValue(),
@@ -143,6 +169,11 @@ public class NewLogDialog extends GeneralDialog {
 						(double) noiseTraceDoubledEvent.getValue() / 1000d,
 						(double) noiseTraceAlienEvent.getValue() / 1000d);
 				
+				currentTracesInMemory = (int) tracesInMemory.getValue();
+				configuration.setInteger(KEY_TRACES_IN_MEMORY, currentTracesInMemory);
+				currentCheckpoints = checkpoints.isSelected();
+				configuration.setBoolean(KEY_CHECKPOINTS, currentCheckpoints);
+				
 				currentConfiguration = new SimulationConfiguration(Integer.parseInt(noOfTrace.getValue().toString()), noise);
 				returnedValue = RETURNED_VALUES.SUCCESS;
 				NewLogDialog.this.dispose();
@@ -185,6 +216,12 @@ public class NewLogDialog extends GeneralDialog {
 			bodyPanel.add(nameField);
 			bodyPanel.add(prepareFieldLabel("Number of traces"));
 			bodyPanel.add(noOfTrace);
+			bodyPanel.add(prepareFieldLabel("Random seed (empty for none)"));
+			bodyPanel.add(seedField);
+			bodyPanel.add(prepareFieldLabel("Max traces in memory (0 for no limit)"));
+			bodyPanel.add(tracesInMemory);
+			bodyPanel.add(prepareFieldLabel("Resumable generation (XES only)"));
+			bodyPanel.add(checkpoints);
 			insertBodySeparator(10);
 		}
 		
@@ -245,6 +282,36 @@ public class NewLogDialog extends GeneralDialog {
 		return currentConfiguration;
 	}
 	
+	/**
+	 * This method returns the random seed set by the user. With the same seed,
+	 * the trace with a given index is always the same.
+	 * 
+	 * @return the seed, or <tt>null</tt> if the log should not be reproducible
+	 */
+	public Long getSeed() {
+		return currentSeed;
+	}
+	
+	/**
+	 * This method returns the maximum number of traces to keep in memory
+	 * during the generation. Exceeding traces are moved to a temporary file.
+	 * 
+	 * @return the maximum number of traces in memory, or 0 for no limit
+	 */
+	public int getTracesInMemory() {
+		return currentTracesInMemory;
+	}
+	
+	/**
+	 * This method returns whether the generation should save checkpoints, so
+	 * it can be resumed if interrupted
+	 * 
+	 * @return whether checkpoints are requested
+	 */
+	public boolean isCheckpointed() {
+		return currentCheckpoints;
+	}
+	
 	/**
 	 * This method returns the name, set by the user, of the new log
 	 * 
@@ -0,0 +1,29 @@
+package plg.gui.dialog;
+
+import javax.swing.JFrame;
+
+import plg.gui.controller.ApplicationController;
+
+/**
+ * This class contains the dialog for the configuration of the noise to add to
+ * an existing log
+ *
+ * @author Andrea Burattin
+ */
+public class NoiseLogDialog extends NewLogDialog {
+
+	private static final long serialVersionUID = 2871544960371187053L;
+	
+	/**
+	 * Dialog constructor
+	 * 
+	 * @param owner the frame owning the dialog
+	 */
+	public NoiseLogDialog(JFrame owner) {
+		super(null, owner,
+				"Noise Configuration",
+				"Use this dialog to configure the noise to add to an existing log.",
+				ApplicationController.instance().getConfiguration(NoiseLogDialog.class.getCanonicalName()),
+				false);
+	}
+}
@@ -1,5 +1,8 @@
 package plg.gui.dialog;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 import javax.swing.JFrame;
 import javax.swing.JPanel;
 import javax.swing.JTextField;
@@ -14,7 +17,8 @@ import plg.model.data.StringDataObject;
 
 /**
  * This dialog can be used to configure the script for the generation of the
- * {@link GeneratedDataObject} (either string or integer)
+ * {@link GeneratedDataObject} (either string or integer), either in Python or
+ * with expressions
  * 
  * @author Andrea Burattin
  */
@@ -31,10 +35,14 @@ public class ScriptDataObjectDialog extends CodeDialog {
 		
 		setDataObjectName(candidateDataObjectName);
 		if (type.equals(StringDataObject.class)) {
+			integerValues = false;
 			setScript(ScriptsCollection.STRING_DATA_OBJECT);
+			setExpression("generate", "choice(\"value-a\", \"value-b\", \"value-c\")");
 		} else if (type.equals(IntegerDataObject.class)) {
 			setScript(ScriptsCollection.INTEGER_DATA_OBJECT);
+			setExpression("generate", "int(0, 1000)");
 		}
+		modeCombo.setSelectedItem(MODE_EXPRESSION);
 	}
 	
 	@Override
@@ -42,6 +50,13 @@ public class ScriptDataObjectDialog extends CodeDialog {
 		return "";
 	}
 	
+	@Override
+	protected Map<String, String> expressionFunctions() {
+		Map<String, String> functions = new LinkedHashMap<String, String>();
+		functions.put("generate", "Value");
+		return functions;
+	}
+	
 	@Override
 	protected JPanel addToNorth() {
 		JPanel p = new JPanel();
@@ -60,10 +75,6 @@ public class ScriptDataObjectDialog extends CodeDialog {
 		return p;
 	}
 	
-	public void setScript(String script) {
-		codingArea.setText(script);
-	}
-	
 	public void setDataObjectName(String name) {
 		nameField.setText(name);
 	}
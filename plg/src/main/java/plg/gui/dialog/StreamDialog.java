@@ -146,7 +146,7 @@ public class StreamDialog extends GeneralDialog implements ProcessesController.P
 			public void stateChanged(ChangeEvent e) {
 				double val = (double) timeMultiplierSlider.getValue() / 100000d;
 				StreamDialog.this.streamConfiguration.timeMultiplier = val;
-				streamPreview.updateUI();
+				streamPreview.refresh();
 				StreamDialog.this.streamConfiguration.timeMultiplier = val;
 			}
 		});
@@ -265,7 +265,7 @@ public class StreamDialog extends GeneralDialog implements ProcessesController.P
 		streamerForPreview.updateProcess(process);
 		streamerForPreview.clearBuffer();
 		streamerForPreview.initialBufferPopulation();
-		streamPreview.updateUI();
+		streamPreview.refresh();
 	}
 	
 	@Override
@@ -1,5 +1,8 @@
 package plg.gui.dialog;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 import javax.swing.JFrame;
 
 import plg.gui.controller.ApplicationController;
@@ -7,7 +10,7 @@ import plg.gui.util.collections.ScriptsCollection;
 
 /**
  * This dialog can be used to configure the script for the simulation of the
- * times relationed information
+ * times relationed information, either in Python or with expressions
  * 
  * @author Andrea Burattin
  */
@@ -20,10 +23,22 @@ public class TaskTime extends CodeDialog {
 			"Activity Time Setter",
 			"In the area below you can insert the Python script to setup the task time scripts",
 			ApplicationController.instance().getConfiguration(TaskTime.class.getCanonicalName()));
+		
+		setExpression("time_lasted", "uniform(300, 900)");
+		setExpression("time_after", "uniform(60, 300)");
+		modeCombo.setSelectedItem(MODE_EXPRESSION);
 	}
 
 	@Override
 	protected String standardScript() {
 		return ScriptsCollection.TIME_SCRIPT;
 	}
+	
+	@Override
+	protected Map<String, String> expressionFunctions() {
+		Map<String, String> functions = new LinkedHashMap<String, String>();
+		functions.put("time_lasted", "Duration (seconds)");
+		functions.put("time_after", "Waiting time (seconds)");
+		return functions;
+	}
 }
@@ -3,25 +3,23 @@ package plg.gui.panels;
 import java.awt.BorderLayout;
 import java.awt.Color;
 import java.awt.Dimension;
+import java.awt.Rectangle;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.Timer;
-import java.util.TimerTask;
 
 import javax.swing.BorderFactory;
-import javax.swing.DefaultListModel;
 import javax.swing.JList;
 import javax.swing.JMenuItem;
 import javax.swing.JPopupMenu;
 import javax.swing.JScrollPane;
 import javax.swing.ListSelectionModel;
 import javax.swing.SwingUtilities;
+import javax.swing.Timer;
 import javax.swing.border.Border;
 import javax.swing.event.ListSelectionEvent;
 import javax.swing.event.ListSelectionListener;
@@ -31,6 +29,7 @@ import plg.gui.controller.ApplicationController;
 import plg.gui.util.collections.ImagesCollection;
 import plg.gui.widgets.list.MultilineImageListEntry;
 import plg.gui.widgets.list.MultilineImageListEntryRenderer;
+import plg.gui.widgets.list.MultilineImageListModel;
 import plg.model.Process;
 import plg.utils.Logger;
 
@@ -38,6 +37,11 @@ import plg.utils.Logger;
  * This panel is responsible of the visualization of the list of created/
  * imported processes.
  * 
+ * <p> The list uses a fixed cell height, so only the visible cells are ever
+ * rendered, and its model notifies only the rows actually changed. The
+ * creation times are refreshed every {@link #REFRESH_INTERVAL} milliseconds,
+ * repainting only the visible rows.
+ * 
  * @author Andrea Burattin
  */
 public class ProcessesList extends MainWindowPanel {
@@ -46,30 +50,36 @@ public class ProcessesList extends MainWindowPanel {
 	
 	// list configuration
 	protected static final int WIDTH = 300;
+	protected static final int REFRESH_INTERVAL = 10 * 1000;
 	
 	// list item configuration
 	protected static final Color ITEM_SELECTED_BACKGROUND = Color.lightGray;
 	protected static final Border ITEM_BORDER = BorderFactory.createEmptyBorder(7, 5, 7, 5);
 	protected static final Border ITEM_SELECTED_BORDER = ITEM_BORDER;
 	
-	private DefaultListModel<MultilineImageListEntry> dlm;
+	private MultilineImageListModel dlm;
 	private JList<MultilineImageListEntry> list;
 	private int idCurrentProcess = -1;
 
 	public ProcessesList(ConfigurationSet conf) {
 		super(conf);
 		
-		this.dlm = new DefaultListModel<MultilineImageListEntry>();
+		MultilineImageListEntryRenderer<MultilineImageListEntry> renderer = new MultilineImageListEntryRenderer<>();
+		this.dlm = new MultilineImageListModel();
 		this.list = new JList<MultilineImageListEntry>(dlm);
-		this.list.setCellRenderer(new MultilineImageListEntryRenderer<>());
+		this.list.setCellRenderer(renderer);
 		this.list.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+		this.list.setFixedCellHeight(renderer.getListCellRendererComponent(
+				list,
+				new MultilineImageListEntry(-1, ImagesCollection.PLG_ICON_SCALED, "Process", "Subtitle"),
+				0, false, false).getPreferredSize().height);
 		
 		this.list.addListSelectionListener(new ListSelectionListener() {
 			@Override
 			public void valueChanged(ListSelectionEvent e) {
 				int index = list.getSelectedIndex();
 				if (index >= 0) {
-					MultilineImageListEntry entry = dlm.get(index);
+					MultilineImageListEntry entry = dlm.getElementAt(index);
 					if (entry.getId() != idCurrentProcess) {
 						Process p = (Process) entry.getItem();
 						ApplicationController.instance().processes().visualizeProcess(p);
@@ -82,7 +92,7 @@ public class ProcessesList extends MainWindowPanel {
 			@Override
 			public void keyPressed(KeyEvent e) {
 				if (e.getKeyCode() == KeyEvent.VK_DELETE) {
-					ApplicationController.instance().processes().deleteProcess(list.getSelectedIndex());
+					ApplicationController.instance().processes().deleteProcess(getSelectedProcessId());
 				}
 			}
 		});
@@ -98,7 +108,7 @@ public class ProcessesList extends MainWindowPanel {
 					itemDelete.addActionListener(new ActionListener() {
 						@Override
 						public void actionPerformed(ActionEvent e) {
-							ApplicationController.instance().processes().deleteProcess(list.getSelectedIndex());
+							ApplicationController.instance().processes().deleteProcess(getSelectedProcessId());
 						}
 					});
 					itemEvolve.addActionListener(new ActionListener() {
@@ -115,12 +125,15 @@ public class ProcessesList extends MainWindowPanel {
 			}
 		});
 
-		new Timer().schedule(new TimerTask() {
+		new Timer(REFRESH_INTERVAL, new ActionListener() {
 			@Override
-			public void run() {
-				list.updateUI();
+			public void actionPerformed(ActionEvent e) {
+				Rectangle visible = list.getVisibleRect();
+				if (!visible.isEmpty()) {
+					list.repaint(visible);
+				}
 			}
-		}, 0, 10*1000);
+		}).start();
 		
 		setPreferredSize(new Dimension(WIDTH, 0));
 		setMinimumSize(new Dimension(WIDTH, 0));
@@ -133,15 +146,22 @@ public class ProcessesList extends MainWindowPanel {
 	
 	public void storeNewProcess(int id, String firstLine, String secondLine, Process process) {
 		MultilineImageListEntry element = new MultilineImageListEntry(id, ImagesCollection.PLG_ICON_SCALED, firstLine, secondLine, process);
-		dlm.insertElementAt(element, 0);
+		dlm.addFirst(element);
 		list.setSelectedIndex(0);
 	}
 	
-	public void deleteProcess(int index) {
-		MultilineImageListEntry entry = dlm.get(index);
-		
+	/**
+	 * This method removes the process with the provided id from the list
+	 * 
+	 * @param id the id of the process
+	 */
+	public void deleteProcess(int id) {
+		int index = dlm.indexOfId(id);
+		if (index < 0) {
+			return;
+		}
 		dlm.remove(index);
-		Logger.instance().info("Removed process with id " + entry.getId());
+		Logger.instance().info("Removed process with id " + id);
 		
 		if (dlm.getSize() == 0) {
 			list.clearSelection();
@@ -155,12 +175,35 @@ public class ProcessesList extends MainWindowPanel {
 		}
 	}
 	
+	/**
+	 * This method returns the process with the provided id
+	 * 
+	 * @param id the id of the process
+	 * @return the process, or <tt>null</tt> if no process has the provided id
+	 */
+	public Process getProcess(int id) {
+		MultilineImageListEntry entry = dlm.getById(id);
+		return (entry == null)? null : (Process) entry.getItem();
+	}
+	
+	/**
+	 * This method returns the id of the selected process
+	 * 
+	 * @return the id of the selected process, or -1 if no process is selected
+	 */
+	public int getSelectedProcessId() {
+		int index = list.getSelectedIndex();
+		return (index < 0)? -1 : dlm.getElementAt(index).getId();
+	}
+	
+	/**
+	 * This method returns a read-only view of the processes, most recent
+	 * first. The view is not copied, so it reflects later changes of the
+	 * list.
+	 * 
+	 * @return the view of the processes
+	 */
 	public List<Process> getProcesses() {
-		List<Process> processes = new LinkedList<Process>();
-		for (int i = 0; i < dlm.size(); i++) {
-			MultilineImageListEntry entry = dlm.get(i);
-			processes.add((Process) entry.getItem());
-		}
-		return processes;
+		return dlm.getItems(Process.class);
 	}
 }
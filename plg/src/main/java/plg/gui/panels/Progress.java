@@ -3,10 +3,11 @@ package plg.gui.panels;
 import java.awt.GridBagConstraints;
 import java.awt.GridBagLayout;
 import java.awt.Insets;
-import java.lang.reflect.InvocationTargetException;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import javax.swing.JButton;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
 import javax.swing.JProgressBar;
@@ -21,29 +22,62 @@ import plg.utils.SetUtils;
  * This panel represents a progress panel, useful to perform long operations
  * and give the user some progress feedback
  * 
+ * <p> Worker threads only update an atomic counter, without synchronizing
+ * with the event dispatch thread: the timer of the {@link ProgressStack}
+ * samples the counter to refresh the progress bar, and updates the remaining
+ * time every {@link #UPDATE_PROGRESS_INTERVAL} milliseconds. Therefore, the
+ * speed of the operation does not depend on the refresh of the user
+ * interface.
+ * 
  * @author Andrea Burattin
  */
 public class Progress extends JPanel implements IProgressVisualizer {
 
 	private static final long serialVersionUID = 2964186837553703486L;
 	private static final int UPDATE_PROGRESS_INTERVAL = 1000;
+	private static final String QUEUED_TEXT = "Queued, waiting for other jobs to complete...";
+	
+	/**
+	 * The states of the job of a progress
+	 */
+	public enum JobState {
+		CREATED, QUEUED, RUNNING, DONE
+	}
 	
 	protected JProgressBar progress = new JProgressBar();
+	protected JButton cancelButton = new JButton("Cancel");
 	protected JLabel progressLabel = new JLabel("Please wait...");
 	final protected JLabel ETALabel = new JLabel("some time to wait...");
 	
-	protected int min = 0;
-	protected int max = 100;
-	protected int value = 0;
+	protected volatile int min = 0;
+	protected volatile int max = 100;
+	protected AtomicInteger value = new AtomicInteger(0);
+	protected volatile boolean indeterminate = false;
 	
 	protected long startTime = 0;
-	protected Timer etaUpdater;
+	protected long lastEtaUpdate = 0;
+	protected volatile JobState state = JobState.CREATED;
+	protected ProgressStack stack;
+	protected ActionListener cancelListener = null;
+	protected volatile boolean cancelled = false;
+	
+	/**
+	 * Protected constructor of a progress which does not belong to a
+	 * {@link ProgressStack}. Such a progress is not refreshed by the timer of
+	 * the stack.
+	 */
+	protected Progress() {
+		this(null);
+	}
 	
 	/**
 	 * Protected constructor. The standard way to get a progress is via the
 	 * {@link ProgressStack#askForNewProgress()} method.
+	 * 
+	 * @param stack the stack containing the progress, or <tt>null</tt>
 	 */
-	protected Progress() {
+	protected Progress(ProgressStack stack) {
+		this.stack = stack;
 		ETALabel.setHorizontalAlignment(SwingConstants.RIGHT);
 		
 		setLayout(new GridBagLayout());
@@ -57,6 +91,25 @@ public class Progress extends JPanel implements IProgressVisualizer {
 		c.fill = GridBagConstraints.HORIZONTAL;
 		add(progress, c);
 		
+		c = new GridBagConstraints();
+		c.gridx = 2;
+		c.gridy = 0;
+		c.insets = new Insets(5, 0, 5, 5);
+		add(cancelButton, c);
+		
+		cancelButton.setVisible(false);
+		cancelButton.addActionListener(new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				cancelled = true;
+				cancelButton.setEnabled(false);
+				progressLabel.setText("Cancelling...");
+				if (cancelListener != null) {
+					cancelListener.actionPerformed(e);
+				}
+			}
+		});
+		
 		c = new GridBagConstraints();
 		c.gridx = 0;
 		c.gridy = 2;
@@ -76,77 +129,171 @@ public class Progress extends JPanel implements IProgressVisualizer {
 		setVisible(false);
 	}
 	
+	/**
+	 * This method makes the operation cancelable: a cancel button is shown
+	 * and, when pressed, the provided listener is notified. The operation is
+	 * expected to stop as soon as possible and then call {@link #finished()}.
+	 * 
+	 * @param listener the listener notified when the user cancels the
+	 * operation
+	 */
+	public void setCancelListener(final ActionListener listener) {
+		this.cancelListener = listener;
+		SwingUtilities.invokeLater(new Runnable() {
+			@Override
+			public void run() {
+				cancelButton.setVisible(listener != null);
+			}
+		});
+	}
+	
+	/**
+	 * This method returns whether the user cancelled the operation
+	 * 
+	 * @return <tt>true</tt> if the operation has been cancelled
+	 */
+	public boolean isCancelled() {
+		return cancelled;
+	}
+	
 	@Override
-	public void setMinimum(int minimum) {
+	public void setMinimum(final int minimum) {
 		this.min = minimum;
-		this.value = minimum;
-		this.progress.setMinimum(minimum);
-		this.progress.setValue(minimum);
-		setIndeterminate(false);
+		this.value.set(minimum);
+		this.indeterminate = false;
+		SwingUtilities.invokeLater(new Runnable() {
+			@Override
+			public void run() {
+				progress.setMinimum(minimum);
+				progress.setValue(minimum);
+				progress.setIndeterminate(false);
+			}
+		});
 	}
 
 	@Override
-	public void setMaximum(int maximum) {
+	public void setMaximum(final int maximum) {
 		this.max = maximum;
-		this.progress.setMaximum(maximum);
+		SwingUtilities.invokeLater(new Runnable() {
+			@Override
+			public void run() {
+				progress.setMaximum(maximum);
+			}
+		});
 	}
 
 	@Override
 	public void inc() {
-		this.value++;
-		try {
-			SwingUtilities.invokeAndWait(new Runnable() {
-				@Override
-				public void run() {
-					progress.setValue(value);
-				}
-			});
-		} catch (InvocationTargetException | InterruptedException e) {
-			e.printStackTrace();
-		}
+		value.incrementAndGet();
 	}
 
 	@Override
 	public void setIndeterminate(final boolean indeterminate) {
-		try {
-			SwingUtilities.invokeAndWait(new Runnable() {
-				@Override
-				public void run() {
-					progress.setIndeterminate(indeterminate);
-				}
-			});
-		} catch (InvocationTargetException | InterruptedException e) {
-			e.printStackTrace();
-		}
+		this.indeterminate = indeterminate;
+		SwingUtilities.invokeLater(new Runnable() {
+			@Override
+			public void run() {
+				progress.setIndeterminate(indeterminate);
+			}
+		});
 	}
 
 	@Override
-	public void setText(String status) {
-		progressLabel.setText(status);
+	public void setText(final String status) {
+		SwingUtilities.invokeLater(new Runnable() {
+			@Override
+			public void run() {
+				progressLabel.setText(status);
+			}
+		});
 	}
 
 	@Override
 	public void start() {
 		startTime = System.currentTimeMillis();
-		etaUpdater = new Timer();
-		etaUpdater.schedule(new TimerTask() {
+		lastEtaUpdate = 0;
+		state = JobState.RUNNING;
+		if (stack != null) {
+			stack.attach(this);
+		}
+		SwingUtilities.invokeLater(new Runnable() {
 			@Override
 			public void run() {
-				if (!progress.isIndeterminate() && value > 0) {
-					long time = System.currentTimeMillis() - startTime;
-					long eta = time * (max - value) / value;
-					ETALabel.setText("About " + HumanTimeFormatter.formatTime(eta) + " remaining");
-				} else {
-					ETALabel.setText(SetUtils.getRandom(waitingSentences));
+				if (QUEUED_TEXT.equals(progressLabel.getText())) {
+					progressLabel.setText("Please wait...");
+					progress.setIndeterminate(indeterminate);
 				}
+				setVisible(true);
 			}
-		}, 0, UPDATE_PROGRESS_INTERVAL);
-		setVisible(true);
+		});
 	}
 	
 	@Override
 	public void finished() {
-		etaUpdater.cancel();
-		setVisible(false);
+		state = JobState.DONE;
+		if (stack != null) {
+			stack.release(this);
+		} else {
+			SwingUtilities.invokeLater(new Runnable() {
+				@Override
+				public void run() {
+					setVisible(false);
+				}
+			});
+		}
+	}
+	
+	/**
+	 * This method marks the job of the progress as waiting to be executed
+	 */
+	protected void queued() {
+		if (state != JobState.CREATED) {
+			return;
+		}
+		state = JobState.QUEUED;
+		SwingUtilities.invokeLater(new Runnable() {
+			@Override
+			public void run() {
+				if (state == JobState.QUEUED) {
+					progressLabel.setText(QUEUED_TEXT);
+					progress.setIndeterminate(true);
+					setVisible(true);
+				}
+			}
+		});
+	}
+	
+	/**
+	 * This method returns the state of the job of the progress
+	 * 
+	 * @return the state of the job
+	 */
+	public JobState getJobState() {
+		return state;
+	}
+	
+	/**
+	 * This method samples the counter and refreshes the widgets. It is called
+	 * by the timer of the {@link ProgressStack}, on the event dispatch thread.
+	 */
+	protected void update() {
+		if (state != JobState.RUNNING) {
+			return;
+		}
+		int current = value.get();
+		progress.setValue(current);
+		
+		long now = System.currentTimeMillis();
+		if (now - lastEtaUpdate < UPDATE_PROGRESS_INTERVAL) {
+			return;
+		}
+		lastEtaUpdate = now;
+		int done = current - min;
+		if (!indeterminate && done > 0) {
+			long eta = (now - startTime) * (max - current) / done;
+			ETALabel.setText("About " + HumanTimeFormatter.formatTime(eta) + " remaining");
+		} else {
+			ETALabel.setText(SetUtils.getRandom(waitingSentences));
+		}
 	}
 }
@@ -1,43 +1,176 @@
 package plg.gui.panels;
 
-import java.util.LinkedList;
-import java.util.List;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.swing.BoxLayout;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
 
 import plg.gui.config.ConfigurationSet;
 
 /**
  * This panel identifies the area which stores all the application
- * {@link Progress} notification areas.
- * 
+ * {@link Progress} notification areas, and manages the background jobs they
+ * refer to.
+ *
+ * <p> Jobs submitted with {@link #submit(Progress, Runnable)} run on a bounded
+ * pool of {@link #MAX_RUNNING_JOBS} threads; the others wait in a queue, and
+ * their progress shows they are queued. All the running progresses are
+ * refreshed by one shared timer, and each progress is removed from the stack
+ * as soon as it is finished or its job is done.
+ *
  * @author Andrea Burattin
  */
 public class ProgressStack extends MainWindowPanel {
 
 	private static final long serialVersionUID = 7106245291844959536L;
-	private List<Progress> progresses = new LinkedList<Progress>();
 
 	/**
-	 * 
+	 * The maximum number of jobs running at the same time
+	 */
+	public static final int MAX_RUNNING_JOBS = Math.max(2, Runtime.getRuntime().availableProcessors() / 2);
+	private static final int REFRESH_INTERVAL = 100;
+
+	private CopyOnWriteArrayList<Progress> progresses = new CopyOnWriteArrayList<Progress>();
+	private ThreadPoolExecutor executor;
+	private Timer refresher;
+
+	/**
+	 *
 	 * @param conf
 	 */
 	public ProgressStack(ConfigurationSet conf) {
 		super(conf);
-		
+
 		setLayout(new BoxLayout(this, BoxLayout.Y_AXIS));
+
+		executor = new ThreadPoolExecutor(
+				MAX_RUNNING_JOBS, MAX_RUNNING_JOBS,
+				60, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<Runnable>(),
+				new ThreadFactory() {
+					private AtomicInteger count = new AtomicInteger(0);
+					@Override
+					public Thread newThread(Runnable r) {
+						Thread t = new Thread(r, "plg-job-" + count.incrementAndGet());
+						t.setDaemon(true);
+						return t;
+					}
+				});
+		executor.allowCoreThreadTimeOut(true);
+
+		refresher = new Timer(REFRESH_INTERVAL, new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				for (Progress p : progresses) {
+					p.update();
+				}
+			}
+		});
 	}
-	
+
 	/**
 	 * This method returns a new {@link Progress} which can be used to notify
-	 * the user about ongoing long operations
-	 * 
+	 * the user about ongoing long operations. This method can be called from
+	 * any thread.
+	 *
 	 * @return a new progress
 	 */
 	public Progress askForNewProgress() {
-		Progress p = new Progress();
-		progresses.add(p);
-		add(p);
+		Progress p = new Progress(this);
+		attach(p);
 		return p;
 	}
+
+	/**
+	 * This method runs the provided job in background, as soon as one of the
+	 * job threads is available. Until then, the progress is shown as queued.
+	 * When the job is done, its progress is released.
+	 *
+	 * @param progress the progress of the job
+	 * @param job the job to run (for example, a {@link javax.swing.SwingWorker})
+	 */
+	public void submit(final Progress progress, final Runnable job) {
+		progress.queued();
+		executor.execute(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					job.run();
+				} finally {
+					release(progress);
+				}
+			}
+		});
+	}
+
+	/**
+	 * This method returns the number of jobs waiting for a thread
+	 *
+	 * @return the number of queued jobs
+	 */
+	public int getQueuedJobs() {
+		return executor.getQueue().size();
+	}
+
+	/**
+	 * This method returns the number of jobs currently running
+	 *
+	 * @return the number of running jobs
+	 */
+	public int getRunningJobs() {
+		return executor.getActiveCount();
+	}
+
+	/**
+	 * This method adds the provided progress to the stack, if not already
+	 * there
+	 *
+	 * @param p the progress
+	 */
+	protected void attach(final Progress p) {
+		if (!progresses.addIfAbsent(p)) {
+			return;
+		}
+		SwingUtilities.invokeLater(new Runnable() {
+			@Override
+			public void run() {
+				add(p);
+				revalidate();
+				if (!refresher.isRunning()) {
+					refresher.start();
+				}
+			}
+		});
+	}
+
+	/**
+	 * This method removes the provided progress from the stack. The shared
+	 * timer is stopped when no progress is left.
+	 *
+	 * @param p the progress
+	 */
+	protected void release(final Progress p) {
+		if (!progresses.remove(p)) {
+			return;
+		}
+		SwingUtilities.invokeLater(new Runnable() {
+			@Override
+			public void run() {
+				remove(p);
+				revalidate();
+				repaint();
+				if (progresses.isEmpty()) {
+					refresher.stop();
+				}
+			}
+		});
+	}
 }
@@ -3,17 +3,32 @@ package plg.gui.panels;
 import java.awt.BorderLayout;
 import java.awt.Color;
 import java.awt.Font;
+import java.awt.GridBagLayout;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
 
+import javax.swing.BorderFactory;
+import javax.swing.BoxLayout;
 import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JProgressBar;
 import javax.swing.SwingConstants;
+import javax.swing.SwingWorker;
 
 import plg.gui.config.ConfigurationSet;
 import plg.gui.controller.ApplicationController;
+import plg.gui.dialog.ErrorDialog;
 import plg.model.Process;
 import plg.model.activity.Activity;
 import plg.model.activity.Task;
 import plg.model.data.DataObject;
 import plg.model.data.IDataObjectOwner.DATA_OBJECT_DIRECTION;
+import plg.model.gateway.Gateway;
 import plg.visualizer.BPMNVisualizer;
 import plg.visualizer.GraphvizBPMNVisualizer;
 import plg.visualizer.listeners.DataObjectListener;
@@ -22,6 +37,11 @@ import plg.visualizer.listeners.TaskListener;
 /**
  * This class contains the panel responsible of the visualization of a single
  * process.
+ *
+ * <p> The layout of a process is computed in background, while a placeholder
+ * is shown. The last {@link #LAYOUT_CACHE_SIZE} layouts are cached, by process
+ * and by structure of the process: refreshing a process whose structure did
+ * not change (for example, after editing a script) reuses the cached layout.
  * 
  * @author Andrea Burattin
  */
@@ -39,9 +59,23 @@ public class SingleProcessVisualizer extends MainWindowPanel {
 		noProcess.setFont(noProcess.getFont().deriveFont(Font.PLAIN));
 	}
 	
+	/**
+	 * The maximum number of process layouts kept in memory
+	 */
+	public static final int LAYOUT_CACHE_SIZE = 8;
+	
 	private Process currentlyVisualizedProcess = null;
 	private GraphvizBPMNVisualizer visualizer = null;
 	private Progress progress = new Progress();
+	private JPanel computingLayout = generateComputingLayoutPlaceholder();
+	private int layoutRequest = 0;
+	private Map<LayoutKey, GraphvizBPMNVisualizer> layouts = new LinkedHashMap<LayoutKey, GraphvizBPMNVisualizer>(16, 0.75f, true) {
+		private static final long serialVersionUID = 2902815316512483312L;
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<LayoutKey, GraphvizBPMNVisualizer> eldest) {
+			return size() > LAYOUT_CACHE_SIZE;
+		}
+	};
 
 	public SingleProcessVisualizer(ConfigurationSet conf) {
 		super(conf);
@@ -51,10 +85,105 @@ public class SingleProcessVisualizer extends MainWindowPanel {
 		generateProcessPlaceholder();
 	}
 	
-	public void visualizeNewProcess(Process process) {
+	/**
+	 * This method shows the provided process. If its layout is not cached, a
+	 * placeholder is shown while the layout is computed in background. This
+	 * method must be called from the event dispatch thread.
+	 * 
+	 * @param process the process to show
+	 */
+	public void visualizeNewProcess(final Process process) {
+		final int request = ++layoutRequest;
+		final LayoutKey key = new LayoutKey(process);
 		this.currentlyVisualizedProcess = process;
-		this.visualizer = new GraphvizBPMNVisualizer(process);
 		
+		GraphvizBPMNVisualizer cached = layouts.get(key);
+		if (cached != null) {
+			display(cached);
+			return;
+		}
+		
+		removeAll();
+		add(computingLayout, BorderLayout.CENTER);
+		updateUI();
+		
+		new SwingWorker<GraphvizBPMNVisualizer, Void>() {
+			@Override
+			protected GraphvizBPMNVisualizer doInBackground() throws Exception {
+				return new GraphvizBPMNVisualizer(process);
+			}
+			
+			@Override
+			protected void done() {
+				try {
+					GraphvizBPMNVisualizer computed = get();
+					addListeners(computed);
+					forget(process);
+					// deleted processes are not cached again
+					if (ApplicationController.instance().processes().getProcesses().contains(process)) {
+						layouts.put(key, computed);
+					}
+					// a more recent request supersedes this one
+					if (request == layoutRequest) {
+						display(computed);
+					}
+				} catch (ExecutionException | InterruptedException e) {
+					new ErrorDialog(ApplicationController.instance().getMainFrame(), e).setVisible(true);
+					if (request == layoutRequest) {
+						generateProcessPlaceholder();
+					}
+				}
+			}
+		}.execute();
+	}
+	
+	/**
+	 * This method shows again the current process, computing a new layout
+	 * only if the structure of the process changed
+	 */
+	public void refreshCurrentProcess() {
+		visualizeNewProcess(currentlyVisualizedProcess);
+	}
+	
+	/**
+	 * This method removes from the cache all the layouts of the provided
+	 * process
+	 * 
+	 * @param process the process
+	 */
+	public void forget(Process process) {
+		Iterator<LayoutKey> i = layouts.keySet().iterator();
+		while (i.hasNext()) {
+			if (i.next().process == process) {
+				i.remove();
+			}
+		}
+	}
+	
+	public Process getCurrentlyVisualizedProcess() {
+		return currentlyVisualizedProcess;
+	}
+	
+	public Progress getCurrentProgress() {
+		return progress;
+	}
+	
+	public void generateProcessPlaceholder() {
+		layoutRequest++;
+		removeAll();
+		add(noProcess, BorderLayout.CENTER);
+		updateUI();
+	}
+	
+	private void display(GraphvizBPMNVisualizer visualizer) {
+		this.visualizer = visualizer;
+		removeAll();
+		add(progress, BorderLayout.NORTH);
+		add(visualizer, BorderLayout.CENTER);
+		updateUI();
+	}
+	
+	private void addListeners(GraphvizBPMNVisualizer visualizer) {
 		visualizer.addTaskListener(new TaskListener() {
 			@Override
 			public void setTaskTime(Task task) {
@@ -81,28 +210,74 @@ public class SingleProcessVisualizer extends MainWindowPanel {
 				ApplicationController.instance().components().addDataObject(activity, direction, type);
 			}
 		});
-		
-		removeAll();
-		add(progress, BorderLayout.NORTH);
-		add(visualizer, BorderLayout.CENTER);
-		updateUI();
 	}
 	
-	public void refreshCurrentProcess() {
-		visualizeNewProcess(currentlyVisualizedProcess);
-	}
-	
-	public Process getCurrentlyVisualizedProcess() {
-		return currentlyVisualizedProcess;
-	}
-	
-	public Progress getCurrentProgress() {
-		return progress;
+	private static JPanel generateComputingLayoutPlaceholder() {
+		JLabel label = new JLabel("Computing the layout of the process...");
+		label.setForeground(Color.gray);
+		label.setAlignmentX(CENTER_ALIGNMENT);
+		JProgressBar bar = new JProgressBar();
+		bar.setIndeterminate(true);
+		bar.setAlignmentX(CENTER_ALIGNMENT);
+		
+		JPanel content = new JPanel();
+		content.setOpaque(false);
+		content.setLayout(new BoxLayout(content, BoxLayout.Y_AXIS));
+		content.add(label);
+		content.add(bar);
+		content.setBorder(BorderFactory.createEmptyBorder(5, 5, 5, 5));
+		
+		JPanel placeholder = new JPanel(new GridBagLayout());
+		placeholder.setOpaque(false);
+		placeholder.add(content);
+		return placeholder;
 	}
 	
-	public void generateProcessPlaceholder() {
-		removeAll();
-		add(noProcess, BorderLayout.CENTER);
-		updateUI();
+	/**
+	 * This class identifies the layout of a process: the process instance,
+	 * together with the structure of the process. The structure includes
+	 * the names of the components and the values of the plain data objects,
+	 * but not the scripts, which are not part of the layout.
+	 */
+	private static class LayoutKey {
+		
+		private Process process;
+		private String structure;
+		
+		public LayoutKey(Process process) {
+			this.process = process;
+			
+			List<String> components = new ArrayList<String>();
+			for (Task t : process.getTasks()) {
+				components.add("T" + System.identityHashCode(t) + ":" + t.getName() + ":" + (t.getActivityScript() != null));
+			}
+			for (Gateway g : process.getGateways()) {
+				components.add("G" + System.identityHashCode(g) + ":" + g.getClass().getSimpleName());
+			}
+			for (DataObject d : process.getDataObjects()) {
+				String value = (d.getClass() == DataObject.class)? String.valueOf(d.getValue()) : d.getClass().getSimpleName();
+				components.add("D" + System.identityHashCode(d) + ":" + System.identityHashCode(d.getObjectOwner()) + ":" + d.getName() + "=" + value);
+			}
+			Collections.sort(components);
+			StringBuilder sb = new StringBuilder(process.getName()).append("\n");
+			for (String c : components) {
+				sb.append(c).append("\n");
+			}
+			this.structure = sb.toString();
+		}
+		
+		@Override
+		public int hashCode() {
+			return 31 * System.identityHashCode(process) + structure.hashCode();
+		}
+		
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof LayoutKey)) {
+				return false;
+			}
+			LayoutKey other = (LayoutKey) obj;
+			return process == other.process && structure.equals(other.structure);
+		}
 	}
 }
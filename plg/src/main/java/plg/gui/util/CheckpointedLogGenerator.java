@@ -0,0 +1,162 @@
+package plg.gui.util;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+
+import plg.common.io.CountingOutputStream;
+import plg.common.io.NonClosingOutputStream;
+import plg.common.log.TraceSimulator;
+import plg.common.log.XesTraceWriter;
+import plg.generator.IProgressVisualizer;
+import plg.model.Process;
+import plg.utils.Logger;
+
+/**
+ * This class generates a XES log one trace at a time, saving a
+ * {@link LogCheckpoint} every {@link #CHECKPOINT_INTERVAL} milliseconds. The
+ * generation can be cancelled and, later on, resumed from the last checkpoint:
+ * the log file is truncated at the end of the last checkpointed trace and the
+ * generation continues with the following trace index.
+ *
+ * <p> The log is written in segments, one per checkpoint. For compressed logs
+ * each segment is a separate gzip member (the concatenation of gzip members is
+ * still a valid gzip stream), so the log can be truncated at the end of any
+ * segment.
+ *
+ * @author Andrea Burattin
+ */
+public class CheckpointedLogGenerator {
+
+	/**
+	 * The interval between two checkpoints, in milliseconds
+	 */
+	public static final long CHECKPOINT_INTERVAL = 30 * 1000;
+
+	private TraceSimulator simulator;
+	private LogCheckpoint checkpoint;
+	private boolean checkpointsEnabled;
+	private volatile boolean cancelled = false;
+
+	/**
+	 * Constructor of a new generation, whose checkpoint is created and stored
+	 *
+	 * @param process the process to simulate
+	 * @param checkpoint the initial checkpoint of the generation
+	 */
+	public CheckpointedLogGenerator(Process process, LogCheckpoint checkpoint) {
+		this.simulator = new TraceSimulator(process, checkpoint.getConfiguration(), checkpoint.getSeed());
+		this.checkpoint = checkpoint;
+		this.checkpointsEnabled = checkpoint.storeProcess(process);
+		if (!checkpointsEnabled) {
+			Logger.instance().warning("The process cannot be saved, the generation will not be resumable");
+		}
+	}
+
+	/**
+	 * Constructor to resume a generation from a stored checkpoint
+	 *
+	 * @param checkpoint the checkpoint to resume
+	 * @throws IOException if the process of the checkpoint is not available
+	 */
+	public CheckpointedLogGenerator(LogCheckpoint checkpoint) throws IOException {
+		Process process = checkpoint.loadProcess();
+		if (process == null) {
+			throw new IOException("The process of the checkpoint is not available anymore");
+		}
+		this.simulator = new TraceSimulator(process, checkpoint.getConfiguration(), checkpoint.getSeed());
+		this.checkpoint = checkpoint;
+		this.checkpointsEnabled = true;
+	}
+
+	/**
+	 * This method requests the generation to stop. The generation stops after
+	 * the current trace, saving a checkpoint.
+	 */
+	public void cancel() {
+		cancelled = true;
+	}
+
+	/**
+	 * This method generates the log, starting from the trace following the
+	 * checkpoint
+	 *
+	 * @param progress the progress visualizer
+	 * @return <tt>true</tt> if the log has been completed, <tt>false</tt> if
+	 * the generation has been cancelled
+	 * @throws Exception if either the simulation or the serialization fail
+	 */
+	public boolean generate(IProgressVisualizer progress) throws Exception {
+		int first = checkpoint.getTracesWritten();
+		int noTraces = checkpoint.getConfiguration().getNumberOfTraces();
+		boolean resumed = first > 0 || checkpoint.getOffset() > 0;
+
+		if (resumed) {
+			try (RandomAccessFile raf = new RandomAccessFile(checkpoint.getDestination(), "rw")) {
+				if (raf.length() < checkpoint.getOffset()) {
+					throw new IOException("The log " + checkpoint.getDestination() + " is shorter than its checkpoint");
+				}
+				raf.setLength(checkpoint.getOffset());
+			}
+		} else {
+			saveCheckpoint(0, 0);
+		}
+
+		progress.setMinimum(0);
+		progress.setMaximum(noTraces - first);
+		progress.setText(((resumed)? "Resuming log" : "Generating log") + " (" + (noTraces - first) + " traces)");
+		progress.start();
+		try (CountingOutputStream out = new CountingOutputStream(new FileOutputStream(checkpoint.getDestination(), resumed), checkpoint.getOffset())) {
+			XesTraceWriter writer = newSegment(out);
+			if (!resumed) {
+				writer.startLog(checkpoint.getLogName());
+			}
+			long lastCheckpoint = System.currentTimeMillis();
+			for (int i = first; i < noTraces; i++) {
+				if (cancelled) {
+					writer.close();
+					saveCheckpoint(i, out.getCount());
+					return false;
+				}
+				writer.write(simulator.simulate(i));
+				progress.inc();
+				if (System.currentTimeMillis() - lastCheckpoint > CHECKPOINT_INTERVAL) {
+					writer.close();
+					saveCheckpoint(i + 1, out.getCount());
+					writer = newSegment(out);
+					lastCheckpoint = System.currentTimeMillis();
+				}
+			}
+			writer.endLog();
+			writer.close();
+		} finally {
+			progress.finished();
+		}
+		checkpoint.delete();
+		return true;
+	}
+
+	/**
+	 * This method returns the checkpoint of the generation
+	 *
+	 * @return the checkpoint
+	 */
+	public LogCheckpoint getCheckpoint() {
+		return checkpoint;
+	}
+
+	private XesTraceWriter newSegment(OutputStream out) throws IOException {
+		return new XesTraceWriter(new NonClosingOutputStream(out), checkpoint.isCompressed());
+	}
+
+	private void saveCheckpoint(int tracesWritten, long offset) throws IOException {
+		if (!checkpointsEnabled) {
+			return;
+		}
+		checkpoint.setTracesWritten(tracesWritten);
+		checkpoint.setOffset(offset);
+		checkpoint.store();
+		Logger.instance().debug("Checkpoint saved after " + tracesWritten + " traces");
+	}
+}
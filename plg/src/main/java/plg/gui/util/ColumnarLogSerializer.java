@@ -0,0 +1,50 @@
+package plg.gui.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.deckfour.xes.extension.std.XConceptExtension;
+import org.deckfour.xes.model.XLog;
+import org.deckfour.xes.model.XTrace;
+import org.deckfour.xes.out.XSerializer;
+
+import plg.common.log.ColumnarLogEncoder;
+
+/**
+ * This class serializes logs in the columnar binary layout described in
+ * {@link ColumnarLogEncoder}
+ *
+ * @author Andrea Burattin
+ */
+public class ColumnarLogSerializer implements XSerializer {
+
+	@Override
+	public String getDescription() {
+		return "PLG columnar log serialization";
+	}
+
+	@Override
+	public String getName() {
+		return "PLG columnar";
+	}
+
+	@Override
+	public String getAuthor() {
+		return "Andrea Burattin";
+	}
+
+	@Override
+	public String[] getSuffices() {
+		return new String[] { "plgc" };
+	}
+
+	@Override
+	public void serialize(XLog log, OutputStream out) throws IOException {
+		ColumnarLogEncoder encoder = new ColumnarLogEncoder(out);
+		encoder.startLog(XConceptExtension.instance().extractName(log));
+		for (XTrace trace : log) {
+			encoder.write(trace);
+		}
+		encoder.endLog();
+	}
+}
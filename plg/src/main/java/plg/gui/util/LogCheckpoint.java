@@ -0,0 +1,295 @@
+package plg.gui.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Properties;
+import java.util.UUID;
+
+import plg.common.io.ProcessSnapshotCache;
+import plg.generator.log.SimulationConfiguration;
+import plg.generator.log.noise.NoiseConfiguration;
+import plg.model.Process;
+import plg.utils.Logger;
+
+/**
+ * This class contains the checkpoint of a log generation: the destination of
+ * the log, the simulation parameters and how far the generation went (number
+ * of traces written and position of the end of the last trace in the file).
+ * Since each trace depends only on the seed and on its index (see
+ * {@link plg.common.log.TraceSimulator}), these values are enough to resume
+ * an interrupted generation.
+ *
+ * <p> Checkpoints are stored in the <tt>checkpoints</tt> folder of the support
+ * folder: each checkpoint is a properties file, together with a snapshot of
+ * the simulated process (see {@link ProcessSnapshotCache}). Only the number of
+ * traces and the noise configuration of the simulation are saved.
+ *
+ * @author Andrea Burattin
+ */
+public class LogCheckpoint {
+
+	/**
+	 * The extension of the checkpoint files
+	 */
+	public static final String CHECKPOINT_EXTENSION = ".checkpoint";
+
+	private static final String KEY_DESTINATION = "destination";
+	private static final String KEY_COMPRESSED = "compressed";
+	private static final String KEY_LOG_NAME = "log.name";
+	private static final String KEY_SEED = "seed";
+	private static final String KEY_TRACES = "traces";
+	private static final String KEY_TRACES_WRITTEN = "traces.written";
+	private static final String KEY_OFFSET = "offset";
+	private static final String KEY_NOISE = "noise";
+
+	private String id;
+	private File destination;
+	private boolean compressed;
+	private String logName;
+	private Long seed;
+	private SimulationConfiguration configuration;
+	private int tracesWritten = 0;
+	private long offset = 0;
+
+	/**
+	 * Basic constructor
+	 *
+	 * @param destination the destination log
+	 * @param compressed whether the log is compressed
+	 * @param logName the name of the log
+	 * @param seed the seed of the simulation, or <tt>null</tt>
+	 * @param configuration the simulation configuration
+	 */
+	public LogCheckpoint(File destination, boolean compressed, String logName, Long seed, SimulationConfiguration configuration) {
+		this(UUID.randomUUID().toString(), destination, compressed, logName, seed, configuration);
+	}
+
+	private LogCheckpoint(String id, File destination, boolean compressed, String logName, Long seed, SimulationConfiguration configuration) {
+		this.id = id;
+		this.destination = destination;
+		this.compressed = compressed;
+		this.logName = logName;
+		this.seed = seed;
+		this.configuration = configuration;
+	}
+
+	/**
+	 * This method returns the folder containing the checkpoints
+	 *
+	 * @return the checkpoints folder
+	 */
+	public static File getFolder() {
+		File folder = new File(RuntimeUtils.getSupportFolder() + "checkpoints");
+		folder.mkdirs();
+		return folder;
+	}
+
+	/**
+	 * This method lists all the stored checkpoints, most recent first.
+	 * Checkpoints which cannot be read are skipped.
+	 *
+	 * @return the list of checkpoints
+	 */
+	public static List<LogCheckpoint> list() {
+		List<LogCheckpoint> checkpoints = new ArrayList<LogCheckpoint>();
+		File[] files = getFolder().listFiles();
+		if (files == null) {
+			return checkpoints;
+		}
+		Arrays.sort(files, new Comparator<File>() {
+			@Override
+			public int compare(File f1, File f2) {
+				return Long.compare(f2.lastModified(), f1.lastModified());
+			}
+		});
+		for (File file : files) {
+			if (file.getName().endsWith(CHECKPOINT_EXTENSION)) {
+				try {
+					checkpoints.add(load(file));
+				} catch (IOException e) {
+					Logger.instance().debug("Skipping checkpoint " + file.getName() + ": " + e.getMessage());
+				}
+			}
+		}
+		return checkpoints;
+	}
+
+	/**
+	 * This method loads the provided checkpoint file
+	 *
+	 * @param file the checkpoint file
+	 * @return the checkpoint
+	 * @throws IOException if the checkpoint cannot be read
+	 */
+	public static LogCheckpoint load(File file) throws IOException {
+		Properties properties = new Properties();
+		try (InputStream in = new FileInputStream(file)) {
+			properties.load(in);
+		}
+		try {
+			String id = file.getName().substring(0, file.getName().length() - CHECKPOINT_EXTENSION.length());
+			String seed = properties.getProperty(KEY_SEED);
+			String[] noise = properties.getProperty(KEY_NOISE).split(",");
+			NoiseConfiguration noiseConfiguration = new NoiseConfiguration(
+					Double.parseDouble(noise[0]),
+					Integer.parseInt(noise[1]),
+					Double.parseDouble(noise[2]),
+					Double.parseDouble(noise[3]),
+					Double.parseDouble(noise[4]),
+					Integer.parseInt(noise[5]),
+					Double.parseDouble(noise[6]),
+					Integer.parseInt(noise[7]),
+					Double.parseDouble(noise[8]),
+					Integer.parseInt(noise[9]),
+					Double.parseDouble(noise[10]),
+					Double.parseDouble(noise[11]),
+					Double.parseDouble(noise[12]));
+			LogCheckpoint checkpoint = new LogCheckpoint(
+					id,
+					new File(properties.getProperty(KEY_DESTINATION)),
+					Boolean.parseBoolean(properties.getProperty(KEY_COMPRESSED)),
+					properties.getProperty(KEY_LOG_NAME),
+					(seed == null)? null : Long.valueOf(seed),
+					new SimulationConfiguration(Integer.parseInt(properties.getProperty(KEY_TRACES)), noiseConfiguration));
+			checkpoint.tracesWritten = Integer.parseInt(properties.getProperty(KEY_TRACES_WRITTEN));
+			checkpoint.offset = Long.parseLong(properties.getProperty(KEY_OFFSET));
+			return checkpoint;
+		} catch (RuntimeException e) {
+			throw new IOException("Invalid checkpoint " + file + ": " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * This method stores the checkpoint. The file is written to a temporary
+	 * file and then atomically moved over the previous checkpoint, so a crash
+	 * leaves either the previous or the new checkpoint, never a partial one.
+	 *
+	 * @throws IOException
+	 */
+	public void store() throws IOException {
+		NoiseConfiguration n = configuration.getNoiseConfiguration();
+		Properties properties = new Properties();
+		properties.setProperty(KEY_DESTINATION, destination.getAbsolutePath());
+		properties.setProperty(KEY_COMPRESSED, Boolean.toString(compressed));
+		properties.setProperty(KEY_LOG_NAME, (logName == null)? "" : logName);
+		if (seed != null) {
+			properties.setProperty(KEY_SEED, seed.toString());
+		}
+		properties.setProperty(KEY_TRACES, Integer.toString(configuration.getNumberOfTraces()));
+		properties.setProperty(KEY_TRACES_WRITTEN, Integer.toString(tracesWritten));
+		properties.setProperty(KEY_OFFSET, Long.toString(offset));
+		properties.setProperty(KEY_NOISE,
+				n.getIntegerDataNoiseProbability() + "," +
+				(int) n.getIntegerDataNoiseDelta() + "," +
+				n.getStringDataNoiseProbability() + "," +
+				n.getActivityNameNoiseProbability() + "," +
+				n.getTraceMissingHeadNoiseProbability() + "," +
+				(int) n.getTraceMissingHeadSize() + "," +
+				n.getTraceMissingTailNoiseProbability() + "," +
+				(int) n.getTraceMissingTailSize() + "," +
+				n.getTraceMissingEpisodeNoiseProbability() + "," +
+				(int) n.getTraceMissingEpisodeSize() + "," +
+				n.getPerturbedOrderNoiseProbability() + "," +
+				n.getDoubleEventNoiseProbability() + "," +
+				n.getAlienEventNoiseProbability());
+		File temp = new File(getFolder(), id + ".tmp");
+		try (OutputStream out = new FileOutputStream(temp)) {
+			properties.store(out, "PLG log generation checkpoint");
+		}
+		Files.move(temp.toPath(), getFile().toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * This method stores the snapshot of the simulated process
+	 *
+	 * @param process the simulated process
+	 * @return whether the snapshot has been stored
+	 */
+	public boolean storeProcess(Process process) {
+		return new ProcessSnapshotCache(getFolder()).store(id, process);
+	}
+
+	/**
+	 * This method loads the snapshot of the simulated process
+	 *
+	 * @return the process, or <tt>null</tt> if no valid snapshot is available
+	 */
+	public Process loadProcess() {
+		return new ProcessSnapshotCache(getFolder()).load(id);
+	}
+
+	/**
+	 * This method removes the checkpoint and the snapshot of its process
+	 */
+	public void delete() {
+		getFile().delete();
+		new File(getFolder(), id + ProcessSnapshotCache.SNAPSHOT_EXTENSION).delete();
+	}
+
+	public File getDestination() {
+		return destination;
+	}
+
+	public boolean isCompressed() {
+		return compressed;
+	}
+
+	public String getLogName() {
+		return logName;
+	}
+
+	public Long getSeed() {
+		return seed;
+	}
+
+	public SimulationConfiguration getConfiguration() {
+		return configuration;
+	}
+
+	/**
+	 * This method returns the number of traces written, which is also the
+	 * index of the next trace to generate
+	 *
+	 * @return the number of traces written
+	 */
+	public int getTracesWritten() {
+		return tracesWritten;
+	}
+
+	public void setTracesWritten(int tracesWritten) {
+		this.tracesWritten = tracesWritten;
+	}
+
+	/**
+	 * This method returns the position, in the log file, of the end of the
+	 * last trace written
+	 *
+	 * @return the position in bytes
+	 */
+	public long getOffset() {
+		return offset;
+	}
+
+	public void setOffset(long offset) {
+		this.offset = offset;
+	}
+
+	@Override
+	public String toString() {
+		return logName + " - " + destination.getName() + " (" + tracesWritten + " of " + configuration.getNumberOfTraces() + " traces)";
+	}
+
+	private File getFile() {
+		return new File(getFolder(), id + CHECKPOINT_EXTENSION);
+	}
+}
@@ -0,0 +1,107 @@
+package plg.gui.util;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * This class is a bounded, lock-free ring buffer for many producers and a
+ * single consumer. Producers never block: when the buffer is full, the new
+ * element is discarded and counted as dropped. The consumer drains the
+ * available elements in batches.
+ *
+ * <p> Producers reserve a slot by advancing the tail with a compare-and-set,
+ * then publish the element into the slot. The consumer takes the published
+ * elements in order, clearing their slots before advancing the head, so a
+ * slot is reused only after it has been consumed.
+ *
+ * @author Andrea Burattin
+ * @param <T> the type of the elements
+ */
+public class RingBuffer<T> {
+
+	private AtomicReferenceArray<T> slots;
+	private int mask;
+	private AtomicLong tail = new AtomicLong(0);
+	private volatile long head = 0;
+	private AtomicLong dropped = new AtomicLong(0);
+
+	/**
+	 * Basic constructor
+	 *
+	 * @param capacity the minimum capacity of the buffer, rounded up to a
+	 * power of two
+	 */
+	public RingBuffer(int capacity) {
+		int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+		this.slots = new AtomicReferenceArray<T>(size);
+		this.mask = size - 1;
+	}
+
+	/**
+	 * This method adds an element to the buffer. It can be called by any
+	 * thread and never blocks.
+	 *
+	 * @param element the element to add, not <tt>null</tt>
+	 * @return <tt>true</tt> if the element has been added, <tt>false</tt> if
+	 * the buffer was full and the element has been dropped
+	 */
+	public boolean offer(T element) {
+		long t;
+		do {
+			t = tail.get();
+			if (t - head >= slots.length()) {
+				dropped.incrementAndGet();
+				return false;
+			}
+		} while (!tail.compareAndSet(t, t + 1));
+		slots.lazySet((int) (t & mask), element);
+		return true;
+	}
+
+	/**
+	 * This method moves the available elements into the provided list. It
+	 * must be called always by the same thread.
+	 *
+	 * @param target the list receiving the elements
+	 * @param max the maximum number of elements to move
+	 * @return the number of elements moved
+	 */
+	public int drainTo(List<T> target, int max) {
+		long h = head;
+		int count = 0;
+		while (count < max) {
+			int index = (int) (h & mask);
+			T element = slots.get(index);
+			if (element == null) {
+				// either empty, or the producer did not publish yet
+				break;
+			}
+			slots.set(index, null);
+			target.add(element);
+			h++;
+			head = h;
+			count++;
+		}
+		return count;
+	}
+
+	/**
+	 * This method returns the number of elements dropped since the creation
+	 * of the buffer
+	 *
+	 * @return the number of dropped elements
+	 */
+	public long getDropped() {
+		return dropped.get();
+	}
+
+	/**
+	 * This method returns the capacity of the buffer
+	 *
+	 * @return the capacity
+	 */
+	public int getCapacity() {
+		return slots.length();
+	}
+}
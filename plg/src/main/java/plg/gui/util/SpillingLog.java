@@ -0,0 +1,377 @@
+package plg.gui.util;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.deckfour.xes.factory.XFactoryRegistry;
+import org.deckfour.xes.model.XTrace;
+import org.deckfour.xes.model.impl.XLogImpl;
+
+import plg.common.log.XesTraceReader;
+import plg.common.log.XesTraceWriter;
+
+/**
+ * This class is a log which keeps at most a fixed number of traces in memory.
+ * When the buffer of traces is full, its traces are appended to a temporary
+ * XES file and released; iterating the log reads the traces back from the
+ * file, one at a time. Therefore, the log can be given to any OpenXES
+ * serializer, without ever having all its traces in memory.
+ *
+ * <p> Only appending traces, reading them (preferably in order) and clearing
+ * the log are supported: all the other list operations throw an
+ * {@link UnsupportedOperationException}. Once the log is not needed anymore, its temporary
+ * file should be removed with {@link #dispose()}. Instances of this class are
+ * not thread safe.
+ *
+ * @author Andrea Burattin
+ */
+public class SpillingLog extends XLogImpl {
+
+	private static final long serialVersionUID = -3312706254883472371L;
+
+	private int maxTracesInMemory;
+	private List<XTrace> buffer;
+	private File spillFile = null;
+	private XesTraceWriter writer = null;
+	private int spilledTraces = 0;
+
+	private XesTraceReader cursor = null;
+	private int cursorIndex = 0;
+
+	/**
+	 * Basic constructor
+	 *
+	 * @param maxTracesInMemory the maximum number of traces kept in memory
+	 */
+	public SpillingLog(int maxTracesInMemory) {
+		super(XFactoryRegistry.instance().currentDefault().createAttributeMap());
+		this.maxTracesInMemory = Math.max(1, maxTracesInMemory);
+		this.buffer = new ArrayList<XTrace>(this.maxTracesInMemory);
+	}
+
+	@Override
+	public boolean add(XTrace trace) {
+		buffer.add(trace);
+		if (buffer.size() >= maxTracesInMemory) {
+			spill();
+		}
+		return true;
+	}
+
+	@Override
+	public boolean addAll(Collection<? extends XTrace> traces) {
+		for (XTrace trace : traces) {
+			add(trace);
+		}
+		return !traces.isEmpty();
+	}
+
+	@Override
+	public int size() {
+		return spilledTraces + buffer.size();
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	@Override
+	public XTrace get(int index) {
+		if (index < 0 || index >= size()) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+		}
+		if (index >= spilledTraces) {
+			return buffer.get(index - spilledTraces);
+		}
+		try {
+			if (cursor == null || index < cursorIndex) {
+				closeCursor();
+				cursor = openSpillFile();
+				cursorIndex = 0;
+			}
+			while (cursorIndex < index) {
+				cursor.next();
+				cursorIndex++;
+			}
+			cursorIndex++;
+			return cursor.next();
+		} catch (IOException | XMLStreamException e) {
+			throw new IllegalStateException("Unable to read the temporary log file", e);
+		}
+	}
+
+	@Override
+	public Iterator<XTrace> iterator() {
+		return new Iterator<XTrace>() {
+			private XesTraceReader reader = null;
+			private int spilled = spilledTraces;
+			private int next = 0;
+
+			@Override
+			public boolean hasNext() {
+				boolean hasNext = next < spilled + buffer.size();
+				if (!hasNext) {
+					close();
+				}
+				return hasNext;
+			}
+
+			@Override
+			public XTrace next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				if (next >= spilled) {
+					return buffer.get(next++ - spilled);
+				}
+				try {
+					if (reader == null) {
+						reader = openSpillFile();
+					}
+					next++;
+					return reader.next();
+				} catch (IOException | XMLStreamException e) {
+					throw new IllegalStateException("Unable to read the temporary log file", e);
+				}
+			}
+
+			private void close() {
+				if (reader != null) {
+					try {
+						reader.close();
+					} catch (IOException e) { }
+					reader = null;
+				}
+			}
+		};
+	}
+
+	@Override
+	public void forEach(Consumer<? super XTrace> action) {
+		for (XTrace trace : this) {
+			action.accept(trace);
+		}
+	}
+
+	@Override
+	public Spliterator<XTrace> spliterator() {
+		return Spliterators.spliterator(iterator(), size(), Spliterator.ORDERED);
+	}
+
+	@Override
+	public Stream<XTrace> stream() {
+		return StreamSupport.stream(spliterator(), false);
+	}
+
+	@Override
+	public ListIterator<XTrace> listIterator() {
+		throw new UnsupportedOperationException("Spilling logs can only be iterated sequentially");
+	}
+
+	@Override
+	public ListIterator<XTrace> listIterator(int index) {
+		throw new UnsupportedOperationException("Spilling logs can only be iterated sequentially");
+	}
+
+	@Override
+	public Stream<XTrace> parallelStream() {
+		throw new UnsupportedOperationException("Spilling logs can only be iterated sequentially");
+	}
+
+	@Override
+	public Object[] toArray() {
+		throw new UnsupportedOperationException("Spilling logs cannot be copied into memory");
+	}
+
+	@Override
+	public <T> T[] toArray(T[] array) {
+		throw new UnsupportedOperationException("Spilling logs cannot be copied into memory");
+	}
+
+	@Override
+	public List<XTrace> subList(int fromIndex, int toIndex) {
+		throw new UnsupportedOperationException("Spilling logs cannot be copied into memory");
+	}
+
+	@Override
+	public Object clone() {
+		throw new UnsupportedOperationException("Spilling logs cannot be copied into memory");
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		throw new UnsupportedOperationException("Spilling logs cannot be searched");
+	}
+
+	@Override
+	public boolean containsAll(Collection<?> c) {
+		throw new UnsupportedOperationException("Spilling logs cannot be searched");
+	}
+
+	@Override
+	public int indexOf(Object o) {
+		throw new UnsupportedOperationException("Spilling logs cannot be searched");
+	}
+
+	@Override
+	public int lastIndexOf(Object o) {
+		throw new UnsupportedOperationException("Spilling logs cannot be searched");
+	}
+
+	@Override
+	public void add(int index, XTrace trace) {
+		throw new UnsupportedOperationException("Traces can only be appended to spilling logs");
+	}
+
+	@Override
+	public boolean addAll(int index, Collection<? extends XTrace> traces) {
+		throw new UnsupportedOperationException("Traces can only be appended to spilling logs");
+	}
+
+	@Override
+	public XTrace set(int index, XTrace trace) {
+		throw new UnsupportedOperationException("Traces of spilling logs cannot be replaced");
+	}
+
+	@Override
+	public void replaceAll(UnaryOperator<XTrace> operator) {
+		throw new UnsupportedOperationException("Traces of spilling logs cannot be replaced");
+	}
+
+	@Override
+	public void sort(Comparator<? super XTrace> c) {
+		throw new UnsupportedOperationException("Traces of spilling logs cannot be replaced");
+	}
+
+	@Override
+	public XTrace remove(int index) {
+		throw new UnsupportedOperationException("Spilling logs can only be cleared");
+	}
+
+	@Override
+	public boolean remove(Object o) {
+		throw new UnsupportedOperationException("Spilling logs can only be cleared");
+	}
+
+	@Override
+	public boolean removeAll(Collection<?> c) {
+		throw new UnsupportedOperationException("Spilling logs can only be cleared");
+	}
+
+	@Override
+	public boolean retainAll(Collection<?> c) {
+		throw new UnsupportedOperationException("Spilling logs can only be cleared");
+	}
+
+	@Override
+	public boolean removeIf(Predicate<? super XTrace> filter) {
+		throw new UnsupportedOperationException("Spilling logs can only be cleared");
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		return this == o;
+	}
+
+	@Override
+	public int hashCode() {
+		return System.identityHashCode(this);
+	}
+
+	@Override
+	public void clear() {
+		dispose();
+		buffer.clear();
+	}
+
+	/**
+	 * This method returns the number of traces currently stored in the
+	 * temporary file
+	 *
+	 * @return the number of traces not in memory
+	 */
+	public int getSpilledTraces() {
+		return spilledTraces;
+	}
+
+	/**
+	 * This method removes the temporary file of the log. After this call,
+	 * only the traces still in memory are available.
+	 */
+	public void dispose() {
+		closeCursor();
+		if (writer != null) {
+			try {
+				writer.close();
+			} catch (IOException e) { }
+			writer = null;
+		}
+		if (spillFile != null) {
+			spillFile.delete();
+			spillFile = null;
+		}
+		spilledTraces = 0;
+	}
+
+	/**
+	 * This method appends the traces in memory to the temporary file
+	 */
+	private void spill() {
+		closeCursor();
+		try {
+			if (writer == null) {
+				spillFile = File.createTempFile("plg-log-", ".xes");
+				spillFile.deleteOnExit();
+				writer = new XesTraceWriter(new FileOutputStream(spillFile), false);
+				writer.startLog("spill");
+			}
+			for (XTrace trace : buffer) {
+				writer.write(trace);
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException("Unable to write the temporary log file", e);
+		}
+		spilledTraces += buffer.size();
+		buffer.clear();
+	}
+
+	/**
+	 * This method opens a new reader on the temporary file. The file is not
+	 * terminated, so only the first {@link #spilledTraces} traces can be read.
+	 *
+	 * @return the reader, positioned before the first trace
+	 * @throws IOException
+	 * @throws XMLStreamException
+	 */
+	private XesTraceReader openSpillFile() throws IOException, XMLStreamException {
+		writer.flush();
+		return XesTraceReader.open(spillFile);
+	}
+
+	private void closeCursor() {
+		if (cursor != null) {
+			try {
+				cursor.close();
+			} catch (IOException e) { }
+			cursor = null;
+		}
+	}
+}
@@ -17,10 +17,13 @@ public class MainToolbar extends JToolBar {
 
 	private static final long serialVersionUID = -2290088626676975817L;
 	private JButton newProcess = new JButton("New Process", ImagesCollection.ICON_NEW);
+	private JButton bulkProcesses = new JButton("Bulk", ImagesCollection.ICON_NEW);
 	private JButton openProcess = new JButton("Open", ImagesCollection.ICON_OPEN);
 	private JButton saveProcess = new JButton("Save As...", ImagesCollection.ICON_SAVE);
 	private JButton generateLog = new JButton("Generate Log", ImagesCollection.ICON_LOG);
 	private JButton generateStream = new JButton("Stream", ImagesCollection.ICON_STREAM);
+	private JButton injectNoise = new JButton("Add Noise", ImagesCollection.ICON_LOG);
+	private JButton resumeLog = new JButton("Resume Log", ImagesCollection.ICON_LOG);
 	private JToggleButton showConsole = new JToggleButton("", ImagesCollection.ICON_CONSOLE);
 	
 	public MainToolbar() {
@@ -28,11 +31,14 @@ public class MainToolbar extends JToolBar {
 		setBorder(BorderFactory.createEmptyBorder(3, 3, 3, 3));
 		
 		add(newProcess);
+		add(bulkProcesses);
 		add(openProcess);
 		add(saveProcess);
 		add(Box.createHorizontalGlue());
 		add(generateLog);
 		add(generateStream);
+		add(injectNoise);
+		add(resumeLog);
 		add(Box.createHorizontalStrut(20));
 		add(showConsole);
 		
@@ -73,6 +79,13 @@ public class MainToolbar extends JToolBar {
 			}
 		});
 		
+		bulkProcesses.addActionListener(new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				ApplicationController.instance().processes().bulkRandomProcesses();
+			}
+		});
+		
 		openProcess.addActionListener(new ActionListener() {
 			@Override
 			public void actionPerformed(ActionEvent e) {
@@ -101,6 +114,20 @@ public class MainToolbar extends JToolBar {
 			}
 		});
 		
+		injectNoise.addActionListener(new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				ApplicationController.instance().log().injectNoise();
+			}
+		});
+		
+		resumeLog.addActionListener(new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				ApplicationController.instance().log().resumeLog();
+			}
+		});
+		
 		showConsole.addActionListener(new ActionListener() {
 			@Override
 			public void actionPerformed(ActionEvent e) {
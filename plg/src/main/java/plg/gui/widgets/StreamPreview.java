@@ -9,16 +9,16 @@ import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.Rectangle;
 import java.awt.RenderingHints;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
 import java.awt.image.BufferedImage;
-import java.lang.ref.SoftReference;
 import java.text.DecimalFormat;
-import java.util.HashMap;
-import java.util.Map;
 import java.util.concurrent.ConcurrentLinkedDeque;
 
 import javax.swing.JFrame;
 import javax.swing.JPanel;
 import javax.swing.JSlider;
+import javax.swing.Timer;
 import javax.swing.event.ChangeEvent;
 import javax.swing.event.ChangeListener;
 
@@ -32,35 +32,141 @@ import plg.stream.configuration.StreamConfiguration;
 import plg.stream.model.StreamBuffer;
 import plg.stream.model.StreamEvent;
 import plg.stream.model.Streamer;
-import plg.utils.Pair;
 
+/**
+ * This widget shows a preview of the events of a {@link StreamBuffer}: each
+ * parallel instance is a channel, and each event is a point whose shade
+ * depends on how many events fall into the same point.
+ *
+ * <p> The preview is rendered into a back buffer, which is reused until the
+ * widget is resized, and the number of events per point is counted into
+ * primitive arrays, also reused. Rendering happens only on a timer, at most
+ * every {@link #REFRESH_INTERVAL} milliseconds, and only when
+ * {@link #refresh()} has been called or {@link #MAX_REFRESH_AGE} milliseconds
+ * have passed since the last rendering. Painting the widget just copies the
+ * back buffer.
+ *
+ * @author Andrea Burattin
+ */
 public class StreamPreview extends JPanel {
 
 	private static final long serialVersionUID = -4021692478818224626L;
 	private static DecimalFormat formatter = new DecimalFormat("#0.00");
 	
-	private SoftReference<BufferedImage> buffer = null;
+	/**
+	 * The minimum interval between two renderings, in milliseconds
+	 */
+	public static final int REFRESH_INTERVAL = 200;
+	/**
+	 * The maximum age of a rendering, in milliseconds, before the preview is
+	 * rendered again even if no refresh has been requested
+	 */
+	public static final int MAX_REFRESH_AGE = 1000;
+	
+	private static final int WINDOW = 30000;
+	private static final int SCALE_WIDTH = 30;
+	private static final Color LABEL_BACKGROUND = new Color(0, 0, 0, 200);
+	private static final GradientPaint SCALE_PAINT = new GradientPaint(SCALE_WIDTH / 2, 0, Color.WHITE, SCALE_WIDTH, 0, Color.RED);
+	private static final Color[] SHADES = new Color[64];
+	
+	static {
+		for (int i = 0; i < SHADES.length; i++) {
+			SHADES[i] = Color.getHSBColor(0f, i / (SHADES.length - 1f), 1f);
+		}
+	}
+	
 	private StreamBuffer streamBuffer;
 	private StreamConfiguration streamConfiguration;
+	private BufferedImage buffer = null;
+	private Font font = null;
+	private Timer refresher;
+	private boolean dirty = true;
+	private long lastRendering = 0;
+	
+	// events per point, indexed by channel * width + x
+	private int[] density = new int[0];
+	// the indexes of the points with at least one event
+	private int[] used = new int[0];
 	
 	public StreamPreview(StreamBuffer streamBuffer, StreamConfiguration streamConfiguration) {
 		this.streamBuffer = streamBuffer;
 		this.streamConfiguration = streamConfiguration;
+		this.refresher = new Timer(REFRESH_INTERVAL, new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				if (dirty || System.currentTimeMillis() - lastRendering > MAX_REFRESH_AGE) {
+					render();
+					repaint();
+				}
+			}
+		});
+	}
+	
+	/**
+	 * This method requests a new rendering of the preview, which will happen
+	 * on the next tick of the refresh timer
+	 */
+	public void refresh() {
+		dirty = true;
+	}
+	
+	@Override
+	public void addNotify() {
+		super.addNotify();
+		refresher.start();
+	}
+	
+	@Override
+	public void removeNotify() {
+		refresher.stop();
+		super.removeNotify();
 	}
 	
 	@Override
 	protected void paintComponent(Graphics g) {
+		if (buffer == null || buffer.getWidth() != getWidth() || buffer.getHeight() != getHeight()) {
+			render();
+		}
+		if (buffer == null) {
+			return;
+		}
+		Rectangle clip = g.getClipBounds();
+		g.drawImage(buffer, clip.x, clip.y, clip.x + clip.width, clip.y + clip.height,
+				clip.x, clip.y, clip.x + clip.width, clip.y + clip.height, null);
+	}
+	
+	/**
+	 * This method renders the preview into the back buffer. The back buffer
+	 * is recreated only if the size of the widget changed.
+	 */
+	private void render() {
 		int height = this.getHeight();
 		int width = this.getWidth();
+		int channels = streamConfiguration.maximumParallelInstances;
+		dirty = false;
+		lastRendering = System.currentTimeMillis();
+		if (width <= 0 || height <= 0 || channels <= 0) {
+			return;
+		}
+		
+		// back buffer and counters, reallocated only when the size changes
+		if (buffer == null || buffer.getWidth() != width || buffer.getHeight() != height) {
+			buffer = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		}
+		int points = channels * (width + 1);
+		if (density.length != points) {
+			density = new int[points];
+			used = new int[points];
+		}
 		
-		// create new back buffer
-		buffer = new SoftReference<BufferedImage>(new BufferedImage(width, height, BufferedImage.TRANSLUCENT));
-		Graphics2D g2d = buffer.get().createGraphics();
+		Graphics2D g2d = buffer.createGraphics();
 		g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
 		
 		// font stuff
-		Font newFont = g2d.getFont().deriveFont(11f);
-		g2d.setFont(newFont);
+		if (font == null) {
+			font = g2d.getFont().deriveFont(11f);
+		}
+		g2d.setFont(font);
 		FontMetrics fm = g2d.getFontMetrics();
 		
 		// background
@@ -69,8 +175,8 @@ public class StreamPreview extends JPanel {
 		
 		// draw the channels
 		g2d.setColor(Color.DARK_GRAY);
-		int channelHeight = Math.min(height / streamConfiguration.maximumParallelInstances, 26);
-		for (int i = 0; i < streamConfiguration.maximumParallelInstances; i++) {
+		int channelHeight = Math.min(height / channels, 26);
+		for (int i = 0; i < channels; i++) {
 			int y = (channelHeight * i);
 			g2d.fillRect(0, y, width, channelHeight - 1);
 		}
@@ -88,58 +194,59 @@ public class StreamPreview extends JPanel {
 			
 			// get the timestamp of the first event
 			long firstEventTime = Long.MAX_VALUE;
-			for (int i = 0; i < streamConfiguration.maximumParallelInstances; i++) {
-				if (!streamBuffer.get(i).isEmpty()) {
-					firstEventTime = Math.min(firstEventTime, streamBuffer.get(i).peek().getDate().getTime());
+			for (int i = 0; i < channels; i++) {
+				StreamEvent first = streamBuffer.get(i).peek();
+				if (first != null) {
+					firstEventTime = Math.min(firstEventTime, first.getDate().getTime());
 				}
 			}
 			
-			// draw the events
+			// count the events of each point
 			int eventsIncluded = 0;
 			long secLastEvent = 0;
 			boolean allEventsIncluded = true;
-			int eventSize = channelHeight - 8;
-			if (eventSize < 5) {
-				eventSize = channelHeight - 2;
-			}
-			// compute events coordinates
-			float maxEventsPerPoint = 0;
-			Map<Pair<Integer, Integer>, Integer> pointsCoords = new HashMap<Pair<Integer,Integer>, Integer>();
-			for (int i = 0; i < streamConfiguration.maximumParallelInstances; i++) {
-				int y = (channelHeight * i) + (channelHeight / 2) - (eventSize / 2);
+			int maxEventsPerPoint = 0;
+			int usedPoints = 0;
+			for (int i = 0; i < channels; i++) {
 				ConcurrentLinkedDeque<StreamEvent> queue = streamBuffer.get(i);
 				for (StreamEvent e : queue) {
 					long eventTime = e.getDate().getTime();
 					long timeRelative = (long) ((eventTime - firstEventTime) * streamConfiguration.timeMultiplier);
 					secLastEvent = Math.max(secLastEvent, timeRelative);
-					int x = (int) (width * timeRelative /30000);
+					// events enqueued after the first timestamp was read may be older
+					int x = Math.max(0, (int) (width * timeRelative / WINDOW));
 					if (x <= width) {
-						// manage multiple events into the same point
-						Pair<Integer, Integer> coords = new Pair<Integer, Integer>(x, y);
-						int points = 1;
-						if (pointsCoords.containsKey(coords)) {
-							points += pointsCoords.get(coords);
+						int point = i * (width + 1) + x;
+						if (density[point] == 0) {
+							used[usedPoints++] = point;
 						}
-						pointsCoords.put(coords, points);
-						maxEventsPerPoint = Math.max(maxEventsPerPoint, points);
+						density[point]++;
+						maxEventsPerPoint = Math.max(maxEventsPerPoint, density[point]);
 						eventsIncluded++;
 					} else {
 						allEventsIncluded = false;
 					}
 				}
 			}
-			// draw the actual pixels
-			for (Pair<Integer, Integer> coords : pointsCoords.keySet()) {
-				int x = coords.getFirst();
-				int y = coords.getSecond();
+			
+			// draw the actual points, resetting the counters for the next rendering
+			int eventSize = channelHeight - 8;
+			if (eventSize < 5) {
+				eventSize = channelHeight - 2;
+			}
+			for (int p = 0; p < usedPoints; p++) {
+				int point = used[p];
+				int x = point % (width + 1);
+				int y = (channelHeight * (point / (width + 1))) + (channelHeight / 2) - (eventSize / 2);
 				
 				// compute the shade of the point
-				float prop = 0;
+				int shade = 0;
 				if (maxEventsPerPoint > 1) {
-					prop = ((pointsCoords.get(coords) - 1f) / (maxEventsPerPoint - 1f));
+					shade = (density[point] - 1) * (SHADES.length - 1) / (maxEventsPerPoint - 1);
 				}
+				density[point] = 0;
 				// draw the circle with the provided color
-				g2d.setColor(Color.getHSBColor(0f, prop, 1f));
+				g2d.setColor(SHADES[shade]);
 				g2d.fillOval(x, y, eventSize, eventSize);
 			}
 			
@@ -150,39 +257,34 @@ public class StreamPreview extends JPanel {
 			
 			// draw scale
 			if (maxEventsPerPoint > 1) {
-				int scaleWidth = 30;
 				int scaleHeight = fm.getHeight() - 4;
-				String longest = ((int) maxEventsPerPoint) + " events";
+				String longest = maxEventsPerPoint + " events";
 				
-				g2d.setColor(new Color(0, 0, 0, 200));
-				g2d.fillRoundRect(marginLeft, height - scaleHeight - 4 - marginBottom, scaleWidth + 10 + fm.stringWidth(longest) + 2, fm.getHeight(), 10, 10);
+				g2d.setColor(LABEL_BACKGROUND);
+				g2d.fillRoundRect(marginLeft, height - scaleHeight - 4 - marginBottom, SCALE_WIDTH + 10 + fm.stringWidth(longest) + 2, fm.getHeight(), 10, 10);
 				
-				g2d.setPaint(new GradientPaint(scaleWidth / 2, 0, Color.WHITE, scaleWidth, 0, Color.RED));
-				g2d.fillRoundRect(marginLeft + 8, height - scaleHeight - marginBottom - 1, scaleWidth, scaleHeight - 3, 5, 5);
+				g2d.setPaint(SCALE_PAINT);
+				g2d.fillRoundRect(marginLeft + 8, height - scaleHeight - marginBottom - 1, SCALE_WIDTH, scaleHeight - 3, 5, 5);
 				
 				g2d.setColor(Color.WHITE);
 				g2d.drawString("1", marginLeft + 2, height - 4 - marginBottom);
-				g2d.drawString(longest, marginLeft + scaleWidth + 10, height - 4 - marginBottom);
+				g2d.drawString(longest, marginLeft + SCALE_WIDTH + 10, height - 4 - marginBottom);
 			}
 			
-			// draw total frequency label
+			// draw total frequency label and speed
 			String eventsIncludedText = eventsIncluded + " events in 30 secs";
-			if (allEventsIncluded) {
-				long tot = 30000 * eventsIncluded / secLastEvent;
+			String speed = formatter.format(eventsIncluded / 30d) + " ev/sec";
+			if (allEventsIncluded && secLastEvent > 0) {
+				long tot = WINDOW * eventsIncluded / secLastEvent;
 				eventsIncludedText = "About " + tot + " events in 30 secs (estimated value)";
+				speed = "About " + formatter.format(tot/30d) + " ev/sec";
 			}
-			g2d.setColor(new Color(0, 0, 0, 200));
+			g2d.setColor(LABEL_BACKGROUND);
 			g2d.fillRoundRect(width - fm.stringWidth(eventsIncludedText) - 2 - marginRight, marginTop, fm.stringWidth(eventsIncludedText) + 3, fm.getHeight(), 10, 10);
 			g2d.setColor(Color.WHITE);
 			g2d.drawString(eventsIncludedText, width - fm.stringWidth(eventsIncludedText) - marginRight, fm.getHeight() - 4 + marginTop);
 			
-			// draw speed
-			String speed = formatter.format(eventsIncluded / 30d) + " ev/sec";
-			if (allEventsIncluded) {
-				long tot = 30000 * eventsIncluded / secLastEvent;
-				speed = "About " + formatter.format(tot/30d) + " ev/sec";
-			}
-			g2d.setColor(new Color(0, 0, 0, 200));
+			g2d.setColor(LABEL_BACKGROUND);
 			g2d.fillRoundRect(width - fm.stringWidth(speed) - 2 - marginRight, height - fm.getHeight() - marginBottom, fm.stringWidth(speed) + 3, fm.getHeight(), 10, 10);
 			g2d.setColor(Color.WHITE);
 			g2d.drawString(speed, width - fm.stringWidth(speed) - marginRight, height - 4 - marginBottom);
@@ -190,9 +292,6 @@ public class StreamPreview extends JPanel {
 		
 		// final paint stuff
 		g2d.dispose();
-		Rectangle clip = g.getClipBounds();
-		g.drawImage(buffer.get(), clip.x, clip.y, clip.x + clip.width, clip.y + clip.height,
-				clip.x, clip.y, clip.x + clip.width, clip.y + clip.height, null);
 	}
 	
 	
@@ -239,7 +338,7 @@ public class StreamPreview extends JPanel {
 //				double val = (double) sl.getValue() / 10000d;
 //				//System.out.println(val);
 //				sc.timeMultiplier = val;
-//				sp.updateUI();
+//				sp.refresh();
 //			}
 //		});
 //		sl.setValue(20);
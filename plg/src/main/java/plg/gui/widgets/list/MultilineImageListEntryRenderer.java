@@ -3,8 +3,6 @@ package plg.gui.widgets.list;
 import org.ocpsoft.prettytime.PrettyTime;
 
 import java.awt.*;
-import java.time.Duration;
-import java.time.Instant;
 
 import javax.swing.*;
 import javax.swing.border.Border;
@@ -31,6 +29,7 @@ public class MultilineImageListEntryRenderer<E>
 	private JLabel labelLine1;
 	private JLabel labelLine2;
 	private JLabel labelLine3;
+	private PrettyTime prettyTime = new PrettyTime();
 
 	
 	/**
@@ -90,9 +89,7 @@ public class MultilineImageListEntryRenderer<E>
 
 		MultilineImageListEntry entry = (MultilineImageListEntry) value;
 
-		PrettyTime p = new PrettyTime();
-		String dateDifference = p.format(entry.getCreationDate());
-		String difference = String.valueOf(Duration.between(entry.getCreationDate(), Instant.now()));
+		String dateDifference = prettyTime.format(entry.getCreationDate());
 
 		labelIcon.setIcon(entry.getIcon());
 
@@ -0,0 +1,118 @@
+package plg.gui.widgets.list;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.swing.AbstractListModel;
+
+/**
+ * This class is the model of a list of {@link MultilineImageListEntry}, with
+ * the most recent entry first. Entries are stored in insertion order, so
+ * adding an entry does not move the others, and they are indexed by id.
+ * Each change fires an event covering only the affected rows.
+ *
+ * <p> This model is not thread safe, and should be used from the event
+ * dispatch thread only.
+ *
+ * @author Andrea Burattin
+ */
+public class MultilineImageListModel extends AbstractListModel<MultilineImageListEntry> {
+
+	private static final long serialVersionUID = -2471937510622856930L;
+
+	private List<MultilineImageListEntry> entries = new ArrayList<MultilineImageListEntry>();
+	private Map<Integer, MultilineImageListEntry> entriesById = new HashMap<Integer, MultilineImageListEntry>();
+
+	@Override
+	public int getSize() {
+		return entries.size();
+	}
+
+	@Override
+	public MultilineImageListEntry getElementAt(int index) {
+		return entries.get(entries.size() - 1 - index);
+	}
+
+	/**
+	 * This method adds a new entry on top of the list
+	 *
+	 * @param entry the new entry
+	 * @throws IllegalArgumentException if an entry with the same id is already
+	 * in the list
+	 */
+	public void addFirst(MultilineImageListEntry entry) {
+		if (entriesById.containsKey(entry.getId())) {
+			throw new IllegalArgumentException("An entry with id " + entry.getId() + " is already in the list");
+		}
+		entries.add(entry);
+		entriesById.put(entry.getId(), entry);
+		fireIntervalAdded(this, 0, 0);
+	}
+
+	/**
+	 * This method removes the entry at the provided position
+	 *
+	 * @param index the position of the entry in the list
+	 * @return the removed entry
+	 */
+	public MultilineImageListEntry remove(int index) {
+		MultilineImageListEntry entry = entries.remove(entries.size() - 1 - index);
+		entriesById.remove(entry.getId());
+		fireIntervalRemoved(this, index, index);
+		return entry;
+	}
+
+	/**
+	 * This method returns the entry with the provided id
+	 *
+	 * @param id the id of the entry
+	 * @return the entry, or <tt>null</tt> if no entry has the provided id
+	 */
+	public MultilineImageListEntry getById(int id) {
+		return entriesById.get(id);
+	}
+
+	/**
+	 * This method returns the position of the entry with the provided id
+	 *
+	 * @param id the id of the entry
+	 * @return the position of the entry, or -1 if no entry has the provided id
+	 */
+	public int indexOfId(int id) {
+		MultilineImageListEntry entry = entriesById.get(id);
+		if (entry == null) {
+			return -1;
+		}
+		for (int i = entries.size() - 1; i >= 0; i--) {
+			if (entries.get(i) == entry) {
+				return entries.size() - 1 - i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * This method returns a read-only view of the items of the entries, in
+	 * the order of the list. The view reflects later changes of the model.
+	 *
+	 * @param type the type of the items
+	 * @param <T> the type of the items
+	 * @return the view of the items
+	 */
+	public <T> List<T> getItems(final Class<T> type) {
+		return new AbstractList<T>() {
+			@Override
+			public T get(int index) {
+				return type.cast(getElementAt(index).getItem());
+			}
+
+			@Override
+			public int size() {
+				return entries.size();
+			}
+		};
+	}
+}
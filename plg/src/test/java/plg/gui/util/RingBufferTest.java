@@ -0,0 +1,118 @@
+package plg.gui.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+public class RingBufferTest {
+
+	@Test
+	public void capacityIsRoundedToPowerOfTwo() {
+		assertEquals(2, new RingBuffer<String>(1).getCapacity());
+		assertEquals(4, new RingBuffer<String>(4).getCapacity());
+		assertEquals(8, new RingBuffer<String>(5).getCapacity());
+		assertEquals(4096, new RingBuffer<String>(4096).getCapacity());
+	}
+
+	@Test
+	public void elementsAreDrainedInOrder() {
+		RingBuffer<Integer> buffer = new RingBuffer<Integer>(8);
+		for (int i = 0; i < 5; i++) {
+			assertTrue(buffer.offer(i));
+		}
+		List<Integer> target = new ArrayList<Integer>();
+		assertEquals(3, buffer.drainTo(target, 3));
+		assertEquals(Arrays.asList(0, 1, 2), target);
+		assertEquals(2, buffer.drainTo(target, 10));
+		assertEquals(Arrays.asList(0, 1, 2, 3, 4), target);
+		assertEquals(0, buffer.drainTo(target, 10));
+	}
+
+	@Test
+	public void fullBufferDropsElements() {
+		RingBuffer<Integer> buffer = new RingBuffer<Integer>(4);
+		for (int i = 0; i < 4; i++) {
+			assertTrue(buffer.offer(i));
+		}
+		assertFalse(buffer.offer(4));
+		assertFalse(buffer.offer(5));
+		assertEquals(2, buffer.getDropped());
+
+		List<Integer> target = new ArrayList<Integer>();
+		buffer.drainTo(target, 1);
+		assertTrue(buffer.offer(6));
+		buffer.drainTo(target, 10);
+		assertEquals(Arrays.asList(0, 1, 2, 3, 6), target);
+		assertEquals(2, buffer.getDropped());
+	}
+
+	@Test
+	public void slotsAreReused() {
+		RingBuffer<Integer> buffer = new RingBuffer<Integer>(4);
+		List<Integer> target = new ArrayList<Integer>();
+		for (int i = 0; i < 100; i++) {
+			assertTrue(buffer.offer(i));
+			if (i % 3 == 2) {
+				buffer.drainTo(target, 10);
+			}
+		}
+		buffer.drainTo(target, 10);
+		assertEquals(100, target.size());
+		for (int i = 0; i < 100; i++) {
+			assertEquals(i, (int) target.get(i));
+		}
+		assertEquals(0, buffer.getDropped());
+	}
+
+	@Test
+	public void concurrentProducers() throws Exception {
+		final int producers = 4;
+		final int elements = 20000;
+		final RingBuffer<long[]> buffer = new RingBuffer<long[]>(64);
+		final AtomicLong accepted = new AtomicLong(0);
+		final CountDownLatch done = new CountDownLatch(producers);
+		for (int p = 0; p < producers; p++) {
+			final int producer = p;
+			new Thread(new Runnable() {
+				@Override
+				public void run() {
+					for (int i = 0; i < elements; i++) {
+						if (buffer.offer(new long[] { producer, i })) {
+							accepted.incrementAndGet();
+						}
+					}
+					done.countDown();
+				}
+			}).start();
+		}
+
+		// each producer's elements are received once, in order
+		long[] last = new long[producers];
+		Arrays.fill(last, -1);
+		long received = 0;
+		List<long[]> batch = new ArrayList<long[]>();
+		while (done.getCount() > 0 || received < accepted.get()) {
+			batch.clear();
+			buffer.drainTo(batch, 16);
+			for (long[] element : batch) {
+				int producer = (int) element[0];
+				assertTrue(element[1] > last[producer]);
+				last[producer] = element[1];
+				received++;
+			}
+			if (batch.isEmpty()) {
+				Thread.yield();
+			}
+		}
+		assertEquals(accepted.get(), received);
+		assertEquals((long) producers * elements, accepted.get() + buffer.getDropped());
+	}
+}
@@ -0,0 +1,169 @@
+package plg.gui.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+import org.deckfour.xes.extension.std.XConceptExtension;
+import org.deckfour.xes.extension.std.XTimeExtension;
+import org.deckfour.xes.factory.XFactory;
+import org.deckfour.xes.factory.XFactoryRegistry;
+import org.deckfour.xes.model.XAttribute;
+import org.deckfour.xes.model.XAttributeMap;
+import org.deckfour.xes.model.XEvent;
+import org.deckfour.xes.model.XTrace;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SpillingLogTest {
+
+	private static final XFactory FACTORY = XFactoryRegistry.instance().currentDefault();
+
+	private SpillingLog log;
+
+	@Before
+	public void createLog() {
+		log = new SpillingLog(4);
+	}
+
+	@After
+	public void disposeLog() {
+		log.dispose();
+	}
+
+	@Test
+	public void spilledTracesAreReadBack() {
+		List<String> expected = fill(0, 10);
+		assertEquals(10, log.size());
+		assertEquals(8, log.getSpilledTraces());
+		assertEquals(expected, read());
+		// the log can be iterated more than once
+		assertEquals(expected, read());
+	}
+
+	@Test
+	public void randomAccess() {
+		List<String> expected = fill(0, 10);
+		int[] indexes = new int[] { 5, 6, 2, 9, 0, 7, 7, 8 };
+		for (int index : indexes) {
+			assertEquals(expected.get(index), describe(log.get(index)));
+		}
+	}
+
+	@Test
+	public void tracesAddedAfterReading() {
+		List<String> expected = fill(0, 6);
+		assertEquals(expected.get(1), describe(log.get(1)));
+		expected.addAll(fill(6, 7));
+		assertEquals(13, log.size());
+		assertEquals(12, log.getSpilledTraces());
+		assertEquals(expected.get(3), describe(log.get(3)));
+		assertEquals(expected, read());
+	}
+
+	@Test
+	public void clearRemovesAllTraces() {
+		fill(0, 10);
+		log.clear();
+		assertTrue(log.isEmpty());
+		assertEquals(0, log.getSpilledTraces());
+		assertFalse(log.iterator().hasNext());
+		List<String> expected = fill(0, 5);
+		assertEquals(expected, read());
+	}
+
+	@Test
+	public void streamsReadSpilledTraces() {
+		List<String> expected = fill(0, 10);
+		final List<String> read = new ArrayList<String>();
+		log.forEach(new Consumer<XTrace>() {
+			@Override
+			public void accept(XTrace trace) {
+				read.add(describe(trace));
+			}
+		});
+		assertEquals(expected, read);
+		assertEquals(10, log.stream().count());
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void toArrayIsUnsupported() {
+		fill(0, 10);
+		log.toArray();
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void containsIsUnsupported() {
+		fill(0, 10);
+		log.contains(log.get(0));
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void removeIsUnsupported() {
+		fill(0, 10);
+		log.remove(0);
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void cloneIsUnsupported() {
+		fill(0, 10);
+		log.clone();
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void indexOutOfBounds() {
+		fill(0, 5);
+		log.get(5);
+	}
+
+	private List<String> fill(int first, int traces) {
+		List<String> descriptions = new ArrayList<String>();
+		for (int i = first; i < first + traces; i++) {
+			XTrace trace = FACTORY.createTrace();
+			XConceptExtension.instance().assignName(trace, "case_" + i);
+			for (int j = 0; j < 3; j++) {
+				XEvent event = FACTORY.createEvent();
+				XConceptExtension.instance().assignName(event, "activity & <" + j + ">");
+				XTimeExtension.instance().assignTimestamp(event, new Date(1474185600000l + i * 60000 + j * 1000));
+				event.getAttributes().put("amount", FACTORY.createAttributeDiscrete("amount", i * j, null));
+				event.getAttributes().put("ratio", FACTORY.createAttributeContinuous("ratio", i / 7d, null));
+				trace.add(event);
+			}
+			descriptions.add(describe(trace));
+			log.add(trace);
+		}
+		return descriptions;
+	}
+
+	private List<String> read() {
+		List<String> descriptions = new ArrayList<String>();
+		for (XTrace trace : log) {
+			descriptions.add(describe(trace));
+		}
+		return descriptions;
+	}
+
+	private static String describe(XTrace trace) {
+		StringBuilder sb = new StringBuilder(describe(trace.getAttributes()));
+		for (XEvent event : trace) {
+			sb.append(";").append(describe(event.getAttributes()));
+		}
+		return sb.toString();
+	}
+
+	private static String describe(XAttributeMap attributes) {
+		Map<String, String> values = new TreeMap<String, String>();
+		for (XAttribute attribute : attributes.values()) {
+			values.put(attribute.getKey(), attribute.getClass().getSimpleName() + ":" + attribute.toString());
+		}
+		return values.toString();
+	}
+}